@@ -0,0 +1,6 @@
+# Builds the JMH benchmarks and runs them with the GC profiler, which reports the allocation rate
+# The results are written as JSON to bench-results/<commit>.json so that they can be compared between versions
+# Any arguments are passed to JMH, i.e. ./bench.sh SortBenchmark -p size=1000000
+mvn -B -q -DskipTests package || exit 1
+mkdir -p bench-results
+java -jar benchmarks/target/benchmarks.jar -prof gc -rf json -rff bench-results/$(git rev-parse --short HEAD).json "$@"
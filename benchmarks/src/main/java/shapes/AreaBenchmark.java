@@ -0,0 +1,90 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the top-k and area range queries on a million shapes right after a shape was added and another removed,
+ * answered by the area tree against the sorted area order, which has to merge every change into a sorted array first
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class AreaBenchmark
+{
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "tree", "order" })
+    public String index;
+
+    private ShapeList shapes;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        shapes = Shapes.random(size, 10_000, 42);
+        random = new Random(7);
+        shapes.largestByArea(1);
+        shapes.areaOrder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        shapes.close();
+    }
+
+    /** Replaces a random shape by a new one, so the query sees a changed list */
+    private void change()
+    {
+        shapes.swapRemoveShapeAtIndex(random.nextInt(shapes.size()));
+        shapes.addCircle(random.nextInt(10_000), random.nextInt(10_000), 1 + random.nextInt(10));
+    }
+
+    @Benchmark
+    public int[] top()
+    {
+        change();
+        if (index.equals("tree"))
+        {
+            return shapes.largestByArea(100);
+        }
+
+        int[] order = shapes.areaOrder();
+        int[] top = new int[100];
+        for (int k = 0; k < top.length; k++)
+        {
+            top[k] = order[shapes.size() - 1 - k];
+        }
+
+        return top;
+    }
+
+    @Benchmark
+    public int[] area()
+    {
+        change();
+        if (index.equals("tree"))
+        {
+            return shapes.shapesWithAreaBetween(50, 50.5);
+        }
+
+        IntList found = new IntList(16);
+        ShapeCursor cursor = shapes.cursor().areaBetween(50, 50.5);
+        while (cursor.next())
+        {
+            found.add(cursor.index());
+        }
+
+        return found.toArray();
+    }
+}
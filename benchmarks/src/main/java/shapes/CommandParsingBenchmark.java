@@ -0,0 +1,64 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares CommandParser with the frozen copy of the legacy Command.tryParse parser in LegacyCommand, on a mix of valid 
+ * and on a mix of invalid input. Run it with -prof gc (as bench.sh does) to compare their allocations as well.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark
+{
+    static final String[] VALID = 
+    {
+        "circle 1.5 2.25 3", "rectangle 10 20 30.5 40", "move 3 -1.25 4", "remove 7", "sort x", "show", "window 0 0 100 100"
+    };
+
+    static final String[] INVALID = 
+    {
+        "circle 1 2", "rectangle a b c d", "move", "remove 1.5", "sort z", "bogus 1 2 3", ""
+    };
+
+    @Param({ "valid", "invalid" })
+    public String mix;
+
+    private String[] inputs;
+    private int next;
+    private CommandParser parser;
+
+    @Setup
+    public void setup()
+    {
+        inputs = mix.equals("valid") ? VALID : INVALID;
+        next = 0;
+        parser = new CommandParser();
+    }
+
+    private String nextInput()
+    {
+        next = next + 1 == inputs.length ? 0 : next + 1;
+        return inputs[next];
+    }
+
+    @Benchmark
+    public LegacyCommand.Result<Optional<LegacyCommand>> tryParse()
+    {
+        return LegacyCommand.tryParse(nextInput());
+    }
+
+    @Benchmark
+    public boolean commandParser()
+    {
+        return parser.parse(nextInput());
+    }
+}
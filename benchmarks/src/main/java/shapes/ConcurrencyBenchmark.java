@@ -0,0 +1,97 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Measures the throughput of ConcurrentShapeList under a mixed workload of moves, adds, removes 
+ * and snapshot reads with 1, 4, 16 and 64 threads sharing one list
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrencyBenchmark
+{
+    static final int INITIAL_SHAPES = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class SharedList
+    {
+        ConcurrentShapeList shapeList;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            shapeList = new ConcurrentShapeList(Shapes.random(INITIAL_SHAPES, 1000.0, 1));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom
+    {
+        Random random;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            random = new Random(Thread.currentThread().getId());
+        }
+    }
+
+    /** 40% moves, 20% adds, 20% removes near the end of the list and 20% snapshot reads */
+    static Object mixedOperation(ConcurrentShapeList shapeList, Random random)
+    {
+        int operation = random.nextInt(100);
+        int size = Math.max(1, shapeList.size());
+        if (operation < 40)
+        {
+            return shapeList.moveShapeAtIndex(random.nextInt(size), 1.0, 1.0);
+        }
+        else if (operation < 60)
+        {
+            return shapeList.addRectangle(random.nextDouble() * 1000, random.nextDouble() * 1000, 5.0, 5.0);
+        }
+        else if (operation < 80)
+        {
+            return shapeList.removeShapeAtIndex(size - 1 - random.nextInt(Math.min(size, 16)));
+        }
+        else
+        {
+            return shapeList.snapshot();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object threads1(SharedList shared, ThreadRandom random)
+    {
+        return mixedOperation(shared.shapeList, random.random);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object threads4(SharedList shared, ThreadRandom random)
+    {
+        return mixedOperation(shared.shapeList, random.random);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object threads16(SharedList shared, ThreadRandom random)
+    {
+        return mixedOperation(shared.shapeList, random.random);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object threads64(SharedList shared, ThreadRandom random)
+    {
+        return mixedOperation(shared.shapeList, random.random);
+    }
+}
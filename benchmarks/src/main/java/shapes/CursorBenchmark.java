@@ -0,0 +1,100 @@
+package shapes;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures filtered reads of a million shapes through a cursor against materializing every shape and testing it,
+ * which was the only way before, and streaming exports of the whole list to CSV and to the binary format
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class CursorBenchmark
+{
+    @Param({ "1000000" })
+    public int size;
+
+    @Param({ "window", "area" })
+    public String filter;
+
+    private ShapeList shapes;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        shapes = Shapes.random(size, 10_000, 42);
+        directory = Files.createTempDirectory("export");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        shapes.close();
+        Files.deleteIfExists(directory.resolve("shapes.csv"));
+        Files.deleteIfExists(directory.resolve("shapes.shapes"));
+        Files.delete(directory);
+    }
+
+    private boolean matches(IShape shape)
+    {
+        if (filter.equals("area"))
+        {
+            return shape.Area() >= 50 && shape.Area() <= 50.5;
+        }
+
+        return shape.LeftBorder() <= 600 && shape.RightBorder() >= 500 && shape.BottomBorder() <= 600 && shape.TopBorder() >= 500;
+    }
+
+    /** Sums the areas of the matching shapes, found by the cursor */
+    @Benchmark
+    public double cursor()
+    {
+        ShapeCursor cursor = filter.equals("area") ? shapes.cursor().areaBetween(50, 50.5) : shapes.cursor().within(500, 500, 600, 600);
+        double sum = 0;
+        while (cursor.next())
+        {
+            sum += cursor.area();
+        }
+
+        return sum;
+    }
+
+    /** Sums the areas of the matching shapes, found by materializing every shape */
+    @Benchmark
+    public double scan()
+    {
+        double sum = 0;
+        for (int i = 0; i < shapes.size(); i++)
+        {
+            IShape shape = shapes.shapeAt(i);
+            if (matches(shape))
+            {
+                sum += shape.Area();
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException
+    {
+        return ShapeExport.write(shapes.cursor(), directory.resolve("shapes.csv"));
+    }
+
+    @Benchmark
+    public long exportBinary() throws IOException
+    {
+        return ShapeExport.write(shapes.cursor(), directory.resolve("shapes.shapes"));
+    }
+}
@@ -0,0 +1,79 @@
+package shapes;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares rendering shapes by string concatenation, which builds a String per double and per shape, against appendTo 
+ * into a reused StringBuilder. Run with -prof gc to see the bytes allocated per operation. The typed values have 
+ * a few decimals, like the coordinates entered in the editor, while the random values need all 17 digits and take 
+ * the JDK fallback of the formatter.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark
+{
+    private static final int SHAPES = 1000;
+
+    @Param({ "typed", "random" })
+    public String values;
+
+    private IShape[] shapes;
+    private StringBuilder builder;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(14);
+        shapes = new IShape[SHAPES];
+        for (int i = 0; i < SHAPES; i++)
+        {
+            double x = next(random);
+            double y = next(random);
+            shapes[i] = i % 2 == 0 ? new Circle(x, y, Math.abs(next(random))) : new Rectangle(x, y, Math.abs(next(random)), Math.abs(next(random)));
+        }
+
+        builder = new StringBuilder(SHAPES * 80);
+    }
+
+    private double next(Random random)
+    {
+        return values.equals("typed") ? (random.nextInt(200001) - 100000) / 100.0 : (random.nextDouble() - 0.5) * 20_000.0;
+    }
+
+    /** The way shapes were rendered before: toString concatenates a String per double */
+    @Benchmark
+    public int concatenation()
+    {
+        int length = 0;
+        for (IShape shape : shapes)
+        {
+            String line = " |-- " + shape;
+            length += line.length();
+        }
+
+        return length;
+    }
+
+    @Benchmark
+    public int appendTo()
+    {
+        int length = 0;
+        for (IShape shape : shapes)
+        {
+            builder.setLength(0);
+            shape.appendTo(builder.append(" |-- "));
+            length += builder.length();
+        }
+
+        return length;
+    }
+}
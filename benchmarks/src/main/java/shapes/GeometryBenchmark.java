@@ -0,0 +1,159 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares the bulk geometry kernels over the columns of a shape list with the loop over shape objects they replace, 
+ * which makes a virtual call per shape. The kernels run with the Vector API when the jdk.incubator.vector module is 
+ * added, which the fork does, and as plain loops otherwise.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx3g", "--add-modules", "jdk.incubator.vector" })
+public class GeometryBenchmark
+{
+    @Param({ "10000000" })
+    public int size;
+
+    @Param({ "vector", "scalar" })
+    public String kernels;
+
+    private IShape[] objects;
+    private ShapeColumns columns;
+    private GeometryKernels geometry;
+    private double[] lefts;
+    private double[] bottoms;
+    private double[] rights;
+    private double[] tops;
+    private double delta;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        geometry = kernels.equals("vector") ? GeometryKernels.PREFERRED : new ScalarKernels();
+        if (kernels.equals("vector") && geometry instanceof ScalarKernels)
+        {
+            throw new IllegalStateException("The jdk.incubator.vector module is not available");
+        }
+
+        Random random = new Random(size);
+        objects = new IShape[size];
+        columns = new HeapColumns(size);
+        for (int i = 0; i < size; i++)
+        {
+            double x = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            double y = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            if (random.nextBoolean())
+            {
+                double radius = random.nextDouble() * 10;
+                objects[i] = new Circle(x, y, radius);
+                columns.set(i, ShapeList.CIRCLE, x, y, radius, radius);
+            }
+            else
+            {
+                double height = random.nextDouble() * 20;
+                double width = random.nextDouble() * 20;
+                objects[i] = new Rectangle(x, y, height, width);
+                columns.set(i, ShapeList.RECTANGLE, x, y, height, width);
+            }
+        }
+
+        lefts = new double[size];
+        bottoms = new double[size];
+        rights = new double[size];
+        tops = new double[size];
+        delta = 1.0;
+    }
+
+    @Benchmark
+    public double objectsTotalArea()
+    {
+        double total = 0.0;
+        for (IShape shape : objects)
+        {
+            total += shape.Area();
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public double columnsTotalArea()
+    {
+        return columns.sumAreas(geometry, 0, size);
+    }
+
+    @Benchmark
+    public double[] objectsBorders()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            IShape shape = objects[i];
+            lefts[i] = shape.LeftBorder();
+            bottoms[i] = shape.BottomBorder();
+            rights[i] = shape.RightBorder();
+            tops[i] = shape.TopBorder();
+        }
+
+        return tops;
+    }
+
+    @Benchmark
+    public double[] columnsBorders()
+    {
+        columns.borders(geometry, 0, size, lefts, bottoms, rights, tops);
+        return tops;
+    }
+
+    @Benchmark
+    public double objectsBounds()
+    {
+        double left = Double.POSITIVE_INFINITY;
+        double bottom = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double top = Double.NEGATIVE_INFINITY;
+        for (IShape shape : objects)
+        {
+            left = Math.min(left, shape.LeftBorder());
+            bottom = Math.min(bottom, shape.BottomBorder());
+            right = Math.max(right, shape.RightBorder());
+            top = Math.max(top, shape.TopBorder());
+        }
+
+        return left + bottom + right + top;
+    }
+
+    @Benchmark
+    public double columnsBounds()
+    {
+        double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        columns.bounds(geometry, 0, size, box);
+        return box[0] + box[1] + box[2] + box[3];
+    }
+
+    /** Moves back and forth, so the shapes stay where they are */
+    @Benchmark
+    public void objectsMoveAll()
+    {
+        delta = -delta;
+        for (IShape shape : objects)
+        {
+            shape.Move(delta, delta);
+        }
+    }
+
+    @Benchmark
+    public void columnsMoveAll()
+    {
+        delta = -delta;
+        columns.translateAll(geometry, 0, size, delta, delta);
+    }
+}
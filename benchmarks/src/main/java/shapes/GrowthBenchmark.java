@@ -0,0 +1,104 @@
+package shapes;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Adds size shapes to a new, unbounded list and reports the peak heap and the time spent in garbage collection 
+ * next to the time it took. The columns grow by chunks and the indexes are only built by queries, so the peak stays 
+ * close to the 33 bytes per shape of the columns. 10 million shapes peak at about 380 MB, so the fork gets a 2 GB heap. 
+ * Adding 100 million shapes peaks at about 3.2 GB, run it with -jvmArgsAppend -Xmx4600m -p size=100000000.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g" })
+public class GrowthBenchmark
+{
+    @Param({ "1000000", "10000000" })
+    public int size;
+
+    /** The peak heap and the collection time of the measured iteration, reported next to its time */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory
+    {
+        public long peakHeapMegabytes;
+        public long gcPauseMillis;
+        public long bytesPerShape;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            pool.resetPeakUsage();
+        }
+    }
+
+    private static long collectionMillis()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+
+        return total;
+    }
+
+    private static long peakHeapBytes()
+    {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if (pool.getType() == MemoryType.HEAP)
+            {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public ShapeList addShapes(Memory memory)
+    {
+        long collections = collectionMillis();
+        ShapeList shapeList = Shapes.empty(size);
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++)
+        {
+            double x = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            double y = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            if (i % 2 == 0)
+            {
+                shapeList.addCircle(x, y, random.nextDouble() * 5);
+            }
+            else
+            {
+                shapeList.addRectangle(x, y, random.nextDouble() * 5, random.nextDouble() * 5);
+            }
+        }
+
+        if (shapeList.size() < size)
+        {
+            throw new IllegalStateException("Only " + shapeList.size() + " of " + size + " shapes were added");
+        }
+
+        long peak = peakHeapBytes();
+        memory.peakHeapMegabytes = peak >> 20;
+        memory.gcPauseMillis = collectionMillis() - collections;
+        memory.bytesPerShape = peak / Math.max(1, shapeList.size());
+        return shapeList;
+    }
+}
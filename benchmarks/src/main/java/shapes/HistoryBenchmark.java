@@ -0,0 +1,91 @@
+package shapes;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Records one million edits to a list of shapes in the undo history and reports the memory the history takes per edit,
+ * next to the memory that copying the list for every edit would take, then undoes all of them
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class HistoryBenchmark
+{
+    static final int EDITS = 1_000_000;
+
+    @Param({ "1000", "10000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private EditHistory history;
+
+    /** The memory per edit, reported next to the time of each iteration */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory
+    {
+        public long historyBytesPerEdit;
+        public long snapshotBytesPerEdit;
+    }
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        // removes and adds alternate, so one spare slot is enough
+        shapeList = new ShapeList(size + 1);
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++)
+        {
+            shapeList.addRectangle(random.nextDouble() * 10_000, random.nextDouble() * 10_000, 5, 5);
+        }
+
+        history = new EditHistory(Long.MAX_VALUE);
+    }
+
+    /** Mostly moves shapes, with a remove and an add every 100 edits and a sort of the whole list every 100000 edits */
+    @Benchmark
+    public int recordAndUndo(Memory memory)
+    {
+        Random random = new Random(3);
+        for (int k = 0; k < EDITS; k++)
+        {
+            int i = random.nextInt(shapeList.size());
+            if (k % 100_000 == 0)
+            {
+                history.recordSort(shapeList.sortByKey(SortOrder.AREA));
+            }
+            else if (k % 100 == 1)
+            {
+                history.recordRemove(shapeList, i);
+                shapeList.removeShapeAtIndex(i);
+            }
+            else if (k % 100 == 2)
+            {
+                history.recordAdd(shapeList, shapeList.addCircle(random.nextDouble() * 10_000, random.nextDouble() * 10_000, 5).getAsInt());
+            }
+            else
+            {
+                double x = shapeList.xAt(i);
+                double y = shapeList.yAt(i);
+                shapeList.moveShapeAtIndex(i, 1, 1);
+                history.recordMove(i, x, y, 1, 1);
+            }
+        }
+
+        memory.historyBytesPerEdit = history.bytesUsed() / EDITS;
+        memory.snapshotBytesPerEdit = (long) shapeList.size() * ShapeFile.RECORD_SIZE;
+        while (history.undo(shapeList))
+        {
+        }
+
+        return shapeList.size();
+    }
+}
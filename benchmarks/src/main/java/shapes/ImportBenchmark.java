@@ -0,0 +1,102 @@
+package shapes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures importing a file of two million shapes into an empty list: streamed and parsed in parallel, streamed and
+ * parsed on one thread, and the way it had to be done before, one circle or rectangle command per line
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ImportBenchmark
+{
+    private static final int SHAPES = 2_000_000;
+
+    @Param({ "csv", "ndjson" })
+    public String format;
+
+    @Param({ "parallel", "sequential", "commands" })
+    public String mode;
+
+    private Path file;
+    private Path commands;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        file = Files.createTempFile("shapes", "." + format);
+        commands = Files.createTempFile("shapes", ".txt");
+        double[] coordinates = Shapes.coordinates(SHAPES, 1000, 42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file);
+             BufferedWriter commandWriter = Files.newBufferedWriter(commands))
+        {
+            for (int i = 0; i < SHAPES; i++)
+            {
+                // exported coordinates rarely carry all 17 digits, which would take the slow path of Double.parseDouble
+                double x = Math.round(coordinates[4 * i] * 1000) / 1000.0;
+                double y = Math.round(coordinates[4 * i + 1] * 1000) / 1000.0;
+                boolean circle = i % 2 == 0;
+                if (format.equals("csv"))
+                {
+                    writer.write(circle ? "circle," + x + "," + y + ",5" : "rectangle," + x + "," + y + ",4,6");
+                }
+                else
+                {
+                    writer.write(circle
+                        ? "{\"type\":\"circle\",\"x\":" + x + ",\"y\":" + y + ",\"radius\":5}"
+                        : "{\"type\":\"rectangle\",\"x\":" + x + ",\"y\":" + y + ",\"height\":4,\"width\":6}");
+                }
+
+                writer.write('\n');
+                commandWriter.write(circle ? "circle " + x + " " + y + " 5\n" : "rectangle " + x + " " + y + " 4 6\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        Files.delete(file);
+        Files.delete(commands);
+    }
+
+    /** The time is per imported shape */
+    @Benchmark
+    @OperationsPerInvocation(SHAPES)
+    public int load() throws IOException
+    {
+        if (mode.equals("commands"))
+        {
+            ShapeListEditor editor = new ShapeListEditor(OutputStream.nullOutputStream());
+            editor.showAfterChanges(false);
+            try (BufferedReader reader = Files.newBufferedReader(commands))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    editor.handle(line);
+                }
+            }
+
+            return editor.shapeList().size();
+        }
+
+        ShapeList shapes = new ShapeList(SHAPES);
+        if (mode.equals("sequential"))
+        {
+            shapes.setParallelThreshold(Integer.MAX_VALUE);
+        }
+
+        return (int) ShapeImport.read(file, shapes).shapes;
+    }
+}
@@ -0,0 +1,80 @@
+package shapes;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Measures how many commands per second become durable through the command journal: waiting for every command
+ * from a single writer costs one fsync per command, while concurrent writers share the fsyncs through group commit
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JournalBenchmark
+{
+    private Path directory;
+    private CommandJournal journal;
+
+    @State(Scope.Thread)
+    public static class Writer
+    {
+        final CommandParser parser = new CommandParser();
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            parser.parse("move 0 1.5 -2.5");
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        directory = Files.createTempDirectory("journal");
+        journal = CommandJournal.open(directory, new ShapeList(1), Long.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory))
+        {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /** One writer that waits until each command is durable, like the interactive editor */
+    @Benchmark
+    @Threads(1)
+    public void durableEach(Writer writer) throws IOException
+    {
+        journal.awaitDurable(journal.append(writer.parser));
+    }
+
+    /** Many writers that each wait until their command is durable, sharing the fsyncs */
+    @Benchmark
+    @Threads(16)
+    public void durableEachConcurrently(Writer writer) throws IOException
+    {
+        journal.awaitDurable(journal.append(writer.parser));
+    }
+
+    /** One writer that does not wait, like batch mode, the flusher forces whatever was buffered */
+    @Benchmark
+    @Threads(1)
+    public long appendOnly(Writer writer) throws IOException
+    {
+        return journal.append(writer.parser);
+    }
+}
@@ -1,19 +1,24 @@
+package shapes;
+
 import java.lang.*;
 import java.util.*;
 
 /**
+ * A frozen copy of the Command.tryParse parser that CommandParser replaced, kept so CommandParsingBenchmark can compare
+ * the two. It is not used by the editor and must not be changed, or the comparison would no longer be against the old parser.
+ * 
  * A Command represent a function provided by the user that has a name and a list of arguments
  * In our case, the arguments are a list of double values
  * 
  * @author Zaid Ajaj - s4807561
  * @author Luna-Elise Schernthaner - s4703928 
  */
-public class Command 
+class LegacyCommand 
 { 
     public final String name; 
     public final double[] arguments; 
 
-    private Command(String name, double[] arguments) 
+    private LegacyCommand(String name, double[] arguments) 
     { 
       this.name = name; 
       this.arguments = arguments; 
@@ -35,7 +40,7 @@ public class Command
 
 
     /** Safely parses an input string into a command result that represents either a command or an error in case parsing fails */
-    public static Result<Optional<Command>> tryParse(String input)
+    public static Result<Optional<LegacyCommand>> tryParse(String input)
     {
         String[] parts = input.split(" ");
         String errorMessage = "";
@@ -49,18 +54,18 @@ public class Command
         else if (parts.length == 1)
         {
            String commandName = parts[0];
-           // the only commands without paramters are 'show', 'quit' and 'sort'
-           String[] validCommands = { "show", "quit", "sort" };
+           // the only commands without paramters are 'show', 'quit', 'sort', 'undo', 'redo', 'stats', 'overlaps' and 'metrics'
+           String[] validCommands = { "show", "quit", "sort", "undo", "redo", "stats", "overlaps", "metrics" };
            if (Arrays.stream(validCommands).anyMatch(cmd -> cmd.equalsIgnoreCase(commandName)))
            {
               // no-argument command has 0 arguments 
               double[] emptyArguments = { };
-              Optional<Command> command = Optional.of(new Command(commandName, emptyArguments));
+              Optional<LegacyCommand> command = Optional.of(new LegacyCommand(commandName, emptyArguments));
               return Result.create(command, Error.of(errorMessage));
            }
            else
            {
-              errorMessage = "Only commands {show, sort, quit} are recognised as zero-argument command.";
+              errorMessage = "Only commands {show, sort, quit, undo, redo, stats, overlaps, metrics} are recognised as zero-argument command.";
               return Result.create(Optional.empty(), Error.of(errorMessage));
            }
        }
@@ -74,13 +79,13 @@ public class Command
           {
             errorMessage = "";
             double[] args = { 1.0 };
-            return Result.create(Optional.of(new Command("sort", args)), Error.of(errorMessage));
+            return Result.create(Optional.of(new LegacyCommand("sort", args)), Error.of(errorMessage));
           }
           else if (parts[1].equalsIgnoreCase("y"))
           {
             errorMessage = "";
             double[] args = { -1.0 };
-            return Result.create(Optional.of(new Command("sort", args)), Error.of(errorMessage));
+            return Result.create(Optional.of(new LegacyCommand("sort", args)), Error.of(errorMessage));
           }
           else
           {
@@ -90,7 +95,7 @@ public class Command
        }
        else
        {
-            String[] possibleCommands = { "circle", "rectangle", "move", "remove" };
+            String[] possibleCommands = { "circle", "rectangle", "move", "remove", "window", "point", "show", "top", "area" };
             // multi-parameter command
             String command = parts[0];
           
@@ -127,6 +132,47 @@ public class Command
               return Result.create(Optional.empty(), Error.of(errorMessage));
             }
 
+            if (command.equalsIgnoreCase("window") && arguments.length != 4)
+            {
+              errorMessage = "The window command requires four parameters as valid numbers";
+              return Result.create(Optional.empty(), Error.of(errorMessage));
+            }
+
+            if (command.equalsIgnoreCase("point") && arguments.length != 2)
+            {
+              errorMessage = "The point command requires two parameters as valid numbers";
+              return Result.create(Optional.empty(), Error.of(errorMessage));
+            }
+
+            if (command.equalsIgnoreCase("top") && arguments.length != 1)
+            {
+              errorMessage = "The top command requires one parameter as a valid number";
+              return Result.create(Optional.empty(), Error.of(errorMessage));
+            }
+
+            if (command.equalsIgnoreCase("top") && (Math.floor(arguments[0]) != arguments[0] || arguments[0] < 0))
+            {
+              errorMessage = "The argument of the top command must be a non-negative whole number";
+              return Result.create(Optional.empty(), Error.of(errorMessage));
+            }
+
+            if (command.equalsIgnoreCase("area") && arguments.length != 2)
+            {
+              errorMessage = "The area command requires two parameters as valid numbers";
+              return Result.create(Optional.empty(), Error.of(errorMessage));
+            }
+
+            if (command.equalsIgnoreCase("show"))
+            {
+                // paging: 'show n' or 'show from to'
+                boolean wholeNumbers = Arrays.stream(arguments).allMatch(arg -> Math.floor(arg) == arg);
+                if (arguments.length < 1 || arguments.length > 2 || !wholeNumbers)
+                {
+                  errorMessage = "The show command takes one or two whole numbers as parameters";
+                  return Result.create(Optional.empty(), Error.of(errorMessage));
+                }
+            }
+
             if (command.equalsIgnoreCase("remove") && arguments.length != 1) 
             {
               errorMessage = "The remove command requires one parameter as a valid number";
@@ -145,8 +191,27 @@ public class Command
             }
           
             errorMessage = "";
-            Command parsedCommand = new Command(command, arguments);
+            LegacyCommand parsedCommand = new LegacyCommand(command, arguments);
             return Result.create(Optional.of(parsedCommand), Error.of(errorMessage));
        }
-    } 
-}
\ No newline at end of file
+    }
+
+    /** The Result datatype that tryParse returned: a tuple of a value of success of type `TVal` and an error */
+    static class Result<TVal> 
+    { 
+        public final TVal value; 
+        public final Error error; 
+
+        public Result(TVal value, Error error) 
+        { 
+            this.value = value; 
+            this.error = error; 
+        } 
+
+        /** Result Factory */
+        public static <T> Result<T> create(T value, Error error)
+        {   
+            return new Result<T>(value, error);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package shapes;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Measures the overhead of the metrics on the editor: a cycle of commands that adds, moves and finds a shape and 
+ * undoes the changes again, with the metrics disabled and enabled
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class MetricsBenchmark
+{
+    private static final String[] COMMANDS = { "circle 500 500 5", "move 0 1 1", "window 490 490 510 510", "bogus", "undo", "undo" };
+
+    @Param({ "false", "true" })
+    public boolean metrics;
+
+    private ShapeListEditor editor;
+    private ShapeMetrics recorder;
+    private ShapeList shapeList;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        editor = new ShapeListEditor(OutputStream.nullOutputStream());
+        editor.showAfterChanges(false);
+        if (metrics)
+        {
+            editor.enableMetrics();
+        }
+
+        recorder = new ShapeMetrics();
+        shapeList = new ShapeList(1);
+        for (int i = 0; i < 10_000; i++)
+        {
+            editor.handle("rectangle " + (i % 100) * 10 + " " + (i / 100) * 10 + " 4 4");
+        }
+    }
+
+    /** Handles the whole cycle, so the list keeps its size */
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void commands()
+    {
+        for (String command : COMMANDS)
+        {
+            editor.handle(command);
+        }
+    }
+
+    /** What the editor adds to every command when the metrics are enabled, measured on its own */
+    @Benchmark
+    public void instrumentation()
+    {
+        ShapeMetrics.CommandEvent event = new ShapeMetrics.CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        recorder.commandHandled(event, CommandParser.MOVE, System.nanoTime() - start, shapeList);
+    }
+}
@@ -0,0 +1,106 @@
+package shapes;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares the heap usage and the length of a full collection for size shapes kept as an ArrayList of IShape objects, 
+ * as a shape list with its columns on the heap and as a shape list with its columns off the heap. The score is the time 
+ * of a full collection with the shapes alive, the retained heap and the direct memory in use are reported next to it.
+ * No queries are run, so the lists have not built any index and hold nothing but their columns.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class OffHeapBenchmark
+{
+    @Param({ "1000000", "5000000" })
+    public int size;
+
+    @Param({ "objects", "heap", "offHeap" })
+    public String backing;
+
+    private List<IShape> objects;
+    private ShapeList shapeList;
+
+    /** The memory in use after the collection of the measured iteration */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory
+    {
+        public long heapMegabytes;
+        public long directMegabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(size);
+        if (backing.equals("objects"))
+        {
+            objects = new ArrayList<IShape>();
+        }
+        else if (backing.equals("heap"))
+        {
+            shapeList = new ShapeList(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, Long.MAX_VALUE);
+        }
+        else
+        {
+            shapeList = ShapeList.offHeap(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, Long.MAX_VALUE);
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            double x = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            double y = random.nextDouble() * ShapeListBenchmark.WORLD_SIZE;
+            double extent = random.nextDouble() * 5;
+            if (objects != null)
+            {
+                objects.add(i % 2 == 0 ? new Circle(x, y, extent) : new Rectangle(x, y, extent, extent));
+            }
+            else if (i % 2 == 0)
+            {
+                shapeList.addCircle(x, y, extent);
+            }
+            else
+            {
+                shapeList.addRectangle(x, y, extent, extent);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        if (shapeList != null)
+        {
+            shapeList.close();
+        }
+    }
+
+    @Benchmark
+    public int fullCollection(Memory memory)
+    {
+        System.gc();
+        memory.heapMegabytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+        {
+            if (pool.getName().equals("direct"))
+            {
+                direct += pool.getMemoryUsed();
+            }
+        }
+
+        memory.directMegabytes = direct >> 20;
+        return objects != null ? objects.size() : shapeList.size();
+    }
+}
@@ -0,0 +1,95 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares finding all overlapping pairs of shapes by sweep and prune with testing every pair of shape objects, 
+ * and measures checking one moved shape again against sweeping everything. The world grows with the list, 
+ * so every shape overlaps about the same number of others at every size.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class OverlapBenchmark
+{
+    /** Testing every pair is quadratic, so it only runs up to this size and returns -1 for larger lists */
+    static final int ALL_PAIRS_LIMIT = 20_000;
+
+    @Param({ "10000", "1000000" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private ShapeList shapeList;
+    private IShape[] objects;
+    private Random random;
+    private double delta;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        shapeList = Shapes.random(size, 30 * Math.sqrt(size), size);
+        shapeList.setParallelThreshold(parallel ? 1 : Integer.MAX_VALUE);
+        objects = new IShape[size];
+        for (int i = 0; i < size; i++)
+        {
+            objects[i] = shapeList.shapeAt(i);
+        }
+
+        // the first call sweeps, after that the list checks changed shapes again
+        shapeList.overlapCount();
+        random = new Random(size);
+        delta = 5.0;
+    }
+
+    @Benchmark
+    public int allPairs()
+    {
+        if (size > ALL_PAIRS_LIMIT)
+        {
+            return -1;
+        }
+
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            IShape first = objects[i];
+            for (int j = i + 1; j < size; j++)
+            {
+                IShape second = objects[j];
+                if (first.LeftBorder() <= second.RightBorder() && second.LeftBorder() <= first.RightBorder() 
+                    && first.BottomBorder() <= second.TopBorder() && second.BottomBorder() <= first.TopBorder() 
+                    && shapeList.overlapsAt(i, j))
+                {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int sweep()
+    {
+        return new OverlapIndex(shapeList).pairs().size;
+    }
+
+    /** Moves one shape back and forth, after which only that shape is checked again */
+    @Benchmark
+    public int moveAndRecheck()
+    {
+        delta = -delta;
+        shapeList.moveShapeAtIndex(random.nextInt(size), delta, delta);
+        return shapeList.overlapCount();
+    }
+}
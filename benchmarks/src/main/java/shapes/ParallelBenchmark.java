@@ -0,0 +1,63 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Runs the bulk operations of ShapeList sequentially and on the fork/join pool for growing list sizes,
+ * to find the list size from which going parallel pays off on the machine running the benchmark
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ParallelBenchmark
+{
+    @Param({ "1000", "16000", "64000", "256000", "1000000" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean parallel;
+
+    private ShapeList shapeList;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        shapeList = Shapes.random(size, 1000.0, size);
+        shapeList.setParallelThreshold(parallel ? 1 : Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public double totalArea()
+    {
+        return shapeList.totalArea();
+    }
+
+    @Benchmark
+    public Optional<BoundingBox> boundingBox()
+    {
+        return shapeList.boundingBox();
+    }
+
+    @Benchmark
+    public int moveCircles()
+    {
+        return shapeList.moveShapesWhere((isCircle, x, y, height, width) -> isCircle, 1.0, 1.0);
+    }
+
+    /** Moving every shape makes all of them pending, so the sort has to sort the whole list again */
+    @Benchmark
+    public ShapeList moveAllAndSort()
+    {
+        shapeList.moveShapesWhere((isCircle, x, y, height, width) -> true, 1.0, 1.0);
+        shapeList.sortByLeftBorder();
+        return shapeList;
+    }
+}
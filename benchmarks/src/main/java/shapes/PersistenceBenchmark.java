@@ -0,0 +1,66 @@
+package shapes;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Measures saving a shape list to a shape file, opening the file through a memory mapping
+ * and sorting the shapes straight from the mapping. 10M shapes take about 3.5 GB, so the fork gets an 8 GB heap.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+public class PersistenceBenchmark
+{
+    @Param({ "100000", "1000000", "10000000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        shapeList = Shapes.random(size, 10_000.0, size);
+        file = Files.createTempFile("shapes", ".bin");
+        ShapeFile.save(shapeList, file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void save() throws IOException
+    {
+        ShapeFile.save(shapeList, file);
+    }
+
+    @Benchmark
+    public int open() throws IOException
+    {
+        return ShapeFile.open(file).size();
+    }
+
+    @Benchmark
+    public int openAndSortByArea() throws IOException
+    {
+        return ShapeFile.open(file).sortedByArea()[0];
+    }
+
+    @Benchmark
+    public int openAndLoad() throws IOException
+    {
+        return ShapeFile.open(file).appendTo(Shapes.empty(size));
+    }
+}
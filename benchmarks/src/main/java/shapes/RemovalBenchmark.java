@@ -0,0 +1,58 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares removing the first shape of a list by shifting every later shape down with removing it by moving 
+ * the last shape into its place. Every operation adds a shape back, so the list keeps its size.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class RemovalBenchmark
+{
+    @Param({ "10000", "100000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        random = new Random(size);
+        shapeList = new ShapeList();
+        shapeList.enableHandles();
+        for (int i = 0; i < size; i++)
+        {
+            addShape();
+        }
+    }
+
+    private void addShape()
+    {
+        shapeList.addRectangle(random.nextDouble() * ShapeListBenchmark.WORLD_SIZE, random.nextDouble() * ShapeListBenchmark.WORLD_SIZE, 5, 5);
+    }
+
+    @Benchmark
+    public void shiftingRemove()
+    {
+        shapeList.removeShapeAtIndex(0);
+        addShape();
+    }
+
+    @Benchmark
+    public void swapRemove()
+    {
+        shapeList.swapRemoveShapeAtIndex(0);
+        addShape();
+    }
+}
@@ -0,0 +1,78 @@
+package shapes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the server with a thread per connection to the event loop under the same loopback load: many connections
+ * that each keep several commands in flight, either the mixed workload or the one that lists all shapes in between
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ServerBenchmark
+{
+    private static final int CONNECTIONS = 100;
+    private static final int COMMANDS = 400;
+    private static final int IN_FLIGHT = 16;
+
+    @Param({ "blocking", "nio" })
+    public String server;
+
+    @Param({ "mixed", "show" })
+    public String workload;
+
+    @Param({ "200" })
+    public int shapes;
+
+    private AutoCloseable running;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        ShapeListEditor editor = new ShapeListEditor(OutputStream.nullOutputStream());
+        editor.showAfterChanges(false);
+        for (int i = 0; i < shapes; i++)
+        {
+            editor.handle("rectangle " + (i % 100) * 10 + " " + (i / 100) * 10 + " 4 4");
+        }
+
+        if (server.equals("nio"))
+        {
+            ShapeEventLoop loop = new ShapeEventLoop(editor, 0);
+            loop.start();
+            port = loop.port();
+            running = loop;
+        }
+        else
+        {
+            ShapeServer blocking = new ShapeServer(editor, 0);
+            blocking.start();
+            port = blocking.port();
+            running = blocking;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        running.close();
+    }
+
+    /** All connections run all their commands, the time is per command */
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS * COMMANDS)
+    public ShapeLoadClient.Report load() throws Exception
+    {
+        return ShapeLoadClient.run("localhost", port, CONNECTIONS, COMMANDS, IN_FLIGHT, workload.equals("show"));
+    }
+}
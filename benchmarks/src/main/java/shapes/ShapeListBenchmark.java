@@ -0,0 +1,92 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** 
+ * Measures the basic operations of ShapeList: adding shapes, moving and removing them and rendering the list
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ShapeListBenchmark
+{
+    static final double WORLD_SIZE = 10_000.0;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private double[] fields;
+    private ShapeList shapeList;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        fields = Shapes.coordinates(size, WORLD_SIZE, 1);
+        shapeList = Shapes.random(size, WORLD_SIZE, 2);
+        random = new Random(3);
+    }
+
+    /** Fills a new list with size shapes, alternating circles and rectangles */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ShapeList addShapes()
+    {
+        ShapeList added = new ShapeList(size);
+        for (int k = 0; k < size; k++)
+        {
+            if ((k & 1) == 0)
+            {
+                added.addCircle(fields[4 * k], fields[4 * k + 1], fields[4 * k + 2]);
+            }
+            else
+            {
+                added.addRectangle(fields[4 * k], fields[4 * k + 1], fields[4 * k + 2], fields[4 * k + 3]);
+            }
+        }
+
+        return added;
+    }
+
+    /** Moves a random shape back and forth, so the shapes stay where they are */
+    @Benchmark
+    public void moveRandomShape()
+    {
+        int i = random.nextInt(size);
+        shapeList.moveShapeAtIndex(i, 1.0, 1.0);
+        shapeList.moveShapeAtIndex(i, -1.0, -1.0);
+    }
+
+    /** Removes the first shape, the worst case for shifting, and adds a shape back to keep the size constant */
+    @Benchmark
+    public void removeFirstShape()
+    {
+        shapeList.removeShapeAtIndex(0);
+        shapeList.addCircle(random.nextDouble() * WORLD_SIZE, random.nextDouble() * WORLD_SIZE, 1.0);
+    }
+
+    /** Removes the last shape, the best case for shifting, and adds a shape back to keep the size constant */
+    @Benchmark
+    public void removeLastShape()
+    {
+        shapeList.removeShapeAtIndex(size - 1);
+        shapeList.addCircle(random.nextDouble() * WORLD_SIZE, random.nextDouble() * WORLD_SIZE, 1.0);
+    }
+
+    /** Renders every shape into a string, like the show command does */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void readShapes(Blackhole blackhole)
+    {
+        shapeList.readShapesUsing(shape -> blackhole.consume(shape));
+    }
+}
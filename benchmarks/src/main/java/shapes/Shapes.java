@@ -0,0 +1,59 @@
+package shapes;
+
+import java.util.*;
+
+/** 
+ * Creates shape lists with random shapes for the benchmarks
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class Shapes
+{
+    /** 
+     * Returns an empty list with a memory budget for exactly size shapes along with all the indexes their queries build.
+     * The default budget is half of the heap, which would silently cap a large list below size or make its queries scan,
+     * so running out of heap shows up as an error instead.
+     */
+    static ShapeList empty(int size)
+    {
+        return new ShapeList(size, ShapeList.DEFAULT_CELL_SIZE, (long) size * ShapeList.BYTES_PER_INDEXED_SHAPE);
+    }
+
+    /** Returns a list of size random circles and rectangles spread over a square world */
+    static ShapeList random(int size, double worldSize, long seed)
+    {
+        Random random = new Random(seed);
+        ShapeList shapeList = empty(size);
+        for (int i = 0; i < size; i++)
+        {
+            double x = random.nextDouble() * worldSize;
+            double y = random.nextDouble() * worldSize;
+            OptionalInt added = random.nextBoolean()
+                ? shapeList.addCircle(x, y, random.nextDouble() * 10)
+                : shapeList.addRectangle(x, y, random.nextDouble() * 20, random.nextDouble() * 20);
+            if (!added.isPresent())
+            {
+                throw new IllegalStateException("Shape " + i + " of " + size + " was rejected, the list holds at most " + shapeList.capacity());
+            }
+        }
+
+        return shapeList;
+    }
+
+    /** Returns 4 * count random coordinates, usable as shape fields or as query windows */
+    static double[] coordinates(int count, double worldSize, long seed)
+    {
+        Random random = new Random(seed);
+        double[] coordinates = new double[4 * count];
+        for (int k = 0; k < count; k++)
+        {
+            coordinates[4 * k] = random.nextDouble() * worldSize;
+            coordinates[4 * k + 1] = random.nextDouble() * worldSize;
+            coordinates[4 * k + 2] = random.nextDouble() * 10;
+            coordinates[4 * k + 3] = random.nextDouble() * 10;
+        }
+
+        return coordinates;
+    }
+}
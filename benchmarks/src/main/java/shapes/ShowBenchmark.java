@@ -0,0 +1,67 @@
+package shapes;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares printing a shape list with an autoflushing println per shape against rendering it into 
+ * the reusable buffer of TerminalOutput, which writes large chunks. Both write to /dev/null, so every write is
+ * a real system call but no disk is involved.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShowBenchmark
+{
+    @Param({ "10", "1000", "100000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private PrintStream printStream;
+    private TerminalOutput output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        shapeList = Shapes.random(size, 10_000.0, size);
+        // System.out wraps a FileOutputStream in a BufferedOutputStream and a PrintStream that flushes on println
+        printStream = new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 8192), true);
+        output = new TerminalOutput(new FileOutputStream("/dev/null"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        printStream.close();
+    }
+
+    /** The way show() printed before: concatenation and a synchronized, flushing println per line */
+    @Benchmark
+    public void printlnPerShape()
+    {
+        shapeList.readShapesUsing(shape -> printStream.println(" |-- " + shape));
+        printStream.println("");
+    }
+
+    @Benchmark
+    public void bufferedChunks()
+    {
+        StringBuilder buffer = output.buffer();
+        for (int i = 0; i < shapeList.size(); i++)
+        {
+            buffer.append(" |-- ");
+            shapeList.appendShape(i, buffer);
+            output.endLine();
+        }
+
+        output.endLine();
+        output.flush();
+    }
+}
@@ -0,0 +1,61 @@
+package shapes;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Measures the three sorts of ShapeList over 1k to 10M shapes. A fresh list has to sort all its shapes,
+ * after that the sort order is maintained and sorting again only has to apply it. 10M shapes take about 3.5 GB
+ * and sorting copies the columns, so the fork gets an 8 GB heap.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+public class SortBenchmark
+{
+    @Param({ "1000", "100000", "1000000", "10000000" })
+    public int size;
+
+    @Param({ "area", "left", "bottom" })
+    public String key;
+
+    private ShapeList shapeList;
+
+    /** Every iteration starts from a list that has never been sorted */
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        shapeList = Shapes.random(size, 10_000.0, size);
+    }
+
+    private void sort()
+    {
+        switch (key)
+        {
+            case "area": shapeList.sortByArea(); break;
+            case "left": shapeList.sortByLeftBorder(); break;
+            default: shapeList.sortByBottomBorder(); break;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public ShapeList sortFreshList()
+    {
+        sort();
+        return shapeList;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public ShapeList sortMaintainedOrder()
+    {
+        sort();
+        return shapeList;
+    }
+}
@@ -0,0 +1,105 @@
+package shapes;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares window and point queries through the spatial grid of ShapeList
+ * against a linear scan over the border methods of IShape objects
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class SpatialIndexBenchmark
+{
+    static final int QUERIES = 1024;
+    static final double WORLD_SIZE = 10_000.0;
+    static final double WINDOW_SIZE = 100.0;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private IShape[] shapes;
+    private double[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        shapeList = Shapes.random(size, WORLD_SIZE, size);
+        shapes = new IShape[size];
+        for (int i = 0; i < size; i++)
+        {
+            shapes[i] = shapeList.shapeAt(i);
+        }
+
+        queries = Shapes.coordinates(QUERIES, WORLD_SIZE, 1);
+        next = 0;
+    }
+
+    private int nextQuery()
+    {
+        next = (next + 1) & (QUERIES - 1);
+        return 4 * next;
+    }
+
+    @Benchmark
+    public int gridWindow()
+    {
+        int q = nextQuery();
+        return shapeList.shapesIntersecting(queries[q], queries[q + 1], queries[q] + WINDOW_SIZE, queries[q + 1] + WINDOW_SIZE).length;
+    }
+
+    /** The bounding box based scan, which reports a superset of the exact hits for circles */
+    @Benchmark
+    public int scanWindow()
+    {
+        int q = nextQuery();
+        double left = queries[q];
+        double bottom = queries[q + 1];
+        double right = left + WINDOW_SIZE;
+        double top = bottom + WINDOW_SIZE;
+        int hits = 0;
+        for (IShape shape : shapes)
+        {
+            if (shape.LeftBorder() <= right && shape.RightBorder() >= left && shape.BottomBorder() <= top && shape.TopBorder() >= bottom)
+            {
+                hits++;
+            }
+        }
+
+        return hits;
+    }
+
+    @Benchmark
+    public int gridPoint()
+    {
+        int q = nextQuery();
+        return shapeList.shapesContaining(queries[q], queries[q + 1]).length;
+    }
+
+    @Benchmark
+    public int scanPoint()
+    {
+        int q = nextQuery();
+        double x = queries[q];
+        double y = queries[q + 1];
+        int hits = 0;
+        for (IShape shape : shapes)
+        {
+            if (shape.LeftBorder() <= x && shape.RightBorder() >= x && shape.BottomBorder() <= y && shape.TopBorder() >= y)
+            {
+                hits++;
+            }
+        }
+
+        return hits;
+    }
+}
@@ -0,0 +1,55 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** 
+ * Compares reading the maintained statistics of ShapeList against scanning the shapes for them,
+ * and measures a move followed by reading the statistics, which includes keeping them up to date
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class StatsBenchmark
+{
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private ShapeList shapeList;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        shapeList = Shapes.random(size, 10_000.0, size);
+        shapeList.setParallelThreshold(Integer.MAX_VALUE);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public ShapeStats maintainedStats()
+    {
+        return shapeList.stats();
+    }
+
+    @Benchmark
+    public Optional<BoundingBox> scannedStats()
+    {
+        shapeList.totalArea();
+        return shapeList.boundingBox();
+    }
+
+    @Benchmark
+    public ShapeStats moveAndReadStats()
+    {
+        shapeList.moveShapeAtIndex(random.nextInt(size), random.nextBoolean() ? 1.0 : -1.0, 0.5);
+        return shapeList.stats();
+    }
+}
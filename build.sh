@@ -3,4 +3,7 @@ rm -rf -r out
 # Call the Java compiler 
 # option "--source-path" is where the source .java files are located, in this case in src
 # option "-d out" is the output directory
-javac src/*.java -d out
\ No newline at end of file
+# option "-encoding UTF-8" matches the encoding of the sources, as in the pom
+# option "--add-modules jdk.incubator.vector" makes the vector API available to VectorKernels
+# the script fails when the compiler does, so run.sh does not start a stale or missing build
+javac -encoding UTF-8 --add-modules jdk.incubator.vector src/shapes/*.java -d out || exit 1
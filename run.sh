@@ -1,6 +1,6 @@
 # Call the build command to compile the project
-./build.sh
+./build.sh || exit 1
 # run the compiled program
-cd out && java Program
+cd out && java --add-modules jdk.incubator.vector shapes.Program
 
-cd ..
\ No newline at end of file
+cd ..
@@ -1,16 +0,0 @@
-import java.util.*;
-
-/** 
- * The entry point of the application
- * 
- * @author Zaid Ajaj - s4807561
- * @author Luna-Elise Schernthaner - s4703928 
- */
-public class Program
-{
-    public static void main(String[] args)
-    {
-        ShapeListEditor editor = new ShapeListEditor();
-        editor.start();
-    }
-}
\ No newline at end of file
@@ -0,0 +1,254 @@
+package shapes;
+
+import java.util.*;
+
+/** 
+ * Keeps the total area, the bounding box and the number of circles of the shapes of a ShapeList up to date on every change.
+ * 
+ * The area and borders of every shape are the leaves of a segment tree whose inner nodes hold the sum of the areas and 
+ * the extreme borders below them, so the root holds the aggregates of the whole list and every change costs O(log n), 
+ * including removals that take away the outermost shape. A shape keeps the same leaf (slot) for as long as it exists: 
+ * shifting or reordering the list only moves the slot numbers along, and the slots of removed shapes are reused.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class AggregateTree implements ShapeIndex
+{
+    /** The memory the tree takes per shape: a leaf and an inner node of five doubles each, its slot and a free slot, twice for a tree that grows by doubling */
+    static final int BYTES_PER_SHAPE = 176;
+
+    private final ShapeList shapes;
+
+    // the nodes of the tree, node 1 is the root, the children of node p are 2p and 2p + 1 and leaf s is node capacity + s
+    private int capacity;
+    private double[] areas;
+    private double[] lefts;
+    private double[] bottoms;
+    private double[] rights;
+    private double[] tops;
+    // the slot of the shape at every index
+    private int[] slotOf;
+    private int[] freeSlots;
+    private int freeCount;
+    private int usedSlots;
+    private int circles;
+
+    AggregateTree(ShapeList shapes)
+    {
+        this.shapes = shapes;
+        capacity = 16;
+        areas = new double[2 * capacity];
+        lefts = new double[2 * capacity];
+        bottoms = new double[2 * capacity];
+        rights = new double[2 * capacity];
+        tops = new double[2 * capacity];
+        for (int node = 1; node < 2 * capacity; node++)
+        {
+            clear(node);
+        }
+
+        slotOf = new int[capacity];
+        freeSlots = new int[capacity];
+        freeCount = 0;
+        usedSlots = 0;
+        circles = 0;
+    }
+
+    /** Makes the node neutral, as if there were no shapes below it */
+    private void clear(int node)
+    {
+        areas[node] = 0.0;
+        lefts[node] = Double.POSITIVE_INFINITY;
+        bottoms[node] = Double.POSITIVE_INFINITY;
+        rights[node] = Double.NEGATIVE_INFINITY;
+        tops[node] = Double.NEGATIVE_INFINITY;
+    }
+
+    private void combine(int node)
+    {
+        int left = 2 * node;
+        int right = left + 1;
+        areas[node] = areas[left] + areas[right];
+        lefts[node] = Math.min(lefts[left], lefts[right]);
+        bottoms[node] = Math.min(bottoms[left], bottoms[right]);
+        rights[node] = Math.max(rights[left], rights[right]);
+        tops[node] = Math.max(tops[left], tops[right]);
+    }
+
+    /** Recomputes the nodes from the leaf of the slot up to the root */
+    private void update(int slot)
+    {
+        for (int node = (capacity + slot) >>> 1; node > 0; node >>>= 1)
+        {
+            combine(node);
+        }
+    }
+
+    private void setLeaf(int slot, int i)
+    {
+        int leaf = capacity + slot;
+        areas[leaf] = shapes.areaAt(i);
+        lefts[leaf] = shapes.leftBorderAt(i);
+        bottoms[leaf] = shapes.bottomBorderAt(i);
+        rights[leaf] = shapes.rightBorderAt(i);
+        tops[leaf] = shapes.topBorderAt(i);
+        update(slot);
+    }
+
+    /** Doubles the number of leaves, the old tree becomes the left half of the new one */
+    private void grow()
+    {
+        int grown = 2 * capacity;
+        double[][] columns = { areas, lefts, bottoms, rights, tops };
+        areas = new double[2 * grown];
+        lefts = new double[2 * grown];
+        bottoms = new double[2 * grown];
+        rights = new double[2 * grown];
+        tops = new double[2 * grown];
+        for (int node = 1; node < 2 * grown; node++)
+        {
+            clear(node);
+        }
+
+        for (int slot = 0; slot < capacity; slot++)
+        {
+            int from = capacity + slot;
+            int to = grown + slot;
+            areas[to] = columns[0][from];
+            lefts[to] = columns[1][from];
+            bottoms[to] = columns[2][from];
+            rights[to] = columns[3][from];
+            tops[to] = columns[4][from];
+        }
+
+        capacity = grown;
+        for (int node = capacity - 1; node > 0; node--)
+        {
+            combine(node);
+        }
+
+        slotOf = Arrays.copyOf(slotOf, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    public void added(int i)
+    {
+        int slot;
+        if (freeCount > 0)
+        {
+            slot = freeSlots[--freeCount];
+        }
+        else
+        {
+            if (usedSlots == capacity)
+            {
+                grow();
+            }
+
+            slot = usedSlots++;
+        }
+
+        slotOf[i] = slot;
+        setLeaf(slot, i);
+        if (shapes.isCircleAt(i))
+        {
+            circles++;
+        }
+    }
+
+    /** Fills the leaves of the shapes first and recomputes every node above them once, instead of once per shape */
+    @Override
+    public void addedAll(int from, int to)
+    {
+        if (freeCount > 0 || to - from < 2)
+        {
+            ShapeIndex.super.addedAll(from, to);
+            return;
+        }
+
+        while (usedSlots + (to - from) > capacity)
+        {
+            grow();
+        }
+
+        int firstSlot = usedSlots;
+        for (int i = from; i < to; i++)
+        {
+            int slot = usedSlots++;
+            int leaf = capacity + slot;
+            slotOf[i] = slot;
+            areas[leaf] = shapes.areaAt(i);
+            lefts[leaf] = shapes.leftBorderAt(i);
+            bottoms[leaf] = shapes.bottomBorderAt(i);
+            rights[leaf] = shapes.rightBorderAt(i);
+            tops[leaf] = shapes.topBorderAt(i);
+            if (shapes.isCircleAt(i))
+            {
+                circles++;
+            }
+        }
+
+        for (int low = (capacity + firstSlot) >>> 1, high = (capacity + usedSlots - 1) >>> 1; low > 0; low >>>= 1, high >>>= 1)
+        {
+            for (int node = low; node <= high; node++)
+            {
+                combine(node);
+            }
+        }
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+        setLeaf(slotOf[i], i);
+    }
+
+    /** Takes the leaf of the shape at index i out of the tree */
+    private void release(int i)
+    {
+        int slot = slotOf[i];
+        clear(capacity + slot);
+        update(slot);
+        freeSlots[freeCount++] = slot;
+        if (shapes.isCircleAt(i))
+        {
+            circles--;
+        }
+    }
+
+    public void removing(int i)
+    {
+        release(i);
+        System.arraycopy(slotOf, i + 1, slotOf, i, shapes.size() - i - 1);
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        release(i);
+        // the leaf of the moved shape stays where it is, only its index changes
+        slotOf[i] = slotOf[last];
+    }
+
+    public void reordered(int[] order)
+    {
+        int size = shapes.size();
+        int[] reorderedSlots = new int[slotOf.length];
+        for (int k = 0; k < size; k++)
+        {
+            reorderedSlots[k] = slotOf[order[k]];
+        }
+
+        slotOf = reorderedSlots;
+    }
+
+    /** Returns the aggregates of all shapes, read from the root of the tree */
+    ShapeStats stats()
+    {
+        int size = shapes.size();
+        Optional<BoundingBox> boundingBox = size == 0 
+            ? Optional.empty() 
+            : Optional.of(new BoundingBox(lefts[1], bottoms[1], rights[1], tops[1]));
+
+        return new ShapeStats(size, circles, size - circles, areas[1], boundingBox);
+    }
+}
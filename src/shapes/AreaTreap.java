@@ -0,0 +1,386 @@
+package shapes;
+
+import java.util.*;
+
+/**
+ * Keeps the shapes of a ShapeList in a treap ordered by area, in which every node knows the size of its subtree,
+ * so the largest shapes and the shapes in a range of areas are found in O(log n + k) without reordering the list.
+ *
+ * Every shape is a node (slot) that it keeps for as long as it exists, like the leaves of the AggregateTree: shifting
+ * or reordering the list only changes which index a slot belongs to. Shapes with equal areas are ordered by their slot.
+ * A treap stays balanced through random priorities, which makes adding and removing a shape cost O(log n) expected.
+ * The tree is built in O(n) from the area order the list already maintains, the first time it is needed.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class AreaTreap implements ShapeIndex
+{
+    private static final int NONE = -1;
+
+    private final ShapeList shapes;
+    private final SplittableRandom random;
+
+    // the nodes of the treap, indexed by slot
+    private double[] keys;
+    private int[] priorities;
+    private int[] lefts;
+    private int[] rights;
+    private int[] sizes;
+    private int root;
+    // the slot of the shape at every index and the index of the shape in every slot
+    private int[] slotOf;
+    private int[] indexOfSlot;
+    private final IntList freeSlots;
+    private int usedSlots;
+    // the two trees the last split produced
+    private int splitLeft;
+    private int splitRight;
+
+    /** Builds the treap over the shapes of the list, given the indices of the shapes ordered by area and then by index */
+    AreaTreap(ShapeList shapes, int[] areaOrder)
+    {
+        this.shapes = shapes;
+        random = new SplittableRandom(0x5EED);
+        int size = shapes.size();
+        int capacity = Math.max(16, size);
+        keys = new double[capacity];
+        priorities = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        sizes = new int[capacity];
+        slotOf = new int[capacity];
+        indexOfSlot = new int[capacity];
+        freeSlots = new IntList(16);
+        usedSlots = size;
+        for (int i = 0; i < size; i++)
+        {
+            slotOf[i] = i;
+            indexOfSlot[i] = i;
+        }
+
+        // a cartesian tree of the sorted shapes: every shape becomes the right child of the nearest shape before it
+        // with a higher priority and adopts the shapes in between as its left subtree
+        int[] path = new int[size];
+        int depth = 0;
+        for (int k = 0; k < size; k++)
+        {
+            int node = areaOrder[k];
+            keys[node] = shapes.areaAt(node);
+            priorities[node] = random.nextInt();
+            rights[node] = NONE;
+            int adopted = NONE;
+            while (depth > 0 && priorities[path[depth - 1]] < priorities[node])
+            {
+                adopted = path[--depth];
+            }
+
+            lefts[node] = adopted;
+            if (depth > 0)
+            {
+                rights[path[depth - 1]] = node;
+            }
+
+            path[depth++] = node;
+        }
+
+        root = depth > 0 ? path[0] : NONE;
+        computeSize(root);
+    }
+
+    private int computeSize(int node)
+    {
+        if (node == NONE)
+        {
+            return 0;
+        }
+
+        sizes[node] = 1 + computeSize(lefts[node]) + computeSize(rights[node]);
+        return sizes[node];
+    }
+
+    private int sizeOf(int node)
+    {
+        return node == NONE ? 0 : sizes[node];
+    }
+
+    private void update(int node)
+    {
+        sizes[node] = 1 + sizeOf(lefts[node]) + sizeOf(rights[node]);
+    }
+
+    /** Orders the nodes by area first and by slot second */
+    private int compare(int a, int b)
+    {
+        int byKey = IndexSort.compare(keys[a], keys[b]);
+        return byKey != 0 ? byKey : Integer.compare(a, b);
+    }
+
+    /** Splits the tree into the nodes before node, in splitLeft, and the nodes after it, in splitRight */
+    private void split(int tree, int node)
+    {
+        if (tree == NONE)
+        {
+            splitLeft = NONE;
+            splitRight = NONE;
+        }
+        else if (compare(tree, node) < 0)
+        {
+            split(rights[tree], node);
+            rights[tree] = splitLeft;
+            update(tree);
+            splitLeft = tree;
+        }
+        else
+        {
+            split(lefts[tree], node);
+            lefts[tree] = splitRight;
+            update(tree);
+            splitRight = tree;
+        }
+    }
+
+    /** Joins two trees of which every node of the first comes before every node of the second */
+    private int merge(int first, int second)
+    {
+        if (first == NONE)
+        {
+            return second;
+        }
+
+        if (second == NONE)
+        {
+            return first;
+        }
+
+        if (priorities[first] > priorities[second])
+        {
+            rights[first] = merge(rights[first], second);
+            update(first);
+            return first;
+        }
+
+        lefts[second] = merge(first, lefts[second]);
+        update(second);
+        return second;
+    }
+
+    private int insert(int tree, int node)
+    {
+        if (tree == NONE)
+        {
+            return node;
+        }
+
+        if (priorities[node] > priorities[tree])
+        {
+            split(tree, node);
+            lefts[node] = splitLeft;
+            rights[node] = splitRight;
+            update(node);
+            return node;
+        }
+
+        if (compare(node, tree) < 0)
+        {
+            lefts[tree] = insert(lefts[tree], node);
+        }
+        else
+        {
+            rights[tree] = insert(rights[tree], node);
+        }
+
+        update(tree);
+        return tree;
+    }
+
+    private int delete(int tree, int node)
+    {
+        if (tree == node)
+        {
+            return merge(lefts[tree], rights[tree]);
+        }
+
+        if (compare(node, tree) < 0)
+        {
+            lefts[tree] = delete(lefts[tree], node);
+        }
+        else
+        {
+            rights[tree] = delete(rights[tree], node);
+        }
+
+        update(tree);
+        return tree;
+    }
+
+    public void added(int i)
+    {
+        int slot;
+        if (freeSlots.size() > 0)
+        {
+            slot = freeSlots.removeLast();
+        }
+        else
+        {
+            if (usedSlots == keys.length)
+            {
+                int capacity = 2 * usedSlots;
+                keys = Arrays.copyOf(keys, capacity);
+                priorities = Arrays.copyOf(priorities, capacity);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                indexOfSlot = Arrays.copyOf(indexOfSlot, capacity);
+            }
+
+            slot = usedSlots++;
+        }
+
+        if (i >= slotOf.length)
+        {
+            slotOf = Arrays.copyOf(slotOf, Math.max(i + 1, 2 * slotOf.length));
+        }
+
+        slotOf[i] = slot;
+        indexOfSlot[slot] = i;
+        keys[slot] = shapes.areaAt(i);
+        priorities[slot] = random.nextInt();
+        lefts[slot] = NONE;
+        rights[slot] = NONE;
+        sizes[slot] = 1;
+        root = insert(root, slot);
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+        // moving a shape does not change its area
+    }
+
+    /** Takes the node of the shape at index i out of the tree */
+    private void release(int i)
+    {
+        root = delete(root, slotOf[i]);
+        freeSlots.add(slotOf[i]);
+    }
+
+    public void removing(int i)
+    {
+        release(i);
+        int size = shapes.size();
+        System.arraycopy(slotOf, i + 1, slotOf, i, size - i - 1);
+        for (int k = i; k < size - 1; k++)
+        {
+            indexOfSlot[slotOf[k]] = k;
+        }
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        release(i);
+        slotOf[i] = slotOf[last];
+        indexOfSlot[slotOf[i]] = i;
+    }
+
+    public void reordered(int[] order)
+    {
+        int size = shapes.size();
+        int[] reorderedSlots = new int[slotOf.length];
+        for (int k = 0; k < size; k++)
+        {
+            reorderedSlots[k] = slotOf[order[k]];
+            indexOfSlot[reorderedSlots[k]] = k;
+        }
+
+        slotOf = reorderedSlots;
+    }
+
+    /** Returns the indices of the k largest shapes, largest first */
+    int[] largest(int k)
+    {
+        int[] found = new int[Math.max(0, Math.min(k, sizeOf(root)))];
+        IntList path = new IntList(64);
+        int node = root;
+        int count = 0;
+        while (count < found.length)
+        {
+            // the in-order walk from the right: the largest node not visited yet is at the end of the path
+            while (node != NONE)
+            {
+                path.add(node);
+                node = rights[node];
+            }
+
+            node = path.removeLast();
+            found[count++] = indexOfSlot[node];
+            node = lefts[node];
+        }
+
+        return found;
+    }
+
+    /** Returns the indices of the shapes with an area in [minArea, maxArea], smallest first */
+    int[] between(double minArea, double maxArea)
+    {
+        IntList found = new IntList(16);
+        IntList path = new IntList(64);
+        // the path to the first node of the range holds the nodes of the range still to be visited
+        int node = root;
+        while (node != NONE)
+        {
+            if (keys[node] >= minArea)
+            {
+                path.add(node);
+                node = lefts[node];
+            }
+            else
+            {
+                node = rights[node];
+            }
+        }
+
+        while (path.size() > 0)
+        {
+            node = path.removeLast();
+            if (keys[node] > maxArea)
+            {
+                break;
+            }
+
+            found.add(indexOfSlot[node]);
+            for (node = rights[node]; node != NONE; node = lefts[node])
+            {
+                path.add(node);
+            }
+        }
+
+        return found.toArray();
+    }
+
+    /** Returns the number of shapes with an area below the given one, or at most the given one when inclusive */
+    private int countBelow(double area, boolean inclusive)
+    {
+        int count = 0;
+        int node = root;
+        while (node != NONE)
+        {
+            if (keys[node] < area || (inclusive && keys[node] == area))
+            {
+                count += sizeOf(lefts[node]) + 1;
+                node = rights[node];
+            }
+            else
+            {
+                node = lefts[node];
+            }
+        }
+
+        return count;
+    }
+
+    /** Returns the number of shapes with an area in [minArea, maxArea] in O(log n) */
+    int countBetween(double minArea, double maxArea)
+    {
+        return Math.max(0, countBelow(maxArea, true) - countBelow(minArea, false));
+    }
+}
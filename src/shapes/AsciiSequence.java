@@ -0,0 +1,52 @@
+package shapes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** 
+ * A view of ASCII bytes in a buffer as characters, so commands and shape files can be parsed without making strings.
+ * The view is valid as long as the bytes in the buffer do not change.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class AsciiSequence implements CharSequence
+{
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    AsciiSequence set(ByteBuffer buffer, int offset, int length)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return new AsciiSequence().set(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString()
+    {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
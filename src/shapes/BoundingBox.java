@@ -0,0 +1,38 @@
+package shapes;
+
+/** The smallest axis aligned box that encloses a group of shapes 
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class BoundingBox
+{
+    public final double left;
+    public final double bottom;
+    public final double right;
+    public final double top;
+
+    public BoundingBox(double left, double bottom, double right, double top)
+    {
+        this.left = left;
+        this.bottom = bottom;
+        this.right = right;
+        this.top = top;
+    }
+
+    /** Returns the smallest box enclosing both this box and the other one */
+    public BoundingBox union(BoundingBox other)
+    {
+        return new BoundingBox(
+            Math.min(left, other.left), 
+            Math.min(bottom, other.bottom), 
+            Math.max(right, other.right), 
+            Math.max(top, other.top));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingBox(Left=" + left + ", Bottom=" + bottom + ", Right=" + right + ", Top=" + top + ")";
+    }
+}
@@ -0,0 +1,114 @@
+package shapes;
+
+import java.io.IOException;
+import java.lang.*;
+
+/** Represents a circle shape 
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928 
+ */
+public class Circle implements IShape, Comparable<IShape> 
+{
+    private double x, y, radius = 0.0;
+    
+    public Circle(double x, double y, double radius)
+    {
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+    }
+
+    /** Returns the area of the circle */
+    public double Area()
+    {
+        return Math.PI * radius * radius;
+    }
+
+    public double TopBorder()
+    {
+        return y + radius;
+    }
+
+    public double BottomBorder()
+    {
+        return y - radius;
+    }
+
+    public double RightBorder()
+    {
+        return x + radius;
+    }
+
+    public double LeftBorder()
+    {
+        return x - radius;
+    }
+
+    public void Move(double dx, double dy)
+    {
+        x += dx;
+        y += dy;
+    }
+
+    public int compareTo(IShape otherShape)
+    {
+        double circleArea = Area();
+        double otherArea = otherShape.Area();
+        if (circleArea == otherArea) 
+        {
+            return 0;
+        }
+        else if (circleArea < otherArea)
+        {
+            return -1;
+        }
+        else
+        {
+            return 1;
+        }
+    }
+
+    /** Formats the fields of a circle the way toString() does, without needing a Circle instance */
+    static String format(double x, double y, double radius)
+    {
+        return append(new StringBuilder(64), x, y, radius).toString();
+    }
+
+    /** Appends the fields of a circle to the builder the way toString() formats them, without building intermediate strings */
+    static StringBuilder append(StringBuilder builder, double x, double y, double radius)
+    {
+        builder.append("Cirlce(X=");
+        DoubleFormat.append(builder, x).append(", Y=");
+        DoubleFormat.append(builder, y).append(", Radius=");
+        return DoubleFormat.append(builder, radius).append(')');
+    }
+
+    /** Appends the fields of a circle to the output the way toString() formats them */
+    static void append(Appendable out, double x, double y, double radius) throws IOException
+    {
+        out.append("Cirlce(X=");
+        DoubleFormat.append(out, x);
+        out.append(", Y=");
+        DoubleFormat.append(out, y);
+        out.append(", Radius=");
+        DoubleFormat.append(out, radius);
+        out.append(')');
+    }
+
+    public StringBuilder appendTo(StringBuilder builder)
+    {
+        return append(builder, x, y, radius);
+    }
+
+    public void appendTo(Appendable out) throws IOException
+    {
+        append(out, x, y, radius);
+    }
+
+    @Override
+    public String toString()
+    {
+        return format(x, y, radius);
+    } 
+}
\ No newline at end of file
@@ -0,0 +1,752 @@
+package shapes;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A write-ahead journal of the commands that changed a shape list, kept in a directory together with the latest snapshot.
+ *
+ * Each command is appended as a record of its code, its arguments and a CRC32 checksum. Appending only copies the record
+ * into a buffer: a flusher thread writes and forces everything that was buffered in one go, so all commands appended while
+ * the previous batch was being forced become durable with a single fsync (group commit).
+ *
+ * The directory holds journal-N.log and snapshot-N.bin files, where snapshot N holds the shapes after all commands of the
+ * journals before N. When the shapes have handles, handles-N.bin holds their handle table, which is written before the
+ * snapshot, so the handles that clients hold keep identifying the same shapes after recovery. Once the current journal grows past the compaction threshold a new journal is started and the shapes
+ * are saved as the next snapshot in the background, after which the older files are deleted. Changes that can not be
+ * replayed, like loading a file, are recorded by a checkpoint instead, which saves the snapshot before the new journal starts. Recovery loads the newest
+ * snapshot and replays the journals from there on, stopping at a record that was torn by a crash.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class CommandJournal implements Closeable
+{
+    static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+    static final int MAX_ARGUMENTS = 8;
+
+    /** The code of a swap removal, which is journaled under its own code since the remove command shifts the shapes */
+    static final int SWAP_REMOVE = 64;
+
+    /** 
+     * The codes of the changes that undo and redo apply: inserting a shape at an index, putting a swap removed shape back,
+     * moving a shape to an exact position and reordering the list. The shape of an insert or restore is given by its index, 
+     * 1 for a circle or 0 for a rectangle, and its x, y, height and width. A reorder has the number of shapes as its 
+     * only argument, followed by the order as that many ints, where the shape at index k came from index order[k].
+     */
+    static final int INSERT = 65;
+    static final int RESTORE_SWAP_REMOVED = 66;
+    static final int MOVE_TO = 67;
+    static final int REORDER = 68;
+
+    private final Path directory;
+    private final long compactionThreshold;
+    private final Object lock;
+    private final CRC32 checksum;
+    private final Thread flusher;
+    private final int recovered;
+
+    // guarded by lock, except that the flusher owns the writing buffer while it writes
+    private ByteBuffer pending;
+    private ByteBuffer writing;
+    private FileChannel channel;
+    private long generation;
+    private long journalSize;
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+    private Thread compaction;
+
+    private CommandJournal(Path directory, long compactionThreshold, FileChannel channel, long generation, long journalSize, int recovered)
+    {
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        this.channel = channel;
+        this.generation = generation;
+        this.journalSize = journalSize;
+        this.recovered = recovered;
+        lock = new Object();
+        checksum = new CRC32();
+        pending = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        writing = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        appended = 0;
+        durable = 0;
+        closed = false;
+        flusher = new Thread(this::flushLoop, "command-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static CommandJournal open(Path directory, ShapeList shapes) throws IOException
+    {
+        return open(directory, shapes, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it when needed, and recovers the shapes it holds into the (empty) list.
+     * Compaction starts once the current journal holds at least compactionThreshold bytes.
+     */
+    public static CommandJournal open(Path directory, ShapeList shapes, long compactionThreshold) throws IOException
+    {
+        Files.createDirectories(directory);
+
+        long snapshotGeneration = -1;
+        List<Long> journals = new ArrayList<Long>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp"))
+                {
+                    // left behind by a compaction that did not finish
+                    Files.delete(file);
+                }
+                else if (name.startsWith("snapshot-") && name.endsWith(".bin"))
+                {
+                    snapshotGeneration = Math.max(snapshotGeneration, generationOf(name));
+                }
+                else if (name.startsWith("journal-") && name.endsWith(".log"))
+                {
+                    journals.add(generationOf(name));
+                }
+            }
+        }
+
+        if (snapshotGeneration >= 0)
+        {
+            ShapeFile.open(snapshotPath(directory, snapshotGeneration)).appendTo(shapes);
+            Path handles = handlesPath(directory, snapshotGeneration);
+            if (shapes.hasHandles() && Files.exists(handles) && !shapes.restoreHandles(readHandles(handles)))
+            {
+                throw new IOException(handles + " does not match the shapes of its snapshot");
+            }
+        }
+
+        Collections.sort(journals);
+        long generation = Math.max(snapshotGeneration, 0);
+        int recovered = 0;
+        long validSize = 0;
+        for (long journal : journals)
+        {
+            if (journal >= generation)
+            {
+                generation = journal;
+                long[] replayed = replay(journalPath(directory, journal), shapes);
+                recovered += (int) replayed[0];
+                validSize = replayed[1];
+            }
+        }
+
+        FileChannel channel = FileChannel.open(journalPath(directory, generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // drop a torn record at the end, new records must follow the last valid one
+        channel.truncate(validSize);
+        channel.position(validSize);
+        return new CommandJournal(directory, compactionThreshold, channel, generation, validSize, recovered);
+    }
+
+    /** Returns the generation in the name of a journal or snapshot file, or -1 when it has none */
+    static long generationOf(String name)
+    {
+        String digits = name.substring(name.indexOf('-') + 1, name.lastIndexOf('.'));
+        try
+        {
+            return Long.parseLong(digits);
+        }
+        catch (NumberFormatException ex)
+        {
+            return -1;
+        }
+    }
+
+    private static Path journalPath(Path directory, long generation)
+    {
+        return directory.resolve("journal-" + generation + ".log");
+    }
+
+    private static Path snapshotPath(Path directory, long generation)
+    {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private static Path handlesPath(Path directory, long generation)
+    {
+        return directory.resolve("handles-" + generation + ".bin");
+    }
+
+    /** Writes the handle table as little endian ints followed by their CRC32 */
+    private static void saveHandles(int[] table, Path path) throws IOException
+    {
+        ShapeFile.replace(path, channel -> 
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(table.length * Integer.BYTES + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int value : table)
+            {
+                buffer.putInt(value);
+            }
+
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.array(), 0, buffer.position());
+            buffer.putInt((int) checksum.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+
+            return table.length;
+        });
+    }
+
+    private static int[] readHandles(Path path) throws IOException
+    {
+        byte[] bytes = Files.readAllBytes(path);
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, Math.max(0, bytes.length - Integer.BYTES));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < Integer.BYTES || bytes.length % Integer.BYTES != 0 || buffer.getInt(bytes.length - Integer.BYTES) != (int) checksum.getValue())
+        {
+            throw new IOException(path + " is truncated or corrupt");
+        }
+
+        int[] table = new int[bytes.length / Integer.BYTES - 1];
+        buffer.asIntBuffer().get(table);
+        return table;
+    }
+
+    /** Saves the snapshot of the generation, after its handle table when it has one, and makes both durable */
+    private void save(ShapeSnapshot snapshot, long snapshotGeneration) throws IOException
+    {
+        if (snapshot.handleTable() != null)
+        {
+            saveHandles(snapshot.handleTable(), handlesPath(directory, snapshotGeneration));
+        }
+        else
+        {
+            // left behind by a save of the generation that did not finish
+            Files.deleteIfExists(handlesPath(directory, snapshotGeneration));
+        }
+
+        // the snapshot only appears under its name once it is complete
+        ShapeFile.save(snapshot, snapshotPath(directory, snapshotGeneration));
+        syncDirectory();
+    }
+
+    /** Applies the commands of the journal file to the shapes, returning how many were applied and the size of the valid part of the file */
+    private static long[] replay(Path journal, ShapeList shapes) throws IOException
+    {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(journal)).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 checksum = new CRC32();
+        double[] arguments = new double[MAX_ARGUMENTS];
+        long applied = 0;
+        int validSize = 0;
+        while (records.remaining() >= 2)
+        {
+            int start = records.position();
+            int command = records.get();
+            int count = records.get();
+            if (count < 0 || count > MAX_ARGUMENTS || records.remaining() < count * Double.BYTES + Integer.BYTES)
+            {
+                break;
+            }
+
+            for (int k = 0; k < count; k++)
+            {
+                arguments[k] = records.getDouble();
+            }
+
+            int[] order = null;
+            if (command == REORDER)
+            {
+                long length = count == 1 ? (long) arguments[0] : -1;
+                if (length != shapes.size() || records.remaining() < length * Integer.BYTES + Integer.BYTES)
+                {
+                    break;
+                }
+
+                order = new int[(int) length];
+                for (int k = 0; k < order.length; k++)
+                {
+                    order[k] = records.getInt();
+                }
+            }
+
+            checksum.reset();
+            checksum.update(records.array(), start, records.position() - start);
+            if (records.getInt() != (int) checksum.getValue())
+            {
+                break;
+            }
+
+            if (order != null)
+            {
+                shapes.reorder(order);
+            }
+            else
+            {
+                apply(shapes, command, arguments, count);
+            }
+
+            applied++;
+            validSize = records.position();
+        }
+
+        return new long[] { applied, validSize };
+    }
+
+    /** Changes the shapes the same way the editor does for the command */
+    static void apply(ShapeList shapes, int command, double[] arguments, int count)
+    {
+        switch (command)
+        {
+            case CommandParser.CIRCLE:
+                shapes.addCircle(arguments[0], arguments[1], arguments[2]);
+                break;
+
+            case CommandParser.RECTANGLE:
+                shapes.addRectangle(arguments[0], arguments[1], arguments[2], arguments[3]);
+                break;
+
+            case CommandParser.MOVE:
+                shapes.moveShapeAtIndex((int) arguments[0], arguments[1], arguments[2]);
+                break;
+
+            case CommandParser.REMOVE:
+                shapes.removeShapeAtIndex((int) arguments[0]);
+                break;
+
+            case SWAP_REMOVE:
+                shapes.swapRemoveShapeAtIndex((int) arguments[0]);
+                break;
+
+            case INSERT:
+                shapes.insertAt((int) arguments[0], arguments[1] == 1, arguments[2], arguments[3], arguments[4], arguments[5]);
+                break;
+
+            case RESTORE_SWAP_REMOVED:
+                shapes.restoreSwapRemoved((int) arguments[0], arguments[1] == 1, arguments[2], arguments[3], arguments[4], arguments[5]);
+                break;
+
+            case MOVE_TO:
+                shapes.moveTo((int) arguments[0], arguments[1], arguments[2]);
+                break;
+
+            case CommandParser.SORT:
+                if (count == 0)
+                {
+                    shapes.sortByArea();
+                }
+                else if (arguments[0] == 1.0)
+                {
+                    shapes.sortByLeftBorder();
+                }
+                else
+                {
+                    shapes.sortByBottomBorder();
+                }
+
+                break;
+        }
+    }
+
+    /** Returns the number of commands that were replayed from the journals when it was opened */
+    public int recovered()
+    {
+        return recovered;
+    }
+
+    /** Appends the command that the parser parsed last, returning its sequence number for awaitDurable */
+    public long append(CommandParser parser) throws IOException
+    {
+        int count = parser.argumentCount();
+        synchronized (lock)
+        {
+            int start = beginRecord(parser.command(), count);
+            for (int k = 0; k < count; k++)
+            {
+                pending.putDouble(parser.argument(k));
+            }
+
+            return endRecord(start);
+        }
+    }
+
+    /** Appends the command with the first count arguments, returning its sequence number for awaitDurable */
+    public long append(int command, double[] arguments, int count) throws IOException
+    {
+        synchronized (lock)
+        {
+            int start = beginRecord(command, count);
+            for (int k = 0; k < count; k++)
+            {
+                pending.putDouble(arguments[k]);
+            }
+
+            return endRecord(start);
+        }
+    }
+
+    /** Appends a reorder of the first length shapes, where the shape at index k came from index order[k], returning its sequence number */
+    public long appendReorder(int[] order, int length) throws IOException
+    {
+        synchronized (lock)
+        {
+            int start = beginRecord(REORDER, 1, length * Integer.BYTES);
+            pending.putDouble(length);
+            for (int k = 0; k < length; k++)
+            {
+                pending.putInt(order[k]);
+            }
+
+            return endRecord(start);
+        }
+    }
+
+    /** Makes room for a record and writes its code and argument count, returning where it starts, must hold the lock */
+    private int beginRecord(int command, int count) throws IOException
+    {
+        return beginRecord(command, count, 0);
+    }
+
+    /** Makes room for a record with extra bytes after its arguments and writes its code and argument count, must hold the lock */
+    private int beginRecord(int command, int count, int extraBytes) throws IOException
+    {
+        ensureUsable();
+        int size = 2 + count * Double.BYTES + extraBytes + Integer.BYTES;
+        if (pending.remaining() < size)
+        {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(2 * pending.capacity(), pending.position() + size)).order(ByteOrder.LITTLE_ENDIAN);
+            pending.flip();
+            pending = larger.put(pending);
+        }
+
+        int start = pending.position();
+        pending.put((byte) command).put((byte) count);
+        return start;
+    }
+
+    /** Appends the checksum of the record that starts at start and wakes the flusher, must hold the lock */
+    private long endRecord(int start)
+    {
+        ByteBuffer record = pending.duplicate();
+        record.position(start).limit(pending.position());
+        checksum.reset();
+        checksum.update(record);
+        pending.putInt((int) checksum.getValue());
+
+        journalSize += pending.position() - start;
+        appended++;
+        lock.notifyAll();
+        return appended;
+    }
+
+    private void ensureUsable() throws IOException
+    {
+        if (failure != null)
+        {
+            throw new IOException("The journal can not be written anymore", failure);
+        }
+
+        if (closed)
+        {
+            throw new IOException("The journal is closed");
+        }
+    }
+
+    /** Waits until the command with the sequence number, and all commands before it, are durable */
+    public void awaitDurable(long sequence) throws IOException
+    {
+        synchronized (lock)
+        {
+            while (durable < sequence && failure == null)
+            {
+                try
+                {
+                    lock.wait();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the journal");
+                }
+            }
+
+            if (durable < sequence)
+            {
+                throw new IOException("The journal can not be written anymore", failure);
+            }
+        }
+    }
+
+    /** Returns the sequence number of the last appended command, to wait for with awaitDurable */
+    public long appended()
+    {
+        synchronized (lock)
+        {
+            return appended;
+        }
+    }
+
+    /** Waits until all commands appended so far are durable */
+    public void sync() throws IOException
+    {
+        awaitDurable(appended());
+    }
+
+    /** Writes and forces the buffered records whenever there are any, until the journal is closed */
+    private void flushLoop()
+    {
+        while (true)
+        {
+            long target;
+            FileChannel out;
+            synchronized (lock)
+            {
+                while (pending.position() == 0 && !closed)
+                {
+                    try
+                    {
+                        lock.wait();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        return;
+                    }
+                }
+
+                if (pending.position() == 0)
+                {
+                    return;
+                }
+
+                ByteBuffer full = pending;
+                pending = writing;
+                writing = full;
+                target = appended;
+                out = channel;
+            }
+
+            try
+            {
+                writing.flip();
+                while (writing.hasRemaining())
+                {
+                    out.write(writing);
+                }
+
+                out.force(false);
+                writing.clear();
+            }
+            catch (IOException ex)
+            {
+                synchronized (lock)
+                {
+                    failure = ex;
+                    lock.notifyAll();
+                }
+
+                return;
+            }
+
+            synchronized (lock)
+            {
+                durable = target;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Returns whether the current journal grew past the compaction threshold while no compaction is running */
+    public boolean needsCompaction()
+    {
+        synchronized (lock)
+        {
+            return journalSize >= compactionThreshold && (compaction == null || !compaction.isAlive());
+        }
+    }
+
+    /** Waits until every appended command was written and forced, after which the flusher no longer uses the channel, must hold the lock */
+    private void awaitFlushed() throws IOException
+    {
+        while (durable < appended && failure == null)
+        {
+            try
+            {
+                lock.wait();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the journal");
+            }
+        }
+
+        ensureUsable();
+    }
+
+    /** Appends from now on to the new journal of the generation, must hold the lock */
+    private void startJournal(long next) throws IOException
+    {
+        FileChannel started = FileChannel.open(journalPath(directory, next), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channel.close();
+        channel = started;
+        generation = next;
+        journalSize = 0;
+    }
+
+    /**
+     * Starts a new journal and saves the snapshot in the background as the shapes at its start. The snapshot must hold
+     * the shapes after exactly the commands appended so far, so no commands may be appended until this returns.
+     * Until the snapshot is saved, recovery replays the previous journal as well, which gives the same shapes.
+     */
+    public void compact(ShapeSnapshot snapshot) throws IOException
+    {
+        synchronized (lock)
+        {
+            awaitFlushed();
+            long next = generation + 1;
+            startJournal(next);
+            Thread previous = compaction;
+            compaction = new Thread(() -> saveSnapshot(previous, snapshot, next), "command-journal-compaction");
+            compaction.setDaemon(true);
+            compaction.start();
+        }
+    }
+
+    /**
+     * Saves the snapshot as the shapes at the start of a new journal, for changes that can not be replayed from the 
+     * journal, like loading a file. Unlike compact, the snapshot is durable before the new journal is started and 
+     * before this returns, so recovery never replays commands on top of the shapes from before the change.
+     * No commands may be appended until this returns.
+     */
+    public void checkpoint(ShapeSnapshot snapshot) throws IOException
+    {
+        long next;
+        Thread previous;
+        synchronized (lock)
+        {
+            awaitFlushed();
+            next = generation + 1;
+            previous = compaction;
+        }
+
+        try
+        {
+            if (previous != null)
+            {
+                previous.join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compaction");
+        }
+
+        save(snapshot, next);
+        synchronized (lock)
+        {
+            ensureUsable();
+            startJournal(next);
+            compaction = null;
+        }
+
+        syncDirectory();
+        deleteBefore(next);
+    }
+
+    /** Saves the snapshot for the generation, after the previous compaction finished, then deletes the files it replaces */
+    private void saveSnapshot(Thread previous, ShapeSnapshot snapshot, long snapshotGeneration)
+    {
+        try
+        {
+            if (previous != null)
+            {
+                previous.join();
+            }
+
+            save(snapshot, snapshotGeneration);
+            deleteBefore(snapshotGeneration);
+        }
+        catch (IOException | InterruptedException ex)
+        {
+            // the journals that the snapshot should have replaced are kept and replay to the same shapes, so nothing is lost
+        }
+    }
+
+    /** Deletes the journals and snapshots of the generations before the given one, which its snapshot replaces */
+    private void deleteBefore(long snapshotGeneration) throws IOException
+    {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                boolean isJournal = name.startsWith("journal-") && name.endsWith(".log");
+                boolean isSnapshot = (name.startsWith("snapshot-") || name.startsWith("handles-")) && name.endsWith(".bin");
+                if ((isJournal || isSnapshot) && generationOf(name) < snapshotGeneration)
+                {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /** Makes the creation and renaming of files durable, where the file system supports forcing a directory */
+    private void syncDirectory()
+    {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ))
+        {
+            directoryChannel.force(true);
+        }
+        catch (IOException ex)
+        {
+            // not supported on every platform
+        }
+    }
+
+    /** Makes all appended commands durable, waits for a running compaction and stops the flusher */
+    @Override
+    public void close() throws IOException
+    {
+        Thread running;
+        synchronized (lock)
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            closed = true;
+            running = compaction;
+            lock.notifyAll();
+        }
+
+        try
+        {
+            flusher.join();
+            if (running != null)
+            {
+                running.join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            channel.close();
+        }
+
+        if (failure != null)
+        {
+            throw new IOException("The journal could not be written", failure);
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package shapes;
+
+import java.util.*;
+
+/**
+ * A reusable, single-pass parser for the commands of the shape list editor.
+ * 
+ * It works directly on a CharSequence: command names are matched in place, ignoring case, arguments are parsed into a reusable buffer and invalid input is reported without
+ * throwing exceptions. Parsing valid input allocates nothing. A parser holds the result of the last parse, 
+ * so it must not be shared between threads.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class CommandParser
+{
+    static final int SHOW = 0;
+    static final int QUIT = 1;
+    static final int SORT = 2;
+    static final int CIRCLE = 3;
+    static final int RECTANGLE = 4;
+    static final int MOVE = 5;
+    static final int REMOVE = 6;
+    static final int WINDOW = 7;
+    static final int POINT = 8;
+    static final int SAVE = 9;
+    static final int LOAD = 10;
+    static final int UNDO = 11;
+    static final int REDO = 12;
+    static final int STATS = 13;
+    static final int OVERLAPS = 14;
+    static final int METRICS = 15;
+    static final int IMPORT = 16;
+    static final int EXPORT = 17;
+    static final int TOP = 18;
+    static final int AREA = 19;
+
+    /** The names of the commands, indexed by their code */
+    static final String[] NAMES = { "show", "quit", "sort", "circle", "rectangle", "move", "remove", "window", "point", "save", "load", "undo", "redo", "stats", "overlaps", "metrics", "import", "export", "top", "area" };
+
+    /** The number of arguments each command requires, indexed by their code */
+    private static final int[] ARGUMENT_COUNTS = { 0, 0, 0, 3, 4, 3, 1, 4, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 2 };
+
+    private static final String[] ARGUMENT_ERRORS = 
+    {
+        "", "", "",
+        "The circle command requires three parameters as valid numbers",
+        "The rectangle command requires four parameters as valid numbers",
+        "The move command requires three parameters as valid numbers",
+        "The remove command requires one parameter as a valid number",
+        "The window command requires four parameters as valid numbers",
+        "The point command requires two parameters as valid numbers",
+        "The save command requires a file name",
+        "The load command requires a file name",
+        "", "", "", "", "",
+        "The import command requires a file name",
+        "The export command requires a file name",
+        "The top command requires one parameter as a valid number",
+        "The area command requires two parameters as valid numbers"
+    };
+
+    /** Powers of ten that are exactly representable as a double */
+    private static final double[] EXACT_POWERS_OF_TEN = 
+    {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private int command;
+    private double[] arguments;
+    private int argumentCount;
+    private String error;
+    private String fileName;
+    // the result of the last call to parseNumber
+    private double number;
+
+    public CommandParser()
+    {
+        command = -1;
+        arguments = new double[8];
+        argumentCount = 0;
+        error = "";
+        fileName = "";
+    }
+
+    /** Returns the code of the last successfully parsed command, or -1 when parsing failed */
+    public int command()
+    {
+        return command;
+    }
+
+    /** Returns the name of the last successfully parsed command in lower case */
+    public String name()
+    {
+        return NAMES[command];
+    }
+
+    public int argumentCount()
+    {
+        return argumentCount;
+    }
+
+    public double argument(int k)
+    {
+        return arguments[k];
+    }
+
+    /** Returns the file name argument of the last parsed save or load command */
+    public String fileName()
+    {
+        return fileName;
+    }
+
+    /** Returns the reason why the last parse failed, or an empty string when it succeeded */
+    public String error()
+    {
+        return error;
+    }
+
+    private boolean fail(String message)
+    {
+        command = -1;
+        argumentCount = 0;
+        error = message;
+        return false;
+    }
+
+    private boolean succeed(int parsedCommand)
+    {
+        command = parsedCommand;
+        error = "";
+        return true;
+    }
+
+    /** Returns whether input[from, to) equals the name, ignoring case */
+    private static boolean matches(CharSequence input, int from, int to, String name)
+    {
+        if (to - from != name.length())
+        {
+            return false;
+        }
+
+        for (int k = 0; k < name.length(); k++)
+        {
+            char c = input.charAt(from + k);
+            char expected = name.charAt(k);
+            if (c != expected && Character.toLowerCase(c) != expected && Character.toUpperCase(c) != Character.toUpperCase(expected))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /** Returns the code of the command named input[from, to) among the codes [first, last], or -1 */
+    private static int commandNamed(CharSequence input, int from, int to, int first, int last)
+    {
+        for (int code = first; code <= last; code++)
+        {
+            if (matches(input, from, to, NAMES[code]))
+            {
+                return code;
+            }
+        }
+
+        return -1;
+    }
+
+    /** Returns whether the command reads or writes the file it is given */
+    static boolean accessesFiles(int command)
+    {
+        return command == SAVE || command == LOAD || command == IMPORT || command == EXPORT;
+    }
+
+    /** Returns the code of the command that takes a file name named input[from, to), or -1 */
+    private static int fileCommandNamed(CharSequence input, int from, int to)
+    {
+        int code = commandNamed(input, from, to, SAVE, LOAD);
+        return code >= 0 ? code : commandNamed(input, from, to, IMPORT, EXPORT);
+    }
+
+    private void addArgument(double value)
+    {
+        if (argumentCount == arguments.length)
+        {
+            arguments = Arrays.copyOf(arguments, argumentCount * 2);
+        }
+
+        arguments[argumentCount++] = value;
+    }
+
+    /** 
+     * Parses the input into a command, returning whether that succeeded. The input is split into parts on single spaces
+     * and arguments that are not valid numbers are skipped. The commands that access files, like save and load, 
+     * take the rest of the line as a file name.
+     */
+    public boolean parse(CharSequence input)
+    {
+        argumentCount = 0;
+
+        // trailing spaces only produce trailing empty parts, which are dropped
+        int end = input.length();
+        while (end > 0 && input.charAt(end - 1) == ' ')
+        {
+            end--;
+        }
+
+        if (end == 0)
+        {
+            return fail("Input was empty");
+        }
+
+        int nameEnd = 0;
+        while (nameEnd < end && input.charAt(nameEnd) != ' ')
+        {
+            nameEnd++;
+        }
+
+        if (nameEnd == end)
+        {
+            int fileCommand = fileCommandNamed(input, 0, end);
+            if (fileCommand >= 0)
+            {
+                return fail(ARGUMENT_ERRORS[fileCommand]);
+            }
+
+            int parsed = commandNamed(input, 0, end, SHOW, SORT);
+            if (parsed < 0)
+            {
+                parsed = commandNamed(input, 0, end, UNDO, METRICS);
+            }
+
+            if (parsed < 0)
+            {
+                return fail("Only commands {show, sort, quit, undo, redo, stats, overlaps, metrics} are recognised as zero-argument command.");
+            }
+
+            return succeed(parsed);
+        }
+
+        int secondEnd = nameEnd + 1;
+        while (secondEnd < end && input.charAt(secondEnd) != ' ')
+        {
+            secondEnd++;
+        }
+
+        if (secondEnd == end && matches(input, 0, nameEnd, "sort"))
+        {
+            // optional argument of sort: x => 1.0 and y => -1.0
+            if (matches(input, nameEnd + 1, end, "x"))
+            {
+                addArgument(1.0);
+                return succeed(SORT);
+            }
+            else if (matches(input, nameEnd + 1, end, "y"))
+            {
+                addArgument(-1.0);
+                return succeed(SORT);
+            }
+
+            return fail("command sort does not recognize the optional argument " + input.subSequence(nameEnd + 1, end));
+        }
+
+        int fileCommand = fileCommandNamed(input, 0, nameEnd);
+        if (fileCommand >= 0)
+        {
+            // the rest of the line is the file name, so names may contain spaces
+            fileName = input.subSequence(nameEnd + 1, end).toString().trim();
+            if (fileName.isEmpty())
+            {
+                return fail(ARGUMENT_ERRORS[fileCommand]);
+            }
+
+            return succeed(fileCommand);
+        }
+
+        int parsed = commandNamed(input, 0, nameEnd, CIRCLE, POINT);
+        if (parsed < 0 && matches(input, 0, nameEnd, NAMES[SHOW]))
+        {
+            parsed = SHOW;
+        }
+
+        if (parsed < 0)
+        {
+            parsed = commandNamed(input, 0, nameEnd, TOP, AREA);
+        }
+
+        if (parsed < 0)
+        {
+            return fail("The command you entered was not recognized as one of the possible commands");
+        }
+
+        int partStart = nameEnd + 1;
+        while (partStart <= end)
+        {
+            int partEnd = partStart;
+            while (partEnd < end && input.charAt(partEnd) != ' ')
+            {
+                partEnd++;
+            }
+
+            if (parseNumber(input, partStart, partEnd))
+            {
+                addArgument(number);
+            }
+
+            partStart = partEnd + 1;
+        }
+
+        if (parsed == SHOW)
+        {
+            // paging: 'show n' or 'show from to'
+            if (argumentCount < 1 || argumentCount > 2 || !isWhole(arguments[0]) || !isWhole(arguments[argumentCount - 1]))
+            {
+                return fail("The show command takes one or two whole numbers as parameters");
+            }
+
+            return succeed(SHOW);
+        }
+
+        if (argumentCount != ARGUMENT_COUNTS[parsed])
+        {
+            return fail(ARGUMENT_ERRORS[parsed]);
+        }
+
+        if (parsed == REMOVE && !isWhole(arguments[0]))
+        {
+            return fail("The argument of the remove command must be a whole number");
+        }
+
+        if (parsed == TOP && (!isWhole(arguments[0]) || arguments[0] < 0))
+        {
+            return fail("The argument of the top command must be a non-negative whole number");
+        }
+
+        return succeed(parsed);
+    }
+
+    private static boolean isWhole(double value)
+    {
+        return Math.floor(value) == value;
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c)
+    {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isTypeSuffix(char c)
+    {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    /** Returns the number read by the last successful call to parseNumber */
+    double number()
+    {
+        return number;
+    }
+
+    /** 
+     * Parses input[from, to) into the number field, accepting the same syntax as Double.parseDouble.
+     * Short decimal numbers are computed exactly in place, anything else is validated first and 
+     * then handed to Double.parseDouble, so that it never throws.
+     */
+    boolean parseNumber(CharSequence input, int from, int to)
+    {
+        // Double.parseDouble ignores leading and trailing whitespace
+        while (from < to && input.charAt(from) <= ' ')
+        {
+            from++;
+        }
+
+        while (to > from && input.charAt(to - 1) <= ' ')
+        {
+            to--;
+        }
+
+        int start = from;
+        boolean negative = false;
+        if (from < to && (input.charAt(from) == '+' || input.charAt(from) == '-'))
+        {
+            negative = input.charAt(from) == '-';
+            from++;
+        }
+
+        if (from == to)
+        {
+            return false;
+        }
+
+        if (input.charAt(from) == 'N' || input.charAt(from) == 'I')
+        {
+            if (regionEquals(input, from, to, "NaN"))
+            {
+                number = Double.NaN;
+                return true;
+            }
+
+            if (regionEquals(input, from, to, "Infinity"))
+            {
+                number = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+                return true;
+            }
+
+            return false;
+        }
+
+        if (to - from > 2 && input.charAt(from) == '0' && (input.charAt(from + 1) == 'x' || input.charAt(from + 1) == 'X'))
+        {
+            if (!isHexNumber(input, from + 2, to))
+            {
+                return false;
+            }
+
+            number = Double.parseDouble(input.subSequence(start, to).toString());
+            return true;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        int i = from;
+        for (; i < to && isDigit(input.charAt(i)); i++, digits++)
+        {
+            int digit = input.charAt(i) - '0';
+            if (significantDigits > 0 || digit != 0)
+            {
+                significantDigits++;
+            }
+
+            if (significantDigits <= 18)
+            {
+                mantissa = mantissa * 10 + digit;
+            }
+            else
+            {
+                exponent++;
+            }
+        }
+
+        if (i < to && input.charAt(i) == '.')
+        {
+            i++;
+            for (; i < to && isDigit(input.charAt(i)); i++, digits++)
+            {
+                int digit = input.charAt(i) - '0';
+                if (significantDigits > 0 || digit != 0)
+                {
+                    significantDigits++;
+                }
+
+                if (significantDigits <= 18)
+                {
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+                }
+            }
+        }
+
+        if (digits == 0)
+        {
+            return false;
+        }
+
+        if (i < to && (input.charAt(i) == 'e' || input.charAt(i) == 'E'))
+        {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (input.charAt(i) == '+' || input.charAt(i) == '-'))
+            {
+                negativeExponent = input.charAt(i) == '-';
+                i++;
+            }
+
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            for (; i < to && isDigit(input.charAt(i)); i++, exponentDigits++)
+            {
+                explicitExponent = Math.min(100_000, explicitExponent * 10 + (input.charAt(i) - '0'));
+            }
+
+            if (exponentDigits == 0)
+            {
+                return false;
+            }
+
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i < to && isTypeSuffix(input.charAt(i)))
+        {
+            i++;
+        }
+
+        if (i != to)
+        {
+            return false;
+        }
+
+        if (mantissa == 0)
+        {
+            number = negative ? -0.0 : 0.0;
+            return true;
+        }
+
+        if (significantDigits <= 15 && exponent >= -22 && exponent <= 22)
+        {
+            // both the mantissa and the power of ten are exact doubles, so a single operation rounds correctly
+            double value = exponent >= 0 
+                ? mantissa * EXACT_POWERS_OF_TEN[exponent] 
+                : mantissa / EXACT_POWERS_OF_TEN[-exponent];
+            number = negative ? -value : value;
+            return true;
+        }
+
+        // the syntax is valid, so this does not throw
+        number = Double.parseDouble(input.subSequence(start, to).toString());
+        return true;
+    }
+
+    /** Validates the part of a hexadecimal floating point literal after the 0x prefix */
+    private static boolean isHexNumber(CharSequence input, int from, int to)
+    {
+        int i = from;
+        int digits = 0;
+        for (; i < to && isHexDigit(input.charAt(i)); i++)
+        {
+            digits++;
+        }
+
+        if (i < to && input.charAt(i) == '.')
+        {
+            i++;
+            for (; i < to && isHexDigit(input.charAt(i)); i++)
+            {
+                digits++;
+            }
+        }
+
+        // the binary exponent is required for hexadecimal literals
+        if (digits == 0 || i == to || (input.charAt(i) != 'p' && input.charAt(i) != 'P'))
+        {
+            return false;
+        }
+
+        i++;
+        if (i < to && (input.charAt(i) == '+' || input.charAt(i) == '-'))
+        {
+            i++;
+        }
+
+        int exponentDigits = 0;
+        for (; i < to && isDigit(input.charAt(i)); i++)
+        {
+            exponentDigits++;
+        }
+
+        if (i < to && isTypeSuffix(input.charAt(i)))
+        {
+            i++;
+        }
+
+        return exponentDigits > 0 && i == to;
+    }
+
+    private static boolean regionEquals(CharSequence input, int from, int to, String expected)
+    {
+        if (to - from != expected.length())
+        {
+            return false;
+        }
+
+        for (int k = 0; k < expected.length(); k++)
+        {
+            if (input.charAt(from + k) != expected.charAt(k))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,315 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/** 
+ * A thread-safe shape list that many threads can add, move, remove and sort concurrently.
+ * 
+ * Changes are serialized by the write lock of a StampedLock, because every change also updates the indexes of the list.
+ * Readers never hold a lock while reading: they read an immutable snapshot, which is copied once after every change and 
+ * then shared by all readers. The copy is taken in chunks without any lock, validating an optimistic read after every 
+ * chunk, so a writer is never kept waiting by a copy and a copy that a writer interferes with starts over. Only a reader 
+ * that keeps losing to writers copies under the read lock, so it is not starved. Whether the shared snapshot is still 
+ * current is checked with an optimistic read as well, which only reads the version.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ConcurrentShapeList
+{
+    // the number of shapes copied between two validations of an optimistic snapshot copy
+    private static final int COPY_CHUNK_SIZE = ShapeColumns.CHUNK_SIZE;
+    // the number of optimistic copies a snapshot tries before it copies under the read lock
+    private static final int OPTIMISTIC_COPIES = 3;
+
+    private final ShapeList shapes;
+    private final StampedLock lock;
+    // the number of changes so far, only written while holding the write lock
+    private volatile long version;
+    private final AtomicReference<VersionedSnapshot> latest;
+
+    /** A snapshot together with the version of the list it was taken at */
+    private static class VersionedSnapshot
+    {
+        final ShapeSnapshot snapshot;
+        final long version;
+
+        VersionedSnapshot(ShapeSnapshot snapshot, long version)
+        {
+            this.snapshot = snapshot;
+            this.version = version;
+        }
+    }
+
+    /** Creates an empty list that holds as many shapes as fit in the default memory budget */
+    public ConcurrentShapeList()
+    {
+        this(new ShapeList());
+    }
+
+    public ConcurrentShapeList(int maxSize)
+    {
+        this(new ShapeList(maxSize));
+    }
+
+    /** Guards an existing shape list, which must not be used directly anymore afterwards */
+    public ConcurrentShapeList(ShapeList shapes)
+    {
+        this.shapes = shapes;
+        lock = new StampedLock();
+        version = 0;
+        latest = new AtomicReference<VersionedSnapshot>(new VersionedSnapshot(shapes.snapshot(), 0));
+    }
+
+    public OptionalInt addCircle(double x, double y, double radius)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            return shapes.addCircle(x, y, radius);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public OptionalInt addRectangle(double x, double y, double height, double width)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            return shapes.addRectangle(x, y, height, width);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Optional<Error> moveShapeAtIndex(int i, double deltaX, double deltaY)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            return shapes.moveShapeAtIndex(i, deltaX, deltaY);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Optional<Error> removeShapeAtIndex(int i)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            return shapes.removeShapeAtIndex(i);
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void sortByArea()
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            shapes.sortByArea();
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void sortByLeftBorder()
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            shapes.sortByLeftBorder();
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void sortByBottomBorder()
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            version++;
+            shapes.sortByBottomBorder();
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Returns the number of shapes, without taking a lock when no writer is active */
+    public int size()
+    {
+        long stamp = lock.tryOptimisticRead();
+        int size = shapes.size();
+        if (!lock.validate(stamp))
+        {
+            stamp = lock.readLock();
+            try
+            {
+                size = shapes.size();
+            }
+            finally
+            {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        return size;
+    }
+
+    /** Returns the aggregates of the shapes as they are after the latest completed change */
+    public ShapeStats stats()
+    {
+        // the list builds its aggregate tree on the first call, so this is not a read
+        long stamp = lock.writeLock();
+        try
+        {
+            return shapes.stats();
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /** Returns a consistent snapshot of the shapes as they are after the latest completed change */
+    public ShapeSnapshot snapshot()
+    {
+        VersionedSnapshot cached = latest.get();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0 && cached.version == version && lock.validate(stamp))
+        {
+            // nothing changed since the latest snapshot was taken
+            return cached.snapshot;
+        }
+
+        VersionedSnapshot taken = null;
+        for (int attempt = 0; attempt < OPTIMISTIC_COPIES && taken == null; attempt++)
+        {
+            taken = tryCopy();
+        }
+
+        if (taken == null)
+        {
+            // the writers keep changing the list faster than it can be copied, so hold them off for one copy
+            stamp = lock.readLock();
+            try
+            {
+                cached = latest.get();
+                if (cached.version == version)
+                {
+                    return cached.snapshot;
+                }
+
+                taken = new VersionedSnapshot(shapes.snapshot(), version);
+            }
+            finally
+            {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // an older snapshot never replaces a newer one
+        VersionedSnapshot previous = latest.get();
+        while (previous.version < taken.version && !latest.compareAndSet(previous, taken))
+        {
+            previous = latest.get();
+        }
+
+        return taken.snapshot;
+    }
+
+    /** 
+     * Copies the list chunk by chunk without taking a lock, returning null as soon as a writer has changed the list 
+     * since the copy started. A writer may be growing or permuting the columns while they are copied, so what is read
+     * is only used once the optimistic read validates, and a failure it causes only means the copy was interfered with.
+     */
+    private VersionedSnapshot tryCopy()
+    {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp == 0)
+        {
+            return null;
+        }
+
+        long copied = version;
+        int count = shapes.size();
+        if (!lock.validate(stamp))
+        {
+            return null;
+        }
+
+        byte[] kinds = new byte[count];
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] heights = new double[count];
+        double[] widths = new double[count];
+        int[] handles;
+        try
+        {
+            for (int from = 0; from < count; from += COPY_CHUNK_SIZE)
+            {
+                shapes.copyShapes(from, Math.min(count, from + COPY_CHUNK_SIZE), kinds, xs, ys, heights, widths);
+                if (!lock.validate(stamp))
+                {
+                    return null;
+                }
+            }
+
+            handles = shapes.handleTable();
+        }
+        catch (RuntimeException ex)
+        {
+            if (lock.validate(stamp))
+            {
+                throw ex;
+            }
+
+            return null;
+        }
+
+        if (!lock.validate(stamp))
+        {
+            return null;
+        }
+
+        return new VersionedSnapshot(new ShapeSnapshot(kinds, xs, ys, heights, widths, count, handles), copied);
+    }
+
+    /** Lets a read-only consumer read the string representation of each shape of a consistent snapshot, without blocking writers */
+    public void readShapesUsing(Consumer<String> consumer)
+    {
+        snapshot().readShapesUsing(consumer);
+    }
+}
@@ -0,0 +1,154 @@
+package shapes;
+
+import java.io.IOException;
+
+/** 
+ * Formats doubles exactly the way Double.toString does, without allocating.
+ * 
+ * Values that Double.toString writes without an exponent (0.001 <= |value| < 10^7) and that have a decimal representation 
+ * of at most 15 significant digits are formatted here: the fewest fraction digits that still read back as the same double 
+ * are found by scaling with exact powers of ten and checking the round trip, and the digits are written as whole numbers. 
+ * All other values (exponents, long fractions, NaN and infinities) go through the JDK's own formatter.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class DoubleFormat
+{
+    /** The most significant digits written by the fast path, up to here a decimal representation is unique */
+    private static final int MAX_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_DIGITS + 1];
+    private static final long[] LONG_POWERS_OF_TEN = new long[MAX_DIGITS + 1];
+
+    static
+    {
+        double power = 1.0;
+        long longPower = 1;
+        for (int k = 0; k <= MAX_DIGITS; k++)
+        {
+            POWERS_OF_TEN[k] = power;
+            LONG_POWERS_OF_TEN[k] = longPower;
+            power *= 10;
+            longPower *= 10;
+        }
+    }
+
+    private DoubleFormat()
+    {
+    }
+
+    /** 
+     * Returns the fewest fraction digits with which the decimal representation of the positive value reads back 
+     * as the same double, 0 for whole numbers, or -1 when the value is left to the JDK
+     */
+    private static int fractionDigits(double value)
+    {
+        if (!(value >= 1e-3 && value < 1e7))
+        {
+            return -1;
+        }
+
+        long wholePart = (long) value;
+        if (wholePart == value)
+        {
+            return 0;
+        }
+
+        int wholeDigits = wholePart == 0 ? 0 : digitCount(wholePart);
+        for (int k = 1; wholeDigits + k <= MAX_DIGITS; k++)
+        {
+            // dividing by an exact power of ten rounds correctly, so this is exactly the round trip of the decimal
+            if (Math.round(value * POWERS_OF_TEN[k]) / POWERS_OF_TEN[k] == value)
+            {
+                return k;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int digitCount(long value)
+    {
+        int digits = 1;
+        while (digits < LONG_POWERS_OF_TEN.length && value >= LONG_POWERS_OF_TEN[digits])
+        {
+            digits++;
+        }
+
+        return digits;
+    }
+
+    /** Appends the value to the builder exactly like StringBuilder.append(double) */
+    static StringBuilder append(StringBuilder builder, double value)
+    {
+        if (value == 0)
+        {
+            return builder.append(Double.doubleToRawLongBits(value) < 0 ? "-0.0" : "0.0");
+        }
+
+        double magnitude = Math.abs(value);
+        int k = fractionDigits(magnitude);
+        if (k < 0)
+        {
+            return builder.append(value);
+        }
+
+        if (value < 0)
+        {
+            builder.append('-');
+        }
+
+        if (k == 0)
+        {
+            return builder.append((long) magnitude).append(".0");
+        }
+
+        long digits = Math.round(magnitude * POWERS_OF_TEN[k]);
+        long fraction = digits % LONG_POWERS_OF_TEN[k];
+        builder.append(digits / LONG_POWERS_OF_TEN[k]).append('.');
+        for (int zeros = k - digitCount(fraction); zeros > 0; zeros--)
+        {
+            builder.append('0');
+        }
+
+        return builder.append(fraction);
+    }
+
+    /** Appends the value exactly like Double.toString formats it */
+    static void append(Appendable out, double value) throws IOException
+    {
+        if (out instanceof StringBuilder)
+        {
+            append((StringBuilder) out, value);
+            return;
+        }
+
+        double magnitude = Math.abs(value);
+        int k = value == 0 ? 0 : fractionDigits(magnitude);
+        if (k < 0)
+        {
+            out.append(Double.toString(value));
+            return;
+        }
+
+        if (value < 0 || Double.doubleToRawLongBits(value) < 0)
+        {
+            out.append('-');
+        }
+
+        long digits = Math.round(magnitude * POWERS_OF_TEN[k]);
+        appendDigits(out, digits / LONG_POWERS_OF_TEN[k], 1);
+        out.append('.');
+        appendDigits(out, digits % LONG_POWERS_OF_TEN[k], Math.max(1, k));
+    }
+
+    /** Appends the digits of the non-negative value, padded with leading zeros to at least the given width */
+    private static void appendDigits(Appendable out, long value, int width) throws IOException
+    {
+        for (int position = Math.max(width, digitCount(value)) - 1; position >= 0; position--)
+        {
+            out.append((char) ('0' + (value / LONG_POWERS_OF_TEN[position]) % 10));
+        }
+    }
+}
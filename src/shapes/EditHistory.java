@@ -0,0 +1,374 @@
+package shapes;
+
+import java.util.*;
+
+/**
+ * A bounded undo/redo history of the changes made to a shape list.
+ *
+ * Instead of copying the list for every change, each change is stored as a fixed-width entry in a ring buffer of
+ * primitive columns: the operation, the kind of the shape, its index and four doubles. An added or removed shape keeps
+ * its fields, a move keeps its delta and the position it started from, and a sort keeps the order it applied as an int[].
+ * A swap removal keeps the fields of the removed shape, undoing it moves the shape that took its place back to the end.
+ * When the memory limit is reached the oldest changes are forgotten. After an undo or redo the change it applied can be
+ * read back as a journal command, so a journal records it as a delta instead of a snapshot of the whole list.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class EditHistory
+{
+    static final byte ADD = 0;
+    static final byte REMOVE = 1;
+    static final byte MOVE = 2;
+    static final byte SORT = 3;
+    static final byte SWAP_REMOVE = 4;
+
+    /** The memory taken by one entry, without the order of a sort: the operation, the kind, the index, four doubles and a reference */
+    static final int ENTRY_BYTES = 2 + Integer.BYTES + 4 * Double.BYTES + Integer.BYTES;
+    static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private byte[] operations;
+    private byte[] kinds;
+    private int[] indices;
+    // four values per entry: the fields of an added or removed shape, or the delta and start position of a move
+    private double[] values;
+    private int[][] orders;
+    private int first;
+    private int count;
+    private int undoable;
+    private long bytes;
+    // the change that the last undo or redo applied, as a command of the CommandJournal
+    private int appliedCommand;
+    private final double[] appliedArguments;
+    private int appliedCount;
+    private int[] appliedOrder;
+
+    public EditHistory()
+    {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /** Creates a history that takes at most maxBytes of memory */
+    public EditHistory(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        maxEntries = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, maxBytes / ENTRY_BYTES));
+        int capacity = Math.min(64, maxEntries);
+        operations = new byte[capacity];
+        kinds = new byte[capacity];
+        indices = new int[capacity];
+        values = new double[4 * capacity];
+        orders = new int[capacity][];
+        first = 0;
+        count = 0;
+        undoable = 0;
+        bytes = 0;
+        appliedArguments = new double[6];
+        appliedCount = 0;
+    }
+
+    /** Returns how many changes can be undone */
+    public int undoCount()
+    {
+        return undoable;
+    }
+
+    /** Returns how many undone changes can be redone */
+    public int redoCount()
+    {
+        return count - undoable;
+    }
+
+    /** Returns the memory taken by the entries of the history */
+    public long bytesUsed()
+    {
+        return bytes;
+    }
+
+    /** Returns the journal command of the change that the last undo or redo applied */
+    int appliedCommand()
+    {
+        return appliedCommand;
+    }
+
+    /** Returns the arguments of the change that the last undo or redo applied, the first appliedCount() are valid */
+    double[] appliedArguments()
+    {
+        return appliedArguments;
+    }
+
+    int appliedCount()
+    {
+        return appliedCount;
+    }
+
+    /** Returns the order that the last undo or redo applied when it reordered the list, where the shape at index k came from index order[k] */
+    int[] appliedOrder()
+    {
+        return appliedOrder;
+    }
+
+    /** Remembers the change that was applied as the command with the index and the given values as its arguments */
+    private void applied(int command, int i, double... values)
+    {
+        appliedCommand = command;
+        appliedArguments[0] = i;
+        System.arraycopy(values, 0, appliedArguments, 1, values.length);
+        appliedCount = 1 + values.length;
+        appliedOrder = null;
+    }
+
+    /** Remembers that the change that was applied restored the shape of the entry at index i */
+    private void appliedShape(int command, int s, int i)
+    {
+        applied(command, i, kinds[s] == ShapeList.CIRCLE ? 1 : 0, values[4 * s], values[4 * s + 1], values[4 * s + 2], values[4 * s + 3]);
+    }
+
+    /** Remembers that the change that was applied reordered the list */
+    private void appliedReorder(int[] order)
+    {
+        appliedCommand = CommandJournal.REORDER;
+        appliedCount = 0;
+        appliedOrder = order;
+    }
+
+    /** Forgets all changes */
+    public void clear()
+    {
+        Arrays.fill(orders, null);
+        first = 0;
+        count = 0;
+        undoable = 0;
+        bytes = 0;
+    }
+
+    private static long costOf(int[] order)
+    {
+        return ENTRY_BYTES + (order == null ? 0 : (long) order.length * Integer.BYTES);
+    }
+
+    private int slot(int k)
+    {
+        return (first + k) % operations.length;
+    }
+
+    /** Starts a new entry after the undoable ones, forgetting the undone changes and the oldest changes to make room */
+    private int push(byte operation, int index, int[] order)
+    {
+        for (int k = undoable; k < count; k++)
+        {
+            bytes -= costOf(orders[slot(k)]);
+            orders[slot(k)] = null;
+        }
+
+        count = undoable;
+        long cost = costOf(order);
+        if (cost > maxBytes)
+        {
+            // the change can not be undone, so neither can the changes before it
+            clear();
+            return -1;
+        }
+
+        while (count > 0 && (bytes + cost > maxBytes || count == maxEntries))
+        {
+            bytes -= costOf(orders[first]);
+            orders[first] = null;
+            first = (first + 1) % operations.length;
+            count--;
+        }
+
+        if (count == operations.length)
+        {
+            grow();
+        }
+
+        int s = slot(count);
+        operations[s] = operation;
+        indices[s] = index;
+        orders[s] = order;
+        bytes += cost;
+        count++;
+        undoable = count;
+        return s;
+    }
+
+    /** Doubles the capacity of the ring, up to maxEntries, moving the oldest entry to the front */
+    private void grow()
+    {
+        int capacity = (int) Math.min((long) operations.length * 2, maxEntries);
+        byte[] newOperations = new byte[capacity];
+        byte[] newKinds = new byte[capacity];
+        int[] newIndices = new int[capacity];
+        double[] newValues = new double[4 * capacity];
+        int[][] newOrders = new int[capacity][];
+        for (int k = 0; k < count; k++)
+        {
+            int s = slot(k);
+            newOperations[k] = operations[s];
+            newKinds[k] = kinds[s];
+            newIndices[k] = indices[s];
+            System.arraycopy(values, 4 * s, newValues, 4 * k, 4);
+            newOrders[k] = orders[s];
+        }
+
+        operations = newOperations;
+        kinds = newKinds;
+        indices = newIndices;
+        values = newValues;
+        orders = newOrders;
+        first = 0;
+    }
+
+    private void putShape(int s, boolean isCircle, double x, double y, double height, double width)
+    {
+        kinds[s] = isCircle ? ShapeList.CIRCLE : ShapeList.RECTANGLE;
+        values[4 * s] = x;
+        values[4 * s + 1] = y;
+        values[4 * s + 2] = height;
+        values[4 * s + 3] = width;
+    }
+
+    /** Records that the shape at index i of the list was just added */
+    public void recordAdd(ShapeList shapes, int i)
+    {
+        int s = push(ADD, i, null);
+        if (s >= 0)
+        {
+            putShape(s, shapes.isCircleAt(i), shapes.xAt(i), shapes.yAt(i), shapes.heightAt(i), shapes.widthAt(i));
+        }
+    }
+
+    /** Records that the shape at index i of the list is about to be removed, so it must be called before removing it */
+    public void recordRemove(ShapeList shapes, int i)
+    {
+        int s = push(REMOVE, i, null);
+        if (s >= 0)
+        {
+            putShape(s, shapes.isCircleAt(i), shapes.xAt(i), shapes.yAt(i), shapes.heightAt(i), shapes.widthAt(i));
+        }
+    }
+
+    /** Records that the shape at index i is about to be swap removed, so it must be called before removing it */
+    public void recordSwapRemove(ShapeList shapes, int i)
+    {
+        int s = push(SWAP_REMOVE, i, null);
+        if (s >= 0)
+        {
+            putShape(s, shapes.isCircleAt(i), shapes.xAt(i), shapes.yAt(i), shapes.heightAt(i), shapes.widthAt(i));
+        }
+    }
+
+    /** Records that the shape at index i, which was at (x, y), was just moved over (deltaX, deltaY) */
+    public void recordMove(int i, double x, double y, double deltaX, double deltaY)
+    {
+        int s = push(MOVE, i, null);
+        if (s >= 0)
+        {
+            values[4 * s] = deltaX;
+            values[4 * s + 1] = deltaY;
+            values[4 * s + 2] = x;
+            values[4 * s + 3] = y;
+        }
+    }
+
+    /** Records that the list was just sorted into the order, where the shape at index k came from index order[k] */
+    public void recordSort(int[] order)
+    {
+        push(SORT, 0, order);
+    }
+
+    /** Undoes the latest change that was not undone yet, returning whether there was one */
+    public boolean undo(ShapeList shapes)
+    {
+        if (undoable == 0)
+        {
+            return false;
+        }
+
+        undoable--;
+        int s = slot(undoable);
+        int i = indices[s];
+        switch (operations[s])
+        {
+            case ADD:
+                shapes.removeShapeAtIndex(i);
+                applied(CommandParser.REMOVE, i);
+                break;
+
+            case REMOVE:
+                shapes.insertAt(i, kinds[s] == ShapeList.CIRCLE, values[4 * s], values[4 * s + 1], values[4 * s + 2], values[4 * s + 3]);
+                appliedShape(CommandJournal.INSERT, s, i);
+                break;
+
+            case SWAP_REMOVE:
+                shapes.restoreSwapRemoved(i, kinds[s] == ShapeList.CIRCLE, values[4 * s], values[4 * s + 1], values[4 * s + 2], values[4 * s + 3]);
+                appliedShape(CommandJournal.RESTORE_SWAP_REMOVED, s, i);
+                break;
+
+            case MOVE:
+                // back to the exact start position, subtracting the delta again could be off by a rounding error
+                shapes.moveTo(i, values[4 * s + 2], values[4 * s + 3]);
+                applied(CommandJournal.MOVE_TO, i, values[4 * s + 2], values[4 * s + 3]);
+                break;
+
+            case SORT:
+                int[] order = orders[s];
+                int[] inverse = new int[order.length];
+                for (int k = 0; k < order.length; k++)
+                {
+                    inverse[order[k]] = k;
+                }
+
+                shapes.reorder(inverse);
+                appliedReorder(inverse);
+                break;
+        }
+
+        return true;
+    }
+
+    /** Redoes the latest undone change, returning whether there was one */
+    public boolean redo(ShapeList shapes)
+    {
+        if (undoable == count)
+        {
+            return false;
+        }
+
+        int s = slot(undoable);
+        undoable++;
+        int i = indices[s];
+        switch (operations[s])
+        {
+            case ADD:
+                shapes.insertAt(i, kinds[s] == ShapeList.CIRCLE, values[4 * s], values[4 * s + 1], values[4 * s + 2], values[4 * s + 3]);
+                appliedShape(CommandJournal.INSERT, s, i);
+                break;
+
+            case REMOVE:
+                shapes.removeShapeAtIndex(i);
+                applied(CommandParser.REMOVE, i);
+                break;
+
+            case SWAP_REMOVE:
+                shapes.swapRemoveShapeAtIndex(i);
+                applied(CommandJournal.SWAP_REMOVE, i);
+                break;
+
+            case MOVE:
+                shapes.moveShapeAtIndex(i, values[4 * s], values[4 * s + 1]);
+                applied(CommandParser.MOVE, i, values[4 * s], values[4 * s + 1]);
+                break;
+
+            case SORT:
+                shapes.reorder(orders[s]);
+                appliedReorder(orders[s]);
+                break;
+        }
+
+        return true;
+    }
+}
@@ -1,3 +1,5 @@
+package shapes;
+
 /** A container for an error message, can be sean as an alias for string but makes type definitions with error strings more readable. 
  * i.e. Optional of Error is more specific than Optional of String  
  * */
@@ -0,0 +1,53 @@
+package shapes;
+
+/**
+ * Bulk geometry over the columns of a chunk of shapes: areas, borders, bounding boxes and translation of the shapes 
+ * in [from, to) of the column arrays.
+ *
+ * VectorKernels computes several shapes per instruction with the incubating Vector API, ScalarKernels is the plain loop 
+ * used when the jdk.incubator.vector module is not available (it has to be added with --add-modules) or when the 
+ * system property shapes.vector is false. Both compute every area and border exactly like ShapeList does per shape.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+abstract class GeometryKernels
+{
+    /** The vector kernels when they can be used, the scalar ones otherwise */
+    static final GeometryKernels PREFERRED = preferred();
+
+    private static GeometryKernels preferred()
+    {
+        boolean enabled = Boolean.parseBoolean(System.getProperty("shapes.vector", "true"));
+        if (!enabled || !ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+        {
+            return new ScalarKernels();
+        }
+
+        try
+        {
+            // loaded by name, so the Vector API classes are only linked when the module is there
+            return (GeometryKernels) Class.forName("shapes.VectorKernels").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError ex)
+        {
+            return new ScalarKernels();
+        }
+    }
+
+    /** Returns the sum of the areas of the shapes */
+    abstract double sumAreas(byte[] kinds, double[] heights, double[] widths, int from, int to);
+
+    /** Writes the area of the shape at index i to areas[i - from + offset] */
+    abstract void areas(byte[] kinds, double[] heights, double[] widths, int from, int to, double[] areas, int offset);
+
+    /** Writes the left, bottom, right and top border of the shape at index i to index i - from + offset of the border arrays */
+    abstract void borders(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, 
+                          double[] lefts, double[] bottoms, double[] rights, double[] tops, int offset);
+
+    /** Widens the box, given as { left, bottom, right, top }, to enclose the shapes */
+    abstract void bounds(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, double[] box);
+
+    /** Moves the shapes over (deltaX, deltaY) */
+    abstract void translate(double[] xs, double[] ys, int from, int to, double deltaX, double deltaY);
+}
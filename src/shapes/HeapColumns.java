@@ -0,0 +1,279 @@
+package shapes;
+
+import java.util.Arrays;
+
+/**
+ * Shape columns stored on the heap as primitive arrays in fixed-size chunks.
+ *
+ * Up to one chunk of shapes the columns are single arrays that double in size, after that the columns grow by adding 
+ * chunks, so growing a large list never copies the shapes it already holds and never needs one huge array.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class HeapColumns extends ShapeColumns
+{
+    private byte[][] kinds;
+    private double[][] xs;
+    private double[][] ys;
+    // circles store their radius in both the heights and the widths column
+    private double[][] heights;
+    private double[][] widths;
+    private int chunks;
+    private int capacity;
+
+    HeapColumns(int capacity)
+    {
+        if (capacity <= CHUNK_SIZE)
+        {
+            allocate(1);
+            allocateChunk(0, capacity);
+            chunks = 1;
+            this.capacity = capacity;
+        }
+        else
+        {
+            int count = (int) (((long) capacity + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            allocate(count);
+            for (int chunk = 0; chunk < count; chunk++)
+            {
+                allocateChunk(chunk, CHUNK_SIZE);
+            }
+
+            chunks = count;
+            this.capacity = count * CHUNK_SIZE;
+        }
+    }
+
+    private void allocate(int directorySize)
+    {
+        kinds = new byte[directorySize][];
+        xs = new double[directorySize][];
+        ys = new double[directorySize][];
+        heights = new double[directorySize][];
+        widths = new double[directorySize][];
+    }
+
+    private void allocateChunk(int chunk, int length)
+    {
+        kinds[chunk] = new byte[length];
+        xs[chunk] = new double[length];
+        ys[chunk] = new double[length];
+        heights[chunk] = new double[length];
+        widths[chunk] = new double[length];
+    }
+
+    @Override
+    int capacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    long bytes()
+    {
+        return (long) capacity * BYTES_PER_SHAPE;
+    }
+
+    @Override
+    void grow(int maxCapacity)
+    {
+        if (capacity < CHUNK_SIZE)
+        {
+            // the first chunk doubles until it is full size, which keeps small lists small
+            int length = Math.min(Math.min(CHUNK_SIZE, maxCapacity), Math.max(16, 2 * capacity));
+            kinds[0] = Arrays.copyOf(kinds[0], length);
+            xs[0] = Arrays.copyOf(xs[0], length);
+            ys[0] = Arrays.copyOf(ys[0], length);
+            heights[0] = Arrays.copyOf(heights[0], length);
+            widths[0] = Arrays.copyOf(widths[0], length);
+            capacity = length;
+            return;
+        }
+
+        if (chunks == kinds.length)
+        {
+            int directorySize = 2 * chunks;
+            kinds = Arrays.copyOf(kinds, directorySize);
+            xs = Arrays.copyOf(xs, directorySize);
+            ys = Arrays.copyOf(ys, directorySize);
+            heights = Arrays.copyOf(heights, directorySize);
+            widths = Arrays.copyOf(widths, directorySize);
+        }
+
+        allocateChunk(chunks, CHUNK_SIZE);
+        chunks++;
+        capacity += CHUNK_SIZE;
+    }
+
+    @Override
+    byte kind(int i)
+    {
+        return kinds[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    double x(int i)
+    {
+        return xs[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    double y(int i)
+    {
+        return ys[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    double height(int i)
+    {
+        return heights[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    double width(int i)
+    {
+        return widths[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+    }
+
+    @Override
+    void set(int i, byte kind, double x, double y, double height, double width)
+    {
+        int chunk = i >>> CHUNK_SHIFT;
+        int k = i & CHUNK_MASK;
+        kinds[chunk][k] = kind;
+        xs[chunk][k] = x;
+        ys[chunk][k] = y;
+        heights[chunk][k] = height;
+        widths[chunk][k] = width;
+    }
+
+    @Override
+    void setPosition(int i, double x, double y)
+    {
+        int chunk = i >>> CHUNK_SHIFT;
+        int k = i & CHUNK_MASK;
+        xs[chunk][k] = x;
+        ys[chunk][k] = y;
+    }
+
+    @Override
+    void translate(int i, double deltaX, double deltaY)
+    {
+        int chunk = i >>> CHUNK_SHIFT;
+        int k = i & CHUNK_MASK;
+        xs[chunk][k] += deltaX;
+        ys[chunk][k] += deltaY;
+    }
+
+    @Override
+    ShapeColumns empty(int capacity)
+    {
+        return new HeapColumns(capacity);
+    }
+
+    @Override
+    void shiftDown(int from, int to)
+    {
+        int i = from;
+        while (i < to - 1)
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            // shift within the chunk of i, then pull the first shape of the next chunk into its last slot
+            int shifted = Math.min(to - 1 - i, CHUNK_SIZE - 1 - k);
+            System.arraycopy(kinds[chunk], k + 1, kinds[chunk], k, shifted);
+            System.arraycopy(xs[chunk], k + 1, xs[chunk], k, shifted);
+            System.arraycopy(ys[chunk], k + 1, ys[chunk], k, shifted);
+            System.arraycopy(heights[chunk], k + 1, heights[chunk], k, shifted);
+            System.arraycopy(widths[chunk], k + 1, widths[chunk], k, shifted);
+            i += shifted;
+            if (i < to - 1)
+            {
+                set(i, kind(i + 1), x(i + 1), y(i + 1), height(i + 1), width(i + 1));
+                i++;
+            }
+        }
+    }
+
+    /** Returns the number of shapes from index i up to index to that are in the chunk of i */
+    private static int inChunk(int i, int to)
+    {
+        return Math.min(to - i, CHUNK_SIZE - (i & CHUNK_MASK));
+    }
+
+    @Override
+    double sumAreas(GeometryKernels kernels, int from, int to)
+    {
+        double total = 0.0;
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            total += kernels.sumAreas(kinds[chunk], heights[chunk], widths[chunk], k, k + inChunk(i, to));
+        }
+
+        return total;
+    }
+
+    @Override
+    void areas(GeometryKernels kernels, int from, int to, double[] areas)
+    {
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            kernels.areas(kinds[chunk], heights[chunk], widths[chunk], k, k + inChunk(i, to), areas, i - from);
+        }
+    }
+
+    @Override
+    void borders(GeometryKernels kernels, int from, int to, double[] lefts, double[] bottoms, double[] rights, double[] tops)
+    {
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            kernels.borders(kinds[chunk], xs[chunk], ys[chunk], heights[chunk], widths[chunk], k, k + inChunk(i, to), 
+                            lefts, bottoms, rights, tops, i - from);
+        }
+    }
+
+    @Override
+    void bounds(GeometryKernels kernels, int from, int to, double[] box)
+    {
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            kernels.bounds(kinds[chunk], xs[chunk], ys[chunk], heights[chunk], widths[chunk], k, k + inChunk(i, to), box);
+        }
+    }
+
+    @Override
+    void translateAll(GeometryKernels kernels, int from, int to, double deltaX, double deltaY)
+    {
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            kernels.translate(xs[chunk], ys[chunk], k, k + inChunk(i, to), deltaX, deltaY);
+        }
+    }
+
+    @Override
+    void copyTo(int from, int to, byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths)
+    {
+        for (int i = from; i < to; i += inChunk(i, to))
+        {
+            int chunk = i >>> CHUNK_SHIFT;
+            int k = i & CHUNK_MASK;
+            int length = inChunk(i, to);
+            System.arraycopy(this.kinds[chunk], k, kinds, i, length);
+            System.arraycopy(this.xs[chunk], k, xs, i, length);
+            System.arraycopy(this.ys[chunk], k, ys, i, length);
+            System.arraycopy(this.heights[chunk], k, heights, i, length);
+            System.arraycopy(this.widths[chunk], k, widths, i, length);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package shapes;
+
+import java.io.IOException;
+
+/** Defines common shape operations
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928 
+ */
+public interface IShape
+{
+    double Area();
+    double TopBorder();
+    double RightBorder();
+    double LeftBorder();
+    double BottomBorder();
+    void Move(double dx, double dy);
+
+    /** Appends the same text as toString() to the builder, writing the digits directly instead of building strings */
+    StringBuilder appendTo(StringBuilder builder);
+
+    /** Appends the same text as toString() to the output, writing the digits directly instead of building strings */
+    void appendTo(Appendable out) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package shapes;
+
+import java.util.concurrent.*;
+
+/** 
+ * Sorts shape indices by a primitive key column instead of sorting shape objects.
+ * The sort is a stable merge sort, so shapes with equal keys keep their relative order
+ * just like Arrays.sort does for objects.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class IndexSort
+{
+    /** Runs shorter than this are sorted using insertion sort */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /** Returns the indices 0 until n ordered by their key, i.e. keys[order[0]] <= keys[order[1]] <= ... */
+    public static int[] sort(double[] keys, int n)
+    {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            order[i] = i;
+        }
+
+        sort(keys, order, n);
+        return order;
+    }
+
+    /** Sorts the first n shape indices in order by their key, keeping the relative order of indices with equal keys */
+    public static void sort(double[] keys, int[] order, int n)
+    {
+        int[] buffer = new int[n];
+        mergeSort(keys, order, buffer, 0, n);
+    }
+
+    /** Compares two keys like the shape comparators do: NaN keys compare equal to anything */
+    static int compare(double a, double b)
+    {
+        return a > b ? 1 
+             : a < b ? -1 
+             : 0;
+    }
+
+    /** Sorts like sort(keys, order, n) but sorts the halves of large ranges in parallel on the fork/join pool */
+    public static void parallelSort(double[] keys, int[] order, int n)
+    {
+        int[] buffer = new int[n];
+        ForkJoinPool.commonPool().invoke(new ParallelMergeSort(keys, order, buffer, 0, n));
+    }
+
+    @SuppressWarnings("serial")
+    private static class ParallelMergeSort extends RecursiveAction
+    {
+        private final double[] keys;
+        private final int[] order;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+
+        ParallelMergeSort(double[] keys, int[] order, int[] buffer, int from, int to)
+        {
+            this.keys = keys;
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= ShapeTasks.GRANULARITY)
+            {
+                mergeSort(keys, order, buffer, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new ParallelMergeSort(keys, order, buffer, from, middle),
+                new ParallelMergeSort(keys, order, buffer, middle, to));
+            merge(keys, order, buffer, from, middle, to);
+        }
+    }
+
+    private static void mergeSort(double[] keys, int[] order, int[] buffer, int from, int to)
+    {
+        if (to - from <= INSERTION_SORT_THRESHOLD)
+        {
+            insertionSort(keys, order, from, to);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSort(keys, order, buffer, from, middle);
+        mergeSort(keys, order, buffer, middle, to);
+        merge(keys, order, buffer, from, middle, to);
+    }
+
+    static void insertionSort(double[] keys, int[] order, int from, int to)
+    {
+        for (int i = from + 1; i < to; i++)
+        {
+            int current = order[i];
+            double key = keys[current];
+            int j = i - 1;
+            while (j >= from && compare(keys[order[j]], key) > 0)
+            {
+                order[j + 1] = order[j];
+                j--;
+            }
+
+            order[j + 1] = current;
+        }
+    }
+
+    /** Merges the sorted runs [from, middle) and [middle, to), taking from the left run on ties to stay stable */
+    static void merge(double[] keys, int[] order, int[] buffer, int from, int middle, int to)
+    {
+        // already in order, nothing to merge
+        if (compare(keys[order[middle - 1]], keys[order[middle]]) <= 0)
+        {
+            return;
+        }
+
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        int k = from;
+        while (left < middle && right < to)
+        {
+            if (compare(keys[buffer[right]], keys[buffer[left]]) < 0)
+            {
+                order[k++] = buffer[right++];
+            }
+            else
+            {
+                order[k++] = buffer[left++];
+            }
+        }
+
+        while (left < middle)
+        {
+            order[k++] = buffer[left++];
+        }
+
+        while (right < to)
+        {
+            order[k++] = buffer[right++];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package shapes;
+
+import java.util.*;
+
+/** 
+ * A growable list of primitive ints, used by the shape indexes to avoid boxing shape indices into Integers
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class IntList
+{
+    private int[] values;
+    private int size;
+
+    IntList(int capacity)
+    {
+        values = new int[Math.max(1, capacity)];
+        size = 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    int get(int k)
+    {
+        return values[k];
+    }
+
+    void set(int k, int value)
+    {
+        values[k] = value;
+    }
+
+    void add(int value)
+    {
+        if (size == values.length)
+        {
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        values[size++] = value;
+    }
+
+    /** Removes and returns the last value, the list must not be empty */
+    int removeLast()
+    {
+        return values[--size];
+    }
+
+    void clear()
+    {
+        size = 0;
+    }
+
+    /** Removes the first occurrence of the value by moving the last element into its place, the order is not kept */
+    boolean swapRemove(int value)
+    {
+        for (int k = 0; k < size; k++)
+        {
+            if (values[k] == value)
+            {
+                values[k] = values[--size];
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** Replaces the first occurrence of the value, used when the shape at that index was moved to another index */
+    void replace(int value, int replacement)
+    {
+        for (int k = 0; k < size; k++)
+        {
+            if (values[k] == value)
+            {
+                values[k] = replacement;
+                return;
+            }
+        }
+    }
+
+    /** Decrements every value greater than i, used when the shape at index i was removed from the list */
+    void shiftDownAbove(int i)
+    {
+        for (int k = 0; k < size; k++)
+        {
+            if (values[k] > i)
+            {
+                values[k]--;
+            }
+        }
+    }
+
+    /** Replaces every value v by positions[v], used when the shapes of the list were reordered */
+    void remap(int[] positions)
+    {
+        for (int k = 0; k < size; k++)
+        {
+            values[k] = positions[values[k]];
+        }
+    }
+
+    int[] toArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+}
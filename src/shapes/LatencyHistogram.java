@@ -0,0 +1,123 @@
+package shapes;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed relative precision, in the style of HdrHistogram.
+ *
+ * Durations below 64ns each have their own bucket, above that every power of two is split into 32 buckets, so a
+ * recorded duration is off by at most 1/32 (about 3%). Durations of 2^41ns (about 36 minutes) and more all fall in the
+ * last bucket. Recording is a few shifts and an increment into a preallocated array, it never allocates.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // durations below this have a bucket each
+    private static final long EXACT_LIMIT = 2 * SUB_BUCKETS;
+    private static final int HIGHEST_EXPONENT = 40;
+    private static final int FIRST_EXPONENT = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = (int) EXACT_LIMIT + (HIGHEST_EXPONENT - FIRST_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long total;
+    private long max;
+
+    LatencyHistogram()
+    {
+        counts = new long[BUCKETS];
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    static int bucketOf(long nanos)
+    {
+        long value = Math.min(Math.max(0, nanos), (1L << (HIGHEST_EXPONENT + 1)) - 1);
+        if (value < EXACT_LIMIT)
+        {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        // the highest SUB_BUCKET_BITS + 1 bits of the value, of which the first is always set
+        int top = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+        return (int) EXACT_LIMIT + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + top - SUB_BUCKETS;
+    }
+
+    /** Returns the highest duration that is counted in the bucket */
+    static long highestIn(int bucket)
+    {
+        if (bucket < EXACT_LIMIT)
+        {
+            return bucket;
+        }
+
+        int exponent = FIRST_EXPONENT + (bucket - (int) EXACT_LIMIT) / SUB_BUCKETS;
+        long top = SUB_BUCKETS + (bucket - EXACT_LIMIT) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (top << shift) + (1L << shift) - 1;
+    }
+
+    void record(long nanos)
+    {
+        counts[bucketOf(nanos)]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /** Adds the durations recorded by the other histogram to this one */
+    void add(LatencyHistogram other)
+    {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            counts[bucket] += other.counts[bucket];
+        }
+
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long count()
+    {
+        return count;
+    }
+
+    /** Returns the exact mean of the recorded durations, or 0 when nothing was recorded */
+    double mean()
+    {
+        return count == 0 ? 0.0 : (double) total / count;
+    }
+
+    /** Returns the exact longest recorded duration */
+    long max()
+    {
+        return max;
+    }
+
+    /** Returns a duration that at least the given percentage of the recorded durations does not exceed */
+    long percentile(double percentage)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentage / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+        {
+            seen += counts[bucket];
+            if (seen >= rank)
+            {
+                return Math.min(highestIn(bucket), max);
+            }
+        }
+
+        return max;
+    }
+}
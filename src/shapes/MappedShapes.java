@@ -0,0 +1,167 @@
+package shapes;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/** 
+ * A read-only view over the shapes of a memory-mapped shape file. The shapes are read straight from the mapping
+ * when they are accessed, so opening a file costs the same no matter how many shapes it holds.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class MappedShapes
+{
+    private final ByteBuffer[] regions;
+    private final int recordsPerRegion;
+    private final int size;
+
+    MappedShapes(ByteBuffer[] regions, int recordsPerRegion, int size)
+    {
+        this.regions = regions;
+        this.recordsPerRegion = recordsPerRegion;
+        this.size = size;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    private ByteBuffer regionOf(int i)
+    {
+        return regions[i / recordsPerRegion];
+    }
+
+    private int offsetOf(int i)
+    {
+        return (i % recordsPerRegion) * ShapeFile.RECORD_SIZE;
+    }
+
+    public boolean isCircleAt(int i)
+    {
+        return regionOf(i).get(offsetOf(i)) == ShapeList.CIRCLE;
+    }
+
+    public double xAt(int i)
+    {
+        return regionOf(i).getDouble(offsetOf(i) + 1);
+    }
+
+    public double yAt(int i)
+    {
+        return regionOf(i).getDouble(offsetOf(i) + 9);
+    }
+
+    /** Returns the height of the rectangle, or the radius of the circle, at index i */
+    public double heightAt(int i)
+    {
+        return regionOf(i).getDouble(offsetOf(i) + 17);
+    }
+
+    /** Returns the width of the rectangle, or the radius of the circle, at index i */
+    public double widthAt(int i)
+    {
+        return regionOf(i).getDouble(offsetOf(i) + 25);
+    }
+
+    public double areaAt(int i)
+    {
+        double width = widthAt(i);
+        return isCircleAt(i) ? Math.PI * width * width : heightAt(i) * width;
+    }
+
+    public double leftBorderAt(int i)
+    {
+        return isCircleAt(i) ? xAt(i) - widthAt(i) : xAt(i);
+    }
+
+    public double bottomBorderAt(int i)
+    {
+        return isCircleAt(i) ? yAt(i) - heightAt(i) : yAt(i);
+    }
+
+    /** Materializes the shape at index i as a detached IShape */
+    public IShape shapeAt(int i)
+    {
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + i + " lies outside the bounds of the shape file");
+        }
+
+        return isCircleAt(i) 
+            ? new Circle(xAt(i), yAt(i), widthAt(i)) 
+            : new Rectangle(xAt(i), yAt(i), heightAt(i), widthAt(i));
+    }
+
+    /** Returns the indices of the shapes ordered by area, sorted straight from the mapping */
+    public int[] sortedByArea()
+    {
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = areaAt(i);
+        }
+
+        return IndexSort.sort(keys, size);
+    }
+
+    /** Returns the indices of the shapes ordered by left border, sorted straight from the mapping */
+    public int[] sortedByLeftBorder()
+    {
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = leftBorderAt(i);
+        }
+
+        return IndexSort.sort(keys, size);
+    }
+
+    /** Returns the indices of the shapes ordered by bottom border, sorted straight from the mapping */
+    public int[] sortedByBottomBorder()
+    {
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++)
+        {
+            keys[i] = bottomBorderAt(i);
+        }
+
+        return IndexSort.sort(keys, size);
+    }
+
+    /** Allows a read-only consumer to read the string representation of each shape in the file */
+    public void readShapesUsing(Consumer<String> consumer)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (isCircleAt(i))
+            {
+                consumer.accept(Circle.format(xAt(i), yAt(i), widthAt(i)));
+            }
+            else
+            {
+                consumer.accept(Rectangle.format(xAt(i), yAt(i), heightAt(i), widthAt(i)));
+            }
+        }
+    }
+
+    /** Adds the shapes of the file to the list until it is full, returning how many shapes were added */
+    public int appendTo(ShapeList shapes)
+    {
+        int added = 0;
+        for (int i = 0; i < size && !shapes.isFull(); i++)
+        {
+            boolean valid = isCircleAt(i)
+                ? shapes.addCircle(xAt(i), yAt(i), widthAt(i)).isPresent()
+                : shapes.addRectangle(xAt(i), yAt(i), heightAt(i), widthAt(i)).isPresent();
+
+            if (valid)
+            {
+                added++;
+            }
+        }
+
+        return added;
+    }
+}
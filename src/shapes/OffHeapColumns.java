@@ -0,0 +1,231 @@
+package shapes;
+
+import java.lang.reflect.*;
+import java.nio.*;
+
+/**
+ * Shape columns stored outside the heap, as records in direct buffers of CHUNK_SIZE shapes each.
+ *
+ * A record has the layout of a record in a ShapeFile, in native byte order: the kind of the shape as a single byte 
+ * followed by its x, y, height and width. The garbage collector only sees one small buffer object per chunk, however 
+ * many shapes there are. Direct buffers are normally freed when they become unreachable, close() frees them right away.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class OffHeapColumns extends ShapeColumns
+{
+    static final int RECORD_SIZE = ShapeFile.RECORD_SIZE;
+    private static final int KIND = 0;
+    private static final int X = 1;
+    private static final int Y = X + Double.BYTES;
+    private static final int HEIGHT = Y + Double.BYTES;
+    private static final int WIDTH = HEIGHT + Double.BYTES;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static
+    {
+        // sun.misc.Unsafe.invokeCleaner frees a direct buffer immediately, without it close() leaves that to the collector
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try
+        {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private ByteBuffer[] chunks;
+    private int chunkCount;
+    private byte[] scratch;
+
+    OffHeapColumns(int capacity)
+    {
+        int count = (int) (((long) capacity + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        chunks = new ByteBuffer[Math.max(1, count)];
+        chunkCount = 0;
+        while (chunkCount < count)
+        {
+            addChunk();
+        }
+    }
+
+    private void addChunk()
+    {
+        if (chunkCount == chunks.length)
+        {
+            ByteBuffer[] grown = new ByteBuffer[2 * chunks.length];
+            System.arraycopy(chunks, 0, grown, 0, chunkCount);
+            chunks = grown;
+        }
+
+        chunks[chunkCount] = ByteBuffer.allocateDirect(CHUNK_SIZE * RECORD_SIZE).order(ByteOrder.nativeOrder());
+        chunkCount++;
+    }
+
+    @Override
+    int capacity()
+    {
+        return chunkCount * CHUNK_SIZE;
+    }
+
+    @Override
+    long bytes()
+    {
+        return (long) chunkCount * CHUNK_SIZE * RECORD_SIZE;
+    }
+
+    @Override
+    void grow(int maxCapacity)
+    {
+        addChunk();
+    }
+
+    private ByteBuffer chunkOf(int i)
+    {
+        return chunks[i >>> CHUNK_SHIFT];
+    }
+
+    private static int offsetOf(int i)
+    {
+        return (i & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    @Override
+    byte kind(int i)
+    {
+        return chunkOf(i).get(offsetOf(i) + KIND);
+    }
+
+    @Override
+    double x(int i)
+    {
+        return chunkOf(i).getDouble(offsetOf(i) + X);
+    }
+
+    @Override
+    double y(int i)
+    {
+        return chunkOf(i).getDouble(offsetOf(i) + Y);
+    }
+
+    @Override
+    double height(int i)
+    {
+        return chunkOf(i).getDouble(offsetOf(i) + HEIGHT);
+    }
+
+    @Override
+    double width(int i)
+    {
+        return chunkOf(i).getDouble(offsetOf(i) + WIDTH);
+    }
+
+    @Override
+    void set(int i, byte kind, double x, double y, double height, double width)
+    {
+        ByteBuffer chunk = chunkOf(i);
+        int offset = offsetOf(i);
+        chunk.put(offset + KIND, kind)
+             .putDouble(offset + X, x)
+             .putDouble(offset + Y, y)
+             .putDouble(offset + HEIGHT, height)
+             .putDouble(offset + WIDTH, width);
+    }
+
+    @Override
+    void setPosition(int i, double x, double y)
+    {
+        ByteBuffer chunk = chunkOf(i);
+        int offset = offsetOf(i);
+        chunk.putDouble(offset + X, x).putDouble(offset + Y, y);
+    }
+
+    @Override
+    void translate(int i, double deltaX, double deltaY)
+    {
+        ByteBuffer chunk = chunkOf(i);
+        int offset = offsetOf(i);
+        chunk.putDouble(offset + X, chunk.getDouble(offset + X) + deltaX)
+             .putDouble(offset + Y, chunk.getDouble(offset + Y) + deltaY);
+    }
+
+    @Override
+    void shiftDown(int from, int to)
+    {
+        if (scratch == null)
+        {
+            scratch = new byte[CHUNK_SIZE * RECORD_SIZE];
+        }
+
+        int i = from;
+        while (i < to - 1)
+        {
+            ByteBuffer chunk = chunkOf(i);
+            int k = i & CHUNK_MASK;
+            // shift the records after i within its chunk, then pull the first record of the next chunk into its last slot
+            int shifted = Math.min(to - 1 - i, CHUNK_SIZE - 1 - k);
+            int length = shifted * RECORD_SIZE;
+            chunk.get(offsetOf(i + 1), scratch, 0, length);
+            chunk.put(offsetOf(i), scratch, 0, length);
+            i += shifted;
+            if (i < to - 1)
+            {
+                copy(this, i + 1, i);
+                i++;
+            }
+        }
+    }
+
+    @Override
+    ShapeColumns empty(int capacity)
+    {
+        return new OffHeapColumns(capacity);
+    }
+
+    /** Sorting rearranges the records in place, so it never needs a second copy of the shapes */
+    @Override
+    boolean permutesInPlace()
+    {
+        return true;
+    }
+
+    @Override
+    void close()
+    {
+        ByteBuffer[] freed = chunks;
+        int count = chunkCount;
+        // accessing the columns after closing them fails on the missing chunks instead of reading freed memory
+        chunks = new ByteBuffer[0];
+        chunkCount = 0;
+        if (INVOKE_CLEANER == null)
+        {
+            return;
+        }
+
+        for (int chunk = 0; chunk < count; chunk++)
+        {
+            try
+            {
+                INVOKE_CLEANER.invoke(UNSAFE, freed[chunk]);
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                // the buffer is freed by the collector once it becomes unreachable instead
+            }
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongPredicate;
+
+/**
+ * Keeps the pairs of overlapping shapes of a ShapeList, found by sweep and prune instead of testing every pair.
+ *
+ * The first time the pairs are asked for, the shapes are swept in the order of their left border, which the list
+ * already maintains: every shape is only tested against the shapes after it whose left border lies before its right
+ * border, those are filtered by their bottom and top border and the remaining candidates get an exact test.
+ * The sweep runs per horizontal band of a few shape heights, otherwise the shapes after a shape in the order would 
+ * include every shape in a strip as high as the world. Large lists are swept in parallel, each task sweeping a range of bands.
+ *
+ * After that only the shapes that were added or moved are checked again, by looking up the shapes overlapping their
+ * bounding box in the spatial grid. When many shapes changed the whole list is swept again.
+ * Pairs are kept as i << 32 | j with i < j, sorted, so they stay sorted when the indices shift.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class OverlapIndex implements ShapeIndex
+{
+    /** When more than one in this many shapes changed, sweeping everything is cheaper than checking them one by one */
+    static final int SWEEP_FRACTION = 8;
+
+    private final ShapeList shapes;
+    private Pairs pairs;
+    // whether the pairs were ever computed, until then changes are not tracked
+    private boolean swept;
+    // the shapes that were added or moved since the pairs were last brought up to date
+    private final IntList dirty;
+    private boolean[] isDirty;
+
+    OverlapIndex(ShapeList shapes)
+    {
+        this.shapes = shapes;
+        pairs = new Pairs(16);
+        swept = false;
+        dirty = new IntList(16);
+        isDirty = new boolean[16];
+    }
+
+    static long pair(int i, int j)
+    {
+        return i < j ? (long) i << 32 | j : (long) j << 32 | i;
+    }
+
+    static int first(long pair)
+    {
+        return (int) (pair >>> 32);
+    }
+
+    static int second(long pair)
+    {
+        return (int) pair;
+    }
+
+    private void markDirty(int i)
+    {
+        if (i >= isDirty.length)
+        {
+            isDirty = Arrays.copyOf(isDirty, Math.max(i + 1, isDirty.length * 2));
+        }
+
+        if (swept && !isDirty[i])
+        {
+            isDirty[i] = true;
+            dirty.add(i);
+        }
+    }
+
+    private void clearDirty()
+    {
+        for (int k = 0; k < dirty.size(); k++)
+        {
+            isDirty[dirty.get(k)] = false;
+        }
+
+        dirty.clear();
+    }
+
+    public void added(int i)
+    {
+        markDirty(i);
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+        markDirty(i);
+    }
+
+    public void removing(int i)
+    {
+        if (!swept)
+        {
+            return;
+        }
+
+        // shifting every index above i down keeps the pairs sorted
+        int kept = 0;
+        for (int k = 0; k < pairs.size; k++)
+        {
+            long p = pairs.values[k];
+            int a = first(p);
+            int b = second(p);
+            if (a != i && b != i)
+            {
+                pairs.values[kept++] = pair(a > i ? a - 1 : a, b > i ? b - 1 : b);
+            }
+        }
+
+        pairs.size = kept;
+        dirty.swapRemove(i);
+        dirty.shiftDownAbove(i);
+        int last = shapes.size() - 1;
+        System.arraycopy(isDirty, i + 1, isDirty, i, last - i);
+        isDirty[last] = false;
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        if (!swept)
+        {
+            return;
+        }
+
+        // the pairs of both shapes are dropped, the shape that moves into index i is checked again as if it moved
+        pairs.removeIf(p -> first(p) == i || second(p) == i || first(p) == last || second(p) == last);
+        if (isDirty[last])
+        {
+            dirty.swapRemove(last);
+            isDirty[last] = false;
+        }
+
+        if (i != last)
+        {
+            markDirty(i);
+        }
+    }
+
+    public void reordered(int[] order)
+    {
+        if (!swept)
+        {
+            return;
+        }
+
+        int size = shapes.size();
+        int[] positions = new int[size];
+        for (int k = 0; k < size; k++)
+        {
+            positions[order[k]] = k;
+        }
+
+        for (int k = 0; k < pairs.size; k++)
+        {
+            long p = pairs.values[k];
+            pairs.values[k] = pair(positions[first(p)], positions[second(p)]);
+        }
+
+        pairs.sort(shapes.runsInParallel(pairs.size));
+        // reordering only moves shapes between indices, so the changed shapes are still the same shapes
+        for (int k = 0; k < dirty.size(); k++)
+        {
+            isDirty[dirty.get(k)] = false;
+        }
+
+        dirty.remap(positions);
+        for (int k = 0; k < dirty.size(); k++)
+        {
+            isDirty[dirty.get(k)] = true;
+        }
+    }
+
+    /** Returns the overlapping pairs, sorted, bringing them up to date first. The first size values of the array are valid */
+    Pairs pairs()
+    {
+        int size = shapes.size();
+        if (!swept || (long) dirty.size() * SWEEP_FRACTION > size)
+        {
+            clearDirty();
+            if (isDirty.length < size)
+            {
+                isDirty = new boolean[size];
+            }
+
+            pairs = sweep();
+            swept = true;
+        }
+        else if (dirty.size() > 0)
+        {
+            recheckDirty();
+        }
+
+        return pairs;
+    }
+
+    /** Drops the pairs of the changed shapes and finds their overlaps again through the spatial grid */
+    private void recheckDirty()
+    {
+        pairs.removeIf(p -> isDirty[first(p)] || isDirty[second(p)]);
+        Pairs found = new Pairs(16);
+        for (int k = 0; k < dirty.size(); k++)
+        {
+            int i = dirty.get(k);
+            int[] candidates = shapes.shapesIntersecting(shapes.leftBorderAt(i), shapes.bottomBorderAt(i), shapes.rightBorderAt(i), shapes.topBorderAt(i));
+            for (int j : candidates)
+            {
+                // a pair of two changed shapes is found from both, it is kept from the lower index
+                if (j != i && !(isDirty[j] && j < i) && shapes.overlapsAt(i, j))
+                {
+                    found.add(pair(i, j));
+                }
+            }
+        }
+
+        clearDirty();
+        found.sort(false);
+        pairs.merge(found);
+    }
+
+    /** Sweeps all shapes in the order of their left border */
+    private Pairs sweep()
+    {
+        Sweep sweep = new Sweep(shapes);
+        Pairs found;
+        if (shapes.runsInParallel(sweep.count))
+        {
+            found = ForkJoinPool.commonPool().invoke(new ShapeTasks.Overlaps(sweep, 0, sweep.bands));
+        }
+        else
+        {
+            found = new Pairs(16);
+            sweep.collect(0, sweep.bands, found);
+        }
+
+        found.sort(shapes.runsInParallel(found.size));
+        return found;
+    }
+
+    /** 
+     * The borders of the shapes in the order of their left border, split into horizontal bands that tasks can sweep 
+     * concurrently. A shape is in every band its bottom and top border span, and a pair is only reported by the band 
+     * that holds the higher of their two bottom borders, which both shapes span.
+     */
+    static class Sweep
+    {
+        /** Bands are this many times the mean height of the shapes, so most shapes are in one or two bands */
+        static final int BAND_HEIGHTS = 4;
+        /** Bands hold at least this many shapes on average, fewer would make the bands cost more than they save */
+        static final int MIN_BAND_SHAPES = 16;
+
+        private final ShapeList shapes;
+        final int count;
+        private final int[] order;
+        private final double[] lefts;
+        private final double[] bottoms;
+        private final double[] rights;
+        private final double[] tops;
+        final int bands;
+        private final double firstBottom;
+        private final double bandHeight;
+        // the positions in the order of the shapes in band b are members[bandStarts[b]] up to members[bandStarts[b + 1]]
+        private final int[] bandStarts;
+        private final int[] members;
+
+        Sweep(ShapeList shapes)
+        {
+            this.shapes = shapes;
+            count = shapes.size();
+            order = shapes.leftBorderOrder();
+            double[][] byIndex = new double[4][count];
+            shapes.borders(byIndex[0], byIndex[1], byIndex[2], byIndex[3]);
+            // gathered into the order of the sweep, so the scans read memory sequentially
+            lefts = new double[count];
+            bottoms = new double[count];
+            rights = new double[count];
+            tops = new double[count];
+            double lowest = Double.POSITIVE_INFINITY;
+            double highest = Double.NEGATIVE_INFINITY;
+            double totalHeight = 0.0;
+            for (int k = 0; k < count; k++)
+            {
+                int i = order[k];
+                lefts[k] = byIndex[0][i];
+                bottoms[k] = byIndex[1][i];
+                rights[k] = byIndex[2][i];
+                tops[k] = byIndex[3][i];
+                lowest = Math.min(lowest, bottoms[k]);
+                highest = Math.max(highest, tops[k]);
+                totalHeight += tops[k] - bottoms[k];
+            }
+
+            double height = BAND_HEIGHTS * totalHeight / Math.max(1, count);
+            double bandCount = height > 0 ? (highest - lowest) / height : 1;
+            // one band when the heights or the extent are not finite
+            bands = bandCount >= 1 ? (int) Math.min(bandCount, Math.max(1, count / MIN_BAND_SHAPES)) : 1;
+            firstBottom = lowest;
+            bandHeight = bands > 1 ? (highest - lowest) / bands : Double.POSITIVE_INFINITY;
+
+            bandStarts = new int[bands + 1];
+            for (int k = 0; k < count; k++)
+            {
+                for (int b = bandOf(bottoms[k]), last = bandOf(tops[k]); b <= last; b++)
+                {
+                    bandStarts[b + 1]++;
+                }
+            }
+
+            for (int b = 0; b < bands; b++)
+            {
+                bandStarts[b + 1] += bandStarts[b];
+            }
+
+            members = new int[bandStarts[bands]];
+            int[] filled = Arrays.copyOf(bandStarts, bands);
+            for (int k = 0; k < count; k++)
+            {
+                for (int b = bandOf(bottoms[k]), last = bandOf(tops[k]); b <= last; b++)
+                {
+                    members[filled[b]++] = k;
+                }
+            }
+        }
+
+        private int bandOf(double y)
+        {
+            if (bands == 1)
+            {
+                return 0;
+            }
+
+            return (int) Math.max(0, Math.min(bands - 1, (y - firstBottom) / bandHeight));
+        }
+
+        /** Returns the number of shapes in the bands [from, to), counting shapes once for every band they are in */
+        int membersOf(int from, int to)
+        {
+            return bandStarts[to] - bandStarts[from];
+        }
+
+        /** Finds the pairs reported by the bands [from, to) */
+        void collect(int from, int to, Pairs found)
+        {
+            for (int band = from; band < to; band++)
+            {
+                int end = bandStarts[band + 1];
+                for (int a = bandStarts[band]; a < end; a++)
+                {
+                    int k = members[a];
+                    double right = rights[k];
+                    double bottom = bottoms[k];
+                    double top = tops[k];
+                    for (int c = a + 1; c < end && lefts[members[c]] <= right; c++)
+                    {
+                        int m = members[c];
+                        if (bottoms[m] <= top && tops[m] >= bottom && bandOf(Math.max(bottom, bottoms[m])) == band 
+                            && shapes.overlapsAt(order[k], order[m]))
+                        {
+                            found.add(pair(order[k], order[m]));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** A growable list of pairs */
+    static class Pairs
+    {
+        long[] values;
+        int size;
+
+        Pairs(int capacity)
+        {
+            values = new long[Math.max(1, capacity)];
+            size = 0;
+        }
+
+        void add(long value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        /** Appends the pairs of the other list */
+        void addAll(Pairs other)
+        {
+            if (size + other.size > values.length)
+            {
+                values = Arrays.copyOf(values, Math.max(size + other.size, values.length * 2));
+            }
+
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        void removeIf(LongPredicate predicate)
+        {
+            int kept = 0;
+            for (int k = 0; k < size; k++)
+            {
+                if (!predicate.test(values[k]))
+                {
+                    values[kept++] = values[k];
+                }
+            }
+
+            size = kept;
+        }
+
+        void sort(boolean parallel)
+        {
+            if (parallel)
+            {
+                Arrays.parallelSort(values, 0, size);
+            }
+            else
+            {
+                Arrays.sort(values, 0, size);
+            }
+        }
+
+        /** Merges the other sorted list into this sorted list, from the back so no pair is moved twice */
+        void merge(Pairs other)
+        {
+            if (size + other.size > values.length)
+            {
+                values = Arrays.copyOf(values, Math.max(size + other.size, values.length * 2));
+            }
+
+            int a = size - 1;
+            int b = other.size - 1;
+            int k = size + other.size - 1;
+            while (b >= 0)
+            {
+                values[k--] = a >= 0 && values[a] > other.values[b] ? values[a--] : other.values[b--];
+            }
+
+            size += other.size;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package shapes;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/** 
+ * The entry point of the application
+ * 
+ * Without arguments the editor runs interactively, with '--batch [file]' it runs the commands 
+ * from the file (or from the standard input when no file is given) as a batch. 
+ * With '--journal directory' in front, the shape list is recovered from the journal in the directory 
+ * and every change is journaled there. With '--memory megabytes' in front of that, the shapes and their indexes 
+ * may take at most that much memory instead of half of the heap. With '--handles' in front of the journal, shapes are
+ * identified by stable handles instead of indices. With '--metrics' in front of everything, the latency of every
+ * command is measured and shown by the metrics command, and commands and sorts are emitted as JFR events.
+ * With '--serve port' instead of '--batch', the editor serves its commands to TCP clients on the port, with a thread
+ * per client. '--serve-nio port' serves them from a single thread that waits on all clients with a selector.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928 
+ */
+public class Program
+{
+    public static void main(String[] args) throws IOException
+    {
+        ShapeListEditor editor = new ShapeListEditor();
+        int next = 0;
+        if (args.length > next && args[next].equals("--metrics"))
+        {
+            editor.enableMetrics();
+            next++;
+        }
+
+        if (args.length > next + 1 && args[next].equals("--memory"))
+        {
+            editor.limitMemory(Long.parseLong(args[next + 1]) << 20);
+            next += 2;
+        }
+
+        if (args.length > next && args[next].equals("--handles"))
+        {
+            editor.useHandles();
+            next++;
+        }
+
+        if (args.length > next + 1 && args[next].equals("--journal"))
+        {
+            editor.useJournal(Paths.get(args[next + 1]));
+            next += 2;
+        }
+
+        if (args.length > next + 1 && args[next].equals("--serve"))
+        {
+            try (ShapeServer server = new ShapeServer(editor, Integer.parseInt(args[next + 1])))
+            {
+                System.out.println("Serving the shape list on port " + server.port());
+                server.serve();
+            }
+        }
+        else if (args.length > next + 1 && args[next].equals("--serve-nio"))
+        {
+            try (ShapeEventLoop server = new ShapeEventLoop(editor, Integer.parseInt(args[next + 1])))
+            {
+                System.out.println("Serving the shape list on port " + server.port());
+                server.serve();
+            }
+        }
+        else if (args.length > next && args[next].equals("--batch"))
+        {
+            Reader input = args.length > next + 1 ? new FileReader(args[next + 1]) : new InputStreamReader(System.in);
+            try (BufferedReader reader = new BufferedReader(input, 1 << 16))
+            {
+                editor.runBatch(reader);
+            }
+        }
+        else
+        {
+            editor.start();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package shapes;
+
+import java.io.IOException;
+
+/** Represents a rectangle shape 
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class Rectangle implements IShape, Comparable<IShape> 
+{
+    private double x, y, height, width = 0.0;
+
+    public Rectangle(double x, double y, double height, double width)
+    {
+        this.x = x;
+        this.y = y;
+        this.height = height;
+        this.width = width;
+    }
+
+    /** Returns the area of the rectangle */
+    public double Area() 
+    {
+        return height * width;
+    }
+
+    public double TopBorder()
+    {
+        return y + height;
+    }
+
+    public double LeftBorder()
+    {
+        return x;
+    }
+
+    public double RightBorder()
+    {
+        return x + width;
+    }
+
+    public double BottomBorder()
+    {
+        return y;
+    }
+
+    /** Compares the area of this shape to another */
+    public int compareTo(IShape otherShape)
+    {
+        double rectangleArea = Area();
+        double otherArea = otherShape.Area();
+        if (rectangleArea == otherArea) 
+        {
+            return 0;
+        }
+        else if (rectangleArea < otherArea)
+        {
+            return -1;
+        }
+        else
+        {
+            return 1;
+        }
+    }
+
+    public void Move(double dx, double dy)
+    {
+        x += dx;
+        y += dy;
+    }
+
+    /** Formats the fields of a rectangle the way toString() does, without needing a Rectangle instance */
+    static String format(double x, double y, double height, double width)
+    {
+        return append(new StringBuilder(80), x, y, height, width).toString();
+    }
+
+    /** Appends the fields of a rectangle to the builder the way toString() formats them, without building intermediate strings */
+    static StringBuilder append(StringBuilder builder, double x, double y, double height, double width)
+    {
+        builder.append("Rectangle(X=");
+        DoubleFormat.append(builder, x).append(", Y=");
+        DoubleFormat.append(builder, y).append(", Height=");
+        DoubleFormat.append(builder, height).append(", Width=");
+        return DoubleFormat.append(builder, width).append(')');
+    }
+
+    /** Appends the fields of a rectangle to the output the way toString() formats them */
+    static void append(Appendable out, double x, double y, double height, double width) throws IOException
+    {
+        out.append("Rectangle(X=");
+        DoubleFormat.append(out, x);
+        out.append(", Y=");
+        DoubleFormat.append(out, y);
+        out.append(", Height=");
+        DoubleFormat.append(out, height);
+        out.append(", Width=");
+        DoubleFormat.append(out, width);
+        out.append(')');
+    }
+
+    public StringBuilder appendTo(StringBuilder builder)
+    {
+        return append(builder, x, y, height, width);
+    }
+
+    public void appendTo(Appendable out) throws IOException
+    {
+        append(out, x, y, height, width);
+    }
+
+    @Override
+    public String toString()
+    {
+        return format(x, y, height, width);
+    } 
+
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package shapes;
+
+/**
+ * The geometry kernels as plain loops, one shape at a time.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class ScalarKernels extends GeometryKernels
+{
+    @Override
+    double sumAreas(byte[] kinds, double[] heights, double[] widths, int from, int to)
+    {
+        double total = 0.0;
+        for (int i = from; i < to; i++)
+        {
+            total += kinds[i] == ShapeList.CIRCLE ? Math.PI * widths[i] * widths[i] : heights[i] * widths[i];
+        }
+
+        return total;
+    }
+
+    @Override
+    void areas(byte[] kinds, double[] heights, double[] widths, int from, int to, double[] areas, int offset)
+    {
+        for (int i = from; i < to; i++)
+        {
+            areas[i - from + offset] = kinds[i] == ShapeList.CIRCLE ? Math.PI * widths[i] * widths[i] : heights[i] * widths[i];
+        }
+    }
+
+    @Override
+    void borders(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, 
+                 double[] lefts, double[] bottoms, double[] rights, double[] tops, int offset)
+    {
+        for (int i = from; i < to; i++)
+        {
+            int k = i - from + offset;
+            boolean isCircle = kinds[i] == ShapeList.CIRCLE;
+            lefts[k] = isCircle ? xs[i] - widths[i] : xs[i];
+            bottoms[k] = isCircle ? ys[i] - heights[i] : ys[i];
+            rights[k] = xs[i] + widths[i];
+            tops[k] = ys[i] + heights[i];
+        }
+    }
+
+    @Override
+    void bounds(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, double[] box)
+    {
+        double left = box[0];
+        double bottom = box[1];
+        double right = box[2];
+        double top = box[3];
+        for (int i = from; i < to; i++)
+        {
+            boolean isCircle = kinds[i] == ShapeList.CIRCLE;
+            left = Math.min(left, isCircle ? xs[i] - widths[i] : xs[i]);
+            bottom = Math.min(bottom, isCircle ? ys[i] - heights[i] : ys[i]);
+            right = Math.max(right, xs[i] + widths[i]);
+            top = Math.max(top, ys[i] + heights[i]);
+        }
+
+        box[0] = left;
+        box[1] = bottom;
+        box[2] = right;
+        box[3] = top;
+    }
+
+    @Override
+    void translate(double[] xs, double[] ys, int from, int to, double deltaX, double deltaY)
+    {
+        for (int i = from; i < to; i++)
+        {
+            xs[i] += deltaX;
+            ys[i] += deltaY;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package shapes;
+
+/**
+ * The storage of the kind, x, y, height and width of every shape in a list, addressed by index. 
+ * 
+ * Storage grows in chunks of CHUNK_SIZE shapes: HeapColumns keeps the chunks as primitive arrays on the heap, 
+ * OffHeapColumns keeps them as records in direct memory that the garbage collector never scans.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+abstract class ShapeColumns
+{
+    static final int CHUNK_SHIFT = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** The memory one shape takes in the columns: the kind and four doubles */
+    static final int BYTES_PER_SHAPE = 1 + 4 * Double.BYTES;
+
+    /** Returns the number of shapes that fit without growing */
+    abstract int capacity();
+
+    /** Returns the memory taken by the allocated chunks */
+    abstract long bytes();
+
+    /** Makes room for at least one more shape than the current capacity, but never more than maxCapacity shapes */
+    abstract void grow(int maxCapacity);
+
+    abstract byte kind(int i);
+
+    abstract double x(int i);
+
+    abstract double y(int i);
+
+    abstract double height(int i);
+
+    abstract double width(int i);
+
+    abstract void set(int i, byte kind, double x, double y, double height, double width);
+
+    abstract void setPosition(int i, double x, double y);
+
+    abstract void translate(int i, double deltaX, double deltaY);
+
+    /** Moves the shapes in [from + 1, to) down by one index, overwriting the shape at index from */
+    abstract void shiftDown(int from, int to);
+
+    /** Returns new, empty columns of the same kind with room for capacity shapes */
+    abstract ShapeColumns empty(int capacity);
+
+    /** Returns whether permute should rearrange these columns in place rather than gathering into new columns */
+    boolean permutesInPlace()
+    {
+        return false;
+    }
+
+    /** Releases the memory of the columns, which must not be used afterwards */
+    void close()
+    {
+    }
+
+    /** Copies the shape at index from of the source columns to index to of these columns */
+    void copy(ShapeColumns source, int from, int to)
+    {
+        set(to, source.kind(from), source.x(from), source.y(from), source.height(from), source.width(from));
+    }
+
+    /** 
+     * Rearranges the first count shapes such that the shape at index order[k] ends up at index k, following 
+     * the cycles of the permutation so only one shape at a time is held outside the columns
+     */
+    void permute(int[] order, int count)
+    {
+        boolean[] placed = new boolean[count];
+        for (int start = 0; start < count; start++)
+        {
+            if (placed[start] || order[start] == start)
+            {
+                continue;
+            }
+
+            byte kind = kind(start);
+            double x = x(start);
+            double y = y(start);
+            double height = height(start);
+            double width = width(start);
+            int k = start;
+            while (order[k] != start)
+            {
+                copy(this, order[k], k);
+                placed[k] = true;
+                k = order[k];
+            }
+
+            set(k, kind, x, y, height, width);
+            placed[k] = true;
+        }
+    }
+
+    /** Returns the sum of the areas of the shapes in [from, to), one shape at a time unless the columns can use the kernels */
+    double sumAreas(GeometryKernels kernels, int from, int to)
+    {
+        double total = 0.0;
+        for (int i = from; i < to; i++)
+        {
+            total += kind(i) == ShapeList.CIRCLE ? Math.PI * width(i) * width(i) : height(i) * width(i);
+        }
+
+        return total;
+    }
+
+    /** Writes the areas of the shapes in [from, to) to the start of the array */
+    void areas(GeometryKernels kernels, int from, int to, double[] areas)
+    {
+        for (int i = from; i < to; i++)
+        {
+            areas[i - from] = kind(i) == ShapeList.CIRCLE ? Math.PI * width(i) * width(i) : height(i) * width(i);
+        }
+    }
+
+    /** Writes the left, bottom, right and top borders of the shapes in [from, to) to the start of the arrays */
+    void borders(GeometryKernels kernels, int from, int to, double[] lefts, double[] bottoms, double[] rights, double[] tops)
+    {
+        for (int i = from; i < to; i++)
+        {
+            boolean isCircle = kind(i) == ShapeList.CIRCLE;
+            lefts[i - from] = isCircle ? x(i) - width(i) : x(i);
+            bottoms[i - from] = isCircle ? y(i) - height(i) : y(i);
+            rights[i - from] = x(i) + width(i);
+            tops[i - from] = y(i) + height(i);
+        }
+    }
+
+    /** Widens the box, given as { left, bottom, right, top }, to enclose the shapes in [from, to) */
+    void bounds(GeometryKernels kernels, int from, int to, double[] box)
+    {
+        for (int i = from; i < to; i++)
+        {
+            boolean isCircle = kind(i) == ShapeList.CIRCLE;
+            box[0] = Math.min(box[0], isCircle ? x(i) - width(i) : x(i));
+            box[1] = Math.min(box[1], isCircle ? y(i) - height(i) : y(i));
+            box[2] = Math.max(box[2], x(i) + width(i));
+            box[3] = Math.max(box[3], y(i) + height(i));
+        }
+    }
+
+    /** Moves the shapes in [from, to) over (deltaX, deltaY) */
+    void translateAll(GeometryKernels kernels, int from, int to, double deltaX, double deltaY)
+    {
+        for (int i = from; i < to; i++)
+        {
+            translate(i, deltaX, deltaY);
+        }
+    }
+
+    /** Copies the shapes in [from, to) into the arrays, at the same indexes */
+    void copyTo(int from, int to, byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths)
+    {
+        for (int i = from; i < to; i++)
+        {
+            kinds[i] = kind(i);
+            xs[i] = x(i);
+            ys[i] = y(i);
+            heights[i] = height(i);
+            widths[i] = width(i);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package shapes;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A lazy, forward-only read of the shapes of a ShapeList that match a set of filters, in the order of their index.
+ *
+ * The filters are set first: a range of indices, a kind, a range of areas, a window the shapes must intersect and
+ * a limit on the number of shapes. The first call to next() picks where the candidates come from: the spatial grid
+ * when there is a window, the area order when there is an area range, otherwise the range itself. So a selective
+ * filter only reads the shapes that match it. The fields of the current shape are read straight from the columns,
+ * nothing is rendered unless asked for. Changing the list while a cursor is open invalidates the cursor.
+ *
+ * <pre>
+ * ShapeCursor cursor = shapes.cursor().circles().within(0, 0, 10, 10).limit(5);
+ * while (cursor.next()) { ... cursor.x() ... }
+ * </pre>
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public final class ShapeCursor
+{
+    private final ShapeList shapes;
+    private final long version;
+
+    // the filters
+    private int from;
+    private int to;
+    private int kind;
+    private double minArea;
+    private double maxArea;
+    private boolean hasWindow;
+    private double left;
+    private double bottom;
+    private double right;
+    private double top;
+    private long limit;
+
+    // the candidates in ascending order, or null when the indices [from, to) are the candidates
+    private int[] candidates;
+    private int position;
+    private int end;
+    private int current;
+    private long returned;
+    private boolean started;
+
+    ShapeCursor(ShapeList shapes)
+    {
+        this.shapes = shapes;
+        version = shapes.version();
+        from = 0;
+        to = Integer.MAX_VALUE;
+        kind = -1;
+        minArea = Double.NEGATIVE_INFINITY;
+        maxArea = Double.POSITIVE_INFINITY;
+        hasWindow = false;
+        limit = Long.MAX_VALUE;
+        current = -1;
+        returned = 0;
+        started = false;
+    }
+
+    private ShapeCursor filter()
+    {
+        if (started)
+        {
+            throw new IllegalStateException("The filters of a cursor can not change once it was read from");
+        }
+
+        return this;
+    }
+
+    /** Only reads the shapes at the indices [from, to) */
+    public ShapeCursor range(int from, int to)
+    {
+        filter();
+        this.from = Math.max(this.from, from);
+        this.to = Math.min(this.to, to);
+        return this;
+    }
+
+    /** Only reads the circles */
+    public ShapeCursor circles()
+    {
+        filter().kind = ShapeList.CIRCLE;
+        return this;
+    }
+
+    /** Only reads the rectangles */
+    public ShapeCursor rectangles()
+    {
+        filter().kind = ShapeList.RECTANGLE;
+        return this;
+    }
+
+    /** Only reads the shapes with an area in [minArea, maxArea] */
+    public ShapeCursor areaBetween(double minArea, double maxArea)
+    {
+        filter();
+        this.minArea = Math.max(this.minArea, minArea);
+        this.maxArea = Math.min(this.maxArea, maxArea);
+        return this;
+    }
+
+    /** Only reads the shapes that intersect the window spanned by the two corners */
+    public ShapeCursor within(double x1, double y1, double x2, double y2)
+    {
+        filter();
+        hasWindow = true;
+        left = Math.min(x1, x2);
+        bottom = Math.min(y1, y2);
+        right = Math.max(x1, x2);
+        top = Math.max(y1, y2);
+        return this;
+    }
+
+    /** Reads at most count shapes */
+    public ShapeCursor limit(long count)
+    {
+        filter().limit = Math.max(0, count);
+        return this;
+    }
+
+    /** Picks the candidates that the fewest shapes have to be read from */
+    private void start()
+    {
+        started = true;
+        to = Math.min(to, shapes.size());
+        if (hasWindow)
+        {
+            candidates = shapes.shapesIntersecting(left, bottom, right, top);
+        }
+        else if (minArea > Double.NEGATIVE_INFINITY || maxArea < Double.POSITIVE_INFINITY)
+        {
+            candidates = areaRun();
+        }
+
+        if (candidates == null)
+        {
+            position = from;
+            end = Math.max(from, to);
+        }
+        else
+        {
+            position = lowerBound(candidates, 0, candidates.length, from);
+            end = lowerBound(candidates, position, candidates.length, to);
+        }
+    }
+
+    /** Returns the indices of the shapes in the area range, found by binary search in the area order */
+    private int[] areaRun()
+    {
+        int[] order = shapes.areaOrder();
+        int size = shapes.size();
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (shapes.areaAt(order[middle]) < minArea)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        int first = low;
+        high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (shapes.areaAt(order[middle]) <= maxArea)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        int[] run = Arrays.copyOfRange(order, first, low);
+        Arrays.sort(run);
+        return run;
+    }
+
+    /** Returns the first position in [low, high) whose index is at least value */
+    private static int lowerBound(int[] indices, int low, int high, int value)
+    {
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (indices[middle] < value)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private boolean matches(int i)
+    {
+        if (kind >= 0 && (kind == ShapeList.CIRCLE) != shapes.isCircleAt(i))
+        {
+            return false;
+        }
+
+        if (minArea > Double.NEGATIVE_INFINITY || maxArea < Double.POSITIVE_INFINITY)
+        {
+            double area = shapes.areaAt(i);
+            if (area < minArea || area > maxArea)
+            {
+                return false;
+            }
+        }
+
+        return !hasWindow || shapes.intersectsAt(i, left, bottom, right, top);
+    }
+
+    /** Moves to the next matching shape, returning false when there is none */
+    public boolean next()
+    {
+        if (shapes.version() != version)
+        {
+            throw new ConcurrentModificationException("The shape list changed while a cursor was reading it");
+        }
+
+        if (!started)
+        {
+            start();
+        }
+
+        current = -1;
+        while (returned < limit && position < end)
+        {
+            int i = candidates == null ? position : candidates[position];
+            position++;
+            if (matches(i))
+            {
+                current = i;
+                returned++;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int current()
+    {
+        if (current < 0)
+        {
+            throw new IllegalStateException("The cursor is not on a shape, call next() first");
+        }
+
+        return current;
+    }
+
+    /** Returns the index in the list of the current shape */
+    public int index()
+    {
+        return current();
+    }
+
+    public boolean isCircle()
+    {
+        return shapes.isCircleAt(current());
+    }
+
+    public double x()
+    {
+        return shapes.xAt(current());
+    }
+
+    public double y()
+    {
+        return shapes.yAt(current());
+    }
+
+    /** Returns the height of the current rectangle, or the radius of the current circle */
+    public double height()
+    {
+        return shapes.heightAt(current());
+    }
+
+    /** Returns the width of the current rectangle, or the radius of the current circle */
+    public double width()
+    {
+        return shapes.widthAt(current());
+    }
+
+    public double area()
+    {
+        return shapes.areaAt(current());
+    }
+
+    /** Materializes the current shape as a detached IShape */
+    public IShape shape()
+    {
+        return shapes.shapeAt(current());
+    }
+
+    /** Appends the string representation of the current shape to the builder */
+    public StringBuilder appendTo(StringBuilder builder)
+    {
+        shapes.appendShape(current(), builder);
+        return builder;
+    }
+
+    /** Gives the string representation of every remaining matching shape to the consumer */
+    public void readShapesUsing(Consumer<String> consumer)
+    {
+        StringBuilder builder = new StringBuilder(64);
+        while (next())
+        {
+            builder.setLength(0);
+            consumer.accept(appendTo(builder).toString());
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package shapes;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Serves the same command protocol as ShapeServer from a single thread, using a Selector instead of a thread per connection.
+ *
+ * Commands are read into pooled direct buffers and parsed in place through a CharSequence view of the bytes, so no
+ * String is made of them. All commands run on the loop thread, so the editor needs no lock. Its output is written
+ * into pooled buffers that are sent with gathering writes. The listing of a plain 'show' is encoded once per version
+ * of the list straight into read-only direct buffers that every connection sends from, until the list changes.
+ * A connection that does not read its responses is not read from until they are sent. The responses to the commands
+ * of one select round are held back until the journal made all of them durable with a single sync, after which they 
+ * are all sent.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeEventLoop implements AutoCloseable
+{
+    /** The size of the pooled buffers, a command line must fit in one */
+    static final int BUFFER_SIZE = 1 << 14;
+
+    /** A connection is not read from while more than this many bytes of responses wait to be sent to it */
+    static final int MAX_QUEUED_BYTES = 1 << 20;
+
+    private static final ByteBuffer END_LINE = encode(ShapeServer.END_OF_RESPONSE + System.lineSeparator());
+    private static final ByteBuffer REFUSED = encode("Commands that access files are not available over the network" + System.lineSeparator());
+    private static final ByteBuffer TOO_LONG = encode("The command is longer than " + BUFFER_SIZE + " bytes" + System.lineSeparator());
+
+    /** The state of one client */
+    private static class Connection
+    {
+        final SocketChannel channel;
+        final ByteBuffer input;
+        // buffers ready to be sent, pooled ones are writable and shared ones are read-only
+        final ArrayDeque<ByteBuffer> output;
+        // the pooled buffer the editor output is appended to, in fill mode
+        ByteBuffer tail;
+        long queued;
+        boolean closing;
+        // whether the responses wait for the journal to sync at the end of the select round
+        boolean held;
+
+        Connection(SocketChannel channel, ByteBuffer input)
+        {
+            this.channel = channel;
+            this.input = input;
+            output = new ArrayDeque<ByteBuffer>();
+            tail = null;
+            queued = 0;
+            closing = false;
+            held = false;
+        }
+    }
+
+    /** Appends what the editor writes to the tail buffer of the current connection */
+    private class ConnectionOutput extends OutputStream
+    {
+        @Override
+        public void write(int b)
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            while (length > 0)
+            {
+                if (current.tail == null || !current.tail.hasRemaining())
+                {
+                    seal(current);
+                    current.tail = takeBuffer();
+                }
+
+                int count = Math.min(length, current.tail.remaining());
+                current.tail.put(bytes, offset, count);
+                current.queued += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+
+    /** Collects what the editor writes in new direct buffers of BUFFER_SIZE bytes, for a listing that is shared */
+    private static class ListingOutput extends OutputStream
+    {
+        final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+        @Override
+        public void write(int b)
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            while (length > 0)
+            {
+                ByteBuffer last = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+                if (last == null || !last.hasRemaining())
+                {
+                    last = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                    chunks.add(last);
+                }
+
+                int count = Math.min(length, last.remaining());
+                last.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        /** Returns the chunks as read-only buffers ready to be sent */
+        ByteBuffer[] sealed()
+        {
+            ByteBuffer[] sealed = new ByteBuffer[chunks.size()];
+            for (int k = 0; k < sealed.length; k++)
+            {
+                sealed[k] = chunks.get(k).flip().asReadOnlyBuffer();
+            }
+
+            return sealed;
+        }
+    }
+
+    private final ShapeListEditor editor;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ArrayDeque<ByteBuffer> pool;
+    private final CommandParser parser;
+    private final AsciiSequence line;
+    private final ConnectionOutput connectionOutput;
+    private final ByteBuffer[] gather;
+    // the connections that read commands in this select round, whose responses wait for the journal
+    private final ArrayList<SelectionKey> held;
+    // the connection whose command is being handled, which the output of the editor goes to
+    private Connection current;
+    // the encoded listing of the last show and the list and version it was made of
+    private ByteBuffer[] listing;
+    private ShapeList listedShapes;
+    private long listedVersion;
+    private volatile boolean closed;
+    private Thread loop;
+
+    /** Serves the editor on the port, or on a free port when port is 0. The editor must not be used directly anymore */
+    public ShapeEventLoop(ShapeListEditor editor, int port) throws IOException
+    {
+        this.editor = editor;
+        connectionOutput = new ConnectionOutput();
+        editor.writeTo(connectionOutput);
+        editor.showAfterChanges(false);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        pool = new ArrayDeque<ByteBuffer>();
+        parser = new CommandParser();
+        line = new AsciiSequence();
+        gather = new ByteBuffer[64];
+        held = new ArrayList<SelectionKey>();
+        current = null;
+        listing = null;
+        closed = false;
+    }
+
+    private static ByteBuffer encode(String text)
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    }
+
+    public int port()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private ByteBuffer takeBuffer()
+    {
+        ByteBuffer buffer = pool.pollLast();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer)
+    {
+        buffer.clear();
+        pool.addLast(buffer);
+    }
+
+    /** Runs the loop on a background thread and returns right away */
+    public void start()
+    {
+        loop = new Thread(this::serve, "shape-event-loop");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /** Runs the loop on this thread until the server is closed */
+    public void serve()
+    {
+        try
+        {
+            while (!closed)
+            {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try
+                    {
+                        if (key.isValid() && key.isAcceptable())
+                        {
+                            accept();
+                        }
+
+                        if (key.isValid() && key.isReadable())
+                        {
+                            read(key);
+                        }
+
+                        if (key.isValid() && key.isWritable())
+                        {
+                            write(key);
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        // the client disconnected
+                        disconnect(key);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        // a command that failed unexpectedly only costs its own client the connection, like in ShapeServer
+                        System.err.println("Error while handling a command: " + e);
+                        editor.writeTo(connectionOutput);
+                        current = null;
+                        disconnect(key);
+                    }
+                }
+
+                release();
+            }
+        }
+        catch (IOException e)
+        {
+            if (!closed)
+            {
+                System.err.println("Error in the event loop: " + e.getMessage());
+            }
+        }
+        finally
+        {
+            for (SelectionKey key : selector.keys())
+            {
+                disconnect(key);
+            }
+
+            editor.closeJournal();
+        }
+    }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel, takeBuffer()));
+        }
+    }
+
+    private void disconnect(SelectionKey key)
+    {
+        key.cancel();
+        if (key.attachment() instanceof Connection)
+        {
+            Connection connection = (Connection) key.attachment();
+            key.attach(null);
+            try
+            {
+                connection.channel.close();
+            }
+            catch (IOException e)
+            {
+                // closing anyway
+            }
+
+            releaseBuffer(connection.input);
+            if (connection.tail != null)
+            {
+                releaseBuffer(connection.tail);
+            }
+
+            for (ByteBuffer buffer : connection.output)
+            {
+                if (!buffer.isReadOnly())
+                {
+                    releaseBuffer(buffer);
+                }
+            }
+        }
+        else
+        {
+            try
+            {
+                key.channel().close();
+            }
+            catch (IOException e)
+            {
+                // closing anyway
+            }
+        }
+    }
+
+    /** Reads what arrived and handles every complete line in it, all commands that were pipelined are answered at once */
+    private void read(SelectionKey key) throws IOException
+    {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer input = connection.input;
+        if (connection.channel.read(input) < 0)
+        {
+            disconnect(key);
+            return;
+        }
+
+        int start = 0;
+        int end = input.position();
+        for (int k = 0; k < end && !connection.closing; k++)
+        {
+            if (input.get(k) == '\n')
+            {
+                int length = k - start;
+                if (length > 0 && input.get(k - 1) == '\r')
+                {
+                    length--;
+                }
+
+                handle(connection, input, start, length);
+                start = k + 1;
+            }
+        }
+
+        if (start == 0 && !input.hasRemaining())
+        {
+            enqueue(connection, TOO_LONG.duplicate());
+            connection.closing = true;
+        }
+
+        // the partial line that is left moves to the front
+        input.limit(end).position(start);
+        input.compact();
+        seal(connection);
+        if (!connection.held)
+        {
+            connection.held = true;
+            held.add(key);
+        }
+    }
+
+    /** Waits once for the journal to make the changes of this round durable, then sends the responses that were held back */
+    private void release()
+    {
+        if (held.isEmpty())
+        {
+            return;
+        }
+
+        ByteBuffer failed = null;
+        CommandJournal journal = editor.journal();
+        if (journal != null)
+        {
+            try
+            {
+                journal.sync();
+            }
+            catch (IOException e)
+            {
+                failed = encode("Error while writing the journal: " + e.getMessage() + System.lineSeparator());
+            }
+        }
+
+        for (SelectionKey key : held)
+        {
+            if (!key.isValid())
+            {
+                // the client disconnected after its commands were read
+                continue;
+            }
+
+            Connection connection = (Connection) key.attachment();
+            connection.held = false;
+            try
+            {
+                if (failed != null)
+                {
+                    enqueue(connection, failed.duplicate());
+                }
+
+                write(key);
+            }
+            catch (IOException e)
+            {
+                disconnect(key);
+            }
+        }
+
+        held.clear();
+    }
+
+    private void handle(Connection connection, ByteBuffer input, int offset, int length)
+    {
+        line.set(input, offset, length);
+        parser.parse(line);
+        switch (parser.command())
+        {
+            case CommandParser.QUIT:
+                connection.closing = true;
+                return;
+
+            case CommandParser.SAVE:
+            case CommandParser.LOAD:
+            case CommandParser.IMPORT:
+            case CommandParser.EXPORT:
+                enqueue(connection, REFUSED.duplicate());
+                break;
+
+            case CommandParser.SHOW:
+                if (parser.argumentCount() == 0)
+                {
+                    for (ByteBuffer chunk : listing())
+                    {
+                        enqueue(connection, chunk.duplicate());
+                    }
+
+                }
+                else
+                {
+                    // paged shows are not cached
+                    execute(connection);
+                }
+
+                break;
+
+            default:
+                execute(connection);
+                break;
+        }
+
+        enqueue(connection, END_LINE.duplicate());
+    }
+
+    /** Runs the line in the editor, which writes its output to the connection */
+    private void execute(Connection connection)
+    {
+        current = connection;
+        editor.handle(line);
+        editor.flushOutput();
+    }
+
+    /** Returns the encoded output of a plain show of the current list, encoding it again only when the list changed */
+    private ByteBuffer[] listing()
+    {
+        ShapeList shapes = editor.shapeList();
+        if (listing == null || shapes != listedShapes || shapes.version() != listedVersion)
+        {
+            // the buffers are shared by every connection that still sends an older listing, so they are not pooled
+            ListingOutput encoded = new ListingOutput();
+            editor.writeTo(encoded);
+            editor.handle("show");
+            editor.writeTo(connectionOutput);
+            listing = encoded.sealed();
+            listedShapes = shapes;
+            listedVersion = shapes.version();
+        }
+
+        return listing;
+    }
+
+    /** Moves the tail buffer of the connection, if it holds anything, to the buffers that are ready to be sent */
+    private static void seal(Connection connection)
+    {
+        if (connection.tail != null && connection.tail.position() > 0)
+        {
+            connection.output.addLast(connection.tail.flip());
+            connection.tail = null;
+        }
+    }
+
+    private void enqueue(Connection connection, ByteBuffer shared)
+    {
+        seal(connection);
+        connection.output.addLast(shared);
+        connection.queued += shared.remaining();
+    }
+
+    /** Sends as much of the queued output as the socket takes in one gathering write */
+    private void write(SelectionKey key) throws IOException
+    {
+        Connection connection = (Connection) key.attachment();
+        if (connection.held)
+        {
+            // nothing is sent before the journal synced at the end of the round
+            return;
+        }
+
+        while (!connection.output.isEmpty())
+        {
+            int count = 0;
+            for (ByteBuffer buffer : connection.output)
+            {
+                if (count == gather.length)
+                {
+                    break;
+                }
+
+                gather[count++] = buffer;
+            }
+
+            long written = connection.channel.write(gather, 0, count);
+            Arrays.fill(gather, 0, count, null);
+            connection.queued -= written;
+            while (!connection.output.isEmpty() && !connection.output.peekFirst().hasRemaining())
+            {
+                ByteBuffer sent = connection.output.pollFirst();
+                if (!sent.isReadOnly())
+                {
+                    releaseBuffer(sent);
+                }
+            }
+
+            if (written == 0)
+            {
+                break;
+            }
+        }
+
+        if (connection.output.isEmpty() && connection.closing)
+        {
+            disconnect(key);
+            return;
+        }
+
+        int interest = connection.output.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+        if (connection.queued <= MAX_QUEUED_BYTES && !connection.closing)
+        {
+            interest |= SelectionKey.OP_READ;
+        }
+
+        key.interestOps(interest);
+    }
+
+    /** Stops the loop, which disconnects the clients and closes the journal */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        selector.wakeup();
+        if (loop != null)
+        {
+            try
+            {
+                loop.join(10_000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        serverChannel.close();
+        selector.close();
+    }
+}
@@ -0,0 +1,128 @@
+package shapes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+
+/**
+ * Streams the shapes a cursor reads to a file, in the format its name asks for: CSV for '.csv', NDJSON for '.ndjson'
+ * and '.jsonl', and the binary shape file format of ShapeFile otherwise. The text formats are the ones ShapeImport
+ * reads, with the numbers written exactly like Double.toString, so exporting and importing again gives the same shapes.
+ * JSON has no infinite numbers, so an NDJSON export of a shape with an infinite coordinate or size fails instead.
+ *
+ * Every shape is formatted into a reused builder and copied into a direct buffer, which is written to the file
+ * channel whenever it is full, so memory use does not depend on the number of shapes. Like saves, an export only
+ * replaces an existing file once it is complete.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeExport
+{
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private ShapeExport()
+    {
+    }
+
+    /** Writes the shapes to the file, replacing it when it exists, and returns how many were written */
+    public static long write(ShapeCursor cursor, Path path) throws IOException
+    {
+        String name = path.getFileName() == null ? "" : path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv"))
+        {
+            return writeText(cursor, path, false);
+        }
+
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl"))
+        {
+            return writeText(cursor, path, true);
+        }
+
+        return ShapeFile.save(cursor, path);
+    }
+
+    private static long writeText(ShapeCursor cursor, Path path, boolean json) throws IOException
+    {
+        return ShapeFile.replace(path, channel -> 
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            StringBuilder line = new StringBuilder(128);
+            long count = 0;
+            while (cursor.next())
+            {
+                line.setLength(0);
+                if (json)
+                {
+                    if (!isFinite(cursor))
+                    {
+                        throw new IOException("Shape " + count + " of the export has an infinite coordinate or size, which JSON can not represent");
+                    }
+
+                    appendObject(line, cursor);
+                }
+                else
+                {
+                    appendValues(line, cursor);
+                }
+
+                line.append('\n');
+                if (buffer.remaining() < line.length())
+                {
+                    ShapeFile.writeFully(channel, buffer);
+                }
+
+                // the line is ASCII, so every character is one byte
+                for (int k = 0; k < line.length(); k++)
+                {
+                    buffer.put((byte) line.charAt(k));
+                }
+
+                count++;
+            }
+
+            ShapeFile.writeFully(channel, buffer);
+            return count;
+        });
+    }
+
+    private static void appendValues(StringBuilder line, ShapeCursor cursor)
+    {
+        line.append(cursor.isCircle() ? "circle," : "rectangle,");
+        DoubleFormat.append(line, cursor.x()).append(',');
+        DoubleFormat.append(line, cursor.y()).append(',');
+        if (cursor.isCircle())
+        {
+            DoubleFormat.append(line, cursor.width());
+        }
+        else
+        {
+            DoubleFormat.append(line, cursor.height()).append(',');
+            DoubleFormat.append(line, cursor.width());
+        }
+    }
+
+    private static boolean isFinite(ShapeCursor cursor)
+    {
+        return Double.isFinite(cursor.x()) && Double.isFinite(cursor.y()) && Double.isFinite(cursor.width()) 
+            && (cursor.isCircle() || Double.isFinite(cursor.height()));
+    }
+
+    private static void appendObject(StringBuilder line, ShapeCursor cursor)
+    {
+        line.append(cursor.isCircle() ? "{\"type\":\"circle\",\"x\":" : "{\"type\":\"rectangle\",\"x\":");
+        DoubleFormat.append(line, cursor.x()).append(",\"y\":");
+        DoubleFormat.append(line, cursor.y());
+        if (cursor.isCircle())
+        {
+            DoubleFormat.append(line.append(",\"radius\":"), cursor.width());
+        }
+        else
+        {
+            DoubleFormat.append(line.append(",\"height\":"), cursor.height());
+            DoubleFormat.append(line.append(",\"width\":"), cursor.width());
+        }
+
+        line.append('}');
+    }
+}
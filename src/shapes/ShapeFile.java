@@ -0,0 +1,218 @@
+package shapes;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/** 
+ * Reads and writes shape lists in a compact binary format: a 16 byte header followed by one fixed-width record per shape.
+ * 
+ * The header holds the magic number "SHPL", the format version and the number of shapes. Each record holds the kind of 
+ * the shape as a single byte followed by its x, y, height and width as doubles (circles store their radius as both the 
+ * height and the width). Everything is little endian, so a file can be read in place through a memory mapping.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeFile
+{
+    static final int MAGIC = 0x4C504853; // "SHPL" when read as little endian bytes
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 1 + 4 * Double.BYTES;
+
+    /** The shapes to save, which are given to the records one at a time */
+    private interface Rows
+    {
+        void writeTo(Records records) throws IOException;
+    }
+
+    /** Writes the content of a file to its channel and returns the number of shapes it holds */
+    interface Content
+    {
+        long writeTo(FileChannel channel) throws IOException;
+    }
+
+    /** Buffers the records of the shapes and writes them to the channel whenever the buffer is full */
+    private static final class Records
+    {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long count;
+
+        Records(FileChannel channel)
+        {
+            this.channel = channel;
+            // the number of shapes is only known at the end, so the header is written again then
+            buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+            count = 0;
+        }
+
+        void put(boolean isCircle, double x, double y, double height, double width) throws IOException
+        {
+            if (buffer.remaining() < RECORD_SIZE)
+            {
+                writeFully(channel, buffer);
+            }
+
+            buffer.put(isCircle ? ShapeList.CIRCLE : ShapeList.RECTANGLE)
+                  .putDouble(x)
+                  .putDouble(y)
+                  .putDouble(height)
+                  .putDouble(width);
+            count++;
+        }
+
+        long finish() throws IOException
+        {
+            writeFully(channel, buffer);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header, header.position());
+            }
+
+            return count;
+        }
+    }
+
+    /** Writes the shapes of the list to the file, replacing it when it exists */
+    public static void save(ShapeList shapes, Path path) throws IOException
+    {
+        save(path, records -> 
+        {
+            for (int i = 0; i < shapes.size(); i++)
+            {
+                records.put(shapes.isCircleAt(i), shapes.xAt(i), shapes.yAt(i), shapes.heightAt(i), shapes.widthAt(i));
+            }
+        });
+    }
+
+    /** Writes the shapes of the snapshot to the file, replacing it when it exists */
+    public static void save(ShapeSnapshot shapes, Path path) throws IOException
+    {
+        save(path, records -> 
+        {
+            for (int i = 0; i < shapes.size(); i++)
+            {
+                records.put(shapes.isCircleAt(i), shapes.xAt(i), shapes.yAt(i), shapes.heightAt(i), shapes.widthAt(i));
+            }
+        });
+    }
+
+    /** Writes the shapes the cursor reads to the file, replacing it when it exists, and returns how many were written */
+    public static long save(ShapeCursor cursor, Path path) throws IOException
+    {
+        return save(path, records -> 
+        {
+            while (cursor.next())
+            {
+                records.put(cursor.isCircle(), cursor.x(), cursor.y(), cursor.height(), cursor.width());
+            }
+        });
+    }
+
+    private static long save(Path path, Rows rows) throws IOException
+    {
+        return replace(path, channel -> 
+        {
+            Records records = new Records(channel);
+            rows.writeTo(records);
+            return records.finish();
+        });
+    }
+
+    /** 
+     * Writes the content to a temporary file next to the file, which only replaces the file once it is complete and
+     * forced to disk, so a crash or an error while writing leaves the existing file as it was
+     */
+    static long replace(Path path, Content content) throws IOException
+    {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try
+        {
+            long count;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+            {
+                count = content.writeTo(channel);
+                channel.force(false);
+            }
+
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            try
+            {
+                Files.deleteIfExists(temporary);
+            }
+            catch (IOException suppressed)
+            {
+                ex.addSuppressed(suppressed);
+            }
+
+            throw ex;
+        }
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /** Maps the file into memory without reading the shapes, they are read from the mapping when they are accessed */
+    public static MappedShapes open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+            {
+            }
+
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            {
+                throw new IOException(path + " is not a shape file");
+            }
+
+            int version = header.getInt();
+            if (version != VERSION)
+            {
+                throw new IOException(path + " has unsupported format version " + version);
+            }
+
+            long count = header.getLong();
+            if (count < 0 || count > Integer.MAX_VALUE || HEADER_SIZE + count * RECORD_SIZE > fileSize)
+            {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+
+            // a single mapping is limited to 2GB, so larger files are mapped in regions of whole records
+            int recordsPerRegion = Integer.MAX_VALUE / RECORD_SIZE;
+            int regionCount = (int) ((count + recordsPerRegion - 1) / recordsPerRegion);
+            ByteBuffer[] regions = new ByteBuffer[regionCount];
+            for (int r = 0; r < regionCount; r++)
+            {
+                long first = (long) r * recordsPerRegion;
+                long records = Math.min(recordsPerRegion, count - first);
+                regions[r] = channel
+                    .map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            return new MappedShapes(regions, recordsPerRegion, (int) count);
+        }
+    }
+}
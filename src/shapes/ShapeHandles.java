@@ -0,0 +1,233 @@
+package shapes;
+
+import java.util.*;
+
+/**
+ * Stable handles for the shapes of a list, kept up to date like any other index.
+ *
+ * Every shape owns a slot of the handle table, which maps the slot to the current index of the shape. A handle packs 
+ * the slot together with the generation of the slot: removing a shape frees its slot for reuse and bumps the generation, 
+ * so the handles of removed shapes never find the shape that reuses the slot. Handles stay below 2^53 so they survive 
+ * being parsed as doubles. The table can be written out and restored, so a journal snapshot keeps the handles.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class ShapeHandles implements ShapeIndex
+{
+    private static final int SLOT_BITS = 28;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    /** A slot whose generation reaches this limit is retired instead of reused */
+    private static final int MAX_GENERATION = (1 << 25) - 1;
+
+    private final ShapeList shapes;
+    private int[] slotOfIndex;
+    private int[] indexOfSlot;
+    private int[] generations;
+    private int usedSlots;
+    // the freed slots, reused last in first out
+    private final IntList freeSlots;
+
+    ShapeHandles(ShapeList shapes)
+    {
+        this.shapes = shapes;
+        int capacity = Math.max(16, shapes.size());
+        slotOfIndex = new int[capacity];
+        indexOfSlot = new int[capacity];
+        generations = new int[capacity];
+        usedSlots = 0;
+        freeSlots = new IntList(16);
+        for (int i = 0; i < shapes.size(); i++)
+        {
+            added(i);
+        }
+    }
+
+    /** Returns the handle of the shape at index i */
+    long handleAt(int i)
+    {
+        int slot = slotOfIndex[i];
+        return (long) generations[slot] << SLOT_BITS | slot;
+    }
+
+    /** Returns the index of the shape with the handle, or nothing when the shape was removed or never existed */
+    OptionalInt indexOf(long handle)
+    {
+        if (handle < 0)
+        {
+            return OptionalInt.empty();
+        }
+
+        int slot = (int) (handle & SLOT_MASK);
+        long generation = handle >>> SLOT_BITS;
+        if (slot >= usedSlots || generations[slot] != generation || indexOfSlot[slot] < 0)
+        {
+            return OptionalInt.empty();
+        }
+
+        return OptionalInt.of(indexOfSlot[slot]);
+    }
+
+    /** 
+     * Returns the handle table as ints: the number of slots and of free slots, then for every slot its generation and
+     * the index of its shape (-1 when it has none), then the free slots in the order they are kept
+     */
+    int[] table()
+    {
+        int[] table = new int[2 + 2 * usedSlots + freeSlots.size()];
+        table[0] = usedSlots;
+        table[1] = freeSlots.size();
+        System.arraycopy(generations, 0, table, 2, usedSlots);
+        System.arraycopy(indexOfSlot, 0, table, 2 + usedSlots, usedSlots);
+        for (int k = 0; k < freeSlots.size(); k++)
+        {
+            table[2 + 2 * usedSlots + k] = freeSlots.get(k);
+        }
+
+        return table;
+    }
+
+    /** Replaces the handle table by one returned by table(), returning false and keeping the table when it does not fit the shapes */
+    boolean restore(int[] table)
+    {
+        int size = shapes.size();
+        if (table.length < 2 || table[0] < size || table[1] < 0 || table.length != 2L + 2L * table[0] + table[1])
+        {
+            return false;
+        }
+
+        int slots = table[0];
+        int[] restoredSlotOfIndex = new int[Math.max(16, size)];
+        Arrays.fill(restoredSlotOfIndex, 0, size, -1);
+        boolean[] free = new boolean[slots];
+        for (int slot = 0; slot < slots; slot++)
+        {
+            int generation = table[2 + slot];
+            int index = table[2 + slots + slot];
+            if (generation < 0 || generation > MAX_GENERATION || index < -1 || index >= size)
+            {
+                return false;
+            }
+
+            if (index >= 0)
+            {
+                if (restoredSlotOfIndex[index] >= 0)
+                {
+                    return false;
+                }
+
+                restoredSlotOfIndex[index] = slot;
+            }
+        }
+
+        for (int k = 0; k < table[1]; k++)
+        {
+            int slot = table[2 + 2 * slots + k];
+            if (slot < 0 || slot >= slots || free[slot] || table[2 + slots + slot] != -1)
+            {
+                return false;
+            }
+
+            free[slot] = true;
+        }
+
+        for (int i = 0; i < size; i++)
+        {
+            if (restoredSlotOfIndex[i] < 0)
+            {
+                return false;
+            }
+        }
+
+        slotOfIndex = restoredSlotOfIndex;
+        generations = new int[Math.max(16, slots)];
+        indexOfSlot = new int[generations.length];
+        System.arraycopy(table, 2, generations, 0, slots);
+        System.arraycopy(table, 2 + slots, indexOfSlot, 0, slots);
+        usedSlots = slots;
+        freeSlots.clear();
+        for (int k = 0; k < table[1]; k++)
+        {
+            freeSlots.add(table[2 + 2 * slots + k]);
+        }
+
+        return true;
+    }
+
+    public void added(int i)
+    {
+        int slot;
+        if (freeSlots.size() > 0)
+        {
+            slot = freeSlots.removeLast();
+        }
+        else
+        {
+            if (usedSlots == indexOfSlot.length)
+            {
+                indexOfSlot = Arrays.copyOf(indexOfSlot, 2 * usedSlots);
+                generations = Arrays.copyOf(generations, 2 * usedSlots);
+            }
+
+            slot = usedSlots++;
+        }
+
+        if (i >= slotOfIndex.length)
+        {
+            slotOfIndex = Arrays.copyOf(slotOfIndex, Math.max(i + 1, 2 * slotOfIndex.length));
+        }
+
+        slotOfIndex[i] = slot;
+        indexOfSlot[slot] = i;
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+    }
+
+    /** Frees the slot of the shape at index i, so its handle stops resolving */
+    private void release(int i)
+    {
+        int slot = slotOfIndex[i];
+        indexOfSlot[slot] = -1;
+        if (generations[slot] < MAX_GENERATION)
+        {
+            generations[slot]++;
+            freeSlots.add(slot);
+        }
+    }
+
+    public void removing(int i)
+    {
+        release(i);
+        int size = shapes.size();
+        for (int k = i + 1; k < size; k++)
+        {
+            slotOfIndex[k - 1] = slotOfIndex[k];
+            indexOfSlot[slotOfIndex[k - 1]] = k - 1;
+        }
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        release(i);
+        if (i != last)
+        {
+            slotOfIndex[i] = slotOfIndex[last];
+            indexOfSlot[slotOfIndex[i]] = i;
+        }
+    }
+
+    public void reordered(int[] order)
+    {
+        int size = shapes.size();
+        int[] reordered = new int[slotOfIndex.length];
+        for (int k = 0; k < size; k++)
+        {
+            reordered[k] = slotOfIndex[order[k]];
+            indexOfSlot[reordered[k]] = k;
+        }
+
+        slotOfIndex = reordered;
+    }
+}
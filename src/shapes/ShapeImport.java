@@ -0,0 +1,600 @@
+package shapes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Streams the shapes of a CSV or NDJSON text file into a shape list.
+ *
+ * Every line describes one shape. A CSV line holds the kind of the shape followed by the numbers of its command,
+ * 'circle,x,y,radius' or 'rectangle,x,y,height,width'. An NDJSON line holds an object with a "type" of "circle" or
+ * "rectangle" and the numbers "x", "y" and "radius", or "height" and "width". Both kinds of lines may be mixed.
+ * Empty lines and a CSV header on the first line are skipped. Lines that are malformed or describe a shape the list
+ * does not take (a NaN coordinate or a negative size) are skipped and counted.
+ *
+ * The file is read in chunks of whole lines. Every chunk is split into slices that are parsed into columns on the
+ * fork/join pool while the next chunk is read, after which the columns are appended to the list in file order.
+ * Only two chunks are in memory, so reading is never more than one chunk ahead of appending.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeImport
+{
+    /** The size of the chunks the file is read in, no line may be longer */
+    static final int CHUNK_SIZE = 8 << 20;
+
+    /** The size of the slices of a chunk that are parsed as one task */
+    static final int SLICE_SIZE = 256 << 10;
+
+    // used to estimate the number of lines in a chunk, to decide whether parsing it in parallel pays off
+    private static final int ESTIMATED_LINE_BYTES = 32;
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int RADIUS = 2;
+    private static final int HEIGHT = 3;
+    private static final int WIDTH = 4;
+    private static final String[] FIELD_NAMES = { "x", "y", "radius", "height", "width" };
+    private static final int CIRCLE_FIELDS = 1 << X | 1 << Y | 1 << RADIUS;
+    private static final int RECTANGLE_FIELDS = 1 << X | 1 << Y | 1 << HEIGHT | 1 << WIDTH;
+
+    /** The outcome of an import */
+    public static class Report
+    {
+        /** The number of shapes added to the list */
+        public final long shapes;
+        /** The number of lines that did not describe a valid shape */
+        public final long rejected;
+        /** The line number of the first rejected line, or 0 when no line was rejected */
+        public final long firstRejected;
+        /** Whether the import stopped because the list was full */
+        public final boolean full;
+        public final long nanos;
+
+        Report(long shapes, long rejected, long firstRejected, boolean full, long nanos)
+        {
+            this.shapes = shapes;
+            this.rejected = rejected;
+            this.firstRejected = firstRejected;
+            this.full = full;
+            this.nanos = nanos;
+        }
+
+        public double shapesPerSecond()
+        {
+            return shapes / Math.max(1e-9, nanos / 1e9);
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder();
+            builder.append(shapes).append(" shape(s) in ");
+            DoubleFormat.append(builder, Math.round(nanos / 1e6) / 1e3).append(" seconds (");
+            builder.append(Math.round(shapesPerSecond())).append(" shapes per second)");
+            if (rejected > 0)
+            {
+                builder.append(", skipped ").append(rejected).append(" invalid line(s) starting at line ").append(firstRejected);
+            }
+
+            if (full)
+            {
+                builder.append(", the list is full");
+            }
+
+            return builder.toString();
+        }
+    }
+
+    /** The lines [from, to) of a chunk and the shapes parsed from them, as columns */
+    static class Slice
+    {
+        private final CommandParser parser;
+        private final AsciiSequence text;
+        private final double[] values;
+        private byte[] array;
+        private int from;
+        private int to;
+        private boolean mayHaveHeader;
+
+        byte[] kinds;
+        double[] xs;
+        double[] ys;
+        double[] heights;
+        double[] widths;
+        int count;
+        int lines;
+        int rejected;
+        // the line within the slice of the first rejected line, counting from 1, or 0
+        int firstRejected;
+
+        Slice()
+        {
+            parser = new CommandParser();
+            text = new AsciiSequence();
+            values = new double[FIELD_NAMES.length];
+            kinds = new byte[1024];
+            xs = new double[1024];
+            ys = new double[1024];
+            heights = new double[1024];
+            widths = new double[1024];
+        }
+
+        void set(ByteBuffer chunk, int from, int to, boolean mayHaveHeader)
+        {
+            text.set(chunk, 0, to);
+            array = chunk.array();
+            this.from = from;
+            this.to = to;
+            this.mayHaveHeader = mayHaveHeader;
+        }
+
+        /** Parses the lines of the slice, the result stays valid until the slice is set again */
+        void parse()
+        {
+            count = 0;
+            lines = 0;
+            rejected = 0;
+            firstRejected = 0;
+            int start = from;
+            while (start < to)
+            {
+                int end = start;
+                while (end < to && array[end] != '\n')
+                {
+                    end++;
+                }
+
+                int next = end + 1;
+                if (end > start && array[end - 1] == '\r')
+                {
+                    end--;
+                }
+
+                lines++;
+                parseLine(start, end);
+                start = next;
+            }
+        }
+
+        private void parseLine(int start, int end)
+        {
+            start = skipSpaces(start, end);
+            if (start == end)
+            {
+                return;
+            }
+
+            boolean parsed = array[start] == '{' ? parseObject(start + 1, end) : parseValues(start, end);
+            if (!parsed && !(mayHaveHeader && lines == 1 && array[start] != '{'))
+            {
+                rejected++;
+                if (firstRejected == 0)
+                {
+                    firstRejected = lines;
+                }
+            }
+        }
+
+        private int skipSpaces(int from, int to)
+        {
+            while (from < to && (array[from] == ' ' || array[from] == '\t'))
+            {
+                from++;
+            }
+
+            return from;
+        }
+
+        /** Returns the kind named by the bytes [from, to), ignoring case and surrounding spaces, or -1 */
+        private int kindOf(int from, int to)
+        {
+            from = skipSpaces(from, to);
+            while (to > from && (array[to - 1] == ' ' || array[to - 1] == '\t'))
+            {
+                to--;
+            }
+
+            if (matches(from, to, "circle"))
+            {
+                return ShapeList.CIRCLE;
+            }
+
+            return matches(from, to, "rectangle") ? ShapeList.RECTANGLE : -1;
+        }
+
+        private boolean matches(int from, int to, String name)
+        {
+            if (to - from != name.length())
+            {
+                return false;
+            }
+
+            for (int k = 0; k < name.length(); k++)
+            {
+                if (Character.toLowerCase((char) (array[from + k] & 0xFF)) != name.charAt(k))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /** Parses 'kind,number,number,...' */
+        private boolean parseValues(int start, int end)
+        {
+            int comma = start;
+            while (comma < end && array[comma] != ',')
+            {
+                comma++;
+            }
+
+            int kind = kindOf(start, comma);
+            if (kind < 0)
+            {
+                return false;
+            }
+
+            int expected = kind == ShapeList.CIRCLE ? 3 : 4;
+            int found = 0;
+            while (comma < end)
+            {
+                int fieldStart = comma + 1;
+                comma = fieldStart;
+                while (comma < end && array[comma] != ',')
+                {
+                    comma++;
+                }
+
+                if (found == expected || !parser.parseNumber(text, fieldStart, comma))
+                {
+                    return false;
+                }
+
+                values[found++] = parser.number();
+            }
+
+            if (found != expected)
+            {
+                return false;
+            }
+
+            return kind == ShapeList.CIRCLE
+                ? addCircle(values[0], values[1], values[2])
+                : addRectangle(values[0], values[1], values[2], values[3]);
+        }
+
+        /** Parses the members of a flat JSON object, from after its opening brace */
+        private boolean parseObject(int start, int end)
+        {
+            int kind = -1;
+            int fields = 0;
+            int k = skipSpaces(start, end);
+            if (k < end && array[k] == '}')
+            {
+                return false;
+            }
+
+            while (true)
+            {
+                // the name of the member, names with escapes are not ones we know
+                if (k == end || array[k] != '"')
+                {
+                    return false;
+                }
+
+                int nameStart = k + 1;
+                int nameEnd = nameStart;
+                while (nameEnd < end && array[nameEnd] != '"' && array[nameEnd] != '\\')
+                {
+                    nameEnd++;
+                }
+
+                if (nameEnd == end || array[nameEnd] != '"')
+                {
+                    return false;
+                }
+
+                k = skipSpaces(nameEnd + 1, end);
+                if (k == end || array[k] != ':')
+                {
+                    return false;
+                }
+
+                k = skipSpaces(k + 1, end);
+                if (k == end || array[k] == '{' || array[k] == '[')
+                {
+                    return false;
+                }
+
+                if (array[k] == '"')
+                {
+                    int valueEnd = k + 1;
+                    while (valueEnd < end && array[valueEnd] != '"' && array[valueEnd] != '\\')
+                    {
+                        valueEnd++;
+                    }
+
+                    if (valueEnd == end || array[valueEnd] != '"')
+                    {
+                        return false;
+                    }
+
+                    if (matches(nameStart, nameEnd, "type") || matches(nameStart, nameEnd, "kind"))
+                    {
+                        kind = kindOf(k + 1, valueEnd);
+                    }
+
+                    k = valueEnd + 1;
+                }
+                else
+                {
+                    int valueEnd = k;
+                    while (valueEnd < end && array[valueEnd] != ',' && array[valueEnd] != '}')
+                    {
+                        valueEnd++;
+                    }
+
+                    int field = fieldNamed(nameStart, nameEnd);
+                    if (field >= 0)
+                    {
+                        if (!parser.parseNumber(text, k, valueEnd))
+                        {
+                            return false;
+                        }
+
+                        values[field] = parser.number();
+                        fields |= 1 << field;
+                    }
+
+                    k = valueEnd;
+                }
+
+                k = skipSpaces(k, end);
+                if (k < end && array[k] == ',')
+                {
+                    k = skipSpaces(k + 1, end);
+                }
+                else if (k < end && array[k] == '}')
+                {
+                    break;
+                }
+                else
+                {
+                    return false;
+                }
+            }
+
+            if (skipSpaces(k + 1, end) != end)
+            {
+                return false;
+            }
+
+            if (kind == ShapeList.CIRCLE && (fields & CIRCLE_FIELDS) == CIRCLE_FIELDS)
+            {
+                return addCircle(values[X], values[Y], values[RADIUS]);
+            }
+
+            if (kind == ShapeList.RECTANGLE && (fields & RECTANGLE_FIELDS) == RECTANGLE_FIELDS)
+            {
+                return addRectangle(values[X], values[Y], values[HEIGHT], values[WIDTH]);
+            }
+
+            return false;
+        }
+
+        private int fieldNamed(int from, int to)
+        {
+            for (int field = 0; field < FIELD_NAMES.length; field++)
+            {
+                if (matches(from, to, FIELD_NAMES[field]))
+                {
+                    return field;
+                }
+            }
+
+            return -1;
+        }
+
+        private boolean addCircle(double x, double y, double radius)
+        {
+            if (!ShapeList.isValidCircle(x, y, radius))
+            {
+                return false;
+            }
+
+            add(ShapeList.CIRCLE, x, y, radius, radius);
+            return true;
+        }
+
+        private boolean addRectangle(double x, double y, double height, double width)
+        {
+            if (!ShapeList.isValidRectangle(x, y, height, width))
+            {
+                return false;
+            }
+
+            add(ShapeList.RECTANGLE, x, y, height, width);
+            return true;
+        }
+
+        private void add(byte kind, double x, double y, double height, double width)
+        {
+            if (count == kinds.length)
+            {
+                int capacity = count * 2;
+                kinds = Arrays.copyOf(kinds, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+                widths = Arrays.copyOf(widths, capacity);
+            }
+
+            kinds[count] = kind;
+            xs[count] = x;
+            ys[count] = y;
+            heights[count] = height;
+            widths[count] = width;
+            count++;
+        }
+    }
+
+    /** A chunk of the file, of which the bytes [0, length) are whole lines and [length, end) the start of the next line */
+    private static class Chunk
+    {
+        final ByteBuffer buffer;
+        int length;
+        int end;
+        boolean last;
+        Slice[] slices;
+        int sliceCount;
+
+        Chunk()
+        {
+            buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            slices = new Slice[0];
+        }
+
+        /** Reads the next chunk of the file, starting with the partial line the previous chunk ended with */
+        void fill(FileChannel channel, Chunk previous) throws IOException
+        {
+            buffer.clear();
+            if (previous != null)
+            {
+                buffer.put(previous.buffer.array(), previous.length, previous.end - previous.length);
+            }
+
+            int read = 0;
+            while (buffer.hasRemaining() && (read = channel.read(buffer)) >= 0)
+            {
+            }
+
+            end = buffer.position();
+            last = read < 0;
+            length = end;
+            if (!last)
+            {
+                while (length > 0 && buffer.get(length - 1) != '\n')
+                {
+                    length--;
+                }
+
+                if (length == 0)
+                {
+                    throw new IOException("a line is longer than " + CHUNK_SIZE + " bytes");
+                }
+            }
+        }
+
+        /** Splits the lines of the chunk into slices of about SLICE_SIZE bytes */
+        void split(boolean first)
+        {
+            byte[] array = buffer.array();
+            sliceCount = 0;
+            int from = 0;
+            while (from < length)
+            {
+                int to = Math.min(length, from + SLICE_SIZE);
+                while (to < length && array[to - 1] != '\n')
+                {
+                    to++;
+                }
+
+                if (sliceCount == slices.length)
+                {
+                    slices = Arrays.copyOf(slices, sliceCount + 8);
+                    for (int k = sliceCount; k < slices.length; k++)
+                    {
+                        slices[k] = new Slice();
+                    }
+                }
+
+                slices[sliceCount].set(buffer, from, to, first && from == 0);
+                sliceCount++;
+                from = to;
+            }
+        }
+    }
+
+    /** Imports the shapes of the file into the list, until the file ends or the list is full */
+    public static Report read(Path path, ShapeList shapes) throws IOException
+    {
+        long start = System.nanoTime();
+        long added = 0;
+        long rejected = 0;
+        long firstRejected = 0;
+        long lines = 0;
+        boolean full = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            Chunk parsing = new Chunk();
+            Chunk reading = new Chunk();
+            parsing.fill(channel, null);
+            parsing.split(true);
+            ForkJoinTask<?> task = parse(parsing, shapes);
+            while (true)
+            {
+                // the next chunk is read while the slices of this one are parsed
+                if (!parsing.last)
+                {
+                    reading.fill(channel, parsing);
+                    reading.split(false);
+                }
+
+                if (task != null)
+                {
+                    task.join();
+                }
+
+                for (int k = 0; k < parsing.sliceCount && !full; k++)
+                {
+                    Slice slice = parsing.slices[k];
+                    int appended = shapes.addAll(slice.kinds, slice.xs, slice.ys, slice.heights, slice.widths, slice.count);
+                    added += appended;
+                    full = appended < slice.count;
+                    if (slice.rejected > 0)
+                    {
+                        rejected += slice.rejected;
+                        firstRejected = firstRejected == 0 ? lines + slice.firstRejected : firstRejected;
+                    }
+
+                    lines += slice.lines;
+                }
+
+                if (parsing.last || full)
+                {
+                    break;
+                }
+
+                Chunk parsed = parsing;
+                parsing = reading;
+                reading = parsed;
+                task = parse(parsing, shapes);
+            }
+        }
+
+        return new Report(added, rejected, firstRejected, full, System.nanoTime() - start);
+    }
+
+    /** Starts parsing the chunk on the fork/join pool and returns the task, or parses it right away and returns null */
+    private static ForkJoinTask<?> parse(Chunk chunk, ShapeList shapes)
+    {
+        if (chunk.sliceCount > 1 && shapes.runsInParallel(chunk.length / ESTIMATED_LINE_BYTES))
+        {
+            return ForkJoinPool.commonPool().submit(new ShapeTasks.ParseSlices(chunk.slices, 0, chunk.sliceCount));
+        }
+
+        for (int k = 0; k < chunk.sliceCount; k++)
+        {
+            chunk.slices[k].parse();
+        }
+
+        return null;
+    }
+}
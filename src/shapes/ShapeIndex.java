@@ -0,0 +1,35 @@
+package shapes;
+
+/** 
+ * An index over the shapes of a ShapeList that the list keeps up to date on every change.
+ * Shapes are identified by their current index in the list.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+interface ShapeIndex
+{
+    /** Called after a shape was appended to the list at index i */
+    void added(int i);
+
+    /** Called after the shapes at the indices [from, to) were appended to the list at once, by default one by one */
+    default void addedAll(int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            added(i);
+        }
+    }
+
+    /** Called after the shape at index i was moved over (deltaX, deltaY) */
+    void moved(int i, double deltaX, double deltaY);
+
+    /** Called before the shape at index i is removed, every shape after it will shift down by one */
+    void removing(int i);
+
+    /** Called before the shape at index i is removed by moving the last shape, at index last, into its place */
+    void swapRemoving(int i, int last);
+
+    /** Called after the list was reordered such that the shape that was at index order[k] is now at index k */
+    void reordered(int[] order);
+}
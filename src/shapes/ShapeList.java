@@ -0,0 +1,1024 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.lang.*;
+
+/**
+ * Contains logic for manipulating shapes inside a list 
+ * 
+ * The shapes are not kept as objects but as parallel primitive columns (structure of arrays),
+ * a shape is only materialized as an IShape when it is explicitly asked for using shapeAt(i).
+ * The columns are kept on the heap, or off the heap for lists created by offHeap(), which must be closed.
+ * The indexes that answer queries (the spatial grid, the sort orders and the aggregate tree) are only built over the
+ * shapes when the first query needs them, so a list that is only filled and read costs about the size of its columns.
+ * An index that would not fit in the memory budget is not kept: its queries scan the shapes, or sort them from scratch.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeList implements AutoCloseable
+{
+    static final byte CIRCLE = 0;
+    static final byte RECTANGLE = 1;
+
+    /** The most shapes a list can hold, the indexes keep a few ints per shape in single arrays */
+    static final int MAX_CAPACITY = 1 << 28;
+
+    /** The memory budgeted per shape of a list that did not build any index yet: only its columns */
+    static final int BYTES_PER_SHAPE = ShapeColumns.BYTES_PER_SHAPE;
+
+    /** The memory budgeted per shape once the spatial grid, the three sort orders and the aggregate tree are built */
+    static final int BYTES_PER_INDEXED_SHAPE = BYTES_PER_SHAPE + SpatialGrid.BYTES_PER_SHAPE + 3 * SortOrder.BYTES_PER_SHAPE + AggregateTree.BYTES_PER_SHAPE;
+
+    /** The default width and height of the cells of the spatial grid */
+    static final double DEFAULT_CELL_SIZE = 10.0;
+
+    /** Bulk operations over at least this many shapes run on the fork/join pool by default */
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    private ShapeColumns columns;
+    private int size;
+    // counts the changes, so caches of the shapes can tell whether they are still valid
+    private long version;
+    private boolean stopped;
+    private final int maxSize;
+    private final long memoryBudget;
+    // the memory budgeted per shape for the columns and the indexes built so far
+    private int bytesPerShape;
+    private int parallelThreshold;
+    private GeometryKernels kernels;
+
+    // the indexes below are null until a query needs them
+    private final double cellSize;
+    private SpatialGrid grid;
+    // indexed by the SortOrder key
+    private final SortOrder[] sortOrders;
+    private AggregateTree aggregates;
+    private final List<ShapeIndex> indexes;
+    private ShapeHandles handles;
+    private OverlapIndex overlaps;
+    private AreaTreap areaTreap;
+    // null unless the metrics are enabled, in which case sorts are timed
+    private ShapeMetrics metrics;
+
+    /** Creates a shape list that holds as many shapes as fit in the default memory budget */
+    public ShapeList()
+    {
+        this(MAX_CAPACITY, DEFAULT_CELL_SIZE, defaultMemoryBudget());
+    }
+
+    public ShapeList(int maxSize)
+    {
+        this(maxSize, DEFAULT_CELL_SIZE);
+    }
+
+    /** Creates a shape list whose spatial index buckets shapes into square cells of the given size */
+    public ShapeList(int maxSize, double cellSize)
+    {
+        this(maxSize, cellSize, defaultMemoryBudget());
+    }
+
+    /** Creates a shape list of at most maxSize shapes, which is also full when its shapes would take more than memoryBudget bytes */
+    public ShapeList(int maxSize, double cellSize, long memoryBudget)
+    {
+        this(maxSize, cellSize, memoryBudget, false);
+    }
+
+    /** 
+     * Creates a shape list whose shapes are stored outside the heap, so the garbage collector does not have to scan them. 
+     * Only the indexes that queries build are kept on the heap. The memory is freed by close(), after which the list 
+     * must not be used anymore.
+     */
+    public static ShapeList offHeap(int maxSize, double cellSize, long memoryBudget)
+    {
+        return new ShapeList(maxSize, cellSize, memoryBudget, true);
+    }
+
+    private ShapeList(int maxSize, double cellSize, long memoryBudget, boolean offHeap)
+    {
+        stopped = false;
+        this.memoryBudget = Math.max(0, memoryBudget);
+        this.maxSize = (int) Math.min(Math.max(0, maxSize), MAX_CAPACITY);
+        bytesPerShape = BYTES_PER_SHAPE;
+        parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+        kernels = GeometryKernels.PREFERRED;
+        columns = offHeap ? new OffHeapColumns(0) : new HeapColumns(Math.min(capacity(), 16));
+        this.cellSize = SpatialGrid.checkCellSize(cellSize);
+        sortOrders = new SortOrder[3];
+        indexes = new ArrayList<ShapeIndex>();
+    }
+
+    /** Returns the memory budget used when none is given: half of the maximum heap */
+    static long defaultMemoryBudget()
+    {
+        return Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    /** Makes room for one more shape, adding a chunk to the columns when they are full */
+    private void ensureCapacity()
+    {
+        if (size == columns.capacity())
+        {
+            columns.grow(capacity());
+        }
+    }
+
+    public boolean stopped()
+    {
+        return stopped;
+    }
+
+    /** Returns whether the list can not take another shape, because it reached its maximum size or its memory budget */
+    public boolean isFull()
+    {
+        return size >= capacity();
+    }
+
+    /** Returns the most shapes the list can hold within its maximum size and memory budget, which shrinks as indexes are built */
+    public int capacity()
+    {
+        return (int) Math.min(maxSize, memoryBudget / bytesPerShape);
+    }
+
+    public long memoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /** Returns an estimate of the memory taken by the shapes and the indexes built so far */
+    public long estimatedBytes()
+    {
+        return (long) size * bytesPerShape;
+    }
+
+    /** Builds the index over the current shapes and keeps it up to date from now on, budgeting bytes per shape for it */
+    private <T extends ShapeIndex> T track(T index, int bytes)
+    {
+        if (size > 0)
+        {
+            index.addedAll(0, size);
+        }
+
+        indexes.add(index);
+        bytesPerShape += bytes;
+        return index;
+    }
+
+    /** Returns whether an index taking bytes per shape fits in the memory budget next to the shapes and the indexes built so far */
+    private boolean fits(int bytes)
+    {
+        return (long) size * (bytesPerShape + bytes) <= memoryBudget;
+    }
+
+    /** Returns the spatial grid, building it the first time a window or point query needs it, or null when it does not fit */
+    private SpatialGrid grid()
+    {
+        if (grid == null && fits(SpatialGrid.BYTES_PER_SHAPE))
+        {
+            grid = track(new SpatialGrid(this, cellSize), SpatialGrid.BYTES_PER_SHAPE);
+        }
+
+        return grid;
+    }
+
+    /** 
+     * Returns the sort order of the key AREA, LEFT_BORDER or BOTTOM_BORDER, building it the first time it is needed.
+     * When it does not fit, an order is built that is not kept up to date, which costs as much as a plain sort.
+     */
+    private SortOrder sortOrder(int key)
+    {
+        if (sortOrders[key] != null)
+        {
+            return sortOrders[key];
+        }
+
+        if (!fits(SortOrder.BYTES_PER_SHAPE))
+        {
+            SortOrder once = new SortOrder(this, key);
+            once.addedAll(0, size);
+            return once;
+        }
+
+        sortOrders[key] = track(new SortOrder(this, key), SortOrder.BYTES_PER_SHAPE);
+        return sortOrders[key];
+    }
+
+    /** Returns the aggregate tree, building it the first time the stats are asked for, or null when it does not fit */
+    private AggregateTree aggregates()
+    {
+        if (aggregates == null && fits(AggregateTree.BYTES_PER_SHAPE))
+        {
+            aggregates = track(new AggregateTree(this), AggregateTree.BYTES_PER_SHAPE);
+        }
+
+        return aggregates;
+    }
+
+    public void stop() 
+    {
+        stopped = true;
+    }
+
+    /** Times every sort from now on into the metrics, or stops timing sorts when metrics is null */
+    void useMetrics(ShapeMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    /** Sets the kernels that bulk operations use, which lets the vector and scalar kernels be compared */
+    void useKernels(GeometryKernels kernels)
+    {
+        this.kernels = kernels;
+    }
+
+    /** Frees the memory of a list created by offHeap(), after which it must not be used anymore */
+    @Override
+    public void close()
+    {
+        columns.close();
+    }
+
+    /** Sets the number of shapes from which sorting and bulk operations are split over the fork/join pool, use Integer.MAX_VALUE to never go parallel */
+    public void setParallelThreshold(int parallelThreshold)
+    {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    public int parallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /** Returns whether an operation over n shapes should run in parallel */
+    boolean runsInParallel(int n)
+    {
+        return n >= parallelThreshold;
+    }
+
+    /** Returns a number that changes whenever a shape is added, moved or removed or the shapes are reordered */
+    public long version()
+    {
+        return version;
+    }
+
+    /** Returns the number of shapes in the list */
+    public int size()
+    {
+        return size;
+    }
+
+    /** Appends a shape to the columns and returns its index */
+    private int append(byte kind, double x, double y, double height, double width)
+    {
+        ensureCapacity();
+        int i = size;
+        columns.set(i, kind, x, y, height, width);
+        size++;
+        version++;
+        for (ShapeIndex index : indexes)
+        {
+            index.added(i);
+        }
+
+        return i;
+    }
+
+    /** Adds a rectangle to the list, returning the index at which it was added when the input is valid */
+    public OptionalInt addRectangle(double x, double y, double height, double width)
+    {
+        if (!isValidRectangle(x, y, height, width) || isFull()) 
+        {
+            return OptionalInt.empty();
+        }
+        else
+        {
+            return OptionalInt.of(append(RECTANGLE, x, y, height, width));
+        }
+    }
+
+    /** Adds a circle to the list, returning the index at which it was added when the input is valid */
+    public OptionalInt addCircle(double x, double y, double radius)
+    {
+        if (!isValidCircle(x, y, radius) || isFull()) 
+        {
+            return OptionalInt.empty();
+        }
+        else
+        {
+            return OptionalInt.of(append(CIRCLE, x, y, radius, radius));
+        }
+    }
+
+    /** Returns whether the list accepts a rectangle with these coordinates and dimensions */
+    static boolean isValidRectangle(double x, double y, double height, double width)
+    {
+        return !Double.isNaN(x)
+            && !Double.isNaN(y)
+            && !Double.isNaN(height)
+            && !Double.isNaN(width)
+            && height >= 0
+            && width >= 0;
+    }
+
+    /** Returns whether the list accepts a circle with these coordinates and radius */
+    static boolean isValidCircle(double x, double y, double radius)
+    {
+        return radius >= 0 && !Double.isNaN(x) && !Double.isNaN(y);
+    }
+
+    /** 
+     * Appends the valid shapes of a batch in order until the list is full, returning how many were added. 
+     * Circles store their radius as both the height and the width, like in the columns. The indexes are told 
+     * about the whole batch at once, which lets them update in one pass.
+     */
+    int addAll(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int count)
+    {
+        int from = size;
+        for (int k = 0; k < count && !isFull(); k++)
+        {
+            boolean valid = kinds[k] == CIRCLE
+                ? isValidCircle(xs[k], ys[k], widths[k])
+                : isValidRectangle(xs[k], ys[k], heights[k], widths[k]);
+
+            if (valid)
+            {
+                ensureCapacity();
+                columns.set(size, kinds[k], xs[k], ys[k], heights[k], widths[k]);
+                size++;
+            }
+        }
+
+        if (size > from)
+        {
+            version++;
+            for (ShapeIndex index : indexes)
+            {
+                index.addedAll(from, size);
+            }
+        }
+
+        return size - from;
+    }
+
+    /** Safely removes a shape from the list at index i, returns an optional string representing whether there was an error or not */
+    public Optional<Error> removeShapeAtIndex(int i)
+    {
+        if (size == 0) 
+        {
+            return Optional.of(Error.of("The list is already empty"));
+        }
+        else if (i < 0 || i >= size)
+        {
+            return Optional.of(Error.of("The input index lies outside the bounds of the shape list"));
+        }
+        else
+        {
+            version++;
+            for (ShapeIndex index : indexes)
+            {
+                index.removing(i);
+            }
+
+            columns.shiftDown(i, size);
+            size--;
+            return Optional.empty();
+        }
+    }
+
+    /** 
+     * Removes the shape at index i in constant time by moving the last shape into its place, so unlike 
+     * removeShapeAtIndex only the index of that one shape changes
+     */
+    public Optional<Error> swapRemoveShapeAtIndex(int i)
+    {
+        if (size == 0) 
+        {
+            return Optional.of(Error.of("The list is already empty"));
+        }
+        else if (i < 0 || i >= size)
+        {
+            return Optional.of(Error.of("The input index lies outside the bounds of the shape list"));
+        }
+        else
+        {
+            int last = size - 1;
+            version++;
+            for (ShapeIndex index : indexes)
+            {
+                index.swapRemoving(i, last);
+            }
+
+            if (i != last)
+            {
+                columns.copy(columns, last, i);
+            }
+
+            size--;
+            return Optional.empty();
+        }
+    }
+
+    /** Gives every shape a stable handle from now on, see handleAt and indexOf */
+    public void enableHandles()
+    {
+        if (handles == null)
+        {
+            handles = new ShapeHandles(this);
+            indexes.add(handles);
+        }
+    }
+
+    /** Replaces the handles of the shapes by a table saved with a snapshot, returning false when it does not fit the shapes */
+    boolean restoreHandles(int[] table)
+    {
+        enableHandles();
+        return handles.restore(table);
+    }
+
+    public boolean hasHandles()
+    {
+        return handles != null;
+    }
+
+    /** Returns the handle of the shape at index i, which keeps identifying the shape until it is removed */
+    public long handleAt(int i)
+    {
+        if (handles == null)
+        {
+            throw new IllegalStateException("Handles are not enabled for this shape list");
+        }
+
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + i + " lies outside the bounds of the shape list");
+        }
+
+        return handles.handleAt(i);
+    }
+
+    /** Returns the current index of the shape with the handle, or nothing when there is no such shape (anymore) */
+    public OptionalInt indexOf(long handle)
+    {
+        return handles == null ? OptionalInt.empty() : handles.indexOf(handle);
+    }
+
+    public Optional<Error> moveShapeAtIndex(int i, double deltaX, double deltaY)
+    {
+        if (size == 0) 
+        {
+            return Optional.of(Error.of("The list is already empty"));
+        }
+        else if (i < 0 || i >= size)
+        {
+            return Optional.of(Error.of("The input index lies outside the bounds of the shape list"));
+        }
+        else
+        {
+            columns.translate(i, deltaX, deltaY);
+            version++;
+            for (ShapeIndex index : indexes)
+            {
+                index.moved(i, deltaX, deltaY);
+            }
+
+            return Optional.empty();
+        }
+    }
+
+    /** Returns whether or not the shape list is empty */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    boolean isCircleAt(int i)
+    {
+        return columns.kind(i) == CIRCLE;
+    }
+
+    double xAt(int i)
+    {
+        return columns.x(i);
+    }
+
+    double yAt(int i)
+    {
+        return columns.y(i);
+    }
+
+    /** Returns the height of the rectangle, or the radius of the circle, at index i */
+    double heightAt(int i)
+    {
+        return columns.height(i);
+    }
+
+    /** Returns the width of the rectangle, or the radius of the circle, at index i */
+    double widthAt(int i)
+    {
+        return columns.width(i);
+    }
+
+    /** Returns the area of the shape at index i, computed the same way as Circle.Area() and Rectangle.Area() */
+    double areaAt(int i)
+    {
+        double width = columns.width(i);
+        return columns.kind(i) == CIRCLE ? Math.PI * width * width : columns.height(i) * width;
+    }
+
+    double leftBorderAt(int i)
+    {
+        return columns.kind(i) == CIRCLE ? columns.x(i) - columns.width(i) : columns.x(i);
+    }
+
+    double rightBorderAt(int i)
+    {
+        return columns.x(i) + columns.width(i);
+    }
+
+    double bottomBorderAt(int i)
+    {
+        return columns.kind(i) == CIRCLE ? columns.y(i) - columns.height(i) : columns.y(i);
+    }
+
+    double topBorderAt(int i)
+    {
+        return columns.y(i) + columns.height(i);
+    }
+
+    /** Returns whether the shape at index i overlaps the window, using an exact test for circles */
+    boolean intersectsAt(int i, double left, double bottom, double right, double top)
+    {
+        double x = columns.x(i);
+        double y = columns.y(i);
+        double width = columns.width(i);
+        if (columns.kind(i) == CIRCLE)
+        {
+            // distance from the center to the closest point of the window
+            double deltaX = x - Math.max(left, Math.min(right, x));
+            double deltaY = y - Math.max(bottom, Math.min(top, y));
+            return deltaX * deltaX + deltaY * deltaY <= width * width;
+        }
+
+        return x <= right && x + width >= left && y <= top && y + columns.height(i) >= bottom;
+    }
+
+    /** Returns whether the point lies inside or on the border of the shape at index i */
+    boolean containsAt(int i, double x, double y)
+    {
+        return intersectsAt(i, x, y, x, y);
+    }
+
+    /** Returns whether the shapes at index i and j overlap or touch, using exact tests for circles */
+    boolean overlapsAt(int i, int j)
+    {
+        if (columns.kind(i) == CIRCLE && columns.kind(j) == CIRCLE)
+        {
+            double deltaX = columns.x(i) - columns.x(j);
+            double deltaY = columns.y(i) - columns.y(j);
+            double radii = columns.width(i) + columns.width(j);
+            return deltaX * deltaX + deltaY * deltaY <= radii * radii;
+        }
+
+        // a rectangle is its own window, so the other shape is tested against it
+        int rectangle = columns.kind(j) == CIRCLE ? i : j;
+        int other = rectangle == j ? i : j;
+        return intersectsAt(other, leftBorderAt(rectangle), bottomBorderAt(rectangle), rightBorderAt(rectangle), topBorderAt(rectangle));
+    }
+
+    /** 
+     * Returns the pairs of shapes that overlap or touch as { i0, j0, i1, j1, ... } with every i smaller than its j, 
+     * ordered by i and then by j. The first call sweeps all shapes, later calls only check the shapes that changed since.
+     */
+    public int[] overlappingPairs()
+    {
+        OverlapIndex.Pairs pairs = overlapIndex().pairs();
+        int[] flat = new int[2 * pairs.size];
+        for (int k = 0; k < pairs.size; k++)
+        {
+            flat[2 * k] = OverlapIndex.first(pairs.values[k]);
+            flat[2 * k + 1] = OverlapIndex.second(pairs.values[k]);
+        }
+
+        return flat;
+    }
+
+    /** Returns the number of pairs of shapes that overlap or touch */
+    public int overlapCount()
+    {
+        return overlapIndex().pairs().size;
+    }
+
+    /** Returns the index of overlapping pairs, which is only kept up to date from the first time the overlaps are asked for */
+    private OverlapIndex overlapIndex()
+    {
+        if (overlaps == null)
+        {
+            overlaps = new OverlapIndex(this);
+            indexes.add(overlaps);
+        }
+
+        return overlaps;
+    }
+
+    /** Returns the indices of the k largest shapes, largest first, without reordering the list */
+    public int[] largestByArea(int k)
+    {
+        return areaTreap().largest(k);
+    }
+
+    /** Returns the indices of the shapes with an area in [minArea, maxArea], smallest first, without reordering the list */
+    public int[] shapesWithAreaBetween(double minArea, double maxArea)
+    {
+        return areaTreap().between(Math.min(minArea, maxArea), Math.max(minArea, maxArea));
+    }
+
+    /** Returns the number of shapes with an area in [minArea, maxArea] */
+    public int countWithAreaBetween(double minArea, double maxArea)
+    {
+        return areaTreap().countBetween(Math.min(minArea, maxArea), Math.max(minArea, maxArea));
+    }
+
+    /** Returns the order-statistic tree over the areas, which is only kept up to date from the first time it is asked for */
+    private AreaTreap areaTreap()
+    {
+        if (areaTreap == null)
+        {
+            areaTreap = new AreaTreap(this, areaOrder());
+            indexes.add(areaTreap);
+        }
+
+        return areaTreap;
+    }
+
+    /** Returns the indices of the shapes ordered by their left border, the first size() elements of the array are valid */
+    int[] leftBorderOrder()
+    {
+        return sortOrder(SortOrder.LEFT_BORDER).sortedIndices();
+    }
+
+    /** Returns the indices of the shapes ordered by their area, the first size() elements of the array are valid */
+    int[] areaOrder()
+    {
+        return sortOrder(SortOrder.AREA).sortedIndices();
+    }
+
+    /** Returns a cursor over the shapes, which reads every shape unless filters are set on it */
+    public ShapeCursor cursor()
+    {
+        return new ShapeCursor(this);
+    }
+
+    /** Returns the indices of the shapes that intersect the window spanned by the two corners, in ascending order */
+    public int[] shapesIntersecting(double x1, double y1, double x2, double y2)
+    {
+        double left = Math.min(x1, x2);
+        double bottom = Math.min(y1, y2);
+        double right = Math.max(x1, x2);
+        double top = Math.max(y1, y2);
+        SpatialGrid index = grid();
+        return index != null ? index.intersecting(left, bottom, right, top) : scanIntersecting(left, bottom, right, top);
+    }
+
+    /** Returns the indices of the shapes that contain the point (x, y), in ascending order */
+    public int[] shapesContaining(double x, double y)
+    {
+        SpatialGrid index = grid();
+        return index != null ? index.containing(x, y) : scanIntersecting(x, y, x, y);
+    }
+
+    /** Returns the indices of the shapes that intersect the window by testing every shape, for lists without a grid */
+    private int[] scanIntersecting(double left, double bottom, double right, double top)
+    {
+        IntList found = new IntList(8);
+        for (int i = 0; i < size; i++)
+        {
+            if (intersectsAt(i, left, bottom, right, top))
+            {
+                found.add(i);
+            }
+        }
+
+        return found.toArray();
+    }
+
+    /** Materializes the shape at index i as a detached IShape, moving the returned shape does not affect the list */
+    public IShape shapeAt(int i)
+    {
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + i + " lies outside the bounds of the shape list");
+        }
+
+        return columns.kind(i) == CIRCLE 
+            ? new Circle(columns.x(i), columns.y(i), columns.width(i)) 
+            : new Rectangle(columns.x(i), columns.y(i), columns.height(i), columns.width(i));
+    }
+
+    /** Copies the shapes at order[k] for every k in [from, to) into index k of the target columns */
+    void gather(int[] order, ShapeColumns target, int from, int to)
+    {
+        for (int k = from; k < to; k++)
+        {
+            target.copy(columns, order[k], k);
+        }
+    }
+
+    /** Rearranges the columns such that the shape at index order[k] ends up at index k */
+    private void permute(int[] order)
+    {
+        if (columns.permutesInPlace())
+        {
+            columns.permute(order, size);
+        }
+        else
+        {
+            ShapeColumns sorted = columns.empty(columns.capacity());
+            if (runsInParallel(size))
+            {
+                ForkJoinPool.commonPool().invoke(new ShapeTasks.Permute(this, order, sorted, 0, size));
+            }
+            else
+            {
+                gather(order, sorted, 0, size);
+            }
+
+            columns = sorted;
+        }
+
+        version++;
+        for (ShapeIndex index : indexes)
+        {
+            index.reordered(order);
+        }
+    }
+
+    /** Reorders the list to follow the order maintained by the given sort order, returning the order that was applied */
+    private int[] sortBy(SortOrder sortOrder)
+    {
+        if (metrics == null)
+        {
+            int[] order = Arrays.copyOf(sortOrder.sortedIndices(), size);
+            permute(order);
+            return order;
+        }
+
+        ShapeMetrics.SortEvent event = new ShapeMetrics.SortEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int[] order = Arrays.copyOf(sortOrder.sortedIndices(), size);
+        permute(order);
+        metrics.sorted(event, sortOrder.key(), System.nanoTime() - start, size);
+        return order;
+    }
+
+    /** Sorts by the SortOrder key AREA, LEFT_BORDER or BOTTOM_BORDER, returning the order that was applied like permute takes it */
+    int[] sortByKey(int key)
+    {
+        return sortBy(sortOrder(key));
+    }
+
+    /** Rearranges the list such that the shape at index order[k] ends up at index k, order must be a permutation of the indices */
+    void reorder(int[] order)
+    {
+        permute(order);
+    }
+
+    /** Inserts a shape at index i, shifting the shapes from i on up by one, without validating it */
+    void insertAt(int i, boolean isCircle, double x, double y, double height, double width)
+    {
+        int last = append(isCircle ? CIRCLE : RECTANGLE, x, y, height, width);
+        if (i < last)
+        {
+            int[] order = new int[size];
+            for (int k = 0; k < size; k++)
+            {
+                order[k] = k < i ? k : k == i ? last : k - 1;
+            }
+
+            permute(order);
+        }
+    }
+
+    /** Puts a shape that was swap removed from index i back, moving the shape that took its place back to the end */
+    void restoreSwapRemoved(int i, boolean isCircle, double x, double y, double height, double width)
+    {
+        int last = append(isCircle ? CIRCLE : RECTANGLE, x, y, height, width);
+        if (i < last)
+        {
+            int[] order = new int[size];
+            for (int k = 0; k < size; k++)
+            {
+                order[k] = k;
+            }
+
+            order[i] = last;
+            order[last] = i;
+            permute(order);
+        }
+    }
+
+    /** Moves the shape at index i to exactly (x, y) */
+    void moveTo(int i, double x, double y)
+    {
+        double deltaX = x - columns.x(i);
+        double deltaY = y - columns.y(i);
+        columns.setPosition(i, x, y);
+        version++;
+        for (ShapeIndex index : indexes)
+        {
+            index.moved(i, deltaX, deltaY);
+        }
+    }
+
+    public void sortByArea()
+    {
+        sortBy(sortOrder(SortOrder.AREA));
+    }
+
+    public void sortByLeftBorder()
+    {
+        sortBy(sortOrder(SortOrder.LEFT_BORDER));
+    }
+
+    public void sortByBottomBorder()
+    {
+        sortBy(sortOrder(SortOrder.BOTTOM_BORDER));
+    }
+
+    /** Returns whether the shape at index i satisfies the predicate */
+    boolean test(int i, ShapePredicate predicate)
+    {
+        return predicate.test(columns.kind(i) == CIRCLE, columns.x(i), columns.y(i), columns.height(i), columns.width(i));
+    }
+
+    /** Moves the shape at index i without notifying the indexes, the caller is responsible for that */
+    void translate(int i, double deltaX, double deltaY)
+    {
+        columns.translate(i, deltaX, deltaY);
+    }
+
+    /** Returns the counts by kind, the total area and the bounding box of the shapes, which are kept up to date on every change from the first call on */
+    public ShapeStats stats()
+    {
+        AggregateTree tree = aggregates();
+        if (tree != null)
+        {
+            return tree.stats();
+        }
+
+        int circles = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (columns.kind(i) == CIRCLE)
+            {
+                circles++;
+            }
+        }
+
+        return new ShapeStats(size, circles, size - circles, totalArea(), boundingBox());
+    }
+
+    /** Returns the sum of the areas of all shapes by scanning them, summed in parallel for large lists */
+    public double totalArea()
+    {
+        if (runsInParallel(size))
+        {
+            return ForkJoinPool.commonPool().invoke(new ShapeTasks.TotalArea(this, 0, size));
+        }
+
+        return sumAreas(0, size);
+    }
+
+    /** Returns the sum of the areas of the shapes in [from, to) */
+    double sumAreas(int from, int to)
+    {
+        return columns.sumAreas(kernels, from, to);
+    }
+
+    /** Widens the box, given as { left, bottom, right, top }, to enclose the shapes in [from, to) */
+    void bounds(int from, int to, double[] box)
+    {
+        columns.bounds(kernels, from, to, box);
+    }
+
+    /** Returns the areas of all shapes, in the order of the list */
+    public double[] areas()
+    {
+        double[] areas = new double[size];
+        columns.areas(kernels, 0, size, areas);
+        return areas;
+    }
+
+    /** Writes the left, bottom, right and top borders of all shapes to the arrays, which must hold at least size() values */
+    public void borders(double[] lefts, double[] bottoms, double[] rights, double[] tops)
+    {
+        columns.borders(kernels, 0, size, lefts, bottoms, rights, tops);
+    }
+
+    /** Returns the box enclosing all shapes by scanning them, or nothing when the list is empty */
+    public Optional<BoundingBox> boundingBox()
+    {
+        if (size == 0)
+        {
+            return Optional.empty();
+        }
+
+        ShapeTasks.Bounds bounds = new ShapeTasks.Bounds(this, 0, size);
+        return Optional.of(runsInParallel(size) ? ForkJoinPool.commonPool().invoke(bounds) : bounds.compute());
+    }
+
+    /** Moves every shape over (deltaX, deltaY) */
+    public void moveAll(double deltaX, double deltaY)
+    {
+        columns.translateAll(kernels, 0, size, deltaX, deltaY);
+        version++;
+        for (int i = 0; i < size; i++)
+        {
+            for (ShapeIndex index : indexes)
+            {
+                index.moved(i, deltaX, deltaY);
+            }
+        }
+    }
+
+    /** Moves every shape that satisfies the predicate over (deltaX, deltaY) and returns how many shapes were moved */
+    public int moveShapesWhere(ShapePredicate predicate, double deltaX, double deltaY)
+    {
+        boolean[] moved = new boolean[size];
+        ShapeTasks.MoveWhere task = new ShapeTasks.MoveWhere(this, predicate, deltaX, deltaY, moved, 0, size);
+        if (runsInParallel(size))
+        {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        else
+        {
+            task.compute();
+        }
+
+        // the indexes are not thread-safe, so they are updated afterwards on this thread
+        version++;
+        int count = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (moved[i])
+            {
+                count++;
+                for (ShapeIndex index : indexes)
+                {
+                    index.moved(i, deltaX, deltaY);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /** Copies the current shapes into an immutable snapshot */
+    public ShapeSnapshot snapshot()
+    {
+        int count = size;
+        byte[] kinds = new byte[count];
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double[] heights = new double[count];
+        double[] widths = new double[count];
+        copyShapes(0, count, kinds, xs, ys, heights, widths);
+        return new ShapeSnapshot(kinds, xs, ys, heights, widths, count, handleTable());
+    }
+
+    /** Copies the shapes in [from, to) into the columns of a snapshot that is being built, at the same indexes */
+    void copyShapes(int from, int to, byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths)
+    {
+        columns.copyTo(from, to, kinds, xs, ys, heights, widths);
+    }
+
+    /** Returns a copy of the handle table for a snapshot, or null when the list has no handles */
+    int[] handleTable()
+    {
+        return handles == null ? null : handles.table();
+    }
+
+    /** Appends the string representation of the shape at index i to the builder */
+    void appendShape(int i, StringBuilder builder)
+    {
+        if (columns.kind(i) == CIRCLE)
+        {
+            Circle.append(builder, columns.x(i), columns.y(i), columns.width(i));
+        }
+        else
+        {
+            Rectangle.append(builder, columns.x(i), columns.y(i), columns.height(i), columns.width(i));
+        }
+    }
+
+    /** Allows a read-only consumer to read the string representation of a shape
+     * Therefore, forbidding the outside world from mutating the values of the shapes.
+     * Use cursor() to read only some of the shapes, or their fields without rendering them.
+     */
+    public void readShapesUsing(Consumer<String> consumer)
+    {
+        cursor().readShapesUsing(consumer);
+    }
+}
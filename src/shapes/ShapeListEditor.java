@@ -0,0 +1,1004 @@
+package shapes;
+
+import java.io.*;
+import java.lang.*;
+import java.nio.file.*;
+import java.util.*;
+
+/** Uses the terminal as a user interface to manipulate a list of shapes by reading different commands from the user 
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeListEditor
+{
+    private ShapeList shapeList;
+    private long memoryBudget;
+    private Scanner scanner;
+    private CommandParser parser;
+    private boolean stopped;
+    private boolean showAfterChanges;
+    private CommandJournal journal;
+    private EditHistory history;
+    private boolean handleMode;
+    // null unless the metrics are enabled, so commands are not timed otherwise
+    private ShapeMetrics metrics;
+    private final double[] journalArguments;
+    private TerminalOutput output;
+
+    public ShapeListEditor()
+    {
+        this(System.out);
+    }
+
+    /** Creates an editor that writes its output to the stream */
+    ShapeListEditor(OutputStream out)
+    {
+        output = new TerminalOutput(out);
+        memoryBudget = ShapeList.defaultMemoryBudget();
+        shapeList = newShapeList();
+        scanner = new Scanner(System.in);
+        parser = new CommandParser();
+        stopped = false;
+        showAfterChanges = true;
+        journal = null;
+        handleMode = false;
+        metrics = null;
+        journalArguments = new double[CommandJournal.MAX_ARGUMENTS];
+        history = new EditHistory();
+    }
+
+    /** Read user input after prompting him/her with a message  */
+    public String readUserInput(String inputMsg)
+    {
+        write(inputMsg);
+        output.flush();
+
+        if (scanner.hasNextLine())
+        {
+            return scanner.nextLine();
+        }
+
+        return "";
+    } 
+
+
+
+    void writeLn(String input)
+    {
+        output.writeLine(input);
+    }
+
+    void write(String input)
+    {
+        output.write(input);
+    }
+
+    /** Stops the editor loop */
+    public void quit()
+    {
+        stopped = true;
+    }
+
+    /** Returns whether or not the editing session has finished */
+    public boolean finishedEditing()
+    {
+        return stopped;
+    }
+
+    /** Recovers the shape list from the journal in the directory and journals every change from now on */
+    public void useJournal(Path directory) throws IOException
+    {
+        ShapeList recovered = newShapeList();
+        journal = CommandJournal.open(directory, recovered);
+        shapeList = recovered;
+        if (!shapeList.isEmpty() || journal.recovered() > 0)
+        {
+            writeLn("Recovered " + shapeList.size() + " shape(s) from " + directory);
+        }
+    }
+
+    /** Appends the command that was just executed to the journal, if any, and compacts the journal when it grew too large */
+    private void journalChange()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.append(parser);
+            if (journal.needsCompaction())
+            {
+                journal.compact(shapeList.snapshot());
+            }
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+    }
+
+    /** Appends a change to the journal, if any, as the command with the given arguments rather than the one that was parsed */
+    private void journalChange(int command, int count)
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.append(command, journalArguments, count);
+            if (journal.needsCompaction())
+            {
+                journal.compact(shapeList.snapshot());
+            }
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+    }
+
+    /** Appends the change that the last undo or redo applied to the journal, if any, as a delta */
+    private void journalApplied()
+    {
+        if (history.appliedCommand() != CommandJournal.REORDER)
+        {
+            System.arraycopy(history.appliedArguments(), 0, journalArguments, 0, history.appliedCount());
+            journalChange(history.appliedCommand(), history.appliedCount());
+            return;
+        }
+
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.appendReorder(history.appliedOrder(), shapeList.size());
+            if (journal.needsCompaction())
+            {
+                journal.compact(shapeList.snapshot());
+            }
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+    }
+
+    /** Starts a new journal from a durable snapshot of the current shapes, for changes that can not be replayed from the command that made them */
+    private void journalSnapshot()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.checkpoint(shapeList.snapshot());
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+    }
+
+    /** Creates an empty list that holds as many shapes as fit in the memory budget */
+    private ShapeList newShapeList()
+    {
+        ShapeList created = new ShapeList(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, memoryBudget);
+        if (handleMode)
+        {
+            created.enableHandles();
+        }
+
+        created.useMetrics(metrics);
+        return created;
+    }
+
+    /** 
+     * Identifies shapes by stable handles instead of indices from now on: the shapes are listed with their handle, 
+     * move and remove take a handle, and remove takes constant time because the last shape takes the place of the removed one
+     */
+    public void useHandles()
+    {
+        handleMode = true;
+        shapeList.enableHandles();
+    }
+
+    ShapeList shapeList()
+    {
+        return shapeList;
+    }
+
+    /** Writes the output of the editor to the stream from now on */
+    void writeTo(OutputStream out)
+    {
+        output.flush();
+        output = new TerminalOutput(out);
+    }
+
+    /** Writes the buffered output to the stream */
+    void flushOutput()
+    {
+        output.flush();
+    }
+
+    /** Sets whether the list is shown after every change, which batches turn off */
+    void showAfterChanges(boolean show)
+    {
+        showAfterChanges = show;
+    }
+
+    /** Measures the latency of every command and the duration of every sort from now on, which the metrics command shows */
+    public void enableMetrics()
+    {
+        metrics = new ShapeMetrics();
+        shapeList.useMetrics(metrics);
+    }
+
+    /** Limits the memory taken by the shapes and their indexes, starting over with an empty list */
+    public void limitMemory(long maxBytes)
+    {
+        memoryBudget = maxBytes;
+        shapeList = newShapeList();
+    }
+
+    /** Limits the memory taken by the undo history, forgetting the changes made so far */
+    public void limitHistory(long maxBytes)
+    {
+        history = new EditHistory(maxBytes);
+    }
+
+    /** Returns the journal the changes are appended to, or null when they are not journaled */
+    CommandJournal journal()
+    {
+        return journal;
+    }
+
+    /** Waits until the journaled commands are durable, so a crash can not lose them anymore */
+    void syncJournal()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.sync();
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+    }
+
+    void closeJournal()
+    {
+        if (journal == null)
+        {
+            return;
+        }
+
+        try
+        {
+            journal.close();
+        }
+        catch (IOException e)
+        {
+            writeLn("Error while writing the journal: " + e.getMessage());
+        }
+
+        journal = null;
+    }
+
+    /** Shows the user what commands are possible */
+    private void showWelcomeMessages()
+    {
+        writeLn("Welcome to the shape list editor.");
+        writeLn("Enter a command to manipulate the list:");
+
+        String[] commands = 
+        {
+            "'quit' => stops the program",
+            "'show' => lists the geometric objects",
+            "'show n' => lists the first n objects along with their indices",
+            "'show i j' => lists the objects from index i up to (not including) j",
+            "'circle x y r' => adds a circle at (x, y) with radius r if the array is not full",
+            "'rectangle x y h w' => adds a rectangle at (x, y) with height h and width w",
+            "'move i dx dy' => moves the i-th object over the specified distance in x and y direction",
+            "'remove i' => removes the i-th object.",
+            "'sort x|y' => sorts the list",
+            "'window x1 y1 x2 y2' => lists the objects intersecting the window with corners (x1, y1) and (x2, y2)",
+            "'point x y' => lists the objects containing the point (x, y)",
+            "'top k' => lists the k objects with the largest area, largest first",
+            "'area a b' => lists the objects with an area between a and b, smallest first",
+            "'save file' => saves the list to the file",
+            "'load file' => replaces the list with the shapes saved in the file",
+            "'undo' => undoes the last change",
+            "'redo' => redoes the last undone change",
+            "'stats' => shows the number of shapes of each kind, their total area and their bounding box",
+            "'overlaps' => lists the pairs of objects that overlap or touch",
+            "'metrics' => shows the latency of each command, the sort durations and the size of the list"
+        };
+
+        Arrays.stream(commands).forEach(cmd -> writeLn("  |-- " + cmd));
+        if (handleMode)
+        {
+            writeLn("Shapes are listed as '#h: shape', 'move' and 'remove' take the handle h instead of the index i.");
+        }
+
+        writeLn("");
+    }
+
+    /** Shows the elements of the shape list to the user, if any. */
+    private void show()
+    {
+        if (shapeList.isEmpty())
+        {
+            writeLn("Shape list is empty");
+        }
+        else
+        {
+            writeLn("");
+            writeLn("Shape list contains:");
+            StringBuilder buffer = output.buffer();
+            for (int i = 0; i < shapeList.size(); i++)
+            {
+                buffer.append(" |-- ");
+                if (handleMode)
+                {
+                    appendLabel(i, buffer);
+                }
+
+                shapeList.appendShape(i, buffer);
+                output.endLine();
+            }
+
+            writeLn("");
+        }
+    }
+
+    /** Returns the handles of the shapes in list order when show labels the shapes with them, otherwise null */
+    long[] shownHandles()
+    {
+        if (!handleMode)
+        {
+            return null;
+        }
+
+        long[] handles = new long[shapeList.size()];
+        for (int i = 0; i < handles.length; i++)
+        {
+            handles[i] = shapeList.handleAt(i);
+        }
+
+        return handles;
+    }
+
+    /**
+     * Writes what show writes for the shapes of the snapshot to the stream, labelled with the handles unless they are null.
+     * It does not use the editor, so a server can stream a large list without holding up the other clients.
+     */
+    static void writeListing(ShapeSnapshot shapes, long[] handles, OutputStream out)
+    {
+        TerminalOutput listing = new TerminalOutput(out);
+        if (shapes.isEmpty())
+        {
+            listing.writeLine("Shape list is empty");
+        }
+        else
+        {
+            listing.writeLine("");
+            listing.writeLine("Shape list contains:");
+            StringBuilder buffer = listing.buffer();
+            for (int i = 0; i < shapes.size(); i++)
+            {
+                buffer.append(" |-- ");
+                if (handles != null)
+                {
+                    buffer.append('#').append(handles[i]).append(": ");
+                }
+
+                shapes.appendShape(i, buffer);
+                listing.endLine();
+            }
+
+            listing.writeLine("");
+        }
+
+        listing.flush();
+    }
+
+    /** Appends how the user refers to the shape at index i: its handle in handle mode, its index otherwise */
+    private StringBuilder appendReference(int i, StringBuilder buffer)
+    {
+        return handleMode ? buffer.append('#').append(shapeList.handleAt(i)) : buffer.append(i);
+    }
+
+    private void appendLabel(int i, StringBuilder buffer)
+    {
+        appendReference(i, buffer).append(": ");
+    }
+
+    /** Shows the shapes from index from up to (not including) index to, along with their indices */
+    private void showRange(int from, int to)
+    {
+        if (from < 0 || to < from)
+        {
+            writeLn("Error while showing the shape list: " + from + " to " + to + " is not a valid range");
+            return;
+        }
+
+        int end = Math.min(to, shapeList.size());
+        if (from >= end)
+        {
+            writeLn("No shapes were found");
+            return;
+        }
+
+        writeLn("");
+        writeLn("Shapes " + from + " to " + (end - 1) + " of " + shapeList.size() + ":");
+        StringBuilder buffer = output.buffer();
+        for (int i = from; i < end; i++)
+        {
+            appendLabel(i, buffer.append(" |-- "));
+            shapeList.appendShape(i, buffer);
+            output.endLine();
+        }
+
+        writeLn("");
+    }
+
+    /** Shows the list after it was changed, unless the editor is running a batch of commands */
+    private void showChanges()
+    {
+        if (showAfterChanges)
+        {
+            show();
+        }
+    }
+
+    /** Handles the circle command along with it's arguments */
+    private void handleCircle(double x, double y, double radius)
+    {
+        if (shapeList.isFull())
+        {
+            writeLn("Cannot add new circle: shape list is full.");
+            return;
+        }
+
+        OptionalInt addedCircle = shapeList.addCircle(x, y, radius);
+        if (!addedCircle.isPresent())
+        {
+            writeLn("Error while adding a new circle: input was invalid");
+        }
+        else
+        {
+            history.recordAdd(shapeList, addedCircle.getAsInt());
+            journalChange();
+            showChanges();
+        }
+    }
+
+    /** Handles the rectangle command along with it's arguments */
+    private void handleRectangle(double x, double y, double height, double width)
+    {
+        if (shapeList.isFull())
+        {
+            writeLn("Cannot add new rectangle: shape list is full.");
+            return;
+        }
+
+        OptionalInt addedRectangle = shapeList.addRectangle(x, y, height, width);
+        if (!addedRectangle.isPresent())
+        {
+            writeLn("Error while adding a new rectangle: input was invalid");
+        }
+        else
+        {
+            history.recordAdd(shapeList, addedRectangle.getAsInt());
+            journalChange();
+            showChanges();
+        }
+    }
+
+    /** Handles the remove command along with it's arguments */
+    private void handleRemove(int index)
+    {
+        if (index >= 0 && index < shapeList.size())
+        {
+            // the history keeps the fields of the shape, so they are read before it is gone
+            history.recordRemove(shapeList, index);
+        }
+
+        Optional<Error> optError = shapeList.removeShapeAtIndex(index);
+                
+        if (optError.isPresent())
+        {
+            Error error = optError.get();
+            String errorMessage = error.message;
+            writeLn("Error while removing a shape from the list: " + errorMessage);
+        }
+        else
+        {
+            journalChange();
+            showChanges();
+        }
+    }
+
+    /** Removes the shape with the handle in constant time, journaling it as a swap removal at its current index */
+    private void handleRemoveByHandle(long handle)
+    {
+        OptionalInt index = shapeList.indexOf(handle);
+        if (!index.isPresent())
+        {
+            writeLn("Error while removing a shape from the list: There is no shape with handle " + handle);
+            return;
+        }
+
+        history.recordSwapRemove(shapeList, index.getAsInt());
+        shapeList.swapRemoveShapeAtIndex(index.getAsInt());
+        journalArguments[0] = index.getAsInt();
+        journalChange(CommandJournal.SWAP_REMOVE, 1);
+        showChanges();
+    }
+
+    /** Moves the shape with the handle, journaling the move by its current index */
+    private void handleMoveByHandle(long handle, double deltaX, double deltaY)
+    {
+        OptionalInt index = shapeList.indexOf(handle);
+        if (!index.isPresent())
+        {
+            writeLn("Error while moving the shape: There is no shape with handle " + handle);
+            return;
+        }
+
+        int i = index.getAsInt();
+        history.recordMove(i, shapeList.xAt(i), shapeList.yAt(i), deltaX, deltaY);
+        shapeList.moveShapeAtIndex(i, deltaX, deltaY);
+        journalArguments[0] = i;
+        journalArguments[1] = deltaX;
+        journalArguments[2] = deltaY;
+        journalChange(CommandParser.MOVE, 3);
+        showChanges();
+    }
+
+    private void handleMove(int index, double deltaX, double deltaY)
+    {
+        boolean exists = index >= 0 && index < shapeList.size();
+        double startX = exists ? shapeList.xAt(index) : 0;
+        double startY = exists ? shapeList.yAt(index) : 0;
+        Optional<Error> optError = shapeList.moveShapeAtIndex(index, deltaX, deltaY);
+                
+        if (optError.isPresent())
+        {
+            Error error = optError.get();
+            String errorMessage = error.message;
+            writeLn("Error while moving the shape: " + errorMessage);
+        }
+        else
+        {
+            history.recordMove(index, startX, startY, deltaX, deltaY);
+            journalChange();
+            showChanges();
+        }
+    }
+    
+    /** Shows the shapes at the given indices, as found by a query */
+    private void showQueryResult(int[] indices)
+    {
+        if (indices.length == 0)
+        {
+            writeLn("No shapes were found");
+            return;
+        }
+
+        writeLn("");
+        writeLn("Found " + indices.length + " shape(s):");
+        StringBuilder buffer = output.buffer();
+        for (int index : indices)
+        {
+            appendLabel(index, buffer.append(" |-- "));
+            shapeList.appendShape(index, buffer);
+            output.endLine();
+        }
+
+        writeLn("");
+    }
+
+    /** Describes a failed file operation, the messages of some file system exceptions only name the file */
+    private static String describe(Exception e)
+    {
+        if (e instanceof NoSuchFileException)
+        {
+            return "the file " + e.getMessage() + " does not exist";
+        }
+
+        if (e instanceof AccessDeniedException)
+        {
+            return "access to the file " + e.getMessage() + " was denied";
+        }
+
+        return e.getMessage();
+    }
+
+    private void handleSave(String fileName)
+    {
+        try
+        {
+            ShapeFile.save(shapeList, Paths.get(fileName));
+            writeLn("Saved " + shapeList.size() + " shape(s) to " + fileName);
+        }
+        catch (IOException | InvalidPathException e)
+        {
+            writeLn("Error while saving the shape list: " + describe(e));
+        }
+    }
+
+    /** Replaces the shape list with the shapes of the file, as many as fit */
+    private void handleLoad(String fileName)
+    {
+        try
+        {
+            MappedShapes mapped = ShapeFile.open(Paths.get(fileName));
+            ShapeList loaded = newShapeList();
+            int added = mapped.appendTo(loaded);
+            shapeList = loaded;
+            history.clear();
+            writeLn("Loaded " + added + " of " + mapped.size() + " shape(s) from " + fileName);
+            // the loaded shapes can not be replayed from commands, so they start a new snapshot
+            journalSnapshot();
+            showChanges();
+        }
+        catch (IOException | InvalidPathException e)
+        {
+            writeLn("Error while loading the shape list: " + describe(e));
+        }
+    }
+
+    /** Appends the shapes of a CSV or NDJSON file to the list */
+    private void handleImport(String fileName)
+    {
+        int sizeBefore = shapeList.size();
+        try
+        {
+            ShapeImport.Report report = ShapeImport.read(Paths.get(fileName), shapeList);
+            writeLn("Imported " + report + " from " + fileName);
+        }
+        catch (IOException | InvalidPathException e)
+        {
+            writeLn("Error while importing shapes: " + describe(e));
+        }
+
+        // the imported shapes can not be replayed from commands, so they start a new snapshot, even after an error
+        if (shapeList.size() != sizeBefore)
+        {
+            history.clear();
+            journalSnapshot();
+            showChanges();
+        }
+    }
+
+    /** Writes the shapes to a CSV, NDJSON or binary shape file, chosen by the extension of its name */
+    private void handleExport(String fileName)
+    {
+        try
+        {
+            long start = System.nanoTime();
+            long count = ShapeExport.write(shapeList.cursor(), Paths.get(fileName));
+            StringBuilder message = new StringBuilder("Exported ").append(count).append(" shape(s) to ").append(fileName).append(" in ");
+            DoubleFormat.append(message, Math.round((System.nanoTime() - start) / 1e6) / 1e3).append(" seconds");
+            writeLn(message.toString());
+        }
+        catch (IOException | InvalidPathException e)
+        {
+            writeLn("Error while exporting the shape list: " + describe(e));
+        }
+    }
+
+    private void showStats()
+    {
+        ShapeStats stats = shapeList.stats();
+        writeLn("");
+        writeLn("Shape list statistics:");
+        writeLn(" |-- shapes: " + stats.count + " (" + stats.circles + " circle(s), " + stats.rectangles + " rectangle(s))");
+        writeLn(" |-- total area: " + stats.totalArea);
+        writeLn(" |-- bounding box: " + stats.boundingBox.map(BoundingBox::toString).orElse("none"));
+        writeLn("");
+    }
+
+    private void showMetrics()
+    {
+        if (metrics == null)
+        {
+            writeLn("Metrics are not enabled, start the program with --metrics to enable them");
+            return;
+        }
+
+        writeLn("");
+        writeLn("Metrics:");
+        writeLn(" |-- shapes: " + shapeList.size() + " (estimated memory: " + shapeList.estimatedBytes() + " bytes)");
+        writeLn(" |-- parse failures: " + metrics.parseFailures());
+        StringBuilder buffer = output.buffer();
+        for (int code = 0; code < CommandParser.NAMES.length; code++)
+        {
+            if (metrics.command(code).count() > 0)
+            {
+                buffer.append(" |-- ").append(CommandParser.NAMES[code]).append(": ");
+                ShapeMetrics.appendSummary(buffer, metrics.command(code));
+                output.endLine();
+            }
+        }
+
+        for (int key = 0; key < ShapeMetrics.SORT_NAMES.length; key++)
+        {
+            if (metrics.sort(key).count() > 0)
+            {
+                buffer.append(" |-- sort by ").append(ShapeMetrics.SORT_NAMES[key]).append(": ");
+                ShapeMetrics.appendSummary(buffer, metrics.sort(key));
+                output.endLine();
+            }
+        }
+
+        writeLn("");
+    }
+
+    /** Lists the pairs of overlapping shapes by their index, or by their handle in handle mode */
+    private void showOverlaps()
+    {
+        int[] pairs = shapeList.overlappingPairs();
+        if (pairs.length == 0)
+        {
+            writeLn("No shapes overlap");
+            return;
+        }
+
+        writeLn("");
+        writeLn("Found " + pairs.length / 2 + " overlapping pair(s):");
+        StringBuilder buffer = output.buffer();
+        for (int k = 0; k < pairs.length; k += 2)
+        {
+            appendReference(pairs[k], buffer.append(" |-- "));
+            appendReference(pairs[k + 1], buffer.append(" and "));
+            output.endLine();
+        }
+
+        writeLn("");
+    }
+
+    private void handleUndo()
+    {
+        if (!history.undo(shapeList))
+        {
+            writeLn("There is nothing to undo");
+            return;
+        }
+
+        journalApplied();
+        showChanges();
+    }
+
+    private void handleRedo()
+    {
+        if (!history.redo(shapeList))
+        {
+            writeLn("There is nothing to redo");
+            return;
+        }
+
+        journalApplied();
+        showChanges();
+    }
+
+    /** Parses a single line of input and executes the command it represents, timing it when the metrics are enabled */
+    void handle(CharSequence input)
+    {
+        if (metrics == null)
+        {
+            execute(input);
+            return;
+        }
+
+        ShapeMetrics.CommandEvent event = new ShapeMetrics.CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        execute(input);
+        metrics.commandHandled(event, parser.command(), System.nanoTime() - start, shapeList);
+    }
+
+    private void execute(CharSequence input)
+    {
+        // if parsing did not succeed
+        if (!parser.parse(input))
+        {
+            // then show the parse error
+            writeLn(parser.error());
+            return;
+        }
+
+        switch (parser.command())
+        {
+            case CommandParser.QUIT:
+                quit();
+                break;
+
+            case CommandParser.SHOW:
+                if (parser.argumentCount() == 0)
+                {
+                    show();
+                }
+                else if (parser.argumentCount() == 1)
+                {
+                    // the first n shapes
+                    showRange(0, (int)parser.argument(0));
+                }
+                else
+                {
+                    showRange((int)parser.argument(0), (int)parser.argument(1));
+                }
+
+                break;
+
+            case CommandParser.CIRCLE:
+                handleCircle(parser.argument(0), parser.argument(1), parser.argument(2));
+                break;
+
+            case CommandParser.RECTANGLE:
+                handleRectangle(parser.argument(0), parser.argument(1), parser.argument(2), parser.argument(3));
+                break;
+
+            case CommandParser.REMOVE:
+                if (handleMode)
+                {
+                    handleRemoveByHandle((long)parser.argument(0));
+                }
+                else
+                {
+                    handleRemove((int)parser.argument(0));
+                }
+
+                break;
+
+            case CommandParser.MOVE:
+                if (handleMode)
+                {
+                    handleMoveByHandle((long)parser.argument(0), parser.argument(1), parser.argument(2));
+                }
+                else
+                {
+                    handleMove((int)parser.argument(0), parser.argument(1), parser.argument(2));
+                }
+
+                break;
+
+            case CommandParser.WINDOW:
+                showQueryResult(shapeList.shapesIntersecting(parser.argument(0), parser.argument(1), parser.argument(2), parser.argument(3)));
+                break;
+
+            case CommandParser.POINT:
+                showQueryResult(shapeList.shapesContaining(parser.argument(0), parser.argument(1)));
+                break;
+
+            case CommandParser.TOP:
+                showQueryResult(shapeList.largestByArea((int)parser.argument(0)));
+                break;
+
+            case CommandParser.AREA:
+                showQueryResult(shapeList.shapesWithAreaBetween(parser.argument(0), parser.argument(1)));
+                break;
+
+            case CommandParser.SAVE:
+                handleSave(parser.fileName());
+                break;
+
+            case CommandParser.LOAD:
+                handleLoad(parser.fileName());
+                break;
+
+            case CommandParser.IMPORT:
+                handleImport(parser.fileName());
+                break;
+
+            case CommandParser.EXPORT:
+                handleExport(parser.fileName());
+                break;
+
+            case CommandParser.STATS:
+                showStats();
+                break;
+
+            case CommandParser.OVERLAPS:
+                showOverlaps();
+                break;
+
+            case CommandParser.METRICS:
+                showMetrics();
+                break;
+
+            case CommandParser.UNDO:
+                handleUndo();
+                break;
+
+            case CommandParser.REDO:
+                handleRedo();
+                break;
+
+            case CommandParser.SORT:
+                if (parser.argumentCount() == 0)
+                {
+                    // sorting by area
+                    history.recordSort(shapeList.sortByKey(SortOrder.AREA));
+                }
+                else if (parser.argument(0) == 1.0)
+                {
+                    // sort by x
+                    history.recordSort(shapeList.sortByKey(SortOrder.LEFT_BORDER));
+                }
+                else
+                {
+                    // sort by y
+                    history.recordSort(shapeList.sortByKey(SortOrder.BOTTOM_BORDER));
+                }
+
+                journalChange();
+                showChanges();
+                break;
+        }
+    }
+
+     /** Starts the editor as an application loop, reading and handling commands and stops when the quit command is recieved */
+    public void start()
+    {   
+        showWelcomeMessages();
+
+        while (!finishedEditing())
+        {
+            handle(readUserInput("Command: "));
+            // a command is only done once it is durable
+            syncJournal();
+        }
+
+        closeJournal();
+
+        writeLn("Finished editing the shape list");
+        output.flush();
+    }
+
+    /** 
+     * Runs the commands read from the reader one line at a time without prompting, until the input ends or a quit command is read.
+     * The list is only shown on an explicit show command and once at the end, after which the throughput is reported.
+     */
+    public void runBatch(BufferedReader reader) throws IOException
+    {
+        showAfterChanges = false;
+        long commands = 0;
+        long start = System.nanoTime();
+        String line;
+        while (!finishedEditing() && (line = reader.readLine()) != null)
+        {
+            if (line.isBlank())
+            {
+                continue;
+            }
+
+            handle(line);
+            commands++;
+        }
+
+        // the commands of a batch are made durable in groups, the last group is waited for here
+        closeJournal();
+
+        show();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        writeLn("Executed " + commands + " commands in " + String.format("%.3f", seconds) + " seconds (" + String.format("%.0f", commands / seconds) + " commands per second)");
+        output.flush();
+    }
+}
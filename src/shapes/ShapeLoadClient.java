@@ -0,0 +1,162 @@
+package shapes;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Generates load on a ShapeServer and reports the latency percentiles and the throughput of the commands.
+ *
+ * Every connection keeps a fixed number of commands in flight: it sends that many commands at once and sends 
+ * the next one whenever a response comes back, timing every command from sending it to the end of its response. 
+ * The commands add a circle, look up a point, move the first shape and remove it again, so the list keeps its size.
+ * With the 'show' workload the point lookups are replaced by listings of all shapes.
+ *
+ * Usage: java shapes.ShapeLoadClient host port [connections] [commands per connection] [commands in flight] [show]
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeLoadClient
+{
+    /** The outcome of a load run */
+    static class Report
+    {
+        final LatencyHistogram latencies;
+        final long nanos;
+
+        Report(LatencyHistogram latencies, long nanos)
+        {
+            this.latencies = latencies;
+            this.nanos = nanos;
+        }
+
+        double commandsPerSecond()
+        {
+            return latencies.count() / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder();
+            builder.append(latencies.count()).append(" commands in ");
+            DoubleFormat.append(builder, Math.round(nanos / 1e6) / 1e3).append(" seconds (");
+            builder.append(Math.round(commandsPerSecond())).append(" commands per second), latency: ");
+            return ShapeMetrics.appendSummary(builder, latencies).toString();
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: java shapes.ShapeLoadClient host port [connections] [commands per connection] [commands in flight] [show]");
+            return;
+        }
+
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int commands = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int inFlight = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        boolean shows = args.length > 5 && args[5].equals("show");
+        System.out.println(run(args[0], Integer.parseInt(args[1]), connections, commands, inFlight, shows));
+    }
+
+    static Report run(String host, int port, int connections, int commands, int inFlight) throws InterruptedException, ExecutionException
+    {
+        return run(host, port, connections, commands, inFlight, false);
+    }
+
+    /** Runs the connections concurrently until each has had all its commands answered */
+    static Report run(String host, int port, int connections, int commands, int inFlight, boolean shows) throws InterruptedException, ExecutionException
+    {
+        ExecutorService threads = ShapeServer.newConnectionExecutor();
+        try
+        {
+            List<Future<LatencyHistogram>> results = new ArrayList<Future<LatencyHistogram>>();
+            long start = System.nanoTime();
+            for (int c = 0; c < connections; c++)
+            {
+                int seed = c;
+                results.add(threads.submit(() -> connect(host, port, commands, Math.max(1, inFlight), shows, seed)));
+            }
+
+            LatencyHistogram latencies = new LatencyHistogram();
+            for (Future<LatencyHistogram> result : results)
+            {
+                latencies.add(result.get());
+            }
+
+            return new Report(latencies, System.nanoTime() - start);
+        }
+        finally
+        {
+            threads.shutdown();
+        }
+    }
+
+    /** The k-th command a connection sends */
+    static String command(int k, boolean shows, Random random)
+    {
+        switch (k % 4)
+        {
+            case 0: return "circle " + random.nextInt(1000) + " " + random.nextInt(1000) + " 5";
+            case 1: return shows ? "show" : "point " + random.nextInt(1000) + " " + random.nextInt(1000);
+            case 2: return "move 0 1 1";
+            default: return "remove 0";
+        }
+    }
+
+    private static LatencyHistogram connect(String host, int port, int commands, int inFlight, boolean shows, int seed) throws IOException
+    {
+        LatencyHistogram latencies = new LatencyHistogram();
+        Random random = new Random(seed);
+        // the send times of the commands in flight, the response to command k arrives before the one to k + 1
+        long[] sent = new long[inFlight];
+        try (Socket socket = new Socket(host, port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16))
+        {
+            socket.setTcpNoDelay(true);
+            int next = 0;
+            for (; next < Math.min(inFlight, commands); next++)
+            {
+                sent[next % inFlight] = System.nanoTime();
+                writer.write(command(next, shows, random));
+                writer.write('\n');
+            }
+
+            writer.flush();
+            for (int answered = 0; answered < commands; answered++)
+            {
+                String line;
+                while ((line = reader.readLine()) != null && !line.equals(ShapeServer.END_OF_RESPONSE))
+                {
+                    // the output of the command itself is not needed
+                }
+
+                if (line == null)
+                {
+                    throw new EOFException("The server closed the connection after " + answered + " responses");
+                }
+
+                latencies.record(System.nanoTime() - sent[answered % inFlight]);
+                if (next < commands)
+                {
+                    sent[next % inFlight] = System.nanoTime();
+                    writer.write(command(next, shows, random));
+                    writer.write('\n');
+                    writer.flush();
+                    next++;
+                }
+            }
+
+            writer.write("quit\n");
+            writer.flush();
+        }
+
+        return latencies;
+    }
+}
@@ -0,0 +1,146 @@
+package shapes;
+
+import jdk.jfr.*;
+
+/**
+ * Measures where the time of an editing session goes: a latency histogram per command, the number of lines that 
+ * failed to parse and a histogram of the sort durations per sort key. Every command and sort is also emitted as a 
+ * JFR event, which costs nothing unless a flight recording with the events enabled is running, so sessions can be 
+ * profiled with for example -XX:StartFlightRecording. The events leave out stack traces, which would cost more than 
+ * most commands.
+ *
+ * Metrics are off unless the editor is started with them: the editor and the shape list then hold no metrics and 
+ * skip measuring altogether. A ShapeMetrics is not thread-safe, like the editor that owns it.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class ShapeMetrics
+{
+    /** The names of the sort keys, indexed by SortOrder.AREA, LEFT_BORDER and BOTTOM_BORDER */
+    static final String[] SORT_NAMES = { "area", "left border", "bottom border" };
+
+    @Name("shapes.Command")
+    @Label("Shape List Command")
+    @Category("Shape List")
+    @Description("A command handled by the shape list editor")
+    @StackTrace(false)
+    static final class CommandEvent extends Event
+    {
+        @Label("Command")
+        String command;
+
+        @Label("Parsed")
+        boolean parsed;
+
+        @Label("Shapes")
+        int shapes;
+
+        @Label("Estimated Memory")
+        @DataAmount
+        long estimatedBytes;
+    }
+
+    @Name("shapes.Sort")
+    @Label("Shape List Sort")
+    @Category("Shape List")
+    @Description("A sort of a shape list by one of its maintained orders")
+    @StackTrace(false)
+    static final class SortEvent extends Event
+    {
+        @Label("Key")
+        String key;
+
+        @Label("Shapes")
+        int shapes;
+    }
+
+    private final LatencyHistogram[] commands;
+    private final LatencyHistogram[] sorts;
+    private long parseFailures;
+
+    ShapeMetrics()
+    {
+        commands = new LatencyHistogram[CommandParser.NAMES.length];
+        for (int code = 0; code < commands.length; code++)
+        {
+            commands[code] = new LatencyHistogram();
+        }
+
+        sorts = new LatencyHistogram[SORT_NAMES.length];
+        for (int key = 0; key < sorts.length; key++)
+        {
+            sorts[key] = new LatencyHistogram();
+        }
+
+        parseFailures = 0;
+    }
+
+    /** Records a handled line, where command is the code of the parsed command or -1 when it failed to parse */
+    void commandHandled(CommandEvent event, int command, long nanos, ShapeList shapes)
+    {
+        event.end();
+        if (command < 0)
+        {
+            parseFailures++;
+        }
+        else
+        {
+            commands[command].record(nanos);
+        }
+
+        if (event.shouldCommit())
+        {
+            event.command = command < 0 ? "" : CommandParser.NAMES[command];
+            event.parsed = command >= 0;
+            event.shapes = shapes.size();
+            event.estimatedBytes = shapes.estimatedBytes();
+            event.commit();
+        }
+    }
+
+    /** Records a sort of the shapes by the SortOrder key */
+    void sorted(SortEvent event, int key, long nanos, int shapes)
+    {
+        event.end();
+        sorts[key].record(nanos);
+        if (event.shouldCommit())
+        {
+            event.key = SORT_NAMES[key];
+            event.shapes = shapes;
+            event.commit();
+        }
+    }
+
+    long parseFailures()
+    {
+        return parseFailures;
+    }
+
+    /** Returns the latency histogram of the command with the code */
+    LatencyHistogram command(int code)
+    {
+        return commands[code];
+    }
+
+    /** Returns the histogram of the durations of the sorts by the SortOrder key */
+    LatencyHistogram sort(int key)
+    {
+        return sorts[key];
+    }
+
+    /** Appends a summary of the histogram in microseconds, like '3 time(s), mean 1.2 us, p50 1.0 us, p99 4.1 us, max 5.0 us' */
+    static StringBuilder appendSummary(StringBuilder builder, LatencyHistogram histogram)
+    {
+        builder.append(histogram.count()).append(" time(s), mean ");
+        appendMicroseconds(builder, histogram.mean()).append(", p50 ");
+        appendMicroseconds(builder, histogram.percentile(50)).append(", p99 ");
+        appendMicroseconds(builder, histogram.percentile(99)).append(", max ");
+        return appendMicroseconds(builder, histogram.max());
+    }
+
+    private static StringBuilder appendMicroseconds(StringBuilder builder, double nanos)
+    {
+        return DoubleFormat.append(builder, Math.round(nanos / 100.0) / 10.0).append(" us");
+    }
+}
@@ -0,0 +1,13 @@
+package shapes;
+
+/** A condition on the fields of a shape, which lets shapes be filtered without materializing them as IShape objects
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+@FunctionalInterface
+public interface ShapePredicate
+{
+    /** Tests a shape at (x, y), for circles both the height and the width are the radius */
+    boolean test(boolean isCircle, double x, double y, double height, double width);
+}
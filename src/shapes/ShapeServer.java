@@ -0,0 +1,302 @@
+package shapes;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the commands of the shape list editor over TCP, so many clients can edit one shape list at the same time.
+ *
+ * Clients send the same text commands as the terminal, one per line, and get the output of every command back
+ * followed by a line holding a single dot, which no output of the editor consists of. Clients may pipeline: send
+ * many commands without waiting for the responses, which come back in order. The commands of all clients are handled
+ * by one editor, so they share the list, the undo history and the journal, and are serialized by a lock. A connection
+ * takes the lock once for all the commands it has already received, and writes the responses after releasing it, so
+ * a client that does not read can not hold up the others. It also waits for its changes to become durable after
+ * releasing the lock, so the journal commits the changes of many clients with one fsync. A plain show only copies the
+ * list under the lock and streams the copy afterwards, so listing a large list neither holds up the other clients nor
+ * has to fit in memory as text. 'quit' closes the connection, the commands that take a file name are refused because
+ * they would let clients read and write the files of the server.
+ *
+ * Every connection has its own thread: a virtual thread when the runtime has them (Java 21 and later), otherwise
+ * a platform thread with a small stack, which still allows thousands of connections.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeServer implements AutoCloseable
+{
+    /** The line that ends every response */
+    static final String END_OF_RESPONSE = ".";
+
+    /** At most this many pipelined commands are handled under one acquisition of the lock */
+    static final int MAX_PIPELINED = 1024;
+
+    /** The stack size of the platform threads used when there are no virtual threads */
+    static final long STACK_SIZE = 256 << 10;
+
+    private static final byte[] END_LINE = (END_OF_RESPONSE + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REFUSED = ("Commands that access files are not available over the network" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+
+    private final ShapeListEditor editor;
+    private final ReentrantLock lock;
+    // the editor writes into this buffer, which is moved to the connection that handled the command
+    private final ByteArrayOutputStream responses;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final AtomicInteger openConnections;
+    private final Set<Socket> sockets;
+    private volatile boolean closed;
+
+    /** Serves the editor on the port, or on a free port when port is 0. The editor must not be used directly anymore */
+    public ShapeServer(ShapeListEditor editor, int port) throws IOException
+    {
+        this.editor = editor;
+        lock = new ReentrantLock();
+        responses = new ByteArrayOutputStream(1 << 16);
+        editor.writeTo(responses);
+        editor.showAfterChanges(false);
+        serverSocket = new ServerSocket(port, 1024);
+        connections = newConnectionExecutor();
+        openConnections = new AtomicInteger();
+        sockets = ConcurrentHashMap.newKeySet();
+        closed = false;
+    }
+
+    /** Returns an executor that runs every task on a thread of its own */
+    static ExecutorService newConnectionExecutor()
+    {
+        try
+        {
+            // looked up by name, so this still compiles and runs on Java 17, which has no virtual threads
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException ex)
+        {
+            AtomicInteger created = new AtomicInteger();
+            return Executors.newCachedThreadPool(task ->
+            {
+                Thread thread = new Thread(null, task, "shape-connection-" + created.incrementAndGet(), STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Returns the port the server listens on */
+    public int port()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Returns the number of clients that are connected */
+    public int openConnections()
+    {
+        return openConnections.get();
+    }
+
+    /** Accepts connections on a background thread and returns right away */
+    public void start()
+    {
+        Thread acceptor = new Thread(this::serve, "shape-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /** Accepts connections until the server is closed */
+    public void serve()
+    {
+        while (!closed)
+        {
+            try
+            {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                openConnections.incrementAndGet();
+                connections.execute(() -> serve(socket));
+            }
+            catch (IOException e)
+            {
+                if (!closed)
+                {
+                    System.err.println("Error while accepting a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** What is left to do for the commands a connection handled under the lock, once it released the lock */
+    private static final class Batch
+    {
+        // the responses of the handled commands
+        final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 12);
+        // the number of received lines that were handled
+        int handled;
+        boolean quit;
+        // the journal and the sequence number of its last command when the lock was released, or null without a journal
+        CommandJournal journal;
+        long sequence;
+        // the shapes a plain show lists, along with their handles when the editor shows those, or null without a show
+        ShapeSnapshot listing;
+        long[] handles;
+    }
+
+    /** Handles the commands of one client until it quits or disconnects */
+    private void serve(Socket socket)
+    {
+        CommandParser parser = new CommandParser();
+        Batch batch = new Batch();
+        List<String> lines = new ArrayList<String>();
+        try (Socket client = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+             OutputStream out = new BufferedOutputStream(client.getOutputStream(), 1 << 16))
+        {
+            String line;
+            while (!batch.quit && (line = reader.readLine()) != null)
+            {
+                // the commands that already arrived are handled together, a partial line only blocks this client
+                lines.clear();
+                lines.add(line);
+                while (lines.size() < MAX_PIPELINED && reader.ready() && (line = reader.readLine()) != null)
+                {
+                    lines.add(line);
+                }
+
+                // a plain show ends the part of the lines handled under one acquisition of the lock
+                batch.handled = 0;
+                while (!batch.quit && batch.handled < lines.size())
+                {
+                    handle(lines, parser, batch);
+                    respond(batch, out);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // the client disconnected, or the journal failed and the client never heard about the changes that were lost
+        }
+        finally
+        {
+            sockets.remove(socket);
+            openConnections.decrementAndGet();
+        }
+    }
+
+    /** Handles the lines that were not handled yet under the lock, until all are handled or one was a plain show or quit */
+    private void handle(List<String> lines, CommandParser parser, Batch batch) throws IOException
+    {
+        lock.lock();
+        try
+        {
+            while (batch.handled < lines.size())
+            {
+                String line = lines.get(batch.handled++);
+                boolean parsed = parser.parse(line);
+                if (parsed && parser.command() == CommandParser.QUIT)
+                {
+                    batch.quit = true;
+                    return;
+                }
+
+                if (parsed && parser.command() == CommandParser.SHOW && parser.argumentCount() == 0)
+                {
+                    // copying the columns is much cheaper than rendering them, respond renders the copy
+                    batch.listing = editor.shapeList().snapshot();
+                    batch.handles = editor.shownHandles();
+                    return;
+                }
+
+                if (CommandParser.accessesFiles(parser.command()))
+                {
+                    responses.write(REFUSED, 0, REFUSED.length);
+                }
+                else
+                {
+                    editor.handle(line);
+                    editor.flushOutput();
+                }
+
+                responses.write(END_LINE, 0, END_LINE.length);
+            }
+        }
+        finally
+        {
+            editor.flushOutput();
+            batch.journal = editor.journal();
+            batch.sequence = batch.journal == null ? 0 : batch.journal.appended();
+            responses.writeTo(batch.pending);
+            responses.reset();
+            lock.unlock();
+        }
+    }
+
+    /** Sends the responses of the batch once its changes are durable, followed by the list that a plain show asked for */
+    private static void respond(Batch batch, OutputStream out) throws IOException
+    {
+        // the changes are durable before the client hears about them
+        if (batch.journal != null)
+        {
+            batch.journal.awaitDurable(batch.sequence);
+        }
+
+        batch.pending.writeTo(out);
+        batch.pending.reset();
+        if (batch.listing != null)
+        {
+            try
+            {
+                ShapeListEditor.writeListing(batch.listing, batch.handles, out);
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+            finally
+            {
+                batch.listing = null;
+                batch.handles = null;
+            }
+
+            out.write(END_LINE, 0, END_LINE.length);
+        }
+
+        out.flush();
+    }
+
+    /** Stops accepting connections, disconnects the clients once their current commands are handled and closes the journal */
+    @Override
+    public void close() throws IOException
+    {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : sockets)
+        {
+            socket.close();
+        }
+
+        connections.shutdown();
+        try
+        {
+            connections.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.lock();
+        try
+        {
+            editor.closeJournal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package shapes;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/** 
+ * An immutable copy of the shapes of a ShapeList at one point in time.
+ * Reading a snapshot never has to wait for, or interfere with, later changes to the list it was taken from.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeSnapshot
+{
+    private final byte[] kinds;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] heights;
+    private final double[] widths;
+    private final int size;
+    // the handle table of the list, or null when it has no handles
+    private final int[] handles;
+
+    /** Wraps columns that are owned by the snapshot, they must not be changed afterwards */
+    ShapeSnapshot(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int size)
+    {
+        this(kinds, xs, ys, heights, widths, size, null);
+    }
+
+    /** Wraps columns and a handle table as returned by ShapeHandles.table, which are owned by the snapshot */
+    ShapeSnapshot(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int size, int[] handles)
+    {
+        this.kinds = kinds;
+        this.xs = xs;
+        this.ys = ys;
+        this.heights = heights;
+        this.widths = widths;
+        this.size = size;
+        this.handles = handles;
+    }
+
+    /** Returns the handle table of the list the snapshot was taken from, or null when that list has no handles */
+    int[] handleTable()
+    {
+        return handles;
+    }
+
+    /** Returns the number of shapes in the snapshot */
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    boolean isCircleAt(int i)
+    {
+        return kinds[i] == ShapeList.CIRCLE;
+    }
+
+    double xAt(int i)
+    {
+        return xs[i];
+    }
+
+    double yAt(int i)
+    {
+        return ys[i];
+    }
+
+    double heightAt(int i)
+    {
+        return heights[i];
+    }
+
+    double widthAt(int i)
+    {
+        return widths[i];
+    }
+
+    /** Materializes the shape at index i as a detached IShape */
+    public IShape shapeAt(int i)
+    {
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + i + " lies outside the bounds of the snapshot");
+        }
+
+        return kinds[i] == ShapeList.CIRCLE 
+            ? new Circle(xs[i], ys[i], widths[i]) 
+            : new Rectangle(xs[i], ys[i], heights[i], widths[i]);
+    }
+
+    /** Appends the string representation of the shape at index i to the builder */
+    void appendShape(int i, StringBuilder builder)
+    {
+        if (kinds[i] == ShapeList.CIRCLE)
+        {
+            Circle.append(builder, xs[i], ys[i], widths[i]);
+        }
+        else
+        {
+            Rectangle.append(builder, xs[i], ys[i], heights[i], widths[i]);
+        }
+    }
+
+    /** Allows a read-only consumer to read the string representation of each shape in the snapshot */
+    public void readShapesUsing(Consumer<String> consumer)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (kinds[i] == ShapeList.CIRCLE)
+            {
+                consumer.accept(Circle.format(xs[i], ys[i], widths[i]));
+            }
+            else
+            {
+                consumer.accept(Rectangle.format(xs[i], ys[i], heights[i], widths[i]));
+            }
+        }
+    }
+}
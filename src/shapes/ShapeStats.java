@@ -0,0 +1,34 @@
+package shapes;
+
+import java.util.*;
+
+/** The aggregates of the shapes of a list at one point in time: how many there are of each kind, their total area and their bounding box
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+public class ShapeStats
+{
+    public final int count;
+    public final int circles;
+    public final int rectangles;
+    public final double totalArea;
+    /** The box enclosing all shapes, or nothing when there are no shapes */
+    public final Optional<BoundingBox> boundingBox;
+
+    public ShapeStats(int count, int circles, int rectangles, double totalArea, Optional<BoundingBox> boundingBox)
+    {
+        this.count = count;
+        this.circles = circles;
+        this.rectangles = rectangles;
+        this.totalArea = totalArea;
+        this.boundingBox = boundingBox;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ShapeStats(Count=" + count + ", Circles=" + circles + ", Rectangles=" + rectangles 
+            + ", TotalArea=" + totalArea + ", BoundingBox=" + boundingBox.map(BoundingBox::toString).orElse("None") + ")";
+    }
+}
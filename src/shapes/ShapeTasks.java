@@ -0,0 +1,229 @@
+package shapes;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/** 
+ * Fork/join tasks for the bulk operations of a ShapeList. Each task splits its range of shape indices
+ * in halves until the range is small enough to process directly.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class ShapeTasks
+{
+    /** Ranges of at most this many shapes are processed by a single task */
+    static final int GRANULARITY = 8192;
+
+    /** Sums the areas of the shapes in [from, to) */
+    @SuppressWarnings("serial")
+    static class TotalArea extends RecursiveTask<Double>
+    {
+        private final ShapeList shapes;
+        private final int from;
+        private final int to;
+
+        TotalArea(ShapeList shapes, int from, int to)
+        {
+            this.shapes = shapes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute()
+        {
+            if (to - from <= GRANULARITY)
+            {
+                return shapes.sumAreas(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            TotalArea left = new TotalArea(shapes, from, middle);
+            left.fork();
+            double right = new TotalArea(shapes, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    /** Computes the bounding box of the shapes in [from, to), which must not be empty */
+    @SuppressWarnings("serial")
+    static class Bounds extends RecursiveTask<BoundingBox>
+    {
+        private final ShapeList shapes;
+        private final int from;
+        private final int to;
+
+        Bounds(ShapeList shapes, int from, int to)
+        {
+            this.shapes = shapes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BoundingBox compute()
+        {
+            if (to - from <= GRANULARITY)
+            {
+                double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+                shapes.bounds(from, to, box);
+                return new BoundingBox(box[0], box[1], box[2], box[3]);
+            }
+
+            int middle = (from + to) >>> 1;
+            Bounds left = new Bounds(shapes, from, middle);
+            left.fork();
+            BoundingBox right = new Bounds(shapes, middle, to).compute();
+            return left.join().union(right);
+        }
+    }
+
+    /** Finds the overlapping pairs reported by the bands [from, to) of the sweep */
+    @SuppressWarnings("serial")
+    static class Overlaps extends RecursiveTask<OverlapIndex.Pairs>
+    {
+        private final OverlapIndex.Sweep sweep;
+        private final int from;
+        private final int to;
+
+        Overlaps(OverlapIndex.Sweep sweep, int from, int to)
+        {
+            this.sweep = sweep;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected OverlapIndex.Pairs compute()
+        {
+            if (to - from == 1 || sweep.membersOf(from, to) <= GRANULARITY)
+            {
+                OverlapIndex.Pairs found = new OverlapIndex.Pairs(16);
+                sweep.collect(from, to, found);
+                return found;
+            }
+
+            int middle = (from + to) >>> 1;
+            Overlaps left = new Overlaps(sweep, from, middle);
+            left.fork();
+            OverlapIndex.Pairs right = new Overlaps(sweep, middle, to).compute();
+            OverlapIndex.Pairs found = left.join();
+            found.addAll(right);
+            return found;
+        }
+    }
+
+    /** Moves the shapes in [from, to) that match the predicate and flags them in moved */
+    @SuppressWarnings("serial")
+    static class MoveWhere extends RecursiveAction
+    {
+        private final ShapeList shapes;
+        private final ShapePredicate predicate;
+        private final double deltaX;
+        private final double deltaY;
+        private final boolean[] moved;
+        private final int from;
+        private final int to;
+
+        MoveWhere(ShapeList shapes, ShapePredicate predicate, double deltaX, double deltaY, boolean[] moved, int from, int to)
+        {
+            this.shapes = shapes;
+            this.predicate = predicate;
+            this.deltaX = deltaX;
+            this.deltaY = deltaY;
+            this.moved = moved;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= GRANULARITY)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    if (shapes.test(i, predicate))
+                    {
+                        shapes.translate(i, deltaX, deltaY);
+                        moved[i] = true;
+                    }
+                }
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new MoveWhere(shapes, predicate, deltaX, deltaY, moved, from, middle),
+                new MoveWhere(shapes, predicate, deltaX, deltaY, moved, middle, to));
+        }
+    }
+
+    /** Copies the shapes at order[k] for every k in [from, to) into index k of the target columns */
+    @SuppressWarnings("serial")
+    static class Permute extends RecursiveAction
+    {
+        private final ShapeList shapes;
+        private final int[] order;
+        private final ShapeColumns target;
+        private final int from;
+        private final int to;
+
+        Permute(ShapeList shapes, int[] order, ShapeColumns target, int from, int to)
+        {
+            this.shapes = shapes;
+            this.order = order;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= GRANULARITY)
+            {
+                shapes.gather(order, target, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new Permute(shapes, order, target, from, middle),
+                new Permute(shapes, order, target, middle, to));
+        }
+    }
+
+    /** Parses the slices [from, to) of a chunk of an imported file */
+    @SuppressWarnings("serial")
+    static class ParseSlices extends RecursiveAction
+    {
+        private final ShapeImport.Slice[] slices;
+        private final int from;
+        private final int to;
+
+        ParseSlices(ShapeImport.Slice[] slices, int from, int to)
+        {
+            this.slices = slices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                slices[from].parse();
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                new ParseSlices(slices, from, middle),
+                new ParseSlices(slices, middle, to));
+        }
+    }
+}
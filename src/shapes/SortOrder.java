@@ -0,0 +1,257 @@
+package shapes;
+
+import java.util.*;
+
+/** 
+ * Keeps the shapes of a ShapeList ordered by one primitive sort key (area, left border or bottom border),
+ * so sorting the list is a linear read of an order that already exists instead of a comparison sort.
+ * 
+ * The key of every shape is computed once and cached. Shapes that are added or moved are collected as pending
+ * and merged into the sorted order the next time it is asked for, so edits cost O(1) and only the pending shapes
+ * are ever sorted. Shapes with equal keys are ordered by their index, which makes the order equal to a stable sort.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class SortOrder implements ShapeIndex
+{
+    static final int AREA = 0;
+    static final int LEFT_BORDER = 1;
+    static final int BOTTOM_BORDER = 2;
+
+    /** The memory an order takes per shape: its cached key, its entries in the order and the merge buffer and its pending entry and flag, twice for arrays that grow by doubling */
+    static final int BYTES_PER_SHAPE = 48;
+
+    private final ShapeList shapes;
+    private final int key;
+
+    // the cached sort key of the shape at every index
+    private double[] keys;
+    // the indices of the shapes ordered by their key, can contain stale entries of pending shapes
+    private int[] sorted;
+    private int sortedCount;
+    // the order is merged into this buffer, after which the two swap, so a merge does not allocate a new order
+    private int[] merged;
+    // the shapes that were added or moved since the last merge, these are flagged as pending
+    private IntList pending;
+    private boolean[] isPending;
+    // whether a shape was swap removed since the last merge, which leaves entries at or above the size of the list
+    private boolean hasRemoved;
+
+    SortOrder(ShapeList shapes, int key)
+    {
+        this.shapes = shapes;
+        this.key = key;
+        keys = new double[16];
+        sorted = new int[16];
+        sortedCount = 0;
+        merged = new int[16];
+        pending = new IntList(16);
+        isPending = new boolean[16];
+        hasRemoved = false;
+    }
+
+    /** Returns the sort key, AREA, LEFT_BORDER or BOTTOM_BORDER */
+    int key()
+    {
+        return key;
+    }
+
+    private double keyOf(int i)
+    {
+        switch (key)
+        {
+            case AREA: return shapes.areaAt(i);
+            case LEFT_BORDER: return shapes.leftBorderAt(i);
+            default: return shapes.bottomBorderAt(i);
+        }
+    }
+
+    /** Orders shape indices by their key first and by the index itself second */
+    private int compare(int i, int j)
+    {
+        int byKey = IndexSort.compare(keys[i], keys[j]);
+        return byKey != 0 ? byKey : Integer.compare(i, j);
+    }
+
+    private void markPending(int i)
+    {
+        if (!isPending[i])
+        {
+            isPending[i] = true;
+            pending.add(i);
+        }
+    }
+
+    public void added(int i)
+    {
+        if (i >= keys.length)
+        {
+            int capacity = Math.max(i + 1, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            isPending = Arrays.copyOf(isPending, capacity);
+        }
+
+        keys[i] = keyOf(i);
+        markPending(i);
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+        if (key == AREA)
+        {
+            // moving a shape does not change its area
+            return;
+        }
+
+        keys[i] = keyOf(i);
+        markPending(i);
+    }
+
+    public void removing(int i)
+    {
+        // entries left behind by swap removals must be gone before the indices shift
+        merge();
+        int kept = 0;
+        for (int k = 0; k < sortedCount; k++)
+        {
+            int j = sorted[k];
+            if (j != i)
+            {
+                sorted[kept++] = j > i ? j - 1 : j;
+            }
+        }
+
+        sortedCount = kept;
+        pending.swapRemove(i);
+        pending.shiftDownAbove(i);
+
+        int last = shapes.size() - 1;
+        System.arraycopy(keys, i + 1, keys, i, last - i);
+        System.arraycopy(isPending, i + 1, isPending, i, last - i);
+        isPending[last] = false;
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        // the stale entries of i and last are skipped by the next merge: i becomes pending and last lies past the end
+        if (i != last)
+        {
+            keys[i] = keys[last];
+            markPending(i);
+        }
+
+        hasRemoved = true;
+    }
+
+    public void reordered(int[] order)
+    {
+        merge();
+        int size = shapes.size();
+        int[] positions = new int[size];
+        double[] reorderedKeys = new double[keys.length];
+        for (int k = 0; k < size; k++)
+        {
+            positions[order[k]] = k;
+            reorderedKeys[k] = keys[order[k]];
+        }
+
+        keys = reorderedKeys;
+        for (int k = 0; k < sortedCount; k++)
+        {
+            sorted[k] = positions[sorted[k]];
+        }
+
+        // shapes with equal keys must stay ordered by their new index
+        int runStart = 0;
+        for (int k = 1; k <= sortedCount; k++)
+        {
+            if (k == sortedCount || IndexSort.compare(keys[sorted[k - 1]], keys[sorted[k]]) != 0)
+            {
+                if (k - runStart > 1)
+                {
+                    Arrays.sort(sorted, runStart, k);
+                }
+
+                runStart = k;
+            }
+        }
+    }
+
+    /** Sorts the pending shapes and merges them into the sorted order, dropping their stale entries */
+    private void merge()
+    {
+        if (pending.size() == 0 && !hasRemoved)
+        {
+            return;
+        }
+
+        int size = shapes.size();
+        int[] incoming = pending.toArray();
+        int valid = 0;
+        for (int i : incoming)
+        {
+            // shapes that were swap removed while pending are dropped
+            if (i < size)
+            {
+                incoming[valid++] = i;
+            }
+        }
+
+        incoming = Arrays.copyOf(incoming, valid);
+        if (shapes.runsInParallel(incoming.length))
+        {
+            Arrays.parallelSort(incoming);
+            IndexSort.parallelSort(keys, incoming, incoming.length);
+        }
+        else
+        {
+            Arrays.sort(incoming);
+            IndexSort.sort(keys, incoming, incoming.length);
+        }
+
+        if (merged.length < sortedCount + incoming.length)
+        {
+            // sized like the keys, which grow by doubling, so the buffer is only replaced a logarithmic number of times
+            merged = new int[Math.max(keys.length, sortedCount + incoming.length)];
+        }
+
+        int count = 0;
+        int left = 0;
+        int right = 0;
+        while (left < sortedCount || right < incoming.length)
+        {
+            if (left < sortedCount && (sorted[left] >= size || isPending[sorted[left]]))
+            {
+                left++;
+            }
+            else if (right == incoming.length || (left < sortedCount && compare(sorted[left], incoming[right]) <= 0))
+            {
+                merged[count++] = sorted[left++];
+            }
+            else
+            {
+                merged[count++] = incoming[right++];
+            }
+        }
+
+        for (int k = 0; k < pending.size(); k++)
+        {
+            isPending[pending.get(k)] = false;
+        }
+
+        pending.clear();
+        hasRemoved = false;
+        int[] previous = sorted;
+        sorted = merged;
+        merged = previous;
+        sortedCount = count;
+    }
+
+    /** Returns the indices of the shapes ordered by their key, the first size() elements of the array are valid until the list changes */
+    int[] sortedIndices()
+    {
+        merge();
+        return sorted;
+    }
+}
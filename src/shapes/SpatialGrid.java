@@ -0,0 +1,443 @@
+package shapes;
+
+import java.util.*;
+
+/** 
+ * A uniform grid over the plane that buckets shapes by the cells their bounding box overlaps,
+ * such that window and point queries only have to look at the shapes near the queried area
+ * instead of scanning the whole list.
+ * 
+ * Only the occupied cells are stored, in an open addressing table keyed by the packed cell coordinates.
+ * Shapes that overlap too many cells (or have infinite borders) are kept in a separate list
+ * that every query checks.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class SpatialGrid implements ShapeIndex
+{
+    /** Shapes overlapping more cells than this are not bucketed but kept in the oversized list */
+    private static final int MAX_CELLS_PER_SHAPE = 64;
+
+    /** 
+     * The memory the grid takes per shape: its cell range and its entries in its cells, which also need a table slot and 
+     * a list when no other shape is in them. Measured at about 100 bytes when shapes share cells and up to 360 bytes 
+     * when every shape is alone in its cells, so the budget uses the upper bound.
+     */
+    static final int BYTES_PER_SHAPE = 360;
+
+    private final ShapeList shapes;
+    private final double cellSize;
+
+    // open addressing table from packed cell coordinates to the shapes whose bounding box overlaps that cell
+    private long[] cellKeys;
+    private IntList[] cellShapes;
+    private boolean[] cellUsed;
+    private int usedCells;
+
+    private IntList oversized;
+
+    // the cell range covered by each shape as (minX, minY, maxX, maxY), oversized shapes are marked with minX > maxX
+    private int[] ranges;
+
+    SpatialGrid(ShapeList shapes, double cellSize)
+    {
+        this.shapes = shapes;
+        this.cellSize = checkCellSize(cellSize);
+        cellKeys = new long[64];
+        cellShapes = new IntList[64];
+        cellUsed = new boolean[64];
+        usedCells = 0;
+        oversized = new IntList(8);
+        ranges = new int[4 * Math.max(16, shapes.size())];
+    }
+
+    /** Returns the cell size when it is a positive number, so a list can reject it before it builds its grid */
+    static double checkCellSize(double cellSize)
+    {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize))
+        {
+            throw new IllegalArgumentException("The cell size of the grid must be a positive number");
+        }
+
+        return cellSize;
+    }
+
+    /** Returns the cell coordinate of v, or a value outside the int range when v is too large to be bucketed */
+    private long cellOf(double v)
+    {
+        double cell = Math.floor(v / cellSize);
+        if (Double.isNaN(cell) || cell < Integer.MIN_VALUE || cell > Integer.MAX_VALUE)
+        {
+            return Long.MAX_VALUE;
+        }
+
+        return (long) cell;
+    }
+
+    /** Clamps the cell coordinate of a query bound into the int range */
+    private int clampedCellOf(double v)
+    {
+        double cell = Math.floor(v / cellSize);
+        if (Double.isNaN(cell))
+        {
+            return 0;
+        }
+
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, cell));
+    }
+
+    private static long pack(int cellX, int cellY)
+    {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    private static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /** Returns the table slot of the cell, or -1 when the cell holds no shapes */
+    private int findSlot(long key)
+    {
+        int mask = cellKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (cellUsed[slot])
+        {
+            if (cellKeys[slot] == key)
+            {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /** Returns the table slot of the cell, claiming a new slot when the cell was never used */
+    private int slotFor(long key)
+    {
+        if (2 * (usedCells + 1) > cellKeys.length)
+        {
+            rehash();
+        }
+
+        int mask = cellKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (cellUsed[slot])
+        {
+            if (cellKeys[slot] == key)
+            {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        cellUsed[slot] = true;
+        cellKeys[slot] = key;
+        cellShapes[slot] = new IntList(4);
+        usedCells++;
+        return slot;
+    }
+
+    /** Frees the slot of a cell that became empty, shifting later entries of its probe sequence back into the hole */
+    private void freeSlot(int slot)
+    {
+        int mask = cellKeys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (cellUsed[next])
+        {
+            int home = hash(cellKeys[next]) & mask;
+            // the entry can fill the hole when the hole lies between its home slot and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask))
+            {
+                cellKeys[hole] = cellKeys[next];
+                cellShapes[hole] = cellShapes[next];
+                hole = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        cellUsed[hole] = false;
+        cellShapes[hole] = null;
+        usedCells--;
+    }
+
+    private void rehash()
+    {
+        long[] oldKeys = cellKeys;
+        IntList[] oldShapes = cellShapes;
+        boolean[] oldUsed = cellUsed;
+
+        int capacity = oldKeys.length * 2;
+        cellKeys = new long[capacity];
+        cellShapes = new IntList[capacity];
+        cellUsed = new boolean[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (!oldUsed[i])
+            {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (cellUsed[slot])
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            cellUsed[slot] = true;
+            cellKeys[slot] = oldKeys[i];
+            cellShapes[slot] = oldShapes[i];
+        }
+    }
+
+    private void insert(int i)
+    {
+        if (4 * i + 4 > ranges.length)
+        {
+            ranges = Arrays.copyOf(ranges, Math.max(4 * i + 4, ranges.length * 2));
+        }
+
+        long minX = cellOf(shapes.leftBorderAt(i));
+        long minY = cellOf(shapes.bottomBorderAt(i));
+        long maxX = cellOf(shapes.rightBorderAt(i));
+        long maxY = cellOf(shapes.topBorderAt(i));
+        boolean bucketable = minX != Long.MAX_VALUE 
+                          && minY != Long.MAX_VALUE 
+                          && maxX != Long.MAX_VALUE 
+                          && maxY != Long.MAX_VALUE
+                          && (maxX - minX + 1) * (maxY - minY + 1) <= MAX_CELLS_PER_SHAPE;
+
+        if (!bucketable)
+        {
+            ranges[4 * i] = 1;
+            ranges[4 * i + 2] = 0;
+            oversized.add(i);
+            return;
+        }
+
+        ranges[4 * i] = (int) minX;
+        ranges[4 * i + 1] = (int) minY;
+        ranges[4 * i + 2] = (int) maxX;
+        ranges[4 * i + 3] = (int) maxY;
+        for (long cellX = minX; cellX <= maxX; cellX++)
+        {
+            for (long cellY = minY; cellY <= maxY; cellY++)
+            {
+                int slot = slotFor(pack((int) cellX, (int) cellY));
+                cellShapes[slot].add(i);
+            }
+        }
+    }
+
+    private void delete(int i)
+    {
+        int minX = ranges[4 * i];
+        int minY = ranges[4 * i + 1];
+        int maxX = ranges[4 * i + 2];
+        int maxY = ranges[4 * i + 3];
+        if (minX > maxX)
+        {
+            oversized.swapRemove(i);
+            return;
+        }
+
+        for (long cellX = minX; cellX <= maxX; cellX++)
+        {
+            for (long cellY = minY; cellY <= maxY; cellY++)
+            {
+                int slot = findSlot(pack((int) cellX, (int) cellY));
+                cellShapes[slot].swapRemove(i);
+                if (cellShapes[slot].size() == 0)
+                {
+                    freeSlot(slot);
+                }
+            }
+        }
+    }
+
+    public void added(int i)
+    {
+        insert(i);
+    }
+
+    public void moved(int i, double deltaX, double deltaY)
+    {
+        delete(i);
+        insert(i);
+    }
+
+    public void removing(int i)
+    {
+        delete(i);
+        for (int slot = 0; slot < cellKeys.length; slot++)
+        {
+            if (cellUsed[slot])
+            {
+                cellShapes[slot].shiftDownAbove(i);
+            }
+        }
+
+        oversized.shiftDownAbove(i);
+        int size = shapes.size();
+        System.arraycopy(ranges, 4 * (i + 1), ranges, 4 * i, 4 * (size - i - 1));
+    }
+
+    public void swapRemoving(int i, int last)
+    {
+        delete(i);
+        if (i == last)
+        {
+            return;
+        }
+
+        int minX = ranges[4 * last];
+        int minY = ranges[4 * last + 1];
+        int maxX = ranges[4 * last + 2];
+        int maxY = ranges[4 * last + 3];
+        if (minX > maxX)
+        {
+            oversized.replace(last, i);
+        }
+        else
+        {
+            for (long cellX = minX; cellX <= maxX; cellX++)
+            {
+                for (long cellY = minY; cellY <= maxY; cellY++)
+                {
+                    cellShapes[findSlot(pack((int) cellX, (int) cellY))].replace(last, i);
+                }
+            }
+        }
+
+        System.arraycopy(ranges, 4 * last, ranges, 4 * i, 4);
+    }
+
+    public void reordered(int[] order)
+    {
+        // the shapes did not move, so only their indices change
+        int size = shapes.size();
+        int[] positions = new int[size];
+        int[] reorderedRanges = new int[ranges.length];
+        for (int k = 0; k < size; k++)
+        {
+            positions[order[k]] = k;
+            System.arraycopy(ranges, 4 * order[k], reorderedRanges, 4 * k, 4);
+        }
+
+        ranges = reorderedRanges;
+        for (int slot = 0; slot < cellKeys.length; slot++)
+        {
+            if (cellUsed[slot])
+            {
+                cellShapes[slot].remap(positions);
+            }
+        }
+
+        oversized.remap(positions);
+    }
+
+    /** Returns the indices of the shapes that intersect the window, in ascending order */
+    int[] intersecting(double left, double bottom, double right, double top)
+    {
+        return query(left, bottom, right, top, false);
+    }
+
+    /** Returns the indices of the shapes that contain the point, in ascending order */
+    int[] containing(double x, double y)
+    {
+        return query(x, y, x, y, true);
+    }
+
+    private int[] query(double left, double bottom, double right, double top, boolean point)
+    {
+        IntList found = new IntList(8);
+        int minX = clampedCellOf(left);
+        int minY = clampedCellOf(bottom);
+        int maxX = clampedCellOf(right);
+        int maxY = clampedCellOf(top);
+        double windowCells = ((double) maxX - minX + 1) * ((double) maxY - minY + 1);
+
+        if (windowCells <= usedCells)
+        {
+            // the window is small: look up each of its cells
+            for (long cellX = minX; cellX <= maxX; cellX++)
+            {
+                for (long cellY = minY; cellY <= maxY; cellY++)
+                {
+                    int slot = findSlot(pack((int) cellX, (int) cellY));
+                    if (slot >= 0)
+                    {
+                        collect(slot, minX, minY, left, bottom, right, top, point, found);
+                    }
+                }
+            }
+        }
+        else
+        {
+            // the window covers more cells than are occupied: walk the occupied cells instead
+            for (int slot = 0; slot < cellKeys.length; slot++)
+            {
+                if (!cellUsed[slot])
+                {
+                    continue;
+                }
+
+                int cellX = (int) (cellKeys[slot] >> 32);
+                int cellY = (int) cellKeys[slot];
+                if (cellX >= minX && cellX <= maxX && cellY >= minY && cellY <= maxY)
+                {
+                    collect(slot, minX, minY, left, bottom, right, top, point, found);
+                }
+            }
+        }
+
+        for (int k = 0; k < oversized.size(); k++)
+        {
+            int i = oversized.get(k);
+            if (matches(i, left, bottom, right, top, point))
+            {
+                found.add(i);
+            }
+        }
+
+        int[] result = found.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /** 
+     * Adds the matching shapes of a cell to found.
+     * A shape overlapping several cells is only reported from the first cell that both the shape and the window overlap.
+     */
+    private void collect(int slot, int minX, int minY, double left, double bottom, double right, double top, boolean point, IntList found)
+    {
+        int cellX = (int) (cellKeys[slot] >> 32);
+        int cellY = (int) cellKeys[slot];
+        IntList cell = cellShapes[slot];
+        for (int k = 0; k < cell.size(); k++)
+        {
+            int i = cell.get(k);
+            boolean firstCell = cellX == Math.max(ranges[4 * i], minX) && cellY == Math.max(ranges[4 * i + 1], minY);
+            if (firstCell && matches(i, left, bottom, right, top, point))
+            {
+                found.add(i);
+            }
+        }
+    }
+
+    private boolean matches(int i, double left, double bottom, double right, double top, boolean point)
+    {
+        return point ? shapes.containsAt(i, left, bottom) : shapes.intersectsAt(i, left, bottom, right, top);
+    }
+}
@@ -0,0 +1,134 @@
+package shapes;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+
+/** 
+ * Collects the text the editor writes in one reusable StringBuilder and writes it to the output stream in large chunks,
+ * so printing many lines costs a few large writes instead of a synchronized, flushing println per line.
+ * Text is only guaranteed to be written once flush() is called.
+ * 
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+class TerminalOutput
+{
+    /** The buffered text is written once it holds at least this many characters */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final OutputStream stream;
+    private final CharsetEncoder encoder;
+    private final StringBuilder buffer;
+    // the buffered text is copied into this array before encoding, encoders are much faster on arrays than on a StringBuilder
+    private char[] chars;
+    private final ByteBuffer bytes;
+
+    TerminalOutput(OutputStream stream)
+    {
+        this.stream = stream;
+        encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        buffer = new StringBuilder(CHUNK_SIZE + 1024);
+        chars = new char[CHUNK_SIZE + 1024];
+        bytes = ByteBuffer.allocate(CHUNK_SIZE);
+    }
+
+    /** Returns the buffer to append text to directly, call endLine() or flush() afterwards */
+    StringBuilder buffer()
+    {
+        return buffer;
+    }
+
+    void write(CharSequence text)
+    {
+        buffer.append(text);
+    }
+
+    /** Ends the current line, writing the buffered text when a chunk is full */
+    void endLine()
+    {
+        buffer.append(LINE_SEPARATOR);
+        if (buffer.length() >= CHUNK_SIZE)
+        {
+            drain();
+        }
+    }
+
+    void writeLine(CharSequence line)
+    {
+        buffer.append(line);
+        endLine();
+    }
+
+    /** Writes all buffered text to the stream and flushes it */
+    void flush()
+    {
+        drain();
+        try
+        {
+            stream.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Encodes the buffered text into the byte buffer and writes it to the channel one chunk at a time */
+    private void drain()
+    {
+        if (buffer.length() == 0)
+        {
+            return;
+        }
+
+        try
+        {
+            int length = buffer.length();
+            if (chars.length < length)
+            {
+                chars = new char[length];
+            }
+
+            buffer.getChars(0, length, chars, 0);
+            CharBuffer text = CharBuffer.wrap(chars, 0, length);
+            encoder.reset();
+            CoderResult result;
+            do
+            {
+                result = encoder.encode(text, bytes, true);
+                if (result.isOverflow())
+                {
+                    writeBytes();
+                }
+            }
+            while (result.isOverflow());
+
+            while (encoder.flush(bytes).isOverflow())
+            {
+                writeBytes();
+            }
+
+            writeBytes();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            buffer.setLength(0);
+        }
+    }
+
+    private void writeBytes() throws IOException
+    {
+        // one write call per chunk, straight from the backing array
+        stream.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+}
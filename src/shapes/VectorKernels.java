@@ -0,0 +1,132 @@
+package shapes;
+
+import jdk.incubator.vector.*;
+
+/**
+ * The geometry kernels on SIMD lanes of the Vector API, as many shapes per instruction as the preferred species holds.
+ *
+ * Whether a lane holds a circle is a mask, made by widening the kinds of the shapes from bytes to doubles and comparing 
+ * them to CIRCLE, after which circles and rectangles are computed together and blended. The shapes that do not fill 
+ * a whole vector at the end of a range are handed to the scalar kernels.
+ *
+ * @author Zaid Ajaj - s4807561
+ * @author Luna-Elise Schernthaner - s4703928
+ */
+final class VectorKernels extends GeometryKernels
+{
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    // eight kinds are loaded at a time, which covers the lanes of any species of doubles
+    private static final VectorSpecies<Byte> KIND_SPECIES = ByteVector.SPECIES_64;
+    private static final int KIND_LANES = KIND_SPECIES.length();
+
+    private final ScalarKernels scalar = new ScalarKernels();
+
+    /** Returns whether the vector starting at index i fits in the range and the kinds can be loaded from there */
+    private static boolean fits(byte[] kinds, int i, int to)
+    {
+        return i + LANES <= to && i + KIND_LANES <= kinds.length;
+    }
+
+    private static VectorMask<Double> circlesAt(byte[] kinds, int i)
+    {
+        DoubleVector kind = (DoubleVector) ByteVector.fromArray(KIND_SPECIES, kinds, i).convertShape(VectorOperators.B2D, SPECIES, 0);
+        return kind.compare(VectorOperators.EQ, ShapeList.CIRCLE);
+    }
+
+    /** The areas of the vector at index i, circles multiply in the same order as Math.PI * radius * radius */
+    private static DoubleVector areasAt(byte[] kinds, double[] heights, double[] widths, int i)
+    {
+        DoubleVector width = DoubleVector.fromArray(SPECIES, widths, i);
+        DoubleVector height = DoubleVector.fromArray(SPECIES, heights, i);
+        return height.mul(width).blend(width.mul(Math.PI).mul(width), circlesAt(kinds, i));
+    }
+
+    @Override
+    double sumAreas(byte[] kinds, double[] heights, double[] widths, int from, int to)
+    {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        int i = from;
+        for (; fits(kinds, i, to); i += LANES)
+        {
+            sum = sum.add(areasAt(kinds, heights, widths, i));
+        }
+
+        return sum.reduceLanes(VectorOperators.ADD) + scalar.sumAreas(kinds, heights, widths, i, to);
+    }
+
+    @Override
+    void areas(byte[] kinds, double[] heights, double[] widths, int from, int to, double[] areas, int offset)
+    {
+        int i = from;
+        for (; fits(kinds, i, to); i += LANES)
+        {
+            areasAt(kinds, heights, widths, i).intoArray(areas, i - from + offset);
+        }
+
+        scalar.areas(kinds, heights, widths, i, to, areas, i - from + offset);
+    }
+
+    @Override
+    void borders(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, 
+                 double[] lefts, double[] bottoms, double[] rights, double[] tops, int offset)
+    {
+        int i = from;
+        for (; fits(kinds, i, to); i += LANES)
+        {
+            int k = i - from + offset;
+            VectorMask<Double> circles = circlesAt(kinds, i);
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            DoubleVector height = DoubleVector.fromArray(SPECIES, heights, i);
+            DoubleVector width = DoubleVector.fromArray(SPECIES, widths, i);
+            x.sub(width, circles).intoArray(lefts, k);
+            y.sub(height, circles).intoArray(bottoms, k);
+            x.add(width).intoArray(rights, k);
+            y.add(height).intoArray(tops, k);
+        }
+
+        scalar.borders(kinds, xs, ys, heights, widths, i, to, lefts, bottoms, rights, tops, i - from + offset);
+    }
+
+    @Override
+    void bounds(byte[] kinds, double[] xs, double[] ys, double[] heights, double[] widths, int from, int to, double[] box)
+    {
+        DoubleVector left = DoubleVector.broadcast(SPECIES, box[0]);
+        DoubleVector bottom = DoubleVector.broadcast(SPECIES, box[1]);
+        DoubleVector right = DoubleVector.broadcast(SPECIES, box[2]);
+        DoubleVector top = DoubleVector.broadcast(SPECIES, box[3]);
+        int i = from;
+        for (; fits(kinds, i, to); i += LANES)
+        {
+            VectorMask<Double> circles = circlesAt(kinds, i);
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+            DoubleVector height = DoubleVector.fromArray(SPECIES, heights, i);
+            DoubleVector width = DoubleVector.fromArray(SPECIES, widths, i);
+            left = left.min(x.sub(width, circles));
+            bottom = bottom.min(y.sub(height, circles));
+            right = right.max(x.add(width));
+            top = top.max(y.add(height));
+        }
+
+        box[0] = left.reduceLanes(VectorOperators.MIN);
+        box[1] = bottom.reduceLanes(VectorOperators.MIN);
+        box[2] = right.reduceLanes(VectorOperators.MAX);
+        box[3] = top.reduceLanes(VectorOperators.MAX);
+        scalar.bounds(kinds, xs, ys, heights, widths, i, to, box);
+    }
+
+    @Override
+    void translate(double[] xs, double[] ys, int from, int to, double deltaX, double deltaY)
+    {
+        int i = from;
+        for (; i + LANES <= to; i += LANES)
+        {
+            DoubleVector.fromArray(SPECIES, xs, i).add(deltaX).intoArray(xs, i);
+            DoubleVector.fromArray(SPECIES, ys, i).add(deltaY).intoArray(ys, i);
+        }
+
+        scalar.translate(xs, ys, i, to, deltaX, deltaY);
+    }
+}
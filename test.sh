@@ -1,4 +1,4 @@
 rm -rf -r out
-javac test/*.java src/*.java -d out
-cd out && java Runner
-cd ..
\ No newline at end of file
+javac -encoding UTF-8 --add-modules jdk.incubator.vector test/shapes/*.java src/shapes/*.java -d out || exit 1
+cd out && java --add-modules jdk.incubator.vector shapes.Runner
+cd ..
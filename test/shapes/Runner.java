@@ -0,0 +1,1897 @@
+package shapes;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class Runner 
+{
+    /** Describes the outcome of parsing the input as the command with its file name or arguments, or as the error */
+    private static String describe(CommandParser parser, String input)
+    {
+        if (!parser.parse(input))
+        {
+            return "error: " + parser.error();
+        }
+
+        StringBuilder description = new StringBuilder(parser.name());
+        if (CommandParser.accessesFiles(parser.command()))
+        {
+            description.append(" '").append(parser.fileName()).append("'");
+        }
+
+        for (int i = 0; i < parser.argumentCount(); i++)
+        {
+            description.append(' ').append(parser.argument(i));
+        }
+
+        return description.toString();
+    }
+
+    public static void main(String[] args)
+    {
+        Test.Case("command parser parses zero-argument commands", () -> 
+        {   
+            CommandParser parser = new CommandParser();
+            Test.AreEqual(true, parser.parse("show"), "'show' is a command");
+            Test.AreEqual(CommandParser.SHOW, parser.command(), "The parsed command is correct");
+            Test.AreEqual(0, parser.argumentCount(), "The parsed arguments have length 0");
+            Test.AreEqual(true, parser.parse("quit"), "'quit' is a command");
+            Test.AreEqual(CommandParser.QUIT, parser.command(), "The parsed command is correct");
+            Test.AreEqual(0, parser.argumentCount(), "The parsed arguments have length 0");
+        });
+
+        Test.Case("command parser parses the arguments of 'circle'", () -> 
+        {   
+            CommandParser parser = new CommandParser();
+            Test.AreEqual(true, parser.parse("circle 1.0 2.0 3.0"), "'circle' with three numbers is a command");
+            Test.AreEqual(CommandParser.CIRCLE, parser.command(), "The parsed command is correct");
+            Test.AreEqual(3, parser.argumentCount(), "The parsed arguments have length 3");
+            Test.AreEqual(1.0, parser.argument(0), "First argument is parsed");
+            Test.AreEqual(2.0, parser.argument(1), "Second argument is parsed");
+            Test.AreEqual(3.0, parser.argument(2), "Third argument is parsed");
+        });
+
+        Test.Case("shape list renders shapes from its columns like the shape classes do", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(10);
+            shapeList.addCircle(1.0, 2.0, 3.0);
+            shapeList.addRectangle(4.0, 5.0, 6.0, 7.0);
+            List<String> rendered = new ArrayList<String>();
+            shapeList.readShapesUsing(shape -> rendered.add(shape));
+
+            Test.AreEqual(2, rendered.size(), "Both shapes are rendered");
+            Test.AreEqual(new Circle(1.0, 2.0, 3.0).toString(), rendered.get(0), "The circle is rendered like Circle.toString()");
+            Test.AreEqual(new Rectangle(4.0, 5.0, 6.0, 7.0).toString(), rendered.get(1), "The rectangle is rendered like Rectangle.toString()");
+            Test.AreEqual(false, shapeList.addCircle(Double.NaN, 0.0, 1.0).isPresent(), "NaN coordinates are rejected");
+        });
+
+        Test.Case("shape list sorts by area and can still remove shapes afterwards", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(10);
+            shapeList.addRectangle(0.0, 0.0, 2.0, 2.0);
+            shapeList.addCircle(0.0, 0.0, 1.0);
+            shapeList.addRectangle(0.0, 0.0, 1.0, 1.0);
+            shapeList.sortByArea();
+
+            Test.AreEqual(1.0, shapeList.shapeAt(0).Area(), "The smallest shape comes first");
+            Test.AreEqual(Math.PI, shapeList.shapeAt(1).Area(), "The circle comes second");
+            Test.AreEqual(4.0, shapeList.shapeAt(2).Area(), "The largest shape comes last");
+            Test.AreEqual(false, shapeList.removeShapeAtIndex(0).isPresent(), "Removing after sorting succeeds");
+            Test.AreEqual(Math.PI, shapeList.shapeAt(0).Area(), "The remaining shapes are shifted");
+        });
+
+        Test.Case("shape list sorts by left and bottom border", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(10);
+            shapeList.addRectangle(1.0, 5.0, 1.0, 1.0);
+            shapeList.addCircle(3.0, 0.0, 2.5);
+            shapeList.moveShapeAtIndex(0, 1.0, 0.0);
+
+            shapeList.sortByLeftBorder();
+            Test.AreEqual(0.5, shapeList.shapeAt(0).LeftBorder(), "The circle has the smallest left border");
+            Test.AreEqual(2.0, shapeList.shapeAt(1).LeftBorder(), "The moved rectangle comes second");
+
+            shapeList.sortByBottomBorder();
+            Test.AreEqual(-2.5, shapeList.shapeAt(0).BottomBorder(), "The circle has the smallest bottom border");
+            Test.AreEqual(5.0, shapeList.shapeAt(1).BottomBorder(), "The rectangle comes second");
+        });
+
+        Test.Case("spatial queries find the shapes intersecting a window or containing a point", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(10, 1.0);
+            shapeList.addCircle(0.0, 0.0, 1.0);
+            shapeList.addRectangle(5.0, 5.0, 2.0, 2.0);
+            shapeList.addRectangle(-100.0, -100.0, 200.0, 200.0);
+
+            Test.AreEqual("[0, 2]", Arrays.toString(shapeList.shapesContaining(0.5, 0.5)), "The point lies in the circle and the large rectangle");
+            Test.AreEqual("[2]", Arrays.toString(shapeList.shapesContaining(0.9, 0.9)), "The corner of the circle's bounding box is not in the circle");
+            Test.AreEqual("[1, 2]", Arrays.toString(shapeList.shapesIntersecting(4.0, 4.0, 5.5, 5.5)), "The window overlaps the small rectangle");
+
+            shapeList.moveShapeAtIndex(1, -5.0, -5.0);
+            Test.AreEqual("[1, 2]", Arrays.toString(shapeList.shapesContaining(1.5, 1.5)), "The moved rectangle is found at its new position");
+            shapeList.removeShapeAtIndex(0);
+            Test.AreEqual("[0, 1]", Arrays.toString(shapeList.shapesContaining(0.5, 0.5)), "Indices are shifted after removal");
+        });
+
+        Test.Case("spatial queries agree with a linear scan after random edits", () -> 
+        {   
+            Random random = new Random(42);
+            ShapeList shapeList = new ShapeList(1000, 4.0);
+            for (int step = 0; step < 2000; step++)
+            {
+                int operation = random.nextInt(10);
+                if (operation < 5) shapeList.addCircle(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 10);
+                else if (operation < 8) shapeList.addRectangle(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 30, random.nextDouble() * 30);
+                else if (operation < 9 && !shapeList.isEmpty()) shapeList.moveShapeAtIndex(random.nextInt(shapeList.size()), random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10);
+                else if (!shapeList.isEmpty()) shapeList.removeShapeAtIndex(random.nextInt(shapeList.size()));
+
+                if (step == 1000) shapeList.sortByLeftBorder();
+            }
+
+            for (int query = 0; query < 50; query++)
+            {
+                double left = random.nextDouble() * 100;
+                double bottom = random.nextDouble() * 100;
+                double right = left + random.nextDouble() * 20;
+                double top = bottom + random.nextDouble() * 20;
+                List<Integer> expected = new ArrayList<Integer>();
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    if (shapeList.intersectsAt(i, left, bottom, right, top)) expected.add(i);
+                }
+
+                Test.AreEqual(expected.toString(), Arrays.toString(shapeList.shapesIntersecting(left, bottom, right, top)));
+            }
+        });
+
+        Test.Case("maintained sort orders match a stable sort of the shapes after random edits", () -> 
+        {   
+            Random random = new Random(7);
+            ShapeList shapeList = new ShapeList(1000);
+            for (int step = 0; step < 3000; step++)
+            {
+                int operation = random.nextInt(12);
+                // coarse values so that many shapes share the same key
+                double x = random.nextInt(20);
+                double y = random.nextInt(20);
+                if (operation < 4) shapeList.addCircle(x, y, random.nextInt(3));
+                else if (operation < 7) shapeList.addRectangle(x, y, random.nextInt(3), random.nextInt(3));
+                else if (operation < 9 && !shapeList.isEmpty()) shapeList.moveShapeAtIndex(random.nextInt(shapeList.size()), random.nextInt(5) - 2, random.nextInt(5) - 2);
+                else if (operation < 10 && !shapeList.isEmpty()) shapeList.removeShapeAtIndex(random.nextInt(shapeList.size()));
+                else if (step % 10 == 0)
+                {
+                    IShape[] expected = new IShape[shapeList.size()];
+                    for (int i = 0; i < expected.length; i++) expected[i] = shapeList.shapeAt(i);
+
+                    int sortKind = random.nextInt(3);
+                    if (sortKind == 0)
+                    {
+                        Arrays.sort(expected, Comparator.comparingDouble(IShape::Area));
+                        shapeList.sortByArea();
+                    }
+                    else if (sortKind == 1)
+                    {
+                        Arrays.sort(expected, Comparator.comparingDouble(IShape::LeftBorder));
+                        shapeList.sortByLeftBorder();
+                    }
+                    else
+                    {
+                        Arrays.sort(expected, Comparator.comparingDouble(IShape::BottomBorder));
+                        shapeList.sortByBottomBorder();
+                    }
+
+                    List<String> actual = new ArrayList<String>();
+                    shapeList.readShapesUsing(shape -> actual.add(shape));
+                    Test.AreEqual(Arrays.toString(expected), actual.toString());
+                }
+            }
+        });
+
+        Test.Case("bulk operations give the same results in parallel and sequentially", () -> 
+        {   
+            Random random = new Random(3);
+            ShapeList sequential = new ShapeList(50000);
+            ShapeList parallel = new ShapeList(50000);
+            sequential.setParallelThreshold(Integer.MAX_VALUE);
+            parallel.setParallelThreshold(1);
+            for (int i = 0; i < 50000; i++)
+            {
+                double x = random.nextInt(1000);
+                double y = random.nextInt(1000);
+                double size = random.nextInt(10);
+                sequential.addCircle(x, y, size);
+                parallel.addCircle(x, y, size);
+                sequential.addRectangle(y, x, size, size);
+                parallel.addRectangle(y, x, size, size);
+            }
+
+            ShapePredicate onTheLeft = (isCircle, x, y, height, width) -> isCircle && x < 500;
+            Test.AreEqual(sequential.moveShapesWhere(onTheLeft, 1000, 0), parallel.moveShapesWhere(onTheLeft, 1000, 0), "The same shapes are moved");
+            Test.AreEqual(sequential.boundingBox().get().toString(), parallel.boundingBox().get().toString(), "The bounding boxes are equal");
+            Test.AreEqual(499.0 + 1000 + 9, parallel.boundingBox().get().right, "The moved circles extend the bounding box");
+            Test.AreEqual(true, Math.abs(sequential.totalArea() - parallel.totalArea()) < 1e-6 * sequential.totalArea(), "The total areas are equal");
+
+            sequential.sortByLeftBorder();
+            parallel.sortByLeftBorder();
+            List<String> sequentialShapes = new ArrayList<String>();
+            List<String> parallelShapes = new ArrayList<String>();
+            sequential.readShapesUsing(shape -> sequentialShapes.add(shape));
+            parallel.readShapesUsing(shape -> parallelShapes.add(shape));
+            Test.AreEqual(sequentialShapes.toString(), parallelShapes.toString(), "The sorted lists are equal");
+        });
+
+        Test.Case("concurrent shape list stays consistent under concurrent writers and readers", () -> 
+        {   
+            ConcurrentShapeList shapeList = new ConcurrentShapeList(100000);
+            java.util.concurrent.atomic.AtomicInteger expectedSize = new java.util.concurrent.atomic.AtomicInteger();
+            java.util.concurrent.atomic.AtomicInteger tornReads = new java.util.concurrent.atomic.AtomicInteger();
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 8; t++)
+            {
+                int seed = t;
+                threads.add(new Thread(() -> 
+                {
+                    Random random = new Random(seed);
+                    for (int step = 0; step < 3000; step++)
+                    {
+                        int operation = random.nextInt(10);
+                        double d = random.nextInt(100);
+                        // every shape keeps x + y == 0, so a torn read shows up as a non-zero sum
+                        if (operation < 4 && shapeList.addCircle(d, -d, 1.0).isPresent()) expectedSize.incrementAndGet();
+                        else if (operation < 7) shapeList.moveShapeAtIndex(random.nextInt(Math.max(1, shapeList.size())), d, -d);
+                        else if (operation < 8 && !shapeList.removeShapeAtIndex(random.nextInt(Math.max(1, shapeList.size()))).isPresent()) expectedSize.decrementAndGet();
+                        else if (operation < 9) shapeList.sortByLeftBorder();
+                        else 
+                        {
+                            ShapeSnapshot snapshot = shapeList.snapshot();
+                            for (int i = 0; i < snapshot.size(); i++)
+                            {
+                                IShape shape = snapshot.shapeAt(i);
+                                if (shape.LeftBorder() + shape.RightBorder() + shape.BottomBorder() + shape.TopBorder() != 0) tornReads.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) 
+            {
+                try { thread.join(); } catch (InterruptedException ex) { throw new RuntimeException(ex); }
+            }
+
+            Test.AreEqual(0, tornReads.get(), "Snapshots never show a half-applied change");
+            Test.AreEqual(expectedSize.get(), shapeList.size(), "No additions or removals were lost");
+            Test.AreEqual(expectedSize.get(), shapeList.snapshot().size(), "The latest snapshot reflects all changes");
+        });
+
+        Test.Case("concurrent shape list copies snapshots of several chunks consistently while a writer keeps changing it", () ->
+        {
+            for (boolean offHeap : new boolean[] { false, true })
+            {
+                ShapeList shapes = offHeap ? ShapeList.offHeap(100000, ShapeList.DEFAULT_CELL_SIZE, ShapeList.defaultMemoryBudget()) : new ShapeList(100000);
+                ConcurrentShapeList shapeList = new ConcurrentShapeList(shapes);
+                int count = 3 * ShapeColumns.CHUNK_SIZE + 5;
+                for (int i = 0; i < count; i++) shapeList.addCircle(i, -i, 1.0);
+
+                java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+                Thread writer = new Thread(() ->
+                {
+                    Random random = new Random(7);
+                    while (!done.get())
+                    {
+                        double d = random.nextInt(100);
+                        // every shape keeps x + y == 0 and the size stays count or count + 1
+                        shapeList.moveShapeAtIndex(random.nextInt(count), d, -d);
+                        if (shapeList.size() == count) shapeList.addCircle(d, -d, 1.0);
+                        else shapeList.removeShapeAtIndex(random.nextInt(count));
+                        if (random.nextInt(50) == 0) shapeList.sortByLeftBorder();
+                    }
+                });
+
+                writer.start();
+                int tornReads = 0;
+                for (int round = 0; round < 30; round++)
+                {
+                    ShapeSnapshot snapshot = shapeList.snapshot();
+                    if (snapshot.size() != count && snapshot.size() != count + 1) tornReads++;
+                    for (int i = 0; i < snapshot.size(); i++)
+                    {
+                        if (snapshot.xAt(i) + snapshot.yAt(i) != 0) tornReads++;
+                    }
+                }
+
+                done.set(true);
+                try { writer.join(); } catch (InterruptedException ex) { throw new RuntimeException(ex); }
+
+                List<String> expected = new ArrayList<String>();
+                List<String> copied = new ArrayList<String>();
+                shapes.readShapesUsing(shape -> expected.add(shape));
+                shapeList.readShapesUsing(shape -> copied.add(shape));
+                shapes.close();
+                Test.AreEqual(0, tornReads, "Snapshots of several chunks never mix two versions of the list, offHeap=" + offHeap);
+                Test.AreEqual(expected.toString(), copied.toString(), "The last snapshot equals the list, offHeap=" + offHeap);
+            }
+        });
+
+        Test.Case("batch mode only shows the list on explicit show commands and at the end", () -> 
+        {   
+            PrintStream originalOut = System.out;
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(output));
+            try
+            {
+                String script = "circle 1 2 3\nrectangle 0 0 1 1\n\nshow\nremove 0\nsort\n";
+                new ShapeListEditor().runBatch(new BufferedReader(new StringReader(script)));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+            finally
+            {
+                System.setOut(originalOut);
+            }
+
+            String printed = output.toString();
+            Test.AreEqual(2, printed.split("Shape list contains:", -1).length - 1, "The list is shown twice");
+            Test.AreEqual(true, printed.contains("Cirlce(X=1.0, Y=2.0, Radius=3.0)"), "The circle uses its own y coordinate");
+            Test.AreEqual(true, printed.contains("Executed 5 commands"), "The blank line is not counted as a command");
+        });
+
+        Test.Case("command parser parses every command and reports the same errors as before", () -> 
+        {   
+            // the expected outcome of each input is the command with its arguments or file name, or the error
+            String[][] cases = 
+            {
+                { "", "error: Input was empty" },
+                { " ", "error: Input was empty" },
+                { "show", "show" },
+                { "SHOW", "show" },
+                { "quit ", "quit" },
+                { "undo", "undo" },
+                { "Redo", "redo" },
+                { "stats", "stats" },
+                { "overlaps", "overlaps" },
+                { "Metrics", "metrics" },
+                { " show", "error: The command you entered was not recognized as one of the possible commands" },
+                { "sort", "sort" },
+                { "sort x", "sort 1.0" },
+                { "sort Y", "sort -1.0" },
+                { "sort z", "error: command sort does not recognize the optional argument z" },
+                { "sort  x", "error: The command you entered was not recognized as one of the possible commands" },
+                { "sort x y", "error: The command you entered was not recognized as one of the possible commands" },
+                { "circle 1 2 3", "circle 1.0 2.0 3.0" },
+                { "Circle 1.5 -2.25 3e2", "circle 1.5 -2.25 300.0" },
+                { "circle 1 2", "error: The circle command requires three parameters as valid numbers" },
+                { "circle 1 two 2 3", "circle 1.0 2.0 3.0" },
+                { "circle 1  2 3", "circle 1.0 2.0 3.0" },
+                { "circle 1 2 3\r", "circle 1.0 2.0 3.0" },
+                { "rectangle 0 0 1 1", "rectangle 0.0 0.0 1.0 1.0" },
+                { "rectangle .5 5. 1e-3 0x1p4", "rectangle 0.5 5.0 0.001 16.0" },
+                { "rectangle 1 2 3 4 5", "error: The rectangle command requires four parameters as valid numbers" },
+                { "move 0 1 1", "move 0.0 1.0 1.0" },
+                { "move 0 NaN -Infinity", "move 0.0 NaN -Infinity" },
+                { "remove 1", "remove 1.0" },
+                { "remove 1.5", "error: The argument of the remove command must be a whole number" },
+                { "remove 2e0", "remove 2.0" },
+                { "remove -0", "remove -0.0" },
+                { "window 0 0 10 10", "window 0.0 0.0 10.0 10.0" },
+                { "point 1 2", "point 1.0 2.0" },
+                { "show 5", "show 5.0" },
+                { "show 2 4", "show 2.0 4.0" },
+                { "show 1.5", "error: The show command takes one or two whole numbers as parameters" },
+                { "show 1 2 3", "error: The show command takes one or two whole numbers as parameters" },
+                { "show x", "error: The show command takes one or two whole numbers as parameters" },
+                { "point 1", "error: The point command requires two parameters as valid numbers" },
+                { "bogus 1 2", "error: The command you entered was not recognized as one of the possible commands" },
+                { "top 3", "top 3.0" },
+                { "TOP 0", "top 0.0" },
+                { "top 1.5", "error: The argument of the top command must be a non-negative whole number" },
+                { "top -1", "error: The argument of the top command must be a non-negative whole number" },
+                { "top 1 2", "error: The top command requires one parameter as a valid number" },
+                { "top", "error: Only commands {show, sort, quit, undo, redo, stats, overlaps, metrics} are recognised as zero-argument command." },
+                { "area 1 2", "area 1.0 2.0" },
+                { "Area 0.5 1e3", "area 0.5 1000.0" },
+                { "area 1", "error: The area command requires two parameters as valid numbers" },
+                { "area 1 x 2", "area 1.0 2.0" },
+                { "circle 123456789012345678901 0.1234567890123456789 1e400", "circle 1.2345678901234568E20 0.12345678901234568 Infinity" },
+                { "circle 1e-400 1d 2.5f", "circle 0.0 1.0 2.5" },
+                { "circle - + .", "error: The circle command requires three parameters as valid numbers" },
+                { "circle 1e 1e+ 0x1", "error: The circle command requires three parameters as valid numbers" },
+                { "save", "error: The save command requires a file name" },
+                { "save shapes.bin", "save 'shapes.bin'" },
+                { "load  my shapes.bin ", "load 'my shapes.bin'" },
+                { "import data.csv", "import 'data.csv'" },
+                { "export", "error: The export command requires a file name" },
+                { "export out.ndjson", "export 'out.ndjson'" }
+            };
+
+            CommandParser parser = new CommandParser();
+            for (String[] testCase : cases)
+            {
+                Test.AreEqual(testCase[1], describe(parser, testCase[0]), "'" + testCase[0] + "' is parsed correctly");
+            }
+
+            Random random = new Random(11);
+            String[] tokens = { "circle", "move", "remove", "sort", "1", "-2.5", "3e1", "x", "", "0.1", "7.", "1e", "NaN" };
+            for (int k = 0; k < 500; k++)
+            {
+                StringBuilder input = new StringBuilder();
+                int parts = random.nextInt(6);
+                for (int part = 0; part < parts; part++)
+                {
+                    if (part > 0) input.append(' ');
+                    input.append(tokens[random.nextInt(tokens.length)]);
+                }
+
+                // the arguments of a parsed command are the parts that Double.parseDouble accepts
+                String[] split = input.toString().split(" ");
+                if (parser.parse(input) && parser.command() != CommandParser.SORT)
+                {
+                    List<Double> expected = new ArrayList<Double>();
+                    for (int part = 1; part < split.length; part++)
+                    {
+                        try
+                        {
+                            expected.add(Double.parseDouble(split[part]));
+                        }
+                        catch (NumberFormatException ex)
+                        {
+                            // not a number, so it is skipped
+                        }
+                    }
+
+                    List<Double> actual = new ArrayList<Double>();
+                    for (int i = 0; i < parser.argumentCount(); i++)
+                    {
+                        actual.add(parser.argument(i));
+                    }
+
+                    Test.AreEqual(expected.toString(), actual.toString(), "The numbers of '" + input + "' are parsed like Double.parseDouble does");
+                }
+                else
+                {
+                    Test.AreEqual(parser.command() == CommandParser.SORT, parser.error().isEmpty(), "'" + input + "' is parsed or reports why not");
+                }
+            }
+        });
+
+        Test.Case("saved shape files load back the same shapes and sort straight from the mapping", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(100);
+            Random random = new Random(5);
+            for (int i = 0; i < 100; i++)
+            {
+                if (random.nextBoolean())
+                {
+                    shapeList.addCircle(random.nextInt(50), random.nextInt(50), 1 + random.nextInt(5));
+                }
+                else
+                {
+                    shapeList.addRectangle(random.nextInt(50), random.nextInt(50), 1 + random.nextInt(5), 1 + random.nextInt(5));
+                }
+            }
+
+            try
+            {
+                File file = File.createTempFile("shapes", ".bin");
+                file.deleteOnExit();
+                ShapeFile.save(shapeList, file.toPath());
+                MappedShapes mapped = ShapeFile.open(file.toPath());
+
+                List<String> expected = new ArrayList<String>();
+                List<String> actual = new ArrayList<String>();
+                shapeList.readShapesUsing(expected::add);
+                mapped.readShapesUsing(actual::add);
+                Test.AreEqual(expected.toString(), actual.toString(), "The mapped file renders the same shapes");
+
+                ShapeList loaded = new ShapeList(100);
+                Test.AreEqual(100, mapped.appendTo(loaded), "All shapes are loaded");
+
+                int[] order = mapped.sortedByArea();
+                shapeList.sortByArea();
+                for (int i = 0; i < order.length; i++)
+                {
+                    Test.AreEqual(shapeList.shapeAt(i).toString(), mapped.shapeAt(order[i]).toString());
+                }
+
+                Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+                boolean rejected = false;
+                try
+                {
+                    ShapeFile.open(file.toPath());
+                }
+                catch (IOException ex)
+                {
+                    rejected = true;
+                }
+
+                Test.AreEqual(true, rejected, "Files without a valid header are rejected");
+
+                // a save that fails halfway leaves the existing file as it was
+                ShapeFile.save(shapeList, file.toPath());
+                byte[] saved = Files.readAllBytes(file.toPath());
+                ShapeCursor invalidated = shapeList.cursor();
+                shapeList.removeShapeAtIndex(0);
+                for (String name : Arrays.asList("shapes.bin", "shapes.csv"))
+                {
+                    Path target = file.toPath().resolveSibling(name);
+                    Files.write(target, saved);
+                    boolean failed = false;
+                    try
+                    {
+                        ShapeExport.write(invalidated, target);
+                    }
+                    catch (ConcurrentModificationException ex)
+                    {
+                        failed = true;
+                    }
+
+                    Test.AreEqual(true, failed, "Exporting through an invalidated cursor fails");
+                    Test.AreEqual(true, Arrays.equals(saved, Files.readAllBytes(target)), "A failed export to " + name + " keeps the existing file");
+                    Test.AreEqual(false, Files.exists(target.resolveSibling(name + ".tmp")), "A failed export to " + name + " leaves no temporary file");
+                    Files.delete(target);
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("command journal recovers the shapes after compaction and a torn last record", () -> 
+        {   
+            try
+            {
+                Path directory = Files.createTempDirectory("journal");
+                ShapeList shapeList = new ShapeList(1000);
+                CommandParser parser = new CommandParser();
+                double[] arguments = new double[CommandJournal.MAX_ARGUMENTS];
+                Random random = new Random(13);
+                String[] commands = { "circle %d %d 2", "rectangle %d %d 1 3", "move %d 1 -1", "remove %d", "sort", "sort x" };
+                try (CommandJournal journal = CommandJournal.open(directory, new ShapeList(1000), 256))
+                {
+                    for (int k = 0; k < 500; k++)
+                    {
+                        String command = String.format(commands[random.nextInt(commands.length)], random.nextInt(Math.max(1, shapeList.size())), random.nextInt(20));
+                        if (!parser.parse(command) || (command.startsWith("move") || command.startsWith("remove")) && shapeList.isEmpty())
+                        {
+                            continue;
+                        }
+
+                        for (int i = 0; i < parser.argumentCount(); i++)
+                        {
+                            arguments[i] = parser.argument(i);
+                        }
+
+                        CommandJournal.apply(shapeList, parser.command(), arguments, parser.argumentCount());
+                        journal.append(parser);
+                        if (journal.needsCompaction())
+                        {
+                            journal.compact(shapeList.snapshot());
+                        }
+                    }
+                }
+
+                long snapshots;
+                try (java.util.stream.Stream<Path> files = Files.list(directory))
+                {
+                    snapshots = files.filter(file -> file.toString().endsWith(".bin")).count();
+                }
+
+                Test.AreEqual(1L, snapshots, "The journal was compacted into a single snapshot");
+
+                Path last;
+                try (java.util.stream.Stream<Path> files = Files.list(directory))
+                {
+                    last = files
+                        .filter(file -> file.toString().endsWith(".log"))
+                        .max(Comparator.comparingLong(file -> CommandJournal.generationOf(file.getFileName().toString())))
+                        .get();
+                }
+
+                long validSize = Files.size(last);
+                Files.write(last, new byte[] { CommandParser.CIRCLE, 3, 0, 0 }, StandardOpenOption.APPEND);
+
+                ShapeList recovered = new ShapeList(1000);
+                CommandJournal.open(directory, recovered).close();
+                List<String> expected = new ArrayList<String>();
+                List<String> actual = new ArrayList<String>();
+                shapeList.readShapesUsing(expected::add);
+                recovered.readShapesUsing(actual::add);
+                Test.AreEqual(expected.toString(), actual.toString(), "The recovered shapes equal the journaled shapes");
+                Test.AreEqual(validSize, Files.size(last), "The torn record was dropped");
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("command journal recovers an import and the undos after it when the editor crashes", () -> 
+        {   
+            try
+            {
+                Path directory = Files.createTempDirectory("journal");
+                Path csv = directory.resolve("shapes.csv");
+                Files.write(csv, Arrays.asList("circle,1,2,3", "rectangle,4,5,6,7", "circle,8,9,1"));
+                ShapeListEditor editor = new ShapeListEditor(new ByteArrayOutputStream());
+                editor.useJournal(directory.resolve("journal"));
+                for (String command : Arrays.asList("circle 0 0 1", "rectangle 0 0 2 2", "import " + csv, "remove 0", "move 1 1 1", "undo", "undo", "redo", "sort x", "undo", "redo", "undo", "circle 3 3 3", "undo", "redo"))
+                {
+                    editor.handle(command);
+                }
+
+                // the journal is not closed, like after a crash, so only what was durable when the commands returned is read
+                editor.syncJournal();
+                ShapeList recovered = new ShapeList(100);
+                CommandJournal.open(directory.resolve("journal"), recovered).close();
+                List<String> expected = new ArrayList<String>();
+                List<String> actual = new ArrayList<String>();
+                editor.shapeList().readShapesUsing(expected::add);
+                recovered.readShapesUsing(actual::add);
+                Test.AreEqual(5, expected.size(), "The imported shapes were added, one was removed and one was added");
+                Test.AreEqual(expected.toString(), actual.toString(), "The recovered shapes include the imported shapes and the changes after them");
+                long snapshots;
+                try (java.util.stream.Stream<Path> files = Files.list(directory.resolve("journal")))
+                {
+                    snapshots = files.filter(file -> file.toString().endsWith(".bin")).count();
+                }
+
+                Test.AreEqual(1L, snapshots, "Only the import needed a snapshot, undo and redo are journaled as deltas");
+                editor.closeJournal();
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("command journal keeps the handles of the shapes across snapshots", () -> 
+        {   
+            try
+            {
+                Path directory = Files.createTempDirectory("journal");
+                Path csv = directory.resolve("shapes.csv");
+                Files.write(csv, Arrays.asList("circle,1,2,3", "rectangle,4,5,6,7", "circle,8,9,1"));
+                ShapeListEditor editor = new ShapeListEditor(new ByteArrayOutputStream());
+                editor.useHandles();
+                editor.useJournal(directory.resolve("journal"));
+                editor.handle("import " + csv);
+                ShapeList shapeList = editor.shapeList();
+                long removed = shapeList.handleAt(0);
+                editor.handle("remove " + removed);
+                editor.handle("circle 0 0 1");
+                editor.handle("import " + csv);
+                shapeList = editor.shapeList();
+                editor.handle("remove " + shapeList.handleAt(1));
+                editor.syncJournal();
+
+                ShapeList recovered = new ShapeList(100);
+                recovered.enableHandles();
+                CommandJournal.open(directory.resolve("journal"), recovered).close();
+                Test.AreEqual(shapeList.size(), recovered.size(), "Every shape is recovered");
+                boolean same = true;
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    same &= shapeList.handleAt(i) == recovered.handleAt(i);
+                }
+
+                Test.AreEqual(true, same, "Every shape has the same handle after recovery from the snapshots");
+                Test.AreEqual(false, recovered.indexOf(removed).isPresent(), "The handle of a removed shape does not resolve after recovery");
+                recovered.addCircle(5, 5, 5);
+                shapeList.addCircle(5, 5, 5);
+                Test.AreEqual(shapeList.handleAt(shapeList.size() - 1), recovered.handleAt(recovered.size() - 1), "A new shape reuses the same slot");
+                editor.closeJournal();
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("edit history undoes and redoes every change exactly and stays within its memory limit", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(1000);
+            EditHistory history = new EditHistory();
+            Random random = new Random(17);
+            List<String> states = new ArrayList<String>();
+            states.add("[]");
+            List<String> rendered = new ArrayList<String>();
+            for (int k = 0; k < 300; k++)
+            {
+                int operation = shapeList.isEmpty() ? 0 : random.nextInt(5);
+                int i = shapeList.isEmpty() ? 0 : random.nextInt(shapeList.size());
+                if (operation == 0)
+                {
+                    history.recordAdd(shapeList, shapeList.addCircle(random.nextDouble() * 10, random.nextDouble() * 10, 1).getAsInt());
+                }
+                else if (operation == 1)
+                {
+                    history.recordAdd(shapeList, shapeList.addRectangle(random.nextDouble(), random.nextDouble(), 2, 3).getAsInt());
+                }
+                else if (operation == 2)
+                {
+                    history.recordRemove(shapeList, i);
+                    shapeList.removeShapeAtIndex(i);
+                }
+                else if (operation == 3)
+                {
+                    double x = shapeList.xAt(i);
+                    double y = shapeList.yAt(i);
+                    shapeList.moveShapeAtIndex(i, 0.1, -0.3);
+                    history.recordMove(i, x, y, 0.1, -0.3);
+                }
+                else
+                {
+                    history.recordSort(shapeList.sortByKey(random.nextInt(3)));
+                }
+
+                rendered.clear();
+                shapeList.readShapesUsing(rendered::add);
+                states.add(rendered.toString());
+            }
+
+            for (int undone = 1; undone < states.size(); undone++)
+            {
+                history.undo(shapeList);
+                rendered.clear();
+                shapeList.readShapesUsing(rendered::add);
+                Test.AreEqual(states.get(states.size() - 1 - undone), rendered.toString());
+            }
+
+            Test.AreEqual(false, history.undo(shapeList), "Nothing is left to undo");
+            while (history.redo(shapeList))
+            {
+            }
+
+            rendered.clear();
+            shapeList.readShapesUsing(rendered::add);
+            Test.AreEqual(states.get(states.size() - 1), rendered.toString(), "Redoing everything gives the final list");
+            Test.AreEqual(shapeList.size(), shapeList.shapesIntersecting(-100, -100, 100, 100).length, "The spatial index follows undo and redo");
+
+            EditHistory bounded = new EditHistory(10 * EditHistory.ENTRY_BYTES);
+            for (int k = 0; k < 100; k++)
+            {
+                bounded.recordMove(0, 0, 0, 1, 1);
+            }
+
+            Test.AreEqual(10, bounded.undoCount(), "Only the latest changes that fit are kept");
+            Test.AreEqual(true, bounded.bytesUsed() <= 10 * EditHistory.ENTRY_BYTES, "The history stays within its memory limit");
+        });
+
+        Test.Case("maintained statistics match a scan of the shapes after random edits", () -> 
+        {   
+            ShapeList shapeList = new ShapeList(500);
+            Random random = new Random(19);
+            for (int k = 0; k < 2000; k++)
+            {
+                int operation = shapeList.isEmpty() ? 0 : random.nextInt(5);
+                if (operation == 0 && !shapeList.isFull())
+                {
+                    shapeList.addCircle(random.nextInt(1000) - 500, random.nextInt(1000) - 500, random.nextInt(20));
+                }
+                else if (operation == 1 && !shapeList.isFull())
+                {
+                    shapeList.addRectangle(random.nextInt(1000) - 500, random.nextInt(1000) - 500, random.nextInt(20), random.nextInt(20));
+                }
+                else if (operation == 2)
+                {
+                    shapeList.removeShapeAtIndex(random.nextInt(shapeList.size()));
+                }
+                else if (operation == 3)
+                {
+                    shapeList.moveShapeAtIndex(random.nextInt(shapeList.size()), random.nextInt(100) - 50, random.nextInt(100) - 50);
+                }
+                else
+                {
+                    shapeList.sortByLeftBorder();
+                }
+
+                ShapeStats stats = shapeList.stats();
+                int circles = 0;
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    circles += shapeList.shapeAt(i) instanceof Circle ? 1 : 0;
+                }
+
+                Test.AreEqual(circles, stats.circles);
+                Test.AreEqual(shapeList.size() - circles, stats.rectangles);
+                Test.AreEqual(true, Math.abs(shapeList.totalArea() - stats.totalArea) <= 1e-9 * Math.max(1, stats.totalArea));
+                Test.AreEqual(shapeList.boundingBox().map(BoundingBox::toString).orElse(""), stats.boundingBox.map(BoundingBox::toString).orElse(""));
+            }
+        });
+
+        Test.Case("buffered show renders the same lines as toString and pages through ranges", () -> 
+        {   
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ShapeListEditor editor = new ShapeListEditor(output);
+            try
+            {
+                String script = "circle 1.5 -2 3e-5\nrectangle 0.1 1e21 1 2\ncircle 3 4 5\nshow 2\nshow 1 5\nshow 4 9\n";
+                editor.runBatch(new BufferedReader(new StringReader(script)));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String nl = System.lineSeparator();
+            String printed = output.toString();
+            Test.AreEqual(true, printed.contains(" |-- " + new Circle(1.5, -2, 3e-5) + nl + " |-- " + new Rectangle(0.1, 1e21, 1, 2) + nl), "Shapes are rendered like toString");
+            Test.AreEqual(true, printed.contains("Shapes 0 to 1 of 3:" + nl + " |-- 0: " + new Circle(1.5, -2, 3e-5) + nl + " |-- 1: "), "The first n shapes are shown");
+            Test.AreEqual(true, printed.contains("Shapes 1 to 2 of 3:"), "Ranges are clipped to the list");
+            Test.AreEqual(true, printed.contains("No shapes were found"), "Ranges past the end are empty");
+        });
+
+        Test.Case("appendTo writes the same characters as toString and Double.toString", () ->
+        {
+            double[] edges = { 0.0, -0.0, 1.0, -1.0, 0.1, 0.001, 0.000999, 1e-3 - Math.ulp(1e-3), 9999999.0, 9999999.999999998, 1e7, 1e7 - 0.5,
+                               123456.789, 0.30000000000000004, 1.0 / 3, 2.82879384806159E17, Double.MIN_VALUE, Double.MAX_VALUE,
+                               Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+            Random random = new Random(14);
+            int mismatches = 0;
+            for (int k = 0; k < 200000 + edges.length; k++)
+            {
+                double value;
+                if (k < edges.length)
+                {
+                    value = edges[k];
+                }
+                else if (k % 3 == 0)
+                {
+                    value = Double.longBitsToDouble(random.nextLong());
+                }
+                else
+                {
+                    // values as they are typed into the editor: a few digits at a random scale
+                    value = (random.nextInt(2000001) - 1000000) / Math.pow(10, random.nextInt(9));
+                }
+
+                StringBuilder builder = new StringBuilder();
+                StringWriter writer = new StringWriter();
+                try
+                {
+                    DoubleFormat.append(writer, value);
+                }
+                catch (IOException ex)
+                {
+                    throw new UncheckedIOException(ex);
+                }
+
+                String expected = Double.toString(value);
+                if (!expected.equals(DoubleFormat.append(builder, value).toString()) || !expected.equals(writer.toString()))
+                {
+                    mismatches++;
+                }
+            }
+
+            Test.AreEqual(0, mismatches, "Every double is formatted like Double.toString");
+
+            Circle circle = new Circle(-0.5, 1e-4, 12.75);
+            Rectangle rectangle = new Rectangle(1234567.125, -0.0, 1e21, 0.1);
+            StringWriter writer = new StringWriter();
+            try
+            {
+                circle.appendTo(writer);
+                rectangle.appendTo(writer);
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String concatenated = "Cirlce(X=" + -0.5 + ", Y=" + 1e-4 + ", Radius=" + 12.75 + ")"
+                                + "Rectangle(X=" + 1234567.125 + ", Y=" + -0.0 + ", Height=" + 1e21 + ", Width=" + 0.1 + ")";
+            Test.AreEqual(concatenated, rectangle.appendTo(circle.appendTo(new StringBuilder())).toString(), "Shapes append like they used to concatenate");
+            Test.AreEqual(concatenated, writer.toString(), "Shapes write to an Appendable like they used to concatenate");
+        });
+
+        Test.Case("shape lists grow in chunks and are full when their memory budget is used up", () ->
+        {
+            ShapeList budgeted = new ShapeList(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, 100L * ShapeList.BYTES_PER_SHAPE);
+            int added = 0;
+            while (!budgeted.isFull() && budgeted.addCircle(added, 0, 1).isPresent())
+            {
+                added++;
+            }
+
+            Test.AreEqual(100, added, "The budget allows as many shapes as fit");
+            Test.AreEqual(false, budgeted.addRectangle(0, 0, 1, 1).isPresent(), "A full list rejects new shapes");
+            Test.AreEqual("[3, 4, 5]", Arrays.toString(budgeted.shapesIntersecting(4, -0.5, 4, 0.5)), "Windows are answered by a scan when the grid does not fit");
+            Test.AreEqual(100, budgeted.stats().circles, "The stats are scanned when the aggregate tree does not fit");
+            budgeted.sortByLeftBorder();
+            Test.AreEqual(new Circle(0, 0, 1).toString(), budgeted.shapeAt(0).toString(), "Sorts still work when their order does not fit");
+            Test.AreEqual(100L * ShapeList.BYTES_PER_SHAPE, budgeted.estimatedBytes(), "Indexes that do not fit are not kept");
+
+            ShapeList indexed = new ShapeList(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, 100L * ShapeList.BYTES_PER_INDEXED_SHAPE);
+            indexed.addCircle(0, 0, 1);
+            Test.AreEqual((long) ShapeList.BYTES_PER_SHAPE, indexed.estimatedBytes(), "A list without queries only takes its columns");
+            indexed.shapesContaining(0, 0);
+            indexed.sortByArea();
+            Test.AreEqual((long) ShapeList.BYTES_PER_SHAPE + SpatialGrid.BYTES_PER_SHAPE + SortOrder.BYTES_PER_SHAPE, indexed.estimatedBytes(), "The indexes are budgeted once queries built them");
+            Test.AreEqual(true, indexed.capacity() < 100L * ShapeList.BYTES_PER_INDEXED_SHAPE / ShapeList.BYTES_PER_SHAPE, "Building indexes leaves room for fewer shapes");
+
+            int count = 2 * ShapeColumns.CHUNK_SIZE + 10;
+            ShapeList shapeList = new ShapeList();
+            List<Double> expected = new ArrayList<Double>();
+            for (int i = 0; i < count; i++)
+            {
+                shapeList.addRectangle(i, -i, 1, 1);
+                expected.add((double) i);
+            }
+
+            // removals shift shapes across the boundaries between chunks
+            for (int i : new int[] { ShapeColumns.CHUNK_SIZE + 5, ShapeColumns.CHUNK_SIZE - 1, 3 })
+            {
+                shapeList.removeShapeAtIndex(i);
+                expected.remove(i);
+            }
+
+            boolean same = shapeList.size() == expected.size();
+            for (int i = 0; same && i < expected.size(); i++)
+            {
+                same = shapeList.xAt(i) == expected.get(i) && shapeList.yAt(i) == -expected.get(i);
+            }
+
+            Test.AreEqual(true, same, "Removing keeps the shapes in order across chunks");
+
+            shapeList.sortByBottomBorder();
+            Test.AreEqual(-expected.get(expected.size() - 1), shapeList.bottomBorderAt(0), "Sorting permutes the chunked columns");
+            Test.AreEqual(true, -expected.get(0) == shapeList.bottomBorderAt(shapeList.size() - 1), "Sorting keeps every shape");
+        });
+
+        Test.Case("off-heap shape lists behave like shape lists on the heap", () ->
+        {
+            Random random = new Random(16);
+            ShapeList onHeap = new ShapeList();
+            try (ShapeList offHeap = ShapeList.offHeap(ShapeList.MAX_CAPACITY, ShapeList.DEFAULT_CELL_SIZE, ShapeList.defaultMemoryBudget()))
+            {
+                for (int step = 0; step < 3 * ShapeColumns.CHUNK_SIZE; step++)
+                {
+                    int operation = random.nextInt(20);
+                    double x = random.nextDouble() * 1000;
+                    double y = random.nextDouble() * 1000;
+                    double size = random.nextDouble() * 10;
+                    if (operation < 9)
+                    {
+                        onHeap.addCircle(x, y, size);
+                        offHeap.addCircle(x, y, size);
+                    }
+                    else if (operation < 17)
+                    {
+                        onHeap.addRectangle(x, y, size, size / 2);
+                        offHeap.addRectangle(x, y, size, size / 2);
+                    }
+                    else if (operation < 19)
+                    {
+                        int i = random.nextInt(onHeap.size());
+                        onHeap.moveShapeAtIndex(i, x - 500, y - 500);
+                        offHeap.moveShapeAtIndex(i, x - 500, y - 500);
+                    }
+                    else
+                    {
+                        int i = random.nextInt(onHeap.size());
+                        onHeap.removeShapeAtIndex(i);
+                        offHeap.removeShapeAtIndex(i);
+                    }
+                }
+
+                onHeap.sortByArea();
+                offHeap.sortByArea();
+                List<String> expected = new ArrayList<String>();
+                List<String> actual = new ArrayList<String>();
+                onHeap.readShapesUsing(shape -> expected.add(shape));
+                offHeap.readShapesUsing(shape -> actual.add(shape));
+                Test.AreEqual(true, expected.equals(actual), "The same edits and sort give the same shapes");
+                Test.AreEqual(Arrays.toString(onHeap.shapesContaining(500, 500)), Arrays.toString(offHeap.shapesContaining(500, 500)), "Queries find the same shapes");
+            }
+        });
+
+        Test.Case("handles keep identifying shapes across swap removals, sorting and undo", () ->
+        {
+            Random random = new Random(17);
+            ShapeList shapeList = new ShapeList(ShapeList.MAX_CAPACITY, 5.0, ShapeList.defaultMemoryBudget());
+            shapeList.enableHandles();
+            EditHistory history = new EditHistory();
+            Map<Long, Double> xByHandle = new HashMap<Long, Double>();
+            List<Long> removed = new ArrayList<Long>();
+            for (int step = 0; step < 3000; step++)
+            {
+                int operation = random.nextInt(10);
+                if (operation < 5 || shapeList.isEmpty())
+                {
+                    double x = random.nextDouble() * 100;
+                    int i = shapeList.addRectangle(x, random.nextDouble() * 100, random.nextDouble() * 10, random.nextDouble() * 10).getAsInt();
+                    xByHandle.put(shapeList.handleAt(i), x);
+                }
+                else if (operation < 9)
+                {
+                    int i = random.nextInt(shapeList.size());
+                    long handle = shapeList.handleAt(i);
+                    xByHandle.remove(handle);
+                    removed.add(handle);
+                    shapeList.swapRemoveShapeAtIndex(i);
+                }
+                else
+                {
+                    shapeList.sortByLeftBorder();
+                }
+            }
+
+            boolean resolves = shapeList.size() == xByHandle.size();
+            for (Map.Entry<Long, Double> entry : xByHandle.entrySet())
+            {
+                OptionalInt index = shapeList.indexOf(entry.getKey());
+                resolves = resolves && index.isPresent() && shapeList.xAt(index.getAsInt()) == entry.getValue();
+            }
+
+            boolean stale = true;
+            for (long handle : removed)
+            {
+                stale = stale && !shapeList.indexOf(handle).isPresent();
+            }
+
+            Test.AreEqual(true, resolves, "Every handle finds its shape");
+            Test.AreEqual(true, stale, "Handles of removed shapes find nothing, even when their slot was reused");
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < shapeList.size(); i++)
+            {
+                if (shapeList.intersectsAt(i, 40, 40, 60, 60)) expected.add(i);
+            }
+
+            Test.AreEqual(expected.toString(), Arrays.toString(shapeList.shapesIntersecting(40, 40, 60, 60)), "The spatial grid follows the swapped shapes");
+            shapeList.sortByArea();
+            boolean sorted = true;
+            for (int i = 1; i < shapeList.size(); i++)
+            {
+                sorted = sorted && shapeList.areaAt(i - 1) <= shapeList.areaAt(i);
+            }
+
+            Test.AreEqual(true, sorted, "The sort order follows the swapped shapes");
+
+            long first = shapeList.handleAt(0);
+            long last = shapeList.handleAt(shapeList.size() - 1);
+            double x = shapeList.xAt(0);
+            history.recordSwapRemove(shapeList, 0);
+            shapeList.swapRemoveShapeAtIndex(0);
+            Test.AreEqual(0, shapeList.indexOf(last).getAsInt(), "The last shape takes the place of the removed one");
+            history.undo(shapeList);
+            Test.AreEqual(x, shapeList.xAt(0), "Undo puts the removed shape back at its index");
+            Test.AreEqual(shapeList.size() - 1, shapeList.indexOf(last).getAsInt(), "Undo moves the last shape back to the end");
+            Test.AreEqual(false, shapeList.indexOf(first).isPresent(), "The restored shape gets a new handle");
+        });
+
+        Test.Case("in handle mode the editor lists handles and move and remove take them", () ->
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ShapeListEditor editor = new ShapeListEditor(output);
+            editor.useHandles();
+            try
+            {
+                String script = "circle 0 0 1\ncircle 1 1 1\ncircle 2 2 1\nremove 0\nmove 2 10 10\nremove 0\nshow\n";
+                editor.runBatch(new BufferedReader(new StringReader(script)));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String nl = System.lineSeparator();
+            String printed = output.toString();
+            Test.AreEqual(true, printed.contains(" |-- #2: " + new Circle(12, 12, 1) + nl + " |-- #1: " + new Circle(1, 1, 1) + nl), "Shapes keep their handle after the first shape was removed");
+            Test.AreEqual(true, printed.contains("There is no shape with handle 0"), "A removed handle is not found again");
+        });
+
+        Test.Case("bulk geometry kernels agree with the shapes one at a time", () ->
+        {
+            Random random = new Random(18);
+            ShapeList vector = new ShapeList();
+            ShapeList scalar = new ShapeList();
+            scalar.useKernels(new ScalarKernels());
+            int count = ShapeColumns.CHUNK_SIZE + 37;
+            for (int i = 0; i < count; i++)
+            {
+                double x = random.nextDouble() * 1000 - 500;
+                double y = random.nextDouble() * 1000 - 500;
+                double size = random.nextDouble() * 10;
+                if (random.nextBoolean())
+                {
+                    vector.addCircle(x, y, size);
+                    scalar.addCircle(x, y, size);
+                }
+                else
+                {
+                    vector.addRectangle(x, y, size, size / 3);
+                    scalar.addRectangle(x, y, size, size / 3);
+                }
+            }
+
+            double[] areas = vector.areas();
+            double[][] borders = new double[4][count];
+            vector.borders(borders[0], borders[1], borders[2], borders[3]);
+            boolean same = true;
+            for (int i = 0; i < count; i++)
+            {
+                same &= areas[i] == vector.areaAt(i) && borders[0][i] == vector.leftBorderAt(i) && borders[1][i] == vector.bottomBorderAt(i) 
+                    && borders[2][i] == vector.rightBorderAt(i) && borders[3][i] == vector.topBorderAt(i);
+            }
+
+            Test.AreEqual(true, same, "Areas and borders are exactly those of the shapes");
+            Test.AreEqual(true, Arrays.equals(areas, scalar.areas()), "The vector and scalar kernels compute the same areas");
+            Test.AreEqual(true, Math.abs(vector.totalArea() - scalar.totalArea()) < 1e-9 * scalar.totalArea(), "Total areas only differ by rounding");
+            Test.AreEqual(scalar.boundingBox().get().toString(), vector.boundingBox().get().toString(), "Bounding boxes are the same");
+
+            vector.moveAll(250, -250);
+            scalar.moveAll(250, -250);
+            List<String> expected = new ArrayList<String>();
+            List<String> actual = new ArrayList<String>();
+            scalar.readShapesUsing(shape -> expected.add(shape));
+            vector.readShapesUsing(shape -> actual.add(shape));
+            Test.AreEqual(true, expected.equals(actual), "Moving all shapes moves them the same way");
+            Test.AreEqual(Arrays.toString(scalar.shapesContaining(250, -250)), Arrays.toString(vector.shapesContaining(250, -250)), "The indexes follow the moved shapes");
+        });
+
+        Test.Case("sweep and prune finds the same overlapping pairs as testing every pair, also after edits", () ->
+        {
+            Random random = new Random(19);
+            ShapeList shapeList = new ShapeList(ShapeList.MAX_CAPACITY, 5.0, ShapeList.defaultMemoryBudget());
+            for (int round = 0; round < 12; round++)
+            {
+                // the first rounds edit a few shapes, which are checked again one by one, later rounds sweep everything
+                int edits = round == 0 ? 600 : round < 8 ? 5 : 200;
+                for (int step = 0; step < edits; step++)
+                {
+                    int operation = shapeList.size() < 20 ? 0 : random.nextInt(10);
+                    double x = random.nextDouble() * 200;
+                    double y = random.nextDouble() * 200;
+                    if (operation < 4)
+                    {
+                        if (random.nextBoolean())
+                        {
+                            shapeList.addCircle(x, y, random.nextDouble() * 6);
+                        }
+                        else
+                        {
+                            shapeList.addRectangle(x, y, random.nextDouble() * 8, random.nextDouble() * 8);
+                        }
+                    }
+                    else if (operation < 7)
+                    {
+                        shapeList.moveShapeAtIndex(random.nextInt(shapeList.size()), x - 100, y - 100);
+                    }
+                    else if (operation < 8)
+                    {
+                        shapeList.removeShapeAtIndex(random.nextInt(shapeList.size()));
+                    }
+                    else if (operation < 9)
+                    {
+                        shapeList.swapRemoveShapeAtIndex(random.nextInt(shapeList.size()));
+                    }
+                    else
+                    {
+                        shapeList.sortByKey(random.nextInt(3));
+                    }
+                }
+
+                List<Integer> expected = new ArrayList<Integer>();
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    IShape first = shapeList.shapeAt(i);
+                    for (int j = i + 1; j < shapeList.size(); j++)
+                    {
+                        IShape second = shapeList.shapeAt(j);
+                        boolean boxes = first.LeftBorder() <= second.RightBorder() && second.LeftBorder() <= first.RightBorder() 
+                            && first.BottomBorder() <= second.TopBorder() && second.BottomBorder() <= first.TopBorder();
+                        if (boxes && shapeList.overlapsAt(i, j))
+                        {
+                            expected.add(i);
+                            expected.add(j);
+                        }
+                    }
+                }
+
+                int[] actual = shapeList.overlappingPairs();
+                Test.AreEqual(expected.toString(), Arrays.toString(actual), "Round " + round + " finds every overlapping pair");
+            }
+
+            Test.AreEqual(0, new ShapeList().overlapCount(), "An empty list has no overlaps");
+            ShapeList touching = new ShapeList();
+            touching.addCircle(0, 0, 1);
+            touching.addCircle(2, 0, 1);
+            touching.addRectangle(3, -1, 1, 1);
+            touching.addCircle(5, 5, 1);
+            // the corner (3, -1) of the rectangle is outside the circle around (2, 0), but its left side touches it at (3, 0)
+            Test.AreEqual("[0, 1, 1, 2]", Arrays.toString(touching.overlappingPairs()), "Touching shapes overlap and circles are tested exactly");
+            // with one of four shapes changed the list is swept again, in parallel
+            touching.setParallelThreshold(1);
+            touching.moveShapeAtIndex(3, -4, -5);
+            Test.AreEqual("[0, 1, 0, 3, 1, 2, 1, 3]", Arrays.toString(touching.overlappingPairs()), "A moved shape is checked again");
+        });
+
+        Test.Case("the overlaps command lists overlapping pairs", () ->
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ShapeListEditor editor = new ShapeListEditor(output);
+            try
+            {
+                String script = "overlaps\ncircle 0 0 2\nrectangle 1 1 3 3\ncircle 10 10 1\noverlaps\n";
+                editor.runBatch(new BufferedReader(new StringReader(script)));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String nl = System.lineSeparator();
+            String printed = output.toString();
+            Test.AreEqual(true, printed.contains("No shapes overlap"), "An empty list has no overlaps");
+            Test.AreEqual(true, printed.contains("Found 1 overlapping pair(s):" + nl + " |-- 0 and 1" + nl), "The circle overlaps the rectangle");
+        });
+
+        Test.Case("latency histograms keep durations within their precision", () ->
+        {
+            LatencyHistogram histogram = new LatencyHistogram();
+            Test.AreEqual(0L, histogram.percentile(99), "An empty histogram has no durations");
+            for (long nanos = 1; nanos <= 100_000; nanos++)
+            {
+                histogram.record(nanos);
+            }
+
+            long median = histogram.percentile(50);
+            long p99 = histogram.percentile(99);
+            Test.AreEqual(true, median >= 50_000 && median <= 50_000 * 33 / 32, "The median is off by at most 1/32");
+            Test.AreEqual(true, p99 >= 99_000 && p99 <= 99_000 * 33 / 32, "The 99th percentile is off by at most 1/32");
+            Test.AreEqual(100_000L, histogram.percentile(100), "The highest percentile is the exact maximum");
+            Test.AreEqual(50_000.5, histogram.mean(), "The mean is exact");
+            boolean ordered = true;
+            for (long nanos = 1; nanos < 1L << 42; nanos = nanos * 3 / 2 + 1)
+            {
+                int bucket = LatencyHistogram.bucketOf(nanos);
+                ordered &= nanos <= LatencyHistogram.highestIn(bucket) || nanos >= 1L << 41;
+                ordered &= bucket == 0 || nanos > LatencyHistogram.highestIn(bucket - 1);
+            }
+
+            Test.AreEqual(true, ordered, "Every duration falls in the bucket that covers it");
+        });
+
+        Test.Case("the metrics command shows command latencies, parse failures and sorts, also as JFR events", () ->
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ShapeListEditor editor = new ShapeListEditor(output);
+            int events = 0;
+            try (jdk.jfr.Recording recording = new jdk.jfr.Recording())
+            {
+                editor.runBatch(new BufferedReader(new StringReader("metrics\n")));
+                Test.AreEqual(true, output.toString().contains("Metrics are not enabled"), "Metrics are off by default");
+
+                editor.enableMetrics();
+                recording.enable("shapes.Command").withoutThreshold();
+                recording.enable("shapes.Sort").withoutThreshold();
+                recording.start();
+                String script = "circle 0 0 2\ncircle 1 1 1\nrectangle 0 0 1 1\nbogus\nsort\nsort x\nmetrics\n";
+                editor.runBatch(new BufferedReader(new StringReader(script)));
+                recording.stop();
+                Path file = Files.createTempFile("metrics", ".jfr");
+                recording.dump(file);
+                for (jdk.jfr.consumer.RecordedEvent event : jdk.jfr.consumer.RecordingFile.readAllEvents(file))
+                {
+                    events++;
+                }
+
+                Files.delete(file);
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String printed = output.toString();
+            Test.AreEqual(true, printed.contains(" |-- shapes: 3 (estimated memory: " + 3 * (ShapeList.BYTES_PER_SHAPE + 2 * SortOrder.BYTES_PER_SHAPE) + " bytes)"), "The size and memory of the list and its two sort orders are shown");
+            Test.AreEqual(true, printed.contains(" |-- parse failures: 1"), "The line that failed to parse is counted");
+            Test.AreEqual(true, printed.contains(" |-- circle: 2 time(s), mean "), "Every command has its own latencies");
+            Test.AreEqual(true, printed.contains(" |-- sort by area: 1 time(s)") && printed.contains(" |-- sort by left border: 1 time(s)"), "Sorts are timed per key");
+            // seven lines and two sorts, the metrics command itself is recorded after it printed
+            Test.AreEqual(9, events, "Commands and sorts are recorded as JFR events");
+        });
+
+        Test.Case("the shape server handles pipelined commands of many clients against one list", () ->
+        {
+            try (ShapeServer server = new ShapeServer(new ShapeListEditor(new ByteArrayOutputStream()), 0))
+            {
+                server.start();
+                String script = "circle 0 0 1\ncircle 5 5 1\nbogus\nsave shapes.txt\npoint 0 0\nquit\nshow\n";
+                List<String> lines = new ArrayList<String>();
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write(script.getBytes("UTF-8"));
+                    socket.getOutputStream().flush();
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        lines.add(line);
+                    }
+                }
+
+                Test.AreEqual(5L, lines.stream().filter(line -> line.equals(ShapeServer.END_OF_RESPONSE)).count(), "Every command before quit gets a response");
+                Test.AreEqual(true, lines.stream().anyMatch(line -> line.startsWith("Only commands {show")), "Parse errors are sent back");
+                Test.AreEqual(true, lines.contains("Commands that access files are not available over the network"), "Clients can not write files of the server");
+                Test.AreEqual(true, lines.contains(" |-- 0: " + new Circle(0, 0, 1)), "Queries see the shapes added before them");
+                Test.AreEqual(false, new File("shapes.txt").exists(), "Nothing was saved");
+
+                ShapeLoadClient.Report report = ShapeLoadClient.run("localhost", server.port(), 8, 200, 4);
+                Test.AreEqual(1600L, report.latencies.count(), "Every command of every connection is answered");
+                Test.AreEqual(true, report.latencies.percentile(50) <= report.latencies.percentile(99), "The percentiles are ordered");
+
+                lines.clear();
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write("stats\nquit\n".getBytes("UTF-8"));
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        lines.add(line);
+                    }
+                }
+
+                Test.AreEqual(true, lines.contains(" |-- shapes: 2 (2 circle(s), 0 rectangle(s))"), "The clients removed as many shapes as they added");
+            }
+            catch (IOException | InterruptedException | java.util.concurrent.ExecutionException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        Test.Case("the shape server streams plain shows in order and answers once the changes are durable", () ->
+        {
+            try
+            {
+                Path directory = Files.createTempDirectory("journal");
+                ShapeListEditor editor = new ShapeListEditor(new ByteArrayOutputStream());
+                editor.useJournal(directory);
+                editor.useHandles();
+                try (ShapeServer server = new ShapeServer(editor, 0))
+                {
+                    server.start();
+                    String script = "circle 0 0 1\nshow\ncircle 5 5 1\nshow\nquit\n";
+                    List<String> lines = new ArrayList<String>();
+                    try (Socket socket = new Socket("localhost", server.port());
+                         BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                    {
+                        socket.getOutputStream().write(script.getBytes("UTF-8"));
+                        socket.getOutputStream().flush();
+                        String line;
+                        while ((line = reader.readLine()) != null)
+                        {
+                            lines.add(line);
+                        }
+                    }
+
+                    Test.AreEqual(4L, lines.stream().filter(line -> line.equals(ShapeServer.END_OF_RESPONSE)).count(), "Every command before quit gets a response");
+                    Test.AreEqual(2L, lines.stream().filter(line -> line.startsWith(" |-- #") && line.endsWith(": " + new Circle(0, 0, 1))).count(), "Both shows list the first circle with its handle");
+                    int second = lines.lastIndexOf("Shape list contains:");
+                    Test.AreEqual(true, lines.subList(0, second).stream().noneMatch(line -> line.endsWith(new Circle(5, 5, 1).toString())), "The first show lists the list before the later command");
+                    Test.AreEqual(true, lines.subList(second, lines.size()).stream().anyMatch(line -> line.endsWith(new Circle(5, 5, 1).toString())), "The second show lists the list after it");
+
+                    // the responses were sent, so the changes are durable even though the server still has the journal open
+                    ShapeList recovered = new ShapeList(100);
+                    CommandJournal.open(directory, recovered).close();
+                    Test.AreEqual(2, recovered.size(), "The changes were durable before the client heard about them");
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("the event loop serves the same protocol and lists changed shapes again", () ->
+        {
+            try (ShapeEventLoop server = new ShapeEventLoop(new ShapeListEditor(new ByteArrayOutputStream()), 0))
+            {
+                server.start();
+                String script = "circle 0 0 1\r\nshow\nshow\ncircle 5 5 1\nshow\nload shapes.txt\nquit\nshow\n";
+                List<String> lines = new ArrayList<String>();
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write(script.getBytes("UTF-8"));
+                    socket.getOutputStream().flush();
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        lines.add(line);
+                    }
+                }
+
+                Test.AreEqual(6L, lines.stream().filter(line -> line.equals(ShapeServer.END_OF_RESPONSE)).count(), "Every command before quit gets a response");
+                Test.AreEqual(3L, lines.stream().filter(line -> line.equals(" |-- " + new Circle(0, 0, 1))).count(), "Every show lists the first circle");
+                Test.AreEqual(1L, lines.stream().filter(line -> line.equals(" |-- " + new Circle(5, 5, 1))).count(), "A show after a change lists the new shape");
+                Test.AreEqual(true, lines.contains("Commands that access files are not available over the network"), "Clients can not read files of the server");
+
+                ShapeLoadClient.Report report = ShapeLoadClient.run("localhost", server.port(), 8, 200, 4, true);
+                Test.AreEqual(1600L, report.latencies.count(), "Every command of every connection is answered");
+
+                lines.clear();
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write("stats\nquit\n".getBytes("UTF-8"));
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        lines.add(line);
+                    }
+                }
+
+                Test.AreEqual(true, lines.contains(" |-- shapes: 2 (2 circle(s), 0 rectangle(s))"), "The clients removed as many shapes as they added");
+            }
+            catch (IOException | InterruptedException | java.util.concurrent.ExecutionException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        Test.Case("the event loop sends a listing that spans several buffers whole and in order", () ->
+        {
+            try (ShapeEventLoop server = new ShapeEventLoop(new ShapeListEditor(new ByteArrayOutputStream()), 0))
+            {
+                server.start();
+                int count = 2000;
+                StringBuilder script = new StringBuilder();
+                for (int i = 0; i < count; i++)
+                {
+                    script.append("circle ").append(i).append(" 0 1\n");
+                }
+
+                script.append("show\nshow\nquit\n");
+                List<String> lines = new ArrayList<String>();
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write(script.toString().getBytes("UTF-8"));
+                    socket.getOutputStream().flush();
+                    String line;
+                    while ((line = reader.readLine()) != null)
+                    {
+                        lines.add(line);
+                    }
+                }
+
+                List<String> expected = new ArrayList<String>();
+                for (int i = 0; i < count; i++)
+                {
+                    expected.add(" |-- " + new Circle(i, 0, 1));
+                }
+
+                int first = lines.indexOf("Shape list contains:") + 1;
+                int second = lines.lastIndexOf("Shape list contains:") + 1;
+                Test.AreEqual(true, count * 40 > ShapeEventLoop.BUFFER_SIZE, "The listing does not fit one buffer");
+                Test.AreEqual(expected.toString(), lines.subList(first, first + count).toString(), "The first show lists every shape in order");
+                Test.AreEqual(expected.toString(), lines.subList(second, second + count).toString(), "The cached listing is sent the same way");
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("the event loop answers the clients of a select round once one journal sync made their changes durable", () ->
+        {
+            try
+            {
+                Path directory = Files.createTempDirectory("journal");
+                ShapeListEditor editor = new ShapeListEditor(new ByteArrayOutputStream());
+                editor.useJournal(directory);
+                try (ShapeEventLoop server = new ShapeEventLoop(editor, 0))
+                {
+                    server.start();
+                    List<Socket> sockets = new ArrayList<Socket>();
+                    List<BufferedReader> readers = new ArrayList<BufferedReader>();
+                    for (int k = 0; k < 4; k++)
+                    {
+                        Socket socket = new Socket("localhost", server.port());
+                        sockets.add(socket);
+                        readers.add(new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")));
+                    }
+
+                    for (int k = 0; k < 4; k++)
+                    {
+                        sockets.get(k).getOutputStream().write(("circle " + k + " 0 1\nrectangle 0 " + k + " 1 1\n").getBytes("UTF-8"));
+                    }
+
+                    for (BufferedReader reader : readers)
+                    {
+                        Test.AreEqual(ShapeServer.END_OF_RESPONSE, reader.readLine(), "The first command is answered");
+                        Test.AreEqual(ShapeServer.END_OF_RESPONSE, reader.readLine(), "The second command is answered");
+                    }
+
+                    // every client heard about its changes, so they are durable even though the journal is still open
+                    ShapeList recovered = new ShapeList(100);
+                    CommandJournal.open(directory, recovered).close();
+                    Test.AreEqual(8, recovered.size(), "The changes were durable before any client heard about them");
+                    for (Socket socket : sockets) socket.close();
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("the event loop only disconnects the client whose command failed unexpectedly", () ->
+        {
+            ShapeListEditor failing = new ShapeListEditor(new ByteArrayOutputStream())
+            {
+                @Override
+                void handle(CharSequence input)
+                {
+                    if (input.toString().equals("fail"))
+                    {
+                        throw new IllegalStateException("failed on purpose");
+                    }
+
+                    super.handle(input);
+                }
+            };
+
+            try (ShapeEventLoop server = new ShapeEventLoop(failing, 0);
+                 Socket other = new Socket("localhost", server.port());
+                 BufferedReader otherReader = new BufferedReader(new InputStreamReader(other.getInputStream(), "UTF-8")))
+            {
+                server.start();
+                other.getOutputStream().write("circle 0 0 1\n".getBytes("UTF-8"));
+                Test.AreEqual(ShapeServer.END_OF_RESPONSE, otherReader.readLine(), "The other client is answered");
+
+                String failed;
+                try (Socket socket = new Socket("localhost", server.port());
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")))
+                {
+                    socket.getOutputStream().write("fail\n".getBytes("UTF-8"));
+                    failed = reader.readLine();
+                }
+
+                Test.AreEqual(true, failed == null, "The client whose command failed is disconnected");
+                other.getOutputStream().write("stats\nquit\n".getBytes("UTF-8"));
+                List<String> lines = new ArrayList<String>();
+                String line;
+                while ((line = otherReader.readLine()) != null)
+                {
+                    lines.add(line);
+                }
+
+                Test.AreEqual(true, lines.contains(" |-- shapes: 1 (1 circle(s), 0 rectangle(s))"), "The other client is still served by the same loop");
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        Test.Case("import reads CSV and NDJSON lines and skips invalid ones", () ->
+        {
+            try
+            {
+                Path file = Files.createTempFile("shapes", ".csv");
+                Files.write(file, Arrays.asList(
+                    "kind,x,y,size",
+                    "circle,1,2,3",
+                    "Rectangle, 4, 5, 6, 7\r",
+                    "",
+                    "{\"type\": \"circle\", \"x\": 8, \"y\": 9, \"radius\": 0.5}",
+                    "{\"width\": 2, \"height\": 1, \"type\": \"rectangle\", \"y\": -1, \"x\": -2, \"color\": \"red\"}",
+                    "circle,1,2,-3",
+                    "rectangle,NaN,0,1,1",
+                    "triangle,0,0,1",
+                    "{\"type\": \"circle\", \"x\": 1, \"y\": 2}",
+                    "circle,1,2,3,4"));
+
+                ShapeList shapeList = new ShapeList(10);
+                ShapeImport.Report report = ShapeImport.read(file, shapeList);
+                Test.AreEqual(4L, report.shapes, "The valid shapes are imported");
+                Test.AreEqual(5L, report.rejected, "Invalid lines are counted, the header and the empty line are not");
+                Test.AreEqual(7L, report.firstRejected, "The first invalid line is reported");
+                Test.AreEqual(new Rectangle(4, 5, 6, 7).toString(), shapeList.shapeAt(1).toString(), "CSV is read ignoring case, spaces and carriage returns");
+                Test.AreEqual(new Circle(8, 9, 0.5).toString(), shapeList.shapeAt(2).toString(), "NDJSON circles are read");
+                Test.AreEqual(new Rectangle(-2, -1, 1, 2).toString(), shapeList.shapeAt(3).toString(), "NDJSON members may come in any order");
+
+                ShapeList small = new ShapeList(2);
+                Test.AreEqual(true, ShapeImport.read(file, small).full, "The import stops when the list is full");
+                Files.delete(file);
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        Test.Case("import appends large files in order across chunks and slices", () ->
+        {
+            try
+            {
+                Path file = Files.createTempFile("shapes", ".csv");
+                int count = 500_000;
+                try (BufferedWriter writer = Files.newBufferedWriter(file))
+                {
+                    for (int i = 0; i < count; i++)
+                    {
+                        writer.write(i % 2 == 0 ? "circle," + i + ",0,1\n" : "{\"type\":\"rectangle\",\"x\":" + i + ",\"y\":0,\"height\":1,\"width\":1}\n");
+                    }
+                }
+
+                Test.AreEqual(true, Files.size(file) > ShapeImport.CHUNK_SIZE, "The file spans more than one chunk");
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ShapeListEditor editor = new ShapeListEditor(output);
+                editor.showAfterChanges(false);
+                editor.runBatch(new BufferedReader(new StringReader("import " + file + "\nstats\n")));
+                String printed = output.toString();
+                Test.AreEqual(true, printed.contains("Imported " + count + " shape(s) in "), "Every line is imported");
+                Test.AreEqual(true, printed.contains(" |-- shapes: " + count + " (" + count / 2 + " circle(s), " + count / 2 + " rectangle(s))"), "The statistics see the imported shapes");
+
+                ShapeList shapeList = new ShapeList(count);
+                shapeList.setParallelThreshold(1);
+                ShapeImport.read(file, shapeList);
+                boolean ordered = true;
+                for (int i = 0; i < count; i++)
+                {
+                    ordered &= shapeList.xAt(i) == i && shapeList.isCircleAt(i) == (i % 2 == 0);
+                }
+
+                Test.AreEqual(true, ordered, "Parallel parsing keeps the order of the file");
+                Files.delete(file);
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        Test.Case("cursors read the shapes that match their filters in index order", () ->
+        {
+            Random random = new Random(11);
+            ShapeList shapeList = new ShapeList(2000, 4.0);
+            for (int i = 0; i < 2000; i++)
+            {
+                if (i % 3 == 0) shapeList.addCircle(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 5);
+                else shapeList.addRectangle(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 10, random.nextDouble() * 10);
+            }
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 100; i < 1500 && expected.size() < 40; i++)
+            {
+                double area = shapeList.areaAt(i);
+                if (shapeList.isCircleAt(i) && area >= 10 && area <= 50 && shapeList.intersectsAt(i, 20, 20, 70, 70)) expected.add(i);
+            }
+
+            List<Integer> read = new ArrayList<Integer>();
+            ShapeCursor cursor = shapeList.cursor().range(100, 1500).circles().areaBetween(10, 50).within(70, 70, 20, 20).limit(40);
+            while (cursor.next())
+            {
+                read.add(cursor.index());
+            }
+
+            Test.AreEqual(expected.toString(), read.toString(), "All filters combine");
+
+            read.clear();
+            cursor = shapeList.cursor().areaBetween(30, 31);
+            while (cursor.next())
+            {
+                read.add(cursor.index());
+            }
+
+            expected.clear();
+            for (int i = 0; i < shapeList.size(); i++)
+            {
+                if (shapeList.areaAt(i) >= 30 && shapeList.areaAt(i) <= 31) expected.add(i);
+            }
+
+            Test.AreEqual(expected.toString(), read.toString(), "An area range is read from the area order");
+
+            cursor = shapeList.cursor().rectangles().limit(1);
+            Test.AreEqual(true, cursor.next(), "There is a rectangle");
+            Test.AreEqual(shapeList.shapeAt(1).toString(), cursor.shape().toString(), "The first rectangle is at index 1");
+            Test.AreEqual(shapeList.shapeAt(1).Area(), cursor.area(), "The fields are read without rendering");
+            Test.AreEqual(false, cursor.next(), "The limit ends the cursor");
+
+            ShapeCursor open = shapeList.cursor();
+            shapeList.removeShapeAtIndex(0);
+            boolean failed = false;
+            try
+            {
+                open.next();
+            }
+            catch (ConcurrentModificationException ex)
+            {
+                failed = true;
+            }
+
+            Test.AreEqual(true, failed, "A cursor can not read a list that changed");
+        });
+
+        Test.Case("export writes shapes that import and load read back unchanged", () ->
+        {
+            try
+            {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ShapeListEditor editor = new ShapeListEditor(output);
+                editor.showAfterChanges(false);
+                Path directory = Files.createTempDirectory("export");
+                Path csv = directory.resolve("shapes.csv");
+                Path ndjson = directory.resolve("shapes.ndjson");
+                Path binary = directory.resolve("shapes.shapes");
+                editor.runBatch(new BufferedReader(new StringReader(
+                    "circle 0.1 -2 3\nrectangle 1e20 0.3333333333333333 4 5\nexport " + csv + "\nexport " + ndjson + "\nexport " + binary + "\n")));
+                Test.AreEqual(true, output.toString().contains("Exported 2 shape(s) to " + csv + " in "), "The export is reported");
+                Test.AreEqual("circle,0.1,-2.0,3.0", Files.readAllLines(csv).get(0), "CSV lines are the ones import reads");
+
+                for (Path file : Arrays.asList(csv, ndjson))
+                {
+                    ShapeList imported = new ShapeList(10);
+                    ShapeImport.read(file, imported);
+                    Test.AreEqual(new Circle(0.1, -2, 3).toString(), imported.shapeAt(0).toString(), "The circle is read back from " + file);
+                    Test.AreEqual(new Rectangle(1e20, 1.0 / 3, 4, 5).toString(), imported.shapeAt(1).toString(), "The rectangle is read back from " + file);
+                }
+
+                ShapeList infinite = new ShapeList(10);
+                infinite.addCircle(0, 0, 1);
+                infinite.addRectangle(0, Double.NEGATIVE_INFINITY, 1, 1);
+                String error = "";
+                try
+                {
+                    ShapeExport.write(infinite.cursor(), ndjson);
+                }
+                catch (IOException ex)
+                {
+                    error = ex.getMessage();
+                }
+
+                Test.AreEqual("Shape 1 of the export has an infinite coordinate or size, which JSON can not represent", error, "NDJSON does not write infinite numbers, which are not valid JSON");
+                Test.AreEqual(2, Files.readAllLines(ndjson).size(), "The earlier export is kept when an export fails");
+
+                MappedShapes mapped = ShapeFile.open(binary);
+                Test.AreEqual(2, mapped.size(), "The header of the binary file holds the number of exported shapes");
+                Test.AreEqual(new Rectangle(1e20, 1.0 / 3, 4, 5).toString(), mapped.shapeAt(1).toString(), "The binary file can be loaded");
+
+                ShapeList shapeList = new ShapeList(10);
+                shapeList.addCircle(0, 0, 1);
+                shapeList.addRectangle(5, 5, 1, 1);
+                shapeList.addCircle(9, 9, 1);
+                Test.AreEqual(2L, ShapeFile.save(shapeList.cursor().circles(), binary), "A filtered cursor exports only its shapes");
+                Test.AreEqual(new Circle(9, 9, 1).toString(), ShapeFile.open(binary).shapeAt(1).toString(), "The matching shapes are written in order");
+
+                for (Path file : Arrays.asList(csv, ndjson, binary))
+                {
+                    Files.delete(file);
+                }
+
+                Files.delete(directory);
+            }
+            catch (IOException ex)
+            {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        Test.Case("the area tree answers top-k and area ranges like a sort while the list changes", () ->
+        {
+            Random random = new Random(25);
+            ShapeList shapeList = new ShapeList(2000);
+            for (int k = 0; k < 300; k++)
+            {
+                // few distinct sizes, so many shapes share an area
+                shapeList.addCircle(random.nextInt(100), random.nextInt(100), 1 + random.nextInt(5));
+                shapeList.addRectangle(random.nextInt(100), random.nextInt(100), 1 + random.nextInt(5), 1 + random.nextInt(5));
+            }
+
+            Test.AreEqual(0, shapeList.largestByArea(0).length, "Asking for no shapes finds none");
+            for (int round = 0; round < 40; round++)
+            {
+                int change = random.nextInt(6);
+                if (change == 0)
+                {
+                    shapeList.removeShapeAtIndex(random.nextInt(shapeList.size()));
+                }
+                else if (change == 1)
+                {
+                    shapeList.swapRemoveShapeAtIndex(random.nextInt(shapeList.size()));
+                }
+                else if (change == 2)
+                {
+                    shapeList.sortByLeftBorder();
+                }
+                else if (change == 3)
+                {
+                    shapeList.moveShapeAtIndex(random.nextInt(shapeList.size()), 3, -2);
+                }
+                else
+                {
+                    for (int k = 0; k < 20; k++)
+                    {
+                        shapeList.addRectangle(random.nextInt(100), random.nextInt(100), 1 + random.nextInt(5), 1 + random.nextInt(5));
+                    }
+                }
+
+                List<Integer> bySize = new ArrayList<Integer>();
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    bySize.add(i);
+                }
+
+                bySize.sort((a, b) -> Double.compare(shapeList.shapeAt(b).Area(), shapeList.shapeAt(a).Area()));
+                String before = shapeList.shapeAt(0).toString();
+                int[] top = shapeList.largestByArea(25);
+                Test.AreEqual(before, shapeList.shapeAt(0).toString(), "Round " + round + " leaves the list in its order");
+                Test.AreEqual(25, top.length, "Round " + round + " finds 25 shapes");
+                boolean largest = true;
+                for (int k = 0; k < top.length; k++)
+                {
+                    largest &= shapeList.shapeAt(top[k]).Area() == shapeList.shapeAt(bySize.get(k)).Area();
+                }
+
+                Test.AreEqual(true, largest, "Round " + round + " finds the largest shapes, largest first");
+
+                double min = random.nextInt(40);
+                double max = min + random.nextInt(20);
+                int[] between = shapeList.shapesWithAreaBetween(max, min);
+                List<String> expected = new ArrayList<String>();
+                for (int i = 0; i < shapeList.size(); i++)
+                {
+                    double area = shapeList.shapeAt(i).Area();
+                    if (area >= min && area <= max)
+                    {
+                        expected.add(area + " at " + i);
+                    }
+                }
+
+                List<String> actual = new ArrayList<String>();
+                boolean ascending = true;
+                for (int k = 0; k < between.length; k++)
+                {
+                    actual.add(shapeList.shapeAt(between[k]).Area() + " at " + between[k]);
+                    ascending &= k == 0 || shapeList.shapeAt(between[k - 1]).Area() <= shapeList.shapeAt(between[k]).Area();
+                }
+
+                Collections.sort(expected);
+                Collections.sort(actual);
+                Test.AreEqual(expected.toString(), actual.toString(), "Round " + round + " finds every shape with an area in [" + min + ", " + max + "]");
+                Test.AreEqual(true, ascending, "Round " + round + " lists the range smallest first");
+                Test.AreEqual(expected.size(), shapeList.countWithAreaBetween(min, max), "Round " + round + " counts the shapes in the range");
+            }
+
+            Test.AreEqual(shapeList.size(), shapeList.largestByArea(Integer.MAX_VALUE).length, "Asking for more shapes than there are finds them all");
+        });
+
+        Test.Case("the top and area commands list shapes by area", () ->
+        {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ShapeListEditor editor = new ShapeListEditor(output);
+            try
+            {
+                String script = "top 2\nrectangle 0 0 1 1\nrectangle 0 0 3 3\nrectangle 0 0 2 2\ntop 2\narea 3 10\narea 100 200\ntop 1.5\n";
+                editor.runBatch(new BufferedReader(new StringReader(script)));
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            String nl = System.lineSeparator();
+            String printed = output.toString();
+            String large = new Rectangle(0, 0, 3, 3).toString();
+            String middle = new Rectangle(0, 0, 2, 2).toString();
+            Test.AreEqual(true, printed.contains("No shapes were found"), "An empty list has no largest shapes");
+            Test.AreEqual(true, printed.contains("Found 2 shape(s):" + nl + " |-- 1: " + large + nl + " |-- 2: " + middle + nl), "The largest shapes are listed first");
+            Test.AreEqual(true, printed.contains("Found 2 shape(s):" + nl + " |-- 2: " + middle + nl + " |-- 1: " + large + nl), "The area range is listed smallest first");
+            Test.AreEqual(true, printed.contains("The argument of the top command must be a non-negative whole number"), "The number of shapes must be whole");
+        });
+
+        Test.Report();
+    }
+}
\ No newline at end of file